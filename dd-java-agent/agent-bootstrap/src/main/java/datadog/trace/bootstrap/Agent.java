@@ -1,6 +1,8 @@
 // Modified by SignalFx
 package datadog.trace.bootstrap;
 
+import datadog.trace.api.Config;
+import java.io.File;
 import java.lang.instrument.Instrumentation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -342,9 +344,20 @@ public class Agent {
         ClassLoader.getSystemClassLoader().loadClass("datadog.trace.bootstrap.DatadogClassLoader");
     final Constructor constructor =
         loaderClass.getDeclaredConstructor(
-            URL.class, String.class, ClassLoader.class, ClassLoader.class);
+            URL.class, String.class, File.class, ClassLoader.class, ClassLoader.class);
     return (ClassLoader)
-        constructor.newInstance(bootstrapURL, innerJarFilename, BOOTSTRAP_PROXY, parent);
+        constructor.newInstance(
+            bootstrapURL, innerJarFilename, getAgentClassesDir(), BOOTSTRAP_PROXY, parent);
+  }
+
+  /**
+   * Determine where to extract the internal jars to according to trace.agent.classes.dir
+   *
+   * @return the directory, or null to read the internal jars from the bootstrap jar
+   */
+  private static File getAgentClassesDir() {
+    final String dir = Config.get().getAgentClassesDir();
+    return dir == null ? null : new File(dir);
   }
 
   private static ClassLoader getPlatformClassLoader()
@@ -1,5 +1,6 @@
 package datadog.trace.bootstrap;
 
+import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -10,6 +11,9 @@ import lombok.extern.slf4j.Slf4j;
  *
  * <p>It is built around the concept of a jar inside another jar. This classloader loads the files
  * of the internal jar to load classes and resources.
+ *
+ * <p>Given a directory, the internal jar is rather extracted there once, see {@link
+ * InternalJarExtractor}, and loaded like any other jar.
  */
 @Slf4j
 public class DatadogClassLoader extends URLClassLoader {
@@ -35,10 +39,42 @@ public class DatadogClassLoader extends URLClassLoader {
       final String internalJarFileName,
       final ClassLoader bootstrapProxy,
       final ClassLoader parent) {
+    this(bootstrapJarLocation, internalJarFileName, null, bootstrapProxy, parent);
+  }
+
+  /**
+   * Construct a new DatadogClassLoader
+   *
+   * @param bootstrapJarLocation Used for resource lookups.
+   * @param internalJarFileName File name of the internal jar
+   * @param extractDirectory Directory to extract the internal jar into, or null to read it from the
+   *     bootstrap jar
+   * @param parent Classloader parent. Should null (bootstrap), or the platform classloader for java
+   *     9+.
+   */
+  public DatadogClassLoader(
+      final URL bootstrapJarLocation,
+      final String internalJarFileName,
+      final File extractDirectory,
+      final ClassLoader bootstrapProxy,
+      final ClassLoader parent) {
     super(new URL[] {}, parent);
 
     this.bootstrapProxy = bootstrapProxy;
 
+    if (extractDirectory != null && bootstrapJarLocation != null) {
+      final File extracted =
+          InternalJarExtractor.extract(bootstrapJarLocation, internalJarFileName, extractDirectory);
+      if (extracted != null) {
+        try {
+          addURL(extracted.toURI().toURL());
+          return;
+        } catch (final MalformedURLException e) {
+          log.warn("Unable to load {}, reading the internal jar instead", extracted, e);
+        }
+      }
+    }
+
     try {
       // The fields of the URL are mostly dummy.  InternalJarURLHandler is the only important
       // field.  If extending this class from Classloader instead of URLClassloader required less
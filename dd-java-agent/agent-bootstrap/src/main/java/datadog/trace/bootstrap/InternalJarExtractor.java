@@ -0,0 +1,106 @@
+package datadog.trace.bootstrap;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Extracts an internal jar of the bootstrap jar into a plain jar of its own, once per bootstrap
+ * jar.
+ *
+ * <p>Classes of the extracted jar are read by the JDK's own jar support, with its cached central
+ * directory, rather than through {@link InternalJarURLHandler} and a connection per class. Being
+ * loaded from a jar file, they can also be archived by application class data sharing.
+ *
+ * <p>The extracted jar is named after the size and modification time of the bootstrap jar, so that
+ * later starts reuse it and an upgraded agent extracts its own.
+ */
+@Slf4j
+final class InternalJarExtractor {
+  private static final String CLASS_DATA = ".classdata";
+  private static final String CLASS = ".class";
+
+  private InternalJarExtractor() {}
+
+  /** @return the extracted jar, or null if the internal jar cannot be extracted */
+  static File extract(
+      final URL bootstrapJarLocation, final String internalJarFileName, final File directory) {
+    try {
+      final File bootstrapJar = new File(bootstrapJarLocation.toURI());
+      final File extracted =
+          new File(
+              directory,
+              internalJarFileName
+                  + '-'
+                  + Long.toHexString(bootstrapJar.length())
+                  + '-'
+                  + Long.toHexString(bootstrapJar.lastModified())
+                  + ".jar");
+      if (!extracted.isFile()) {
+        extract(bootstrapJar, internalJarFileName + "/", extracted);
+      }
+      return extracted;
+    } catch (final URISyntaxException | IOException | RuntimeException e) {
+      log.warn("Unable to extract internal jar {} into {}", internalJarFileName, directory, e);
+      return null;
+    }
+  }
+
+  private static void extract(final File bootstrapJar, final String prefix, final File extracted)
+      throws IOException {
+    final File directory = extracted.getAbsoluteFile().getParentFile();
+    directory.mkdirs();
+    // Written aside then moved, so that concurrently starting JVMs never read a partial jar.
+    final File temp = File.createTempFile(extracted.getName(), ".tmp", directory);
+    try {
+      try (final JarFile jar = new JarFile(bootstrapJar, false);
+          final JarOutputStream out = new JarOutputStream(new FileOutputStream(temp))) {
+        final byte[] buffer = new byte[8192];
+        final Enumeration<JarEntry> entries = jar.entries();
+        while (entries.hasMoreElements()) {
+          final JarEntry entry = entries.nextElement();
+          if (entry.isDirectory() || !entry.getName().startsWith(prefix)) {
+            continue;
+          }
+          String name = entry.getName().substring(prefix.length());
+          if (name.endsWith(CLASS_DATA)) {
+            name = name.substring(0, name.length() - CLASS_DATA.length()) + CLASS;
+          }
+          out.putNextEntry(new JarEntry(name));
+          try (final InputStream in = jar.getInputStream(entry)) {
+            copy(in, out, buffer);
+          }
+          out.closeEntry();
+        }
+      }
+      Files.move(temp.toPath(), extracted.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      log.debug("Extracted {} into {}", prefix, extracted);
+    } catch (final IOException e) {
+      if (!extracted.isFile()) {
+        throw e;
+      }
+      // Extracted concurrently by another JVM.
+    } finally {
+      temp.delete();
+    }
+  }
+
+  private static void copy(final InputStream in, final OutputStream out, final byte[] buffer)
+      throws IOException {
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+  }
+}
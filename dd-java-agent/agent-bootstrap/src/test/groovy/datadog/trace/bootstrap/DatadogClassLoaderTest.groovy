@@ -5,6 +5,9 @@ import spock.lang.Timeout
 
 import java.util.concurrent.Phaser
 import java.util.concurrent.TimeUnit
+import java.util.jar.JarEntry
+import java.util.jar.JarFile
+import java.util.jar.JarOutputStream
 
 class DatadogClassLoaderTest extends Specification {
   @Timeout(value = 60, unit = TimeUnit.SECONDS)
@@ -49,4 +52,51 @@ class DatadogClassLoaderTest extends Specification {
     then:
     applicationDidNotDeadlock
   }
+
+  def "DD classloader loads the internal jar extracted into a directory"() {
+    setup:
+    def dir = File.createTempDir()
+    def bootstrapJar = new File(dir, "bootstrap.jar")
+    new JarOutputStream(new FileOutputStream(bootstrapJar)).withCloseable { out ->
+      [
+        "inner.isolated/some/Name.classdata",
+        "inner.isolated/some/resource.txt",
+        "other/Other.classdata"
+      ].each {
+        out.putNextEntry(new JarEntry(it))
+        out.write(it.bytes)
+        out.closeEntry()
+      }
+    }
+    def extractDir = new File(dir, "classes")
+
+    when:
+    def ddLoader = new DatadogClassLoader(bootstrapJar.toURI().toURL(),
+      "inner.isolated",
+      extractDir,
+      new DatadogClassLoader.BootstrapClassLoaderProxy(),
+      null)
+    def extracted = extractDir.listFiles()
+
+    then:
+    extracted.length == 1
+    new JarFile(extracted[0]).withCloseable { jar -> jar.entries().collect { it.name } } ==
+      ["some/Name.class", "some/resource.txt"]
+    ddLoader.getResource("some/resource.txt").text == "inner.isolated/some/resource.txt"
+
+    when:
+    extracted[0].setLastModified(0)
+    new DatadogClassLoader(bootstrapJar.toURI().toURL(),
+      "inner.isolated",
+      extractDir,
+      new DatadogClassLoader.BootstrapClassLoaderProxy(),
+      null)
+
+    then: "the extracted jar is reused"
+    extractDir.listFiles() as List == extracted as List
+    extracted[0].lastModified() == 0
+
+    cleanup:
+    dir.deleteDir()
+  }
 }
@@ -3,26 +3,23 @@ package datadog.trace.agent.tooling;
 import static datadog.trace.agent.tooling.ClassLoaderMatcher.skipClassLoader;
 import static datadog.trace.agent.tooling.bytebuddy.matcher.GlobalIgnoresMatcher.globalIgnoresMatcher;
 import static net.bytebuddy.matcher.ElementMatchers.any;
-import static net.bytebuddy.matcher.ElementMatchers.nameStartsWith;
-import static net.bytebuddy.matcher.ElementMatchers.named;
-import static net.bytebuddy.matcher.ElementMatchers.none;
 
 import datadog.trace.agent.tooling.context.FieldBackedProvider;
 import datadog.trace.api.Config;
+import java.io.File;
 import java.lang.instrument.Instrumentation;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.agent.builder.ResettableClassFileTransformer;
 import net.bytebuddy.description.type.TypeDefinition;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.dynamic.DynamicType;
-import net.bytebuddy.matcher.ElementMatcher;
 import net.bytebuddy.utility.JavaModule;
 
 @Slf4j
@@ -72,9 +69,28 @@ public class AgentInstaller {
             .ignore(any(), skipClassLoader());
 
     ignoredAgentBuilder =
-        ignoredAgentBuilder.or(globalIgnoresMatcher(skipAdditionalLibraryMatcher));
-
-    ignoredAgentBuilder = ignoredAgentBuilder.or(matchesConfiguredExcludes());
+        ignoredAgentBuilder.or(
+            globalIgnoresMatcher(skipAdditionalLibraryMatcher, Config.get().getExcludedClasses()));
+
+    final long startNanos = System.nanoTime();
+    final List<Instrumenter> instrumenters =
+        InstrumenterLoader.load(
+            AgentInstaller.class.getClassLoader(), Config.get().getInstrumentersLoadingThreads());
+    final long loadedNanos = System.nanoTime();
+    // Matching is split in two: classes are first looked up in the index, and only offered to the
+    // type matchers of the instrumenters that can match them.
+    final InstrumenterIndex index = new InstrumenterIndex(instrumenters);
+
+    final String decisionCacheFile = Config.get().getClassesDecisionCacheFile();
+    if (decisionCacheFile != null) {
+      final ClassDecisionCache decisionCache =
+          new ClassDecisionCache(
+              new File(decisionCacheFile),
+              ClassDecisionCache.fingerprint(Config.get(), index),
+              index);
+      decisionCache.saveOnShutdown();
+      ignoredAgentBuilder = ignoredAgentBuilder.or(decisionCache);
+    }
 
     AgentBuilder agentBuilder = ignoredAgentBuilder;
     if (log.isDebugEnabled()) {
@@ -88,21 +104,32 @@ public class AgentInstaller {
     for (final AgentBuilder.Listener listener : listeners) {
       agentBuilder = agentBuilder.with(listener);
     }
+    // Every enabled instrumenter is registered up front, including those of libraries the
+    // application never loads: the builder is turned into a single transformer, which cannot be
+    // extended once a trigger class shows up. The index keeps their matchers from running instead.
     int numInstrumenters = 0;
-    for (final Instrumenter instrumenter :
-        ServiceLoader.load(Instrumenter.class, AgentInstaller.class.getClassLoader())) {
+    for (final Instrumenter instrumenter : instrumenters) {
       log.debug("Loading instrumentation {}", instrumenter.getClass().getName());
 
       try {
-        agentBuilder = instrumenter.instrument(agentBuilder);
+        if (instrumenter instanceof Instrumenter.Default) {
+          agentBuilder = ((Instrumenter.Default) instrumenter).instrument(agentBuilder, index);
+        } else {
+          agentBuilder = instrumenter.instrument(agentBuilder);
+        }
         numInstrumenters++;
       } catch (final Exception | LinkageError e) {
         log.error("Unable to load instrumentation {}", instrumenter.getClass().getName(), e);
       }
     }
-    log.debug("Installed {} instrumenter(s)", numInstrumenters);
-
-    return agentBuilder.installOn(inst);
+    final ResettableClassFileTransformer transformer = agentBuilder.installOn(inst);
+    log.debug(
+        "Installed {} instrumenter(s) in {} ms, {} ms of which loading them",
+        numInstrumenters,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+        TimeUnit.NANOSECONDS.toMillis(loadedNanos - startNanos));
+
+    return transformer;
   }
 
   private static void addByteBuddyRawSetting() {
@@ -122,22 +149,6 @@ public class AgentInstaller {
     }
   }
 
-  private static ElementMatcher.Junction<Object> matchesConfiguredExcludes() {
-    final List<String> excludedClasses = Config.get().getExcludedClasses();
-    ElementMatcher.Junction matcher = none();
-    for (String excludedClass : excludedClasses) {
-      excludedClass = excludedClass.trim();
-      if (excludedClass.endsWith("*")) {
-        // remove the trailing *
-        final String prefix = excludedClass.substring(0, excludedClass.length() - 1);
-        matcher = matcher.or(nameStartsWith(prefix));
-      } else {
-        matcher = matcher.or(named(excludedClass));
-      }
-    }
-    return matcher;
-  }
-
   @Slf4j
   static class RedefinitionLoggingListener implements AgentBuilder.RedefinitionStrategy.Listener {
 
@@ -0,0 +1,432 @@
+package datadog.trace.agent.tooling;
+
+import datadog.trace.api.Config;
+import datadog.trace.api.DDTraceApiInfo;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.ProtectionDomain;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDefinition;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.utility.JavaModule;
+
+/**
+ * Remembers across JVM restarts which classes of which jars no instrumenter can transform, so that
+ * later starts ignore these classes without evaluating any matcher.
+ *
+ * <p>Whether a class can be transformed is decided by the type matchers only: class loader matchers
+ * and muzzle depend on the class loader as a whole rather than on a jar, so they are still
+ * evaluated for the classes that can be transformed.
+ *
+ * <p>A jar is identified by its location, size and a checksum of its central directory, which lists
+ * the name, size and CRC of every entry. Modification times are not used: image builders such as
+ * Jib normalize them, so a rebuilt jar would keep its stale decisions. Since class hierarchies span
+ * jars, the jars of the super types of a class are listed along with its own, and the whole cache is
+ * discarded when any jar it lists changed, or when the agent version, the configuration, the
+ * enabled instrumenters, the class path or the JVM differ from the ones it was written with.
+ * Classes loaded from directories or unreadable jars, or with a super type loaded from one, are not
+ * cached.
+ */
+@Slf4j
+final class ClassDecisionCache implements AgentBuilder.RawMatcher {
+  private static final String FORMAT = "v3";
+  private static final String JAR = "jar ";
+  private static final String NO_MATCH = "- ";
+  private static final String MATCH = "+ ";
+
+  private static final JarDecisions NOT_CACHED = new JarDecisions("", 0, 0);
+
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+  private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+  /** Returned by {@link #checksum(File)} for files that are not readable zip files. */
+  static final long NO_CHECKSUM = -1;
+
+  private final File file;
+  private final String fingerprint;
+  private final InstrumenterIndex index;
+
+  /** Decisions by jar location, as written to the file. */
+  private final ConcurrentMap<String, JarDecisions> jars = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<URL, JarDecisions> byLocation = new ConcurrentHashMap<>();
+  private volatile boolean changed = false;
+
+  /**
+   * @param fingerprint identifies the agent and settings decisions are only valid for
+   * @param index decides for the classes not in the file yet
+   */
+  ClassDecisionCache(final File file, final String fingerprint, final InstrumenterIndex index) {
+    this.file = file;
+    this.fingerprint = fingerprint;
+    this.index = index;
+    load();
+  }
+
+  /**
+   * @return a fingerprint of the agent version, configuration, enabled instrumenters, class path and
+   *     JVM
+   */
+  static String fingerprint(final Config config, final InstrumenterIndex index) {
+    final String settings =
+        DDTraceApiInfo.VERSION
+            + '\n'
+            // The runtime id changes on every start.
+            + config.toString().replace(config.getRuntimeId(), "")
+            + '\n'
+            // Integrations are enabled by settings Config doesn't list.
+            + index.signature()
+            + System.getProperty("java.class.path")
+            + '\n'
+            + System.getProperty("java.vm.version");
+    try {
+      final byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(settings.getBytes(StandardCharsets.UTF_8));
+      final StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (final byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (final NoSuchAlgorithmException e) {
+      return Integer.toHexString(settings.hashCode());
+    }
+  }
+
+  /** @return whether the class is known to be ignored: no instrumenter can transform it */
+  @Override
+  public boolean matches(
+      final TypeDescription typeDescription,
+      final ClassLoader classLoader,
+      final JavaModule module,
+      final Class<?> classBeingRedefined,
+      final ProtectionDomain protectionDomain) {
+    if (classBeingRedefined != null || protectionDomain == null) {
+      return false;
+    }
+    final CodeSource codeSource = protectionDomain.getCodeSource();
+    final URL location = codeSource == null ? null : codeSource.getLocation();
+    if (location == null) {
+      return false;
+    }
+    final JarDecisions jar = jar(location);
+    if (jar == NOT_CACHED) {
+      return false;
+    }
+    final String name = typeDescription.getName();
+    if (jar.unmatched.contains(name)) {
+      return true;
+    }
+    if (jar.matched.contains(name)) {
+      return false;
+    }
+    if (!superTypesInJars(typeDescription, classLoader)) {
+      return false;
+    }
+    final boolean canMatch = index.canMatch(typeDescription);
+    (canMatch ? jar.matched : jar.unmatched).add(name);
+    changed = true;
+    return !canMatch;
+  }
+
+  /**
+   * Lists the jars of the super types of a type, which its decision depends on.
+   *
+   * @return whether every super type comes from a jar or from the JVM's runtime image
+   */
+  private boolean superTypesInJars(final TypeDescription type, final ClassLoader classLoader) {
+    final Set<String> visited = new HashSet<>();
+    final Queue<TypeDefinition> queue = new ArrayDeque<>();
+    try {
+      addSuperTypes(type, queue);
+      TypeDefinition next;
+      while ((next = queue.poll()) != null) {
+        final TypeDescription erasure = next.asErasure();
+        if (!visited.add(erasure.getName())) {
+          continue;
+        }
+        final String resource = erasure.getInternalName() + ".class";
+        final URL url =
+            classLoader == null
+                ? ClassLoader.getSystemResource(resource)
+                : classLoader.getResource(resource);
+        if (url == null) {
+          return false;
+        }
+        // The JVM version is part of the fingerprint.
+        if (!"jrt".equals(url.getProtocol())) {
+          final String spec = url.toExternalForm();
+          if (!spec.endsWith(resource)) {
+            return false;
+          }
+          final URL location = new URL(spec.substring(0, spec.length() - resource.length()));
+          if (jar(location) == NOT_CACHED) {
+            return false;
+          }
+        }
+        addSuperTypes(erasure, queue);
+      }
+      return true;
+    } catch (final Exception e) {
+      // Resolved again, and reported, by the type matchers.
+      return false;
+    }
+  }
+
+  private static void addSuperTypes(final TypeDescription type, final Queue<TypeDefinition> queue) {
+    final TypeDefinition superClass = type.getSuperClass();
+    if (superClass != null) {
+      queue.add(superClass);
+    }
+    for (final TypeDefinition interfaceType : type.getInterfaces()) {
+      queue.add(interfaceType);
+    }
+  }
+
+  private JarDecisions jar(final URL location) {
+    final String protocol = location.getProtocol();
+    if (!"file".equals(protocol) && !"jar".equals(protocol)) {
+      return NOT_CACHED;
+    }
+    JarDecisions jar = byLocation.get(location);
+    if (jar == null) {
+      final String spec = location.toExternalForm();
+      final File jarFile = jarFile(spec);
+      final long checksum = jarFile == null ? NO_CHECKSUM : checksum(jarFile);
+      if (checksum == NO_CHECKSUM) {
+        jar = NOT_CACHED;
+      } else {
+        jar = new JarDecisions(spec, jarFile.length(), checksum);
+        final JarDecisions loaded = jars.putIfAbsent(spec, jar);
+        if (loaded != null) {
+          jar = loaded;
+        }
+      }
+      byLocation.put(location, jar);
+    }
+    return jar;
+  }
+
+  /** @return the local file of a jar location, possibly nested in another jar */
+  static File jarFile(final String location) {
+    String spec = location;
+    if (spec.startsWith("jar:")) {
+      final int separator = spec.indexOf("!/");
+      if (separator < 0) {
+        return null;
+      }
+      spec = spec.substring("jar:".length(), separator);
+    }
+    if (!spec.startsWith("file:")) {
+      return null;
+    }
+    try {
+      return new File(new URI(spec));
+    } catch (final Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Reads only the central directory at the end of the file, rather than the whole jar.
+   *
+   * @return a CRC of the central directory of a zip file, or {@link #NO_CHECKSUM}
+   */
+  static long checksum(final File file) {
+    if (!file.isFile()) {
+      return NO_CHECKSUM;
+    }
+    try (final RandomAccessFile zip = new RandomAccessFile(file, "r")) {
+      final long length = zip.length();
+      final int tailLength =
+          (int) Math.min(length, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_LENGTH);
+      final byte[] tail = new byte[tailLength];
+      zip.seek(length - tailLength);
+      zip.readFully(tail);
+
+      // The end of central directory record is followed by a comment of the length it states.
+      for (int i = tailLength - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+        if (readInt(tail, i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE
+            && readShort(tail, i + 20) == tailLength - END_OF_CENTRAL_DIRECTORY_SIZE - i) {
+          final long directorySize = readInt(tail, i + 12) & 0xFFFFFFFFL;
+          final long directoryStart = length - tailLength + i - directorySize;
+          // Zip64 archives store the real size elsewhere.
+          if (directorySize == 0xFFFFFFFFL || directoryStart < 0) {
+            return NO_CHECKSUM;
+          }
+          final CRC32 crc = new CRC32();
+          final byte[] buffer = new byte[8192];
+          zip.seek(directoryStart);
+          int read;
+          while ((read = zip.read(buffer)) > 0) {
+            crc.update(buffer, 0, read);
+          }
+          return crc.getValue();
+        }
+      }
+      return NO_CHECKSUM;
+    } catch (final IOException e) {
+      return NO_CHECKSUM;
+    }
+  }
+
+  private static int readInt(final byte[] bytes, final int offset) {
+    return (bytes[offset] & 0xFF)
+        | (bytes[offset + 1] & 0xFF) << 8
+        | (bytes[offset + 2] & 0xFF) << 16
+        | (bytes[offset + 3] & 0xFF) << 24;
+  }
+
+  private static int readShort(final byte[] bytes, final int offset) {
+    return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+  }
+
+  private void load() {
+    if (!file.isFile()) {
+      return;
+    }
+    final Map<String, JarDecisions> loaded = new HashMap<>();
+    try (final BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      if (!(FORMAT + " " + fingerprint).equals(reader.readLine())) {
+        log.debug("Discarding {}: agent, configuration or class path changed", file);
+        return;
+      }
+      JarDecisions jar = null;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith(JAR)) {
+          final String[] fields = line.split(" ", 4);
+          jar = new JarDecisions(fields[3], Long.parseLong(fields[1]), Long.parseLong(fields[2]));
+          final File jarFile = jarFile(jar.location);
+          if (jarFile == null
+              || !jarFile.isFile()
+              || jarFile.length() != jar.length
+              || checksum(jarFile) != jar.checksum) {
+            log.debug("Discarding {}: {} changed", file, jar.location);
+            return;
+          }
+          loaded.put(jar.location, jar);
+        } else if (jar != null && line.startsWith(NO_MATCH)) {
+          jar.unmatched.add(line.substring(NO_MATCH.length()));
+        } else if (jar != null && line.startsWith(MATCH)) {
+          jar.matched.add(line.substring(MATCH.length()));
+        } else {
+          log.debug("Discarding {}: unexpected line {}", file, line);
+          return;
+        }
+      }
+    } catch (final IOException | RuntimeException e) {
+      log.debug("Unable to read {}", file, e);
+      return;
+    }
+    jars.putAll(loaded);
+    log.debug("Loaded decisions for {} jars from {}", loaded.size(), file);
+  }
+
+  /** Writes the decisions, if any was added since the cache was loaded. */
+  void save() {
+    if (!changed) {
+      return;
+    }
+    File temp = null;
+    try {
+      final File directory = file.getAbsoluteFile().getParentFile();
+      directory.mkdirs();
+      // Written aside then moved, so that concurrently starting JVMs never read a partial file.
+      temp = File.createTempFile(file.getName(), ".tmp", directory);
+      try (final Writer writer =
+          new BufferedWriter(
+              new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+        writer.write(FORMAT + " " + fingerprint + "\n");
+        for (final JarDecisions jar : jars.values()) {
+          writer.write(JAR + jar.length + " " + jar.checksum + " " + jar.location + "\n");
+          for (final String name : jar.unmatched) {
+            writer.write(NO_MATCH + name + "\n");
+          }
+          for (final String name : jar.matched) {
+            writer.write(MATCH + name + "\n");
+          }
+        }
+      }
+      Files.move(
+          temp.toPath(),
+          file.toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      changed = false;
+    } catch (final IOException | RuntimeException e) {
+      log.debug("Unable to write {}", file, e);
+      if (temp != null) {
+        temp.delete();
+      }
+    }
+  }
+
+  void saveOnShutdown() {
+    try {
+      Runtime.getRuntime().addShutdownHook(new ShutdownHook(this));
+    } catch (final IllegalStateException ex) {
+      // The JVM is already shutting down.
+    }
+  }
+
+  private static class ShutdownHook extends Thread {
+    private final ClassDecisionCache cache;
+
+    private ShutdownHook(final ClassDecisionCache cache) {
+      super("dd-class-decision-cache-writer");
+      this.cache = cache;
+    }
+
+    @Override
+    public void run() {
+      cache.save();
+    }
+  }
+
+  private static class JarDecisions {
+    final String location;
+    final long length;
+    final long checksum;
+    final Set<String> unmatched = newConcurrentSet();
+    final Set<String> matched = newConcurrentSet();
+
+    JarDecisions(final String location, final long length, final long checksum) {
+      this.location = location;
+      this.length = length;
+      this.checksum = checksum;
+    }
+
+    private static Set<String> newConcurrentSet() {
+      return Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    }
+  }
+}
@@ -3,6 +3,7 @@ package datadog.trace.agent.tooling;
 import static datadog.trace.agent.tooling.ClassLoaderMatcher.BOOTSTRAP_CLASSLOADER;
 import static datadog.trace.bootstrap.WeakMap.Provider.newWeakMap;
 
+import datadog.trace.api.Config;
 import datadog.trace.bootstrap.WeakMap;
 import java.io.File;
 import java.io.IOException;
@@ -39,6 +40,11 @@ public class HelperInjector implements Transformer {
         }
       };
 
+  // Defining helpers in the bootstrap classloader from memory saves writing a jar per injection,
+  // but relies on Unsafe, so it is only done when enabled.
+  private static final boolean INJECT_BOOTSTRAP_FROM_MEMORY =
+      Config.get().isUnsafeHelperInjection() && ClassInjector.UsingUnsafe.isAvailable();
+
   private final String requestingName;
 
   private final Set<String> helperClassNames;
@@ -146,6 +152,10 @@ public class HelperInjector implements Transformer {
 
   private Map<String, Class<?>> injectBootstrapClassLoader(
       final Map<String, byte[]> classnameToBytes) throws IOException {
+    if (INJECT_BOOTSTRAP_FROM_MEMORY) {
+      return ClassInjector.UsingUnsafe.ofBootLoader().injectRaw(classnameToBytes);
+    }
+
     // Mar 2020: Since we're proactively cleaning up tempDirs, we cannot share dirs per thread.
     // If this proves expensive, we could do a per-process tempDir with
     // a reference count -- but for now, starting simple.
@@ -77,21 +77,36 @@ public interface Instrumenter {
 
     @Override
     public final AgentBuilder instrument(final AgentBuilder parentAgentBuilder) {
+      return instrument(parentAgentBuilder, null);
+    }
+
+    /**
+     * @param index when not null, classes the index rules out are not offered to {@link
+     *     #typeMatcher()}
+     */
+    final AgentBuilder instrument(
+        final AgentBuilder parentAgentBuilder, final InstrumenterIndex index) {
       if (!enabled) {
         log.debug("Instrumentation {} is disabled", this);
         return parentAgentBuilder;
       }
 
+      AgentBuilder.Identified.Narrowable matcher =
+          parentAgentBuilder.type(
+              any(),
+              failSafe(
+                  classLoaderMatcher(),
+                  "Instrumentation class loader matcher unexpected exception: "
+                      + getClass().getName()));
+      if (index != null) {
+        matcher = matcher.and(index.candidateMatcher(this));
+      }
       AgentBuilder.Identified.Extendable agentBuilder =
-          parentAgentBuilder
-              .type(
+          matcher
+              .and(
                   failSafe(
                       typeMatcher(),
-                      "Instrumentation type matcher unexpected exception: " + getClass().getName()),
-                  failSafe(
-                      classLoaderMatcher(),
-                      "Instrumentation class loader matcher unexpected exception: "
-                          + getClass().getName()))
+                      "Instrumentation type matcher unexpected exception: " + getClass().getName()))
               .and(NOT_DECORATOR_MATCHER)
               .and(new MuzzleMatcher())
               .and(new PostMatchHook())
@@ -204,6 +219,28 @@ public interface Instrumenter {
     /** @return A type matcher used to match the class under transform. */
     public abstract ElementMatcher<? super TypeDescription> typeMatcher();
 
+    /**
+     * Names of the only types {@link #typeMatcher()} can match. Along with {@link
+     * #knownMatchingSuperTypes()}, lets the agent skip the type matcher for all other classes.
+     *
+     * <p>The type matcher is evaluated for every class when neither method returns any name.
+     *
+     * @return Class names, as matched by {@code named}
+     */
+    public String[] knownMatchingTypes() {
+      return new String[0];
+    }
+
+    /**
+     * Names of types every type matched by {@link #typeMatcher()} is, extends or implements.
+     *
+     * @return Class and interface names, as matched by {@code named}
+     * @see #knownMatchingTypes()
+     */
+    public String[] knownMatchingSuperTypes() {
+      return new String[0];
+    }
+
     /**
      * A hook invoked after matching has succeeded and before transformers have run.
      *
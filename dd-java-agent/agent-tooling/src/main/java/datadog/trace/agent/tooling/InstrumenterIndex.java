@@ -0,0 +1,274 @@
+package datadog.trace.agent.tooling;
+
+import static datadog.trace.agent.tooling.bytebuddy.matcher.DDElementMatchers.failSafe;
+import static net.bytebuddy.matcher.ElementMatchers.any;
+
+import java.lang.ref.WeakReference;
+import java.security.ProtectionDomain;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDefinition;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.utility.JavaModule;
+
+/**
+ * Index from type names to the instrumenters whose type matcher can match a type of that name, or
+ * a type extending or implementing a type of that name.
+ *
+ * <p>ByteBuddy offers every loaded class to the matchers of every instrumenter, and most of them
+ * walk the type hierarchy. With the index, the candidate instrumenters of a class are looked up
+ * once, walking its hierarchy at most once, and the type matchers of the other instrumenters are
+ * not evaluated at all. Instrumenters declaring neither {@link
+ * Instrumenter.Default#knownMatchingTypes()} nor {@link
+ * Instrumenter.Default#knownMatchingSuperTypes()} are candidates for every class.
+ *
+ * <p>ByteBuddy evaluates the matchers of all instrumenters for a class one after the other, on the
+ * thread loading the class, so the candidates of the last class are kept per thread.
+ *
+ * <p>The index also tells whether any instrumenter can transform a class at all, whatever its class
+ * loader, for {@link ClassDecisionCache}.
+ */
+@Slf4j
+final class InstrumenterIndex {
+  private final Map<Instrumenter.Default, Integer> ids = new IdentityHashMap<>();
+  private final List<Instrumenter.Default> instrumenters = new ArrayList<>();
+  private final Map<String, BitSet> byName = new HashMap<>();
+  private final Map<String, BitSet> bySuperTypeName = new HashMap<>();
+
+  /** Instrumenters declaring no types. */
+  private final BitSet unindexed = new BitSet();
+
+  /** Instrumenters declaring super types, candidates when the hierarchy cannot be resolved. */
+  private final BitSet hierarchyIndexed = new BitSet();
+
+  /** Pseudo instrumenter injecting context store fields into subtypes of the store keys. */
+  private final int contextStoreId;
+
+  /** Whether some instrumenters are not {@link Instrumenter.Default} and cannot be indexed. */
+  private boolean opaque = false;
+
+  /** The enabled instrumenters and the types they declare, sorted by instrumenter class name. */
+  private final Set<String> signatures = new TreeSet<>();
+
+  private volatile List<ElementMatcher<? super TypeDescription>> typeMatchers;
+
+  private final ThreadLocal<Candidates> lastCandidates = new ThreadLocal<>();
+
+  InstrumenterIndex(final Iterable<Instrumenter> instrumenters) {
+    final Set<String> contextStoreKeys = new HashSet<>();
+    for (final Instrumenter instrumenter : instrumenters) {
+      if (!(instrumenter instanceof Instrumenter.Default)) {
+        opaque = true;
+        signatures.add(instrumenter.getClass().getName());
+        continue;
+      }
+      final Instrumenter.Default indexed = (Instrumenter.Default) instrumenter;
+      if (!indexed.enabled) {
+        continue;
+      }
+      final int id = ids.size();
+      ids.put(indexed, id);
+      this.instrumenters.add(indexed);
+      contextStoreKeys.addAll(indexed.contextStore().keySet());
+
+      final String[] knownTypes = indexed.knownMatchingTypes();
+      final String[] knownSuperTypes = indexed.knownMatchingSuperTypes();
+      signatures.add(
+          indexed.getClass().getName()
+              + ' '
+              + Arrays.toString(knownTypes)
+              + ' '
+              + Arrays.toString(knownSuperTypes));
+      if (knownTypes.length == 0 && knownSuperTypes.length == 0) {
+        unindexed.set(id);
+        continue;
+      }
+      for (final String name : knownTypes) {
+        add(byName, name, id);
+      }
+      for (final String name : knownSuperTypes) {
+        add(bySuperTypeName, name, id);
+      }
+      if (knownSuperTypes.length > 0) {
+        hierarchyIndexed.set(id);
+      }
+    }
+    contextStoreId = ids.size();
+    for (final String name : contextStoreKeys) {
+      add(bySuperTypeName, name, contextStoreId);
+    }
+    if (!contextStoreKeys.isEmpty()) {
+      hierarchyIndexed.set(contextStoreId);
+    }
+    log.debug(
+        "Indexed {} of {} instrumenters by type name",
+        ids.size() - unindexed.cardinality(),
+        ids.size());
+  }
+
+  /**
+   * @return the class names of the enabled instrumenters and the types they declare, which decide
+   *     what {@link #canMatch} answers along with the instrumenter classes themselves
+   */
+  String signature() {
+    final StringBuilder signature = new StringBuilder();
+    for (final String instrumenter : signatures) {
+      signature.append(instrumenter).append('\n');
+    }
+    return signature.toString();
+  }
+
+  private static void add(final Map<String, BitSet> index, final String name, final int id) {
+    BitSet ids = index.get(name);
+    if (ids == null) {
+      ids = new BitSet();
+      index.put(name, ids);
+    }
+    ids.set(id);
+  }
+
+  /**
+   * @return a matcher rejecting the classes the instrumenter's type matcher cannot match, to be
+   *     evaluated before the type matcher
+   */
+  AgentBuilder.RawMatcher candidateMatcher(final Instrumenter.Default instrumenter) {
+    final Integer id = ids.get(instrumenter);
+    if (id == null || unindexed.get(id)) {
+      return AgentBuilder.RawMatcher.Trivial.MATCHING;
+    }
+    return new CandidateMatcher(id);
+  }
+
+  BitSet candidates(final TypeDescription type) {
+    final Candidates last = lastCandidates.get();
+    if (last != null && last.type.get() == type) {
+      return last.ids;
+    }
+    final BitSet candidates = (BitSet) unindexed.clone();
+    final BitSet named = byName.get(type.getActualName());
+    if (named != null) {
+      candidates.or(named);
+    }
+    if (!bySuperTypeName.isEmpty()) {
+      addHierarchyCandidates(type, candidates);
+    }
+    lastCandidates.set(new Candidates(type, candidates));
+    return candidates;
+  }
+
+  /** @return whether the type matcher of any instrumenter matches the type */
+  boolean canMatch(final TypeDescription type) {
+    if (opaque) {
+      return true;
+    }
+    final BitSet candidates = candidates(type);
+    if (candidates.get(contextStoreId)) {
+      return true;
+    }
+    final List<ElementMatcher<? super TypeDescription>> typeMatchers = typeMatchers();
+    for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+      if (typeMatchers.get(id).matches(type)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<ElementMatcher<? super TypeDescription>> typeMatchers() {
+    List<ElementMatcher<? super TypeDescription>> typeMatchers = this.typeMatchers;
+    if (typeMatchers == null) {
+      typeMatchers = new ArrayList<>(instrumenters.size());
+      for (final Instrumenter.Default instrumenter : instrumenters) {
+        try {
+          typeMatchers.add(
+              failSafe(
+                  instrumenter.typeMatcher(),
+                  "Instrumentation type matcher unexpected exception: "
+                      + instrumenter.getClass().getName()));
+        } catch (final Exception | LinkageError e) {
+          // Unable to tell which types the instrumenter matches.
+          typeMatchers.add(any());
+        }
+      }
+      this.typeMatchers = typeMatchers;
+    }
+    return typeMatchers;
+  }
+
+  private void addHierarchyCandidates(final TypeDescription type, final BitSet candidates) {
+    final Set<String> visited = new HashSet<>();
+    final Queue<TypeDefinition> queue = new ArrayDeque<>();
+    queue.add(type);
+    try {
+      TypeDefinition next;
+      while ((next = queue.poll()) != null) {
+        final TypeDescription erasure = next.asErasure();
+        if (!visited.add(erasure.getActualName())) {
+          continue;
+        }
+        final BitSet named = bySuperTypeName.get(erasure.getActualName());
+        if (named != null) {
+          candidates.or(named);
+        }
+        final TypeDefinition superClass = erasure.getSuperClass();
+        if (superClass != null) {
+          queue.add(superClass);
+        }
+        for (final TypeDefinition interfaceType : erasure.getInterfaces()) {
+          queue.add(interfaceType);
+        }
+      }
+    } catch (final Exception e) {
+      // Let the type matchers deal with the unresolvable part of the hierarchy.
+      log.debug(
+          "{} resolving the hierarchy of {}: {}",
+          e.getClass().getSimpleName(),
+          type.getActualName(),
+          e.getMessage());
+      candidates.or(hierarchyIndexed);
+    }
+  }
+
+  private class CandidateMatcher implements AgentBuilder.RawMatcher {
+    private final int id;
+
+    CandidateMatcher(final int id) {
+      this.id = id;
+    }
+
+    @Override
+    public boolean matches(
+        final TypeDescription typeDescription,
+        final ClassLoader classLoader,
+        final JavaModule module,
+        final Class<?> classBeingRedefined,
+        final ProtectionDomain protectionDomain) {
+      return candidates(typeDescription).get(id);
+    }
+  }
+
+  private static class Candidates {
+    /** Weak, not to retain the class loader through the type description. */
+    final WeakReference<TypeDescription> type;
+
+    final BitSet ids;
+
+    Candidates(final TypeDescription type, final BitSet ids) {
+      this.type = new WeakReference<>(type);
+      this.ids = ids;
+    }
+  }
+}
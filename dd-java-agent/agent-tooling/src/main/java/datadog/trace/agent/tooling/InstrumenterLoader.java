@@ -0,0 +1,133 @@
+package datadog.trace.agent.tooling;
+
+import datadog.common.exec.DaemonThreadFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads the {@link Instrumenter} services, on several threads.
+ *
+ * <p>Loading an instrumenter loads its classes and, for instrumenters with context stores,
+ * generates the context store classes, which makes up most of the time spent registering
+ * instrumenters. The instrumenters are returned in the order {@link ServiceLoader} would return
+ * them, so that they are registered, and transform classes, in the same order.
+ */
+@Slf4j
+final class InstrumenterLoader {
+  private static final String SERVICES = "META-INF/services/" + Instrumenter.class.getName();
+
+  private InstrumenterLoader() {}
+
+  static List<Instrumenter> load(final ClassLoader classLoader, final int threads) {
+    final List<String> names;
+    try {
+      names = serviceNames(classLoader);
+    } catch (final IOException e) {
+      log.debug("Unable to list instrumenters, loading them sequentially", e);
+      return loadSequentially(classLoader);
+    }
+    if (threads <= 1 || names.size() <= 1) {
+      final List<Instrumenter> instrumenters = new ArrayList<>(names.size());
+      for (final String name : names) {
+        addIfLoaded(instrumenters, name, classLoader);
+      }
+      return instrumenters;
+    }
+
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(threads, new DaemonThreadFactory("dd-instrumenter-loader"));
+    try {
+      final List<Future<Instrumenter>> futures = new ArrayList<>(names.size());
+      for (final String name : names) {
+        futures.add(executor.submit(new LoadInstrumenter(name, classLoader)));
+      }
+      final List<Instrumenter> instrumenters = new ArrayList<>(names.size());
+      for (int i = 0; i < names.size(); i++) {
+        try {
+          instrumenters.add(futures.get(i).get());
+        } catch (final ExecutionException e) {
+          log.error("Unable to load instrumentation {}", names.get(i), e.getCause());
+        }
+      }
+      return instrumenters;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.debug("Interrupted loading instrumenters, loading them sequentially");
+      return loadSequentially(classLoader);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static List<Instrumenter> loadSequentially(final ClassLoader classLoader) {
+    final List<Instrumenter> instrumenters = new ArrayList<>();
+    for (final Instrumenter instrumenter : ServiceLoader.load(Instrumenter.class, classLoader)) {
+      instrumenters.add(instrumenter);
+    }
+    return instrumenters;
+  }
+
+  private static void addIfLoaded(
+      final List<Instrumenter> instrumenters, final String name, final ClassLoader classLoader) {
+    try {
+      instrumenters.add(new LoadInstrumenter(name, classLoader).call());
+    } catch (final Exception | LinkageError e) {
+      log.error("Unable to load instrumentation {}", name, e);
+    }
+  }
+
+  /** @return the instrumenter class names, in {@link ServiceLoader} order */
+  static List<String> serviceNames(final ClassLoader classLoader) throws IOException {
+    final Set<String> names = new LinkedHashSet<>();
+    final Enumeration<URL> services = classLoader.getResources(SERVICES);
+    while (services.hasMoreElements()) {
+      try (final BufferedReader reader =
+          new BufferedReader(
+              new InputStreamReader(services.nextElement().openStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          final int comment = line.indexOf('#');
+          if (comment >= 0) {
+            line = line.substring(0, comment);
+          }
+          line = line.trim();
+          if (!line.isEmpty()) {
+            names.add(line);
+          }
+        }
+      }
+    }
+    return new ArrayList<>(names);
+  }
+
+  private static class LoadInstrumenter implements Callable<Instrumenter> {
+    private final String name;
+    private final ClassLoader classLoader;
+
+    LoadInstrumenter(final String name, final ClassLoader classLoader) {
+      this.name = name;
+      this.classLoader = classLoader;
+    }
+
+    @Override
+    public Instrumenter call() throws Exception {
+      final Class<?> type = Class.forName(name, false, classLoader);
+      return type.asSubclass(Instrumenter.class).newInstance();
+    }
+  }
+}
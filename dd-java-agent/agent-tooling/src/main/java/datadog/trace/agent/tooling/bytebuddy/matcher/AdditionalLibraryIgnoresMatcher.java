@@ -11,10 +11,162 @@ import net.bytebuddy.matcher.ElementMatcher;
  * <p>This is separated from {@link GlobalIgnoresMatcher} to allow for better testing. The idea is
  * that we should be able to remove this matcher from the agent and all tests should still pass.
  * Moreover, no classes matched by this matcher should be modified during test run.
+ *
+ * <p>{@link GlobalIgnoresMatcher} compiles these lists into its own trie, so that the agent only
+ * walks each class name once.
  */
 public class AdditionalLibraryIgnoresMatcher<T extends TypeDescription>
     extends ElementMatcher.Junction.AbstractBase<T> {
 
+  /**
+   * Classes or, with a trailing {@code *}, packages that are ignored. The longest matching entry of
+   * this list and of {@link #NOT_IGNORED} wins.
+   */
+  static final String[] IGNORED = {
+    "com.beust.jcommander.*",
+    "com.fasterxml.classmate.*",
+    "com.github.mustachejava.*",
+    "com.jayway.jsonpath.*",
+    "com.lightbend.lagom.*",
+    "javax.el.*",
+    "net.sf.cglib.*",
+    "org.apache.lucene.*",
+    "org.apache.tartarus.*",
+    "org.json.simple.*",
+    "org.yaml.snakeyaml.*",
+    "org.springframework.aop.*",
+    "org.springframework.cache.*",
+    "org.springframework.dao.*",
+    "org.springframework.ejb.*",
+    "org.springframework.expression.*",
+    "org.springframework.format.*",
+    "org.springframework.jca.*",
+    "org.springframework.jdbc.*",
+    "org.springframework.jmx.*",
+    "org.springframework.jndi.*",
+    "org.springframework.lang.*",
+    "org.springframework.messaging.*",
+    "org.springframework.objenesis.*",
+    "org.springframework.orm.*",
+    "org.springframework.remoting.*",
+    "org.springframework.scripting.*",
+    "org.springframework.stereotype.*",
+    "org.springframework.transaction.*",
+    "org.springframework.ui.*",
+    "org.springframework.validation.*",
+    "org.springframework.data.*",
+    "org.springframework.amqp.*",
+    "org.springframework.beans.*",
+    "org.springframework.boot.*",
+    "org.springframework.cglib.*",
+    "org.springframework.context.*",
+    "org.springframework.core.*",
+    "org.springframework.instrument.*",
+    "org.springframework.http.*",
+    "org.springframework.jms.*",
+    "org.springframework.util.*",
+    "org.springframework.web.*",
+    // xml-apis, xerces, xalan
+    "javax.xml.*",
+    "org.apache.bcel.*",
+    "org.apache.html.*",
+    "org.apache.regexp.*",
+    "org.apache.wml.*",
+    "org.apache.xalan.*",
+    "org.apache.xerces.*",
+    "org.apache.xml.*",
+    "org.apache.xpath.*",
+    "org.xml.*",
+    "ch.qos.logback.*",
+    "com.codahale.metrics.*",
+    "com.couchbase.client.deps.*",
+    "com.google.cloud.*",
+    "com.google.instrumentation.*",
+    "com.google.j2objc.*",
+    "com.google.gson.*",
+    "com.google.logging.*",
+    "com.google.longrunning.*",
+    "com.google.protobuf.*",
+    "com.google.rpc.*",
+    "com.google.thirdparty.*",
+    "com.google.type.*",
+    "com.google.common.*",
+    "com.google.inject.*",
+    "com.google.api.*",
+    "org.h2.*",
+    "com.carrotsearch.hppc.*",
+    "com.fasterxml.jackson.*",
+    // kotlin, note we do not ignore kotlinx because we instrument coroutins code
+    "kotlin.*"
+  };
+
+  /** Exceptions to {@link #IGNORED}. */
+  static final String[] NOT_IGNORED = {
+    "org.springframework.data.repository.core.support.RepositoryFactorySupport",
+    "org.springframework.data.convert.ClassGeneratingEntityInstantiator$*",
+    "org.springframework.data.jpa.repository.config.InspectionClassLoader",
+    "org.springframework.amqp.rabbit.connection.*",
+    "org.springframework.beans.factory.support.DisposableBeanAdapter",
+    "org.springframework.beans.factory.groovy.GroovyBeanDefinitionReader$*",
+    // More runnables to deal with
+    "org.springframework.boot.autoconfigure.BackgroundPreinitializer$*",
+    "org.springframework.boot.autoconfigure.condition.OnClassCondition$*",
+    "org.springframework.boot.web.embedded.netty.NettyWebServer$*",
+    "org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainer$*",
+    "org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedWebappClassLoader",
+    // This class contains nested Callable instance that we'd happily not touch, but
+    // unfortunately our field injection code is not flexible enough to realize that, so instead
+    // we instrument this Callable to make tests happy.
+    "org.springframework.cglib.core.internal.LoadingCache$*",
+    // More runnables to deal with
+    "org.springframework.context.support.AbstractApplicationContext$*",
+    "org.springframework.context.support.ContextTypeMatchClassLoader",
+    "org.springframework.core.task.*",
+    "org.springframework.core.DecoratingClassLoader",
+    "org.springframework.core.OverridingClassLoader",
+    "org.springframework.instrument.classloading.SimpleThrowawayClassLoader",
+    "org.springframework.instrument.classloading.ShadowingClassLoader",
+    // There are some Mono implementation that get instrumented
+    "org.springframework.http.server.reactive.*",
+    "org.springframework.jms.listener.*",
+    "org.springframework.util.concurrent.*",
+    "org.springframework.web.servlet.*",
+    "org.springframework.web.client.*",
+    "org.springframework.web.reactive.*",
+    "org.springframework.web.context.request.async.*",
+    // We instrument this Runnable
+    "ch.qos.logback.core.AsyncAppenderBase$Worker",
+    // We instrument servlets
+    "com.codahale.metrics.servlets.*",
+    // Couchbase library includes some packaged dependencies, unfortunately some of them are
+    // instrumented by java-concurrent instrumentation
+    "com.couchbase.client.deps.io.netty.*",
+    "com.couchbase.client.deps.org.LatencyUtils.*",
+    "com.couchbase.client.deps.com.lmax.disruptor.*",
+    "com.google.common.util.concurrent.*",
+    "com.google.common.base.internal.Finalizer",
+    // We instrument Runnable there
+    "com.google.inject.internal.AbstractBindingProcessor$*",
+    "com.google.inject.internal.BytecodeGen$*",
+    "com.google.inject.internal.cglib.core.internal.$LoadingCache$*",
+    "com.google.api.client.http.HttpRequest*",
+    "org.h2.Driver",
+    "org.h2.jdbc.*",
+    "org.h2.jdbcx.*",
+    // Some runnables that get instrumented
+    "org.h2.util.Task",
+    "org.h2.store.FileLock",
+    "org.h2.engine.DatabaseCloser",
+    "org.h2.engine.OnExitDatabaseCloser",
+    "com.carrotsearch.hppc.HashOrderMixing$*",
+    "com.fasterxml.jackson.module.afterburner.util.MyClassLoader"
+  };
+
+  private static final int NOT_IGNORED_VALUE = 0;
+  private static final int IGNORED_VALUE = 1;
+
+  private static final ClassNameTrie IGNORES = buildIgnores();
+
   public static <T extends TypeDescription> Junction<T> additionalLibraryIgnoresMatcher() {
     return new AdditionalLibraryIgnoresMatcher<>();
   }
@@ -26,269 +178,18 @@ public class AdditionalLibraryIgnoresMatcher<T extends TypeDescription>
    */
   @Override
   public boolean matches(final T target) {
-    final String name = target.getActualName();
-
-    if (name.startsWith("com.beust.jcommander.")
-        || name.startsWith("com.fasterxml.classmate.")
-        || name.startsWith("com.github.mustachejava.")
-        || name.startsWith("com.jayway.jsonpath.")
-        || name.startsWith("com.lightbend.lagom.")
-        || name.startsWith("javax.el.")
-        || name.startsWith("net.sf.cglib.")
-        || name.startsWith("org.apache.lucene.")
-        || name.startsWith("org.apache.tartarus.")
-        || name.startsWith("org.json.simple.")
-        || name.startsWith("org.yaml.snakeyaml.")) {
-      return true;
-    }
-
-    if (name.startsWith("org.springframework.")) {
-      if (name.startsWith("org.springframework.aop.")
-          || name.startsWith("org.springframework.cache.")
-          || name.startsWith("org.springframework.dao.")
-          || name.startsWith("org.springframework.ejb.")
-          || name.startsWith("org.springframework.expression.")
-          || name.startsWith("org.springframework.format.")
-          || name.startsWith("org.springframework.jca.")
-          || name.startsWith("org.springframework.jdbc.")
-          || name.startsWith("org.springframework.jmx.")
-          || name.startsWith("org.springframework.jndi.")
-          || name.startsWith("org.springframework.lang.")
-          || name.startsWith("org.springframework.messaging.")
-          || name.startsWith("org.springframework.objenesis.")
-          || name.startsWith("org.springframework.orm.")
-          || name.startsWith("org.springframework.remoting.")
-          || name.startsWith("org.springframework.scripting.")
-          || name.startsWith("org.springframework.stereotype.")
-          || name.startsWith("org.springframework.transaction.")
-          || name.startsWith("org.springframework.ui.")
-          || name.startsWith("org.springframework.validation.")) {
-        return true;
-      }
-
-      if (name.startsWith("org.springframework.data.")) {
-        if (name.equals("org.springframework.data.repository.core.support.RepositoryFactorySupport")
-            || name.startsWith(
-                "org.springframework.data.convert.ClassGeneratingEntityInstantiator$")
-            || name.equals(
-                "org.springframework.data.jpa.repository.config.InspectionClassLoader")) {
-          return false;
-        }
-        return true;
-      }
-
-      if (name.startsWith("org.springframework.amqp.")) {
-        if (name.startsWith("org.springframework.amqp.rabbit.connection.")) {
-          return false;
-        }
-        return true;
-      }
-
-      if (name.startsWith("org.springframework.beans.")) {
-        if (name.equals("org.springframework.beans.factory.support.DisposableBeanAdapter")
-            || name.startsWith(
-                "org.springframework.beans.factory.groovy.GroovyBeanDefinitionReader$")) {
-          return false;
-        }
-        return true;
-      }
-
-      if (name.startsWith("org.springframework.boot.")) {
-        // More runnables to deal with
-        if (name.startsWith("org.springframework.boot.autoconfigure.BackgroundPreinitializer$")
-            || name.startsWith("org.springframework.boot.autoconfigure.condition.OnClassCondition$")
-            || name.startsWith("org.springframework.boot.web.embedded.netty.NettyWebServer$")
-            || name.startsWith(
-                "org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainer$")
-            || name.equals(
-                "org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedWebappClassLoader")) {
-          return false;
-        }
-        return true;
-      }
-
-      if (name.startsWith("org.springframework.cglib.")) {
-        // This class contains nested Callable instance that we'd happily not touch, but
-        // unfortunately our field injection code is not flexible enough to realize that, so instead
-        // we instrument this Callable to make tests happy.
-        if (name.startsWith("org.springframework.cglib.core.internal.LoadingCache$")) {
-          return false;
-        }
-        return true;
-      }
-
-      if (name.startsWith("org.springframework.context.")) {
-        // More runnables to deal with
-        if (name.startsWith("org.springframework.context.support.AbstractApplicationContext$")
-            || name.equals("org.springframework.context.support.ContextTypeMatchClassLoader")) {
-          return false;
-        }
-        return true;
-      }
-
-      if (name.startsWith("org.springframework.core.")) {
-        if (name.startsWith("org.springframework.core.task.")
-            || name.equals("org.springframework.core.DecoratingClassLoader")
-            || name.equals("org.springframework.core.OverridingClassLoader")) {
-          return false;
-        }
-        return true;
-      }
-
-      if (name.startsWith("org.springframework.instrument.")) {
-        if (name.equals("org.springframework.instrument.classloading.SimpleThrowawayClassLoader")
-            || name.equals("org.springframework.instrument.classloading.ShadowingClassLoader")) {
-          return false;
-        }
-        return true;
-      }
-
-      if (name.startsWith("org.springframework.http.")) {
-        // There are some Mono implementation that get instrumented
-        if (name.startsWith("org.springframework.http.server.reactive.")) {
-          return false;
-        }
-        return true;
-      }
-
-      if (name.startsWith("org.springframework.jms.")) {
-        if (name.startsWith("org.springframework.jms.listener.")) {
-          return false;
-        }
-        return true;
-      }
-
-      if (name.startsWith("org.springframework.util.")) {
-        if (name.startsWith("org.springframework.util.concurrent.")) {
-          return false;
-        }
-        return true;
-      }
-
-      if (name.startsWith("org.springframework.web.")) {
-        if (name.startsWith("org.springframework.web.servlet.")
-            || name.startsWith("org.springframework.web.client.")
-            || name.startsWith("org.springframework.web.reactive.")
-            || name.startsWith("org.springframework.web.context.request.async.")) {
-          return false;
-        }
-        return true;
-      }
-
-      return false;
-    }
-
-    // xml-apis, xerces, xalan
-    if (name.startsWith("javax.xml.")
-        || name.startsWith("org.apache.bcel.")
-        || name.startsWith("org.apache.html.")
-        || name.startsWith("org.apache.regexp.")
-        || name.startsWith("org.apache.wml.")
-        || name.startsWith("org.apache.xalan.")
-        || name.startsWith("org.apache.xerces.")
-        || name.startsWith("org.apache.xml.")
-        || name.startsWith("org.apache.xpath.")
-        || name.startsWith("org.xml.")) {
-      return true;
-    }
-
-    if (name.startsWith("ch.qos.logback.")) {
-      // We instrument this Runnable
-      if (name.equals("ch.qos.logback.core.AsyncAppenderBase$Worker")) {
-        return false;
-      }
-
-      return true;
-    }
-
-    if (name.startsWith("com.codahale.metrics.")) {
-      // We instrument servlets
-      if (name.startsWith("com.codahale.metrics.servlets.")) {
-        return false;
-      }
-      return true;
-    }
-
-    if (name.startsWith("com.couchbase.client.deps.")) {
-      // Couchbase library includes some packaged dependencies, unfortunately some of them are
-      // instrumented by java-concurrent instrumentation
-      if (name.startsWith("com.couchbase.client.deps.io.netty.")
-          || name.startsWith("com.couchbase.client.deps.org.LatencyUtils.")
-          || name.startsWith("com.couchbase.client.deps.com.lmax.disruptor.")) {
-        return false;
-      }
-      return true;
-    }
-
-    if (name.startsWith("com.google.cloud.")
-        || name.startsWith("com.google.instrumentation.")
-        || name.startsWith("com.google.j2objc.")
-        || name.startsWith("com.google.gson.")
-        || name.startsWith("com.google.logging.")
-        || name.startsWith("com.google.longrunning.")
-        || name.startsWith("com.google.protobuf.")
-        || name.startsWith("com.google.rpc.")
-        || name.startsWith("com.google.thirdparty.")
-        || name.startsWith("com.google.type.")) {
-      return true;
-    }
-    if (name.startsWith("com.google.common.")) {
-      if (name.startsWith("com.google.common.util.concurrent.")
-          || name.equals("com.google.common.base.internal.Finalizer")) {
-        return false;
-      }
-      return true;
-    }
-    if (name.startsWith("com.google.inject.")) {
-      // We instrument Runnable there
-      if (name.startsWith("com.google.inject.internal.AbstractBindingProcessor$")
-          || name.startsWith("com.google.inject.internal.BytecodeGen$")
-          || name.startsWith("com.google.inject.internal.cglib.core.internal.$LoadingCache$")) {
-        return false;
-      }
-      return true;
-    }
-    if (name.startsWith("com.google.api.")) {
-      if (name.startsWith("com.google.api.client.http.HttpRequest")) {
-        return false;
-      }
-      return true;
-    }
-
-    if (name.startsWith("org.h2.")) {
-      if (name.equals("org.h2.Driver")
-          || name.startsWith("org.h2.jdbc.")
-          || name.startsWith("org.h2.jdbcx.")
-          // Some runnables that get instrumented
-          || name.equals("org.h2.util.Task")
-          || name.equals("org.h2.store.FileLock")
-          || name.equals("org.h2.engine.DatabaseCloser")
-          || name.equals("org.h2.engine.OnExitDatabaseCloser")) {
-        return false;
-      }
-      return true;
-    }
-
-    if (name.startsWith("com.carrotsearch.hppc.")) {
-      if (name.startsWith("com.carrotsearch.hppc.HashOrderMixing$")) {
-        return false;
-      }
-      return true;
-    }
+    return IGNORES.apply(target.getActualName()) == IGNORED_VALUE;
+  }
 
-    if (name.startsWith("com.fasterxml.jackson.")) {
-      if (name.equals("com.fasterxml.jackson.module.afterburner.util.MyClassLoader")) {
-        return false;
-      }
-      return true;
+  private static ClassNameTrie buildIgnores() {
+    final ClassNameTrie.Builder builder = new ClassNameTrie.Builder();
+    for (final String ignored : IGNORED) {
+      builder.put(ignored, IGNORED_VALUE);
     }
-
-    // kotlin, note we do not ignore kotlinx because we instrument coroutins code
-    if (name.startsWith("kotlin.")) {
-      return true;
+    for (final String notIgnored : NOT_IGNORED) {
+      builder.put(notIgnored, NOT_IGNORED_VALUE);
     }
-
-    return false;
+    return builder.build();
   }
 
   @Override
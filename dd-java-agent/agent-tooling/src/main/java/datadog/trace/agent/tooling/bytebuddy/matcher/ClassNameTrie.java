@@ -0,0 +1,163 @@
+package datadog.trace.agent.tooling.bytebuddy.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable char trie mapping class names and class name prefixes to values.
+ *
+ * <p>Keys ending with {@code *} match every name starting with the rest of the key, other keys
+ * only match the name itself. A lookup walks the name once and returns the value of the longest
+ * key matching it, a name being more specific than a prefix of the same length.
+ *
+ * <p>Chains of nodes with a single child and no value are merged into one node, so that the long
+ * package names shared by keys are compared with a single {@link String#regionMatches}.
+ */
+public final class ClassNameTrie {
+  public static final int NO_MATCH = -1;
+
+  private static final char[] NO_CHARS = new char[0];
+  private static final int[] NO_NODES = new int[0];
+
+  /** Chars leading from the parent of each node to the node. */
+  private final String[] labels;
+
+  /** Sorted first chars of the labels of the children of each node. */
+  private final char[][] childChars;
+
+  private final int[][] childNodes;
+  private final int[] prefixValues;
+  private final int[] nameValues;
+
+  private ClassNameTrie(
+      final String[] labels,
+      final char[][] childChars,
+      final int[][] childNodes,
+      final int[] prefixValues,
+      final int[] nameValues) {
+    this.labels = labels;
+    this.childChars = childChars;
+    this.childNodes = childNodes;
+    this.prefixValues = prefixValues;
+    this.nameValues = nameValues;
+  }
+
+  /** @return the value of the longest key matching the name, or {@link #NO_MATCH} */
+  public int apply(final String name) {
+    int node = 0;
+    int value = prefixValues[0];
+    int i = 0;
+    while (i < name.length()) {
+      final int child = Arrays.binarySearch(childChars[node], name.charAt(i));
+      if (child < 0) {
+        return value;
+      }
+      node = childNodes[node][child];
+      final String label = labels[node];
+      // No key ends inside a label.
+      if (!name.regionMatches(i, label, 0, label.length())) {
+        return value;
+      }
+      i += label.length();
+      if (prefixValues[node] != NO_MATCH) {
+        value = prefixValues[node];
+      }
+    }
+    return nameValues[node] != NO_MATCH ? nameValues[node] : value;
+  }
+
+  public static class Builder {
+    private final Node root = new Node();
+
+    /**
+     * @param key a class name, or a class name prefix followed by {@code *}
+     * @param value a non-negative value, replacing any previous value of the key
+     */
+    public Builder put(final String key, final int value) {
+      if (value < 0) {
+        throw new IllegalArgumentException("Negative value for " + key);
+      }
+      final boolean prefix = key.endsWith("*");
+      final int length = prefix ? key.length() - 1 : key.length();
+      Node node = root;
+      for (int i = 0; i < length; i++) {
+        final char c = key.charAt(i);
+        Node child = node.children.get(c);
+        if (child == null) {
+          child = new Node();
+          node.children.put(c, child);
+        }
+        node = child;
+      }
+      if (prefix) {
+        node.prefixValue = value;
+      } else {
+        node.nameValue = value;
+      }
+      return this;
+    }
+
+    public ClassNameTrie build() {
+      // Breadth first, so that siblings are next to each other.
+      final List<Node> nodes = new ArrayList<>();
+      final List<String> labels = new ArrayList<>();
+      final List<char[]> childChars = new ArrayList<>();
+      final List<int[]> childNodes = new ArrayList<>();
+      nodes.add(root);
+      labels.add("");
+      for (int index = 0; index < nodes.size(); index++) {
+        final Node node = nodes.get(index);
+        if (node.children.isEmpty()) {
+          childChars.add(NO_CHARS);
+          childNodes.add(NO_NODES);
+          continue;
+        }
+        final char[] chars = new char[node.children.size()];
+        final int[] children = new int[node.children.size()];
+        int child = 0;
+        for (final Map.Entry<Character, Node> entry : node.children.entrySet()) {
+          final StringBuilder label = new StringBuilder().append(entry.getKey());
+          Node merged = entry.getValue();
+          while (merged.isChainLink()) {
+            final Map.Entry<Character, Node> next = merged.children.entrySet().iterator().next();
+            label.append(next.getKey());
+            merged = next.getValue();
+          }
+          chars[child] = entry.getKey();
+          children[child] = nodes.size();
+          nodes.add(merged);
+          labels.add(label.toString());
+          child++;
+        }
+        childChars.add(chars);
+        childNodes.add(children);
+      }
+
+      final int[] prefixValues = new int[nodes.size()];
+      final int[] nameValues = new int[nodes.size()];
+      for (int index = 0; index < nodes.size(); index++) {
+        prefixValues[index] = nodes.get(index).prefixValue;
+        nameValues[index] = nodes.get(index).nameValue;
+      }
+      return new ClassNameTrie(
+          labels.toArray(new String[0]),
+          childChars.toArray(new char[0][]),
+          childNodes.toArray(new int[0][]),
+          prefixValues,
+          nameValues);
+    }
+  }
+
+  private static final class Node {
+    final Map<Character, Node> children = new TreeMap<>();
+    int prefixValue = NO_MATCH;
+    int nameValue = NO_MATCH;
+
+    boolean isChainLink() {
+      return children.size() == 1 && prefixValue == NO_MATCH && nameValue == NO_MATCH;
+    }
+  }
+}
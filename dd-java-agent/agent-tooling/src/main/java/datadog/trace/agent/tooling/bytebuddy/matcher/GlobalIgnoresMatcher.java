@@ -1,7 +1,9 @@
 // Modified by SignalFx
 package datadog.trace.agent.tooling.bytebuddy.matcher;
 
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.matcher.ElementMatcher;
 
@@ -20,24 +22,116 @@ import net.bytebuddy.matcher.ElementMatcher;
  *   Uses {@link AdditionalLibraryIgnoresMatcher} to also ignore additional classes to minimize
  *   number of classes we apply expensive matchers to.
  * </ul>
+ *
+ * <p>All the package and class name rules, including the configured excludes, are compiled into a
+ * single {@link ClassNameTrie} when the matcher is created, so each class load walks its name once.
  */
 public class GlobalIgnoresMatcher<T extends TypeDescription>
     extends ElementMatcher.Junction.AbstractBase<T> {
 
-  private static final Pattern COM_MCHANGE_PROXY =
-      Pattern.compile("com\\.mchange\\.v2\\.c3p0\\..*Proxy");
+  /**
+   * Classes or, with a trailing {@code *}, packages that are ignored. The longest matching entry of
+   * this list and of {@link #NOT_IGNORED} wins.
+   */
+  static final String[] IGNORED = {
+    "datadog.opentracing.*",
+    "datadog.slf4j.*",
+    "net.bytebuddy.*",
+    "jdk.*",
+    "org.aspectj.*",
+    "com.intellij.rt.debugger.*",
+    "com.p6spy.*",
+    "com.newrelic.*",
+    "com.dynatrace.*",
+    "com.jloadtrace.*",
+    "com.appdynamics.*",
+    "com.singularity.*",
+    "com.jinspired.*",
+    "org.jinspired.*",
+    // groovy
+    "org.groovy.*",
+    "org.apache.groovy.*",
+    "org.codehaus.groovy.*",
+    "datadog.trace.*",
+    "java.*",
+    // Concurrent instrumentation modifies the structure of
+    // Cleaner class incompatibly with java9+ modules.
+    // Working around until a long-term fix for modules can be
+    // put in place.
+    "java.util.logging.LogManager$Cleaner",
+    "com.sun.*",
+    "sun.*",
+    "org.apache.log4j.*",
+    "org.slf4j.*"
+  };
+
+  /** Exceptions to {@link #IGNORED}. */
+  static final String[] NOT_IGNORED = {
+    // We seem to instrument some classes in runtime
+    "org.codehaus.groovy.runtime.*",
+    // FIXME: We should remove this once
+    // https://github.com/raphw/byte-buddy/issues/558 is fixed
+    "datadog.trace.bootstrap.instrumentation.java.concurrent.RunnableWrapper",
+    "datadog.trace.bootstrap.instrumentation.java.concurrent.CallableWrapper",
+    "java.net.URL",
+    "java.net.HttpURLConnection",
+    "java.rmi.*",
+    "java.util.concurrent.*",
+    "java.util.logging.*",
+    "com.sun.messaging.*",
+    "com.sun.jersey.api.client*",
+    "sun.net.www.protocol.*",
+    "sun.rmi.server*",
+    "sun.rmi.transport*",
+    "sun.net.www.http.HttpClient",
+    "org.apache.log4j.MDC",
+    "org.slf4j.MDC"
+  };
+
+  /** Ignored, only for classes not matching the lists above. */
+  private static final String SPRING_PROXY_PREFIX = "org.springframework.core.$Proxy*";
+
+  private static final String COM_MCHANGE_PROXY_PREFIX = "com.mchange.v2.c3p0.";
+  private static final String COM_MCHANGE_PROXY_SUFFIX = "Proxy";
+
+  // Decisions stored in the trie, from the first stage of rules matching a name.
+  private static final int EXCLUDED_OR_IGNORED = 0;
+  private static final int NOT_IGNORED_VALUE = 1;
+  private static final int ADDITIONAL_LIBRARY_IGNORED = 2;
+  private static final int UNDECIDED = 3;
+
+  // Stages of rules, in order of precedence.
+  private static final int EXCLUDED_STAGE = 0;
+  private static final int GLOBAL_STAGE = 1;
+  private static final int SPRING_PROXY_STAGE = 2;
+  private static final int ADDITIONAL_LIBRARY_STAGE = 3;
 
   public static <T extends TypeDescription> ElementMatcher.Junction<T> globalIgnoresMatcher(
       final boolean skipAdditionalLibraryMatcher) {
-    return new GlobalIgnoresMatcher<>(skipAdditionalLibraryMatcher);
+    return globalIgnoresMatcher(skipAdditionalLibraryMatcher, Collections.<String>emptyList());
+  }
+
+  /**
+   * @param excludedClasses class names or, with a trailing {@code *}, class name prefixes to ignore
+   *     whatever the other rules say
+   */
+  public static <T extends TypeDescription> ElementMatcher.Junction<T> globalIgnoresMatcher(
+      final boolean skipAdditionalLibraryMatcher, final List<String> excludedClasses) {
+    return new GlobalIgnoresMatcher<>(skipAdditionalLibraryMatcher, excludedClasses);
   }
 
-  private final ElementMatcher<T> additionalLibraryIgnoreMatcher =
-      AdditionalLibraryIgnoresMatcher.additionalLibraryIgnoresMatcher();
   private final boolean skipAdditionalLibraryMatcher;
+  private final List<String> excludedClasses;
+  private final ClassNameTrie ignores;
 
-  private GlobalIgnoresMatcher(final boolean skipAdditionalLibraryMatcher) {
+  private GlobalIgnoresMatcher(
+      final boolean skipAdditionalLibraryMatcher, final List<String> excludedClasses) {
     this.skipAdditionalLibraryMatcher = skipAdditionalLibraryMatcher;
+    this.excludedClasses = new ArrayList<>(excludedClasses.size());
+    for (final String excludedClass : excludedClasses) {
+      this.excludedClasses.add(excludedClass.trim());
+    }
+    ignores = buildIgnores(skipAdditionalLibraryMatcher, this.excludedClasses);
   }
 
   /**
@@ -49,123 +143,140 @@ public class GlobalIgnoresMatcher<T extends TypeDescription>
   public boolean matches(final T target) {
     final String name = target.getActualName();
 
-    if (name.startsWith("datadog.opentracing.")
-        || name.startsWith("datadog.slf4j.")
-        || name.startsWith("net.bytebuddy.")
-        || name.startsWith("jdk.")
-        || name.startsWith("org.aspectj.")
-        || name.startsWith("com.intellij.rt.debugger.")
-        || name.startsWith("com.p6spy.")
-        || name.startsWith("com.newrelic.")
-        || name.startsWith("com.dynatrace.")
-        || name.startsWith("com.jloadtrace.")
-        || name.startsWith("com.appdynamics.")
-        || name.startsWith("com.singularity.")
-        || name.startsWith("com.jinspired.")
-        || name.startsWith("org.jinspired.")) {
-      return true;
-    }
-
-    // groovy
-    if (name.startsWith("org.groovy.") || name.startsWith("org.apache.groovy.")) {
+    final int decision = ignores.apply(name);
+    if (decision == EXCLUDED_OR_IGNORED) {
       return true;
     }
-    if (name.startsWith("org.codehaus.groovy.")) {
-      // We seem to instrument some classes in runtime
-      if (name.startsWith("org.codehaus.groovy.runtime.")) {
-        return false;
-      }
-      return true;
+    if (decision == NOT_IGNORED_VALUE) {
+      return false;
     }
 
-    if (name.startsWith("datadog.trace.")) {
-      // FIXME: We should remove this once
-      // https://github.com/raphw/byte-buddy/issues/558 is fixed
-      if (name.equals("datadog.trace.bootstrap.instrumentation.java.concurrent.RunnableWrapper")
-          || name.equals(
-              "datadog.trace.bootstrap.instrumentation.java.concurrent.CallableWrapper")) {
-        return false;
-      }
+    if (name.contains("$JaxbAccessor")
+        || name.contains("CGLIB$$")
+        || name.contains("javassist")
+        || name.contains(".asm.")
+        || name.contains("$__sisu")) {
       return true;
     }
 
-    if (name.startsWith("java.")) {
-      if (name.equals("java.net.URL") || name.equals("java.net.HttpURLConnection")) {
-        return false;
-      }
-      if (name.startsWith("java.rmi.") || name.startsWith("java.util.concurrent.")) {
-        return false;
-      }
-      // Concurrent instrumentation modifies the structure of
-      // Cleaner class incompatibly with java9+ modules.
-      // Working around until a long-term fix for modules can be
-      // put in place.
-      if (name.startsWith("java.util.logging.")
-          && !name.equals("java.util.logging.LogManager$Cleaner")) {
-        return false;
-      }
-
+    if (isComMchangeProxy(name)) {
       return true;
     }
 
-    if (name.startsWith("com.sun.")) {
-      if (name.startsWith("com.sun.messaging.") || name.startsWith("com.sun.jersey.api.client")) {
-        return false;
-      }
+    return decision == ADDITIONAL_LIBRARY_IGNORED;
+  }
 
-      return true;
+  /** Same as matching {@code com\.mchange\.v2\.c3p0\..*Proxy}. */
+  private static boolean isComMchangeProxy(final String name) {
+    if (!name.startsWith(COM_MCHANGE_PROXY_PREFIX)
+        || !name.endsWith(COM_MCHANGE_PROXY_SUFFIX)
+        || name.length() < COM_MCHANGE_PROXY_PREFIX.length() + COM_MCHANGE_PROXY_SUFFIX.length()) {
+      return false;
     }
-
-    if (name.startsWith("sun.")) {
-      if (name.startsWith("sun.net.www.protocol.")
-          || name.startsWith("sun.rmi.server")
-          || name.startsWith("sun.rmi.transport")
-          || name.equals("sun.net.www.http.HttpClient")) {
+    // A regex dot doesn't match line terminators.
+    for (int i = COM_MCHANGE_PROXY_PREFIX.length();
+        i < name.length() - COM_MCHANGE_PROXY_SUFFIX.length();
+        i++) {
+      final char c = name.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
         return false;
       }
-
-      return true;
     }
+    return true;
+  }
 
-    if (name.startsWith("org.apache.log4j.")) {
-      if (name.equals("org.apache.log4j.MDC")) {
-        return false;
+  /**
+   * Compiles every rule into one trie. The decision for a key only depends on the rules that are
+   * prefixes of it (or equal to it), so it is computed once here: excludes win, then the longest
+   * global rule, then the Spring proxy prefix, then the longest additional library rule.
+   */
+  private static ClassNameTrie buildIgnores(
+      final boolean skipAdditionalLibraryMatcher, final List<String> excludedClasses) {
+    final List<Rule> rules = new ArrayList<>();
+    for (final String excludedClass : excludedClasses) {
+      rules.add(new Rule(excludedClass, EXCLUDED_STAGE, true));
+    }
+    for (final String ignored : IGNORED) {
+      rules.add(new Rule(ignored, GLOBAL_STAGE, true));
+    }
+    for (final String notIgnored : NOT_IGNORED) {
+      rules.add(new Rule(notIgnored, GLOBAL_STAGE, false));
+    }
+    rules.add(new Rule(SPRING_PROXY_PREFIX, SPRING_PROXY_STAGE, true));
+    if (!skipAdditionalLibraryMatcher) {
+      for (final String ignored : AdditionalLibraryIgnoresMatcher.IGNORED) {
+        rules.add(new Rule(ignored, ADDITIONAL_LIBRARY_STAGE, true));
+      }
+      for (final String notIgnored : AdditionalLibraryIgnoresMatcher.NOT_IGNORED) {
+        rules.add(new Rule(notIgnored, ADDITIONAL_LIBRARY_STAGE, false));
       }
+    }
 
-      return true;
+    final ClassNameTrie.Builder builder = new ClassNameTrie.Builder();
+    for (final Rule rule : rules) {
+      builder.put(rule.key, decide(rule, rules));
     }
+    return builder.build();
+  }
 
-    if (name.startsWith("org.slf4j.")) {
-      if (name.equals("org.slf4j.MDC")) {
-        return false;
+  private static int decide(final Rule key, final List<Rule> rules) {
+    final Rule[] longestByStage = new Rule[ADDITIONAL_LIBRARY_STAGE + 1];
+    for (final Rule rule : rules) {
+      if (rule.appliesTo(key) && rule.isLongerThan(longestByStage[rule.stage])) {
+        longestByStage[rule.stage] = rule;
       }
-
-      return true;
     }
-
-    if (name.contains("$JaxbAccessor")
-        || name.contains("CGLIB$$")
-        || name.contains("javassist")
-        || name.contains(".asm.")
-        || name.contains("$__sisu")
-        || name.startsWith("org.springframework.core.$Proxy")) {
-      return true;
+    if (longestByStage[EXCLUDED_STAGE] != null) {
+      return EXCLUDED_OR_IGNORED;
+    }
+    if (longestByStage[GLOBAL_STAGE] != null) {
+      return longestByStage[GLOBAL_STAGE].ignored ? EXCLUDED_OR_IGNORED : NOT_IGNORED_VALUE;
+    }
+    if (longestByStage[SPRING_PROXY_STAGE] != null) {
+      return EXCLUDED_OR_IGNORED;
     }
+    if (longestByStage[ADDITIONAL_LIBRARY_STAGE] != null
+        && longestByStage[ADDITIONAL_LIBRARY_STAGE].ignored) {
+      return ADDITIONAL_LIBRARY_IGNORED;
+    }
+    return UNDECIDED;
+  }
 
-    if (COM_MCHANGE_PROXY.matcher(name).matches()) {
-      return true;
+  private static final class Rule {
+    final String key;
+    final String name;
+    final boolean prefix;
+    final int stage;
+    final boolean ignored;
+
+    Rule(final String key, final int stage, final boolean ignored) {
+      this.key = key;
+      prefix = key.endsWith("*");
+      name = prefix ? key.substring(0, key.length() - 1) : key;
+      this.stage = stage;
+      this.ignored = ignored;
     }
 
-    if (!skipAdditionalLibraryMatcher && additionalLibraryIgnoreMatcher.matches(target)) {
-      return true;
+    /** @return whether this rule matches every name the other rule matches */
+    boolean appliesTo(final Rule other) {
+      return prefix ? other.name.startsWith(name) : !other.prefix && other.name.equals(name);
     }
 
-    return false;
+    /** A name is more specific than a prefix of the same length. */
+    boolean isLongerThan(final Rule other) {
+      return other == null
+          || name.length() > other.name.length()
+          || (name.length() == other.name.length() && !prefix && other.prefix);
+    }
   }
 
   @Override
   public String toString() {
-    return "globalIgnoresMatcher(" + additionalLibraryIgnoreMatcher.toString() + ")";
+    return "globalIgnoresMatcher(skipAdditionalLibraryMatcher="
+        + skipAdditionalLibraryMatcher
+        + ", excludedClasses="
+        + excludedClasses
+        + ")";
   }
 
   @Override
@@ -177,13 +288,14 @@ public class GlobalIgnoresMatcher<T extends TypeDescription>
     } else if (getClass() != other.getClass()) {
       return false;
     } else {
-      return additionalLibraryIgnoreMatcher.equals(
-          ((GlobalIgnoresMatcher) other).additionalLibraryIgnoreMatcher);
+      final GlobalIgnoresMatcher<?> matcher = (GlobalIgnoresMatcher<?>) other;
+      return skipAdditionalLibraryMatcher == matcher.skipAdditionalLibraryMatcher
+          && excludedClasses.equals(matcher.excludedClasses);
     }
   }
 
   @Override
   public int hashCode() {
-    return 17 * 31 + additionalLibraryIgnoreMatcher.hashCode();
+    return (17 * 31 + (skipAdditionalLibraryMatcher ? 1 : 0)) * 31 + excludedClasses.hashCode();
   }
 }
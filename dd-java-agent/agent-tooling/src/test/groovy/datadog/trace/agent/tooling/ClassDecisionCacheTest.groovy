@@ -0,0 +1,260 @@
+package datadog.trace.agent.tooling
+
+import datadog.trace.api.Config
+import datadog.trace.util.test.DDSpecification
+import net.bytebuddy.description.type.TypeDescription
+import net.bytebuddy.matcher.ElementMatcher
+
+import java.security.CodeSource
+import java.security.ProtectionDomain
+import java.security.cert.Certificate
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.jar.JarOutputStream
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+
+class ClassDecisionCacheTest extends DDSpecification {
+
+  File dir
+  File cacheFile
+  File jar
+  def evaluations = new AtomicInteger()
+  def index = new InstrumenterIndex([new ListInstrumenter()])
+
+  def setup() {
+    dir = File.createTempDir()
+    cacheFile = new File(dir, "decisions")
+    jar = new File(dir, "app.jar")
+    writeJar(jar, "one")
+  }
+
+  def cleanup() {
+    dir.deleteDir()
+  }
+
+  def "classes no instrumenter can match are ignored"() {
+    setup:
+    def cache = new ClassDecisionCache(cacheFile, "fingerprint", index)
+
+    expect:
+    cache.matches(type(HashMap), null, null, null, domain(jar))
+    !cache.matches(type(ArrayList), null, null, null, domain(jar))
+    evaluations.get() == 2
+  }
+
+  def "classes are not cached when #reason"() {
+    setup:
+    def cache = new ClassDecisionCache(cacheFile, "fingerprint", index)
+
+    expect:
+    !cache.matches(type(HashMap), null, null, redefined, domain ? domain(jar) : null)
+    evaluations.get() == 0
+
+    where:
+    reason                     | redefined | domain
+    "they are being redefined" | HashMap   | true
+    "their jar is unknown"     | null      | false
+  }
+
+  def "classes loaded from directories are not cached"() {
+    setup:
+    def cache = new ClassDecisionCache(cacheFile, "fingerprint", index)
+
+    expect:
+    !cache.matches(type(HashMap), null, null, null, domain(dir))
+    evaluations.get() == 0
+  }
+
+  def "classes loaded from files that are not zip files are not cached"() {
+    setup:
+    jar.text = "jar"
+    def cache = new ClassDecisionCache(cacheFile, "fingerprint", index)
+
+    expect:
+    !cache.matches(type(HashMap), null, null, null, domain(jar))
+    evaluations.get() == 0
+  }
+
+  def "classes with a super class loaded from a directory are not cached"() {
+    setup:
+    def cache = new ClassDecisionCache(cacheFile, "fingerprint", index)
+
+    expect:
+    !cache.matches(type(FromDirectory), getClass().classLoader, null, null, domain(jar))
+    evaluations.get() == 0
+  }
+
+  def "decisions are reused after a restart"() {
+    setup:
+    def cache = new ClassDecisionCache(cacheFile, "fingerprint", index)
+    cache.matches(type(HashMap), null, null, null, domain(jar))
+    cache.matches(type(ArrayList), null, null, null, domain(jar))
+    cache.save()
+    evaluations.set(0)
+
+    when:
+    def restarted = new ClassDecisionCache(cacheFile, "fingerprint", index)
+
+    then:
+    restarted.matches(type(HashMap), null, null, null, domain(jar))
+    !restarted.matches(type(ArrayList), null, null, null, domain(jar))
+    evaluations.get() == 0
+  }
+
+  def "decisions are discarded when #reason"() {
+    setup:
+    def cache = new ClassDecisionCache(cacheFile, "fingerprint", index)
+    cache.matches(type(HashMap), null, null, null, domain(jar))
+    cache.save()
+    evaluations.set(0)
+
+    when:
+    if (reason == "the jar changed") {
+      writeJar(jar, "changed")
+    } else if (reason == "the jar was rewritten with the same size and modification time") {
+      // Image builders such as Jib normalize modification times.
+      def lastModified = jar.lastModified()
+      def length = jar.length()
+      writeJar(jar, "two")
+      jar.setLastModified(lastModified)
+      assert jar.length() == length
+    }
+    def restarted = new ClassDecisionCache(cacheFile, fingerprint, index)
+
+    then:
+    restarted.matches(type(HashMap), null, null, null, domain(jar))
+    evaluations.get() == 1
+
+    where:
+    reason                                                           | fingerprint
+    "the fingerprint changed"                                        | "other"
+    "the jar changed"                                                | "fingerprint"
+    "the jar was rewritten with the same size and modification time" | "fingerprint"
+  }
+
+  def "decisions are kept when the jar was only touched"() {
+    setup:
+    def cache = new ClassDecisionCache(cacheFile, "fingerprint", index)
+    cache.matches(type(HashMap), null, null, null, domain(jar))
+    cache.save()
+    evaluations.set(0)
+
+    when:
+    jar.setLastModified(jar.lastModified() - 60000)
+    def restarted = new ClassDecisionCache(cacheFile, "fingerprint", index)
+
+    then:
+    restarted.matches(type(HashMap), null, null, null, domain(jar))
+    evaluations.get() == 0
+  }
+
+  def "checksum of #description"() {
+    setup:
+    def other = new File(dir, "other.jar")
+    writeJar(other, otherContent, otherComment)
+
+    expect:
+    (ClassDecisionCache.checksum(jar) == ClassDecisionCache.checksum(other)) == same
+
+    where:
+    description                | otherContent | otherComment | same
+    "an identical jar"         | "one"        | null         | true
+    "a jar with other content" | "two"        | null         | false
+    "a jar with a comment"     | "one"        | "comment"    | false
+  }
+
+  def "checksum of a file that is not a zip file"() {
+    setup:
+    jar.text = "jar"
+
+    expect:
+    ClassDecisionCache.checksum(jar) == ClassDecisionCache.NO_CHECKSUM
+    ClassDecisionCache.checksum(new File(dir, "missing.jar")) == ClassDecisionCache.NO_CHECKSUM
+  }
+
+  def "fingerprint changes with the enabled instrumenters"() {
+    setup:
+    def config = Config.get()
+    def fingerprint = ClassDecisionCache.fingerprint(config, index)
+    def withDisabled = new InstrumenterIndex([new ListInstrumenter(), new DisabledInstrumenter()])
+
+    expect:
+    ClassDecisionCache.fingerprint(config, new InstrumenterIndex([new ListInstrumenter()])) == fingerprint
+    ClassDecisionCache.fingerprint(config, new InstrumenterIndex([])) != fingerprint
+    ClassDecisionCache.fingerprint(config, withDisabled) == fingerprint
+  }
+
+  def "jar file of #location"() {
+    expect:
+    ClassDecisionCache.jarFile(location) == file
+
+    where:
+    location                                        | file
+    "file:/app/lib/app.jar"                         | new File("/app/lib/app.jar")
+    "jar:file:/app/app.jar!/BOOT-INF/lib/lib.jar!/" | new File("/app/app.jar")
+    "jar:file:/app/app.jar"                         | null
+    "http://example.com/app.jar"                    | null
+  }
+
+  /** Writes a jar with a single uncompressed entry, so that its size only depends on the content. */
+  static void writeJar(File file, String content, String comment = null) {
+    def bytes = content.getBytes("UTF-8")
+    def crc = new CRC32()
+    crc.update(bytes)
+    def entry = new ZipEntry("content.txt")
+    entry.method = ZipEntry.STORED
+    entry.size = bytes.length
+    entry.crc = crc.value
+    entry.time = 0
+    new JarOutputStream(new FileOutputStream(file)).withCloseable {
+      it.putNextEntry(entry)
+      it.write(bytes)
+      it.closeEntry()
+      if (comment != null) {
+        it.comment = comment
+      }
+    }
+  }
+
+  TypeDescription type(Class<?> type) {
+    return new TypeDescription.ForLoadedType(type)
+  }
+
+  ProtectionDomain domain(File location) {
+    def codeSource = new CodeSource(location.toURI().toURL(), (Certificate[]) null)
+    return new ProtectionDomain(codeSource, null)
+  }
+
+  static class DirectorySuperClass {}
+
+  static class FromDirectory extends DirectorySuperClass {}
+
+  class ListInstrumenter extends Instrumenter.Default {
+    ListInstrumenter() {
+      super("test")
+    }
+
+    @Override
+    ElementMatcher<? super TypeDescription> typeMatcher() {
+      return new ElementMatcher<TypeDescription>() {
+        @Override
+        boolean matches(TypeDescription target) {
+          evaluations.incrementAndGet()
+          return target.name == ArrayList.name
+        }
+      }
+    }
+
+    @Override
+    Map<ElementMatcher, String> transformers() {
+      return Collections.emptyMap()
+    }
+  }
+
+  class DisabledInstrumenter extends ListInstrumenter {
+    @Override
+    protected boolean defaultEnabled() {
+      return false
+    }
+  }
+}
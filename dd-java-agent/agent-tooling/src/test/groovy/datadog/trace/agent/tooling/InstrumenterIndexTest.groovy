@@ -0,0 +1,120 @@
+package datadog.trace.agent.tooling
+
+import datadog.trace.util.test.DDSpecification
+import net.bytebuddy.agent.builder.AgentBuilder
+import net.bytebuddy.description.type.TypeDescription
+import net.bytebuddy.matcher.ElementMatcher
+
+import static net.bytebuddy.matcher.ElementMatchers.named
+import static net.bytebuddy.matcher.ElementMatchers.none
+
+class InstrumenterIndexTest extends DDSpecification {
+
+  def exactList = new IndexedInstrumenter("exactList", ["java.util.ArrayList"], [])
+  def anyList = new IndexedInstrumenter("anyList", [], ["java.util.List"])
+  def anyCollection = new IndexedInstrumenter("anyCollection", [], ["java.util.Collection"])
+  def anyMap = new IndexedInstrumenter("anyMap", ["java.util.TreeMap"], ["java.util.HashMap"])
+  def unindexed = new IndexedInstrumenter("unindexed", [], [])
+  def all = [exactList, anyList, anyCollection, anyMap, unindexed]
+  def index = new InstrumenterIndex(all)
+
+  def "candidates of #type.simpleName"() {
+    setup:
+    def ids = index.candidates(new TypeDescription.ForLoadedType(type))
+
+    expect:
+    all.findAll { ids.get(all.indexOf(it)) }.collect { it.name } == candidates
+
+    where:
+    type                  | candidates
+    ArrayList             | ["exactList", "anyList", "anyCollection", "unindexed"]
+    LinkedList            | ["anyList", "anyCollection", "unindexed"]
+    HashSet               | ["anyCollection", "unindexed"]
+    List                  | ["anyList", "anyCollection", "unindexed"]
+    TreeMap               | ["anyMap", "unindexed"]
+    LinkedHashMap         | ["anyMap", "unindexed"]
+    String                | ["unindexed"]
+    InstrumenterIndexTest | ["unindexed"]
+  }
+
+  def "unindexed instrumenters are not filtered"() {
+    expect:
+    index.candidateMatcher(unindexed) == AgentBuilder.RawMatcher.Trivial.MATCHING
+    index.candidateMatcher(new IndexedInstrumenter("other", ["java.util.ArrayList"], [])) ==
+      AgentBuilder.RawMatcher.Trivial.MATCHING
+  }
+
+  def "candidate matcher rejects classes the instrumenter cannot match"() {
+    setup:
+    def matcher = index.candidateMatcher(anyList)
+
+    expect:
+    matcher.matches(new TypeDescription.ForLoadedType(ArrayList), null, null, null, null)
+    !matcher.matches(new TypeDescription.ForLoadedType(HashMap), null, null, null, null)
+  }
+
+  def "type matchers and context stores decide whether #type.simpleName can match"() {
+    setup:
+    def index = new InstrumenterIndex([
+      new IndexedInstrumenter("exactList", ["java.util.ArrayList"], [], named("java.util.ArrayList")),
+      new IndexedInstrumenter("store", [], [], none(), ["java.util.Map": "java.lang.Object"]),
+      new IndexedInstrumenter("unindexed", [], [], named("java.lang.String"))
+    ])
+
+    expect:
+    index.canMatch(new TypeDescription.ForLoadedType(type)) == canMatch
+
+    where:
+    type       | canMatch
+    ArrayList  | true
+    LinkedList | false
+    HashMap    | true
+    String     | true
+    Integer    | false
+  }
+
+  class IndexedInstrumenter extends Instrumenter.Default {
+    final String name
+    final List<String> knownTypes
+    final List<String> knownSuperTypes
+    final ElementMatcher<? super TypeDescription> typeMatcher
+    final Map<String, String> contextStore
+
+    IndexedInstrumenter(String name, List<String> knownTypes, List<String> knownSuperTypes,
+                        ElementMatcher<? super TypeDescription> typeMatcher = none(),
+                        Map<String, String> contextStore = [:]) {
+      super("test")
+      this.name = name
+      this.knownTypes = knownTypes
+      this.knownSuperTypes = knownSuperTypes
+      this.typeMatcher = typeMatcher
+      this.contextStore = contextStore
+    }
+
+    @Override
+    String[] knownMatchingTypes() {
+      return knownTypes as String[]
+    }
+
+    @Override
+    String[] knownMatchingSuperTypes() {
+      return knownSuperTypes as String[]
+    }
+
+    @Override
+    ElementMatcher<? super TypeDescription> typeMatcher() {
+      return typeMatcher
+    }
+
+    @Override
+    Map<String, String> contextStore() {
+      // Called by the super constructor, before the field is set.
+      return contextStore ?: [:]
+    }
+
+    @Override
+    Map<ElementMatcher, String> transformers() {
+      return Collections.emptyMap()
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package datadog.trace.agent.tooling
+
+import datadog.trace.util.test.DDSpecification
+import net.bytebuddy.agent.builder.AgentBuilder
+
+class InstrumenterLoaderTest extends DDSpecification {
+
+  File dir
+  ClassLoader classLoader
+
+  def setup() {
+    dir = File.createTempDir()
+    def services = new File(dir, "META-INF/services/" + Instrumenter.name)
+    services.parentFile.mkdirs()
+    services.text = """# Instrumenters
+${First.name}
+${Failing.name} # fails to load
+datadog.trace.agent.tooling.MissingInstrumenter
+
+${Second.name}
+${First.name}
+"""
+    // Only lists the services of the directory, not those of the test class path.
+    classLoader = new URLClassLoader([dir.toURI().toURL()] as URL[], getClass().classLoader) {
+      @Override
+      Enumeration<URL> getResources(String name) {
+        return findResources(name)
+      }
+    }
+  }
+
+  def cleanup() {
+    dir.deleteDir()
+  }
+
+  def "service names are listed in order"() {
+    expect:
+    InstrumenterLoader.serviceNames(classLoader) ==
+      [First.name, Failing.name, "datadog.trace.agent.tooling.MissingInstrumenter", Second.name]
+  }
+
+  def "instrumenters loaded on #threads threads keep their order and skip failures"() {
+    expect:
+    InstrumenterLoader.load(classLoader, threads).collect { it.class } == [First, Second]
+
+    where:
+    threads << [1, 4]
+  }
+
+  static class First extends TestInstrumenter {}
+
+  static class Second extends TestInstrumenter {}
+
+  static class Failing extends TestInstrumenter {
+    Failing() {
+      throw new IllegalStateException("failing")
+    }
+  }
+
+  static class TestInstrumenter implements Instrumenter {
+    @Override
+    AgentBuilder instrument(AgentBuilder agentBuilder) {
+      return agentBuilder
+    }
+  }
+}
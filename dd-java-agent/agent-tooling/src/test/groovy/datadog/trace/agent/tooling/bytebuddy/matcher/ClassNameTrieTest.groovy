@@ -0,0 +1,62 @@
+package datadog.trace.agent.tooling.bytebuddy.matcher
+
+import datadog.trace.util.test.DDSpecification
+
+class ClassNameTrieTest extends DDSpecification {
+
+  def trie = new ClassNameTrie.Builder()
+    .put("com.example.*", 1)
+    .put("com.example.internal.*", 2)
+    .put("com.example.internal.Exposed", 3)
+    .put("com.example.Exact", 4)
+    .put("com.example.Prefix*", 5)
+    .build()
+
+  def "longest key matching #name wins"() {
+    expect:
+    trie.apply(name) == value
+
+    where:
+    name                                 | value
+    "com.example.Foo"                    | 1
+    "com.example."                       | 1
+    "com.example"                        | ClassNameTrie.NO_MATCH
+    "com.exampl"                         | ClassNameTrie.NO_MATCH
+    "org.example.Foo"                    | ClassNameTrie.NO_MATCH
+    ""                                   | ClassNameTrie.NO_MATCH
+    "com.example.internal.Foo"           | 2
+    "com.example.internal.Exposed"       | 3
+    "com.example.internal.Exposed\$1"    | 2
+    "com.example.Exact"                  | 4
+    "com.example.Exact\$Inner"           | 1
+    "com.example.Prefix"                 | 5
+    "com.example.PrefixFoo"              | 5
+  }
+
+  def "a name is more specific than a prefix of the same length"() {
+    setup:
+    def trie = new ClassNameTrie.Builder().put("com.Foo*", 1).put("com.Foo", 2).build()
+
+    expect:
+    trie.apply("com.Foo") == 2
+    trie.apply("com.Foo\$Bar") == 1
+  }
+
+  def "an empty prefix matches everything"() {
+    setup:
+    def trie = new ClassNameTrie.Builder().put("*", 1).put("com.*", 2).build()
+
+    expect:
+    trie.apply("") == 1
+    trie.apply("org.Foo") == 1
+    trie.apply("com.Foo") == 2
+  }
+
+  def "values replace previous values"() {
+    setup:
+    def trie = new ClassNameTrie.Builder().put("com.*", 1).put("com.*", 2).build()
+
+    expect:
+    trie.apply("com.Foo") == 2
+  }
+}
@@ -0,0 +1,75 @@
+package datadog.trace.agent.tooling.bytebuddy.matcher
+
+import datadog.trace.util.test.DDSpecification
+import net.bytebuddy.description.type.TypeDescription
+
+import static datadog.trace.agent.tooling.bytebuddy.matcher.GlobalIgnoresMatcher.globalIgnoresMatcher
+
+class GlobalIgnoresMatcherTest extends DDSpecification {
+
+  def "#name is ignored: #ignored"() {
+    setup:
+    def type = Mock(TypeDescription)
+    type.getActualName() >> name
+
+    expect:
+    globalIgnoresMatcher(false).matches(type) == ignored
+
+    where:
+    name                                                                      | ignored
+    "java.lang.String"                                                        | true
+    "java.net.URL"                                                            | false
+    "java.net.URLConnection"                                                  | true
+    "java.util.concurrent.ThreadPoolExecutor"                                 | false
+    "java.util.logging.Logger"                                                | false
+    "java.util.logging.LogManager\$Cleaner"                                   | true
+    "datadog.trace.agent.tooling.AgentInstaller"                              | true
+    "datadog.trace.bootstrap.instrumentation.java.concurrent.RunnableWrapper" | false
+    "org.codehaus.groovy.reflection.CachedClass"                              | true
+    "org.codehaus.groovy.runtime.ScriptBytecodeAdapter"                       | false
+    "sun.rmi.transport.Transport"                                             | false
+    "sun.misc.Unsafe"                                                         | true
+    "com.example.Foo\$JaxbAccessor"                                           | true
+    "com.example.Foo\$\$EnhancerByCGLIB\$\$1"                                 | true
+    "com.mchange.v2.c3p0.impl.NewProxy"                                       | true
+    "com.mchange.v2.c3p0.impl.NewProxyConnection"                             | false
+    "org.springframework.core.\$Proxy12"                                      | true
+    "org.springframework.web.servlet.DispatcherServlet"                       | false
+    "org.springframework.web.util.UriUtils"                                   | true
+    "org.springframework.web.util.UriUtils\$JaxbAccessor"                     | true
+    "org.springframework.data.repository.core.support.RepositoryFactorySupport" | false
+    "org.h2.Driver"                                                           | false
+    "org.h2.DriverFoo"                                                        | true
+    "kotlin.collections.ArraysKt"                                             | true
+    "kotlinx.coroutines.DispatchedTask"                                       | false
+    "com.example.Foo"                                                         | false
+  }
+
+  def "additional library ignores can be skipped"() {
+    setup:
+    def type = Mock(TypeDescription)
+    type.getActualName() >> "org.springframework.web.util.UriUtils"
+
+    expect:
+    globalIgnoresMatcher(false).matches(type)
+    !globalIgnoresMatcher(true).matches(type)
+  }
+
+  def "excluded #name is ignored: #ignored"() {
+    setup:
+    def type = Mock(TypeDescription)
+    type.getActualName() >> name
+    def excludes = ["com.example.*", " org.Exact ", "java.util.concurrent.*"]
+
+    expect:
+    globalIgnoresMatcher(false, excludes).matches(type) == ignored
+
+    where:
+    name                                      | ignored
+    "com.example.Foo"                         | true
+    "org.Exact"                               | true
+    "org.Exact\$Inner"                        | false
+    "java.util.concurrent.ThreadPoolExecutor" | true
+    "java.net.URL"                            | false
+  }
+}
@@ -0,0 +1,51 @@
+package datadog.benchmark;
+
+import datadog.trace.api.Ids;
+import java.math.BigInteger;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares hex encoding of span ids as done for Zipkin serialization and B3 injection: the
+ * BigInteger based encoding done on every use, against encoding the primitive id once and reusing
+ * the cached String (as DDSpanContext does).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HexIdBenchmark {
+
+  @State(Scope.Thread)
+  public static class BenchmarkState {
+    private final long id = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+    private final BigInteger bigId = BigInteger.valueOf(id);
+  }
+
+  /** Previous path: each use (injection and serialization) encodes from the BigInteger. */
+  @Benchmark
+  public void bigIntegerEncodedPerUse(final BenchmarkState state, final Blackhole blackhole) {
+    blackhole.consume(String.valueOf(Ids.idToHexChars(state.bigId)));
+    blackhole.consume(Ids.idToHexChars(state.bigId));
+  }
+
+  /** Primitive id, but still encoded on every use. */
+  @Benchmark
+  public void primitiveEncodedPerUse(final BenchmarkState state, final Blackhole blackhole) {
+    blackhole.consume(Ids.idToHex(0, state.id));
+    blackhole.consume(Ids.idToHexChars(0, state.id));
+  }
+
+  /** Current path: a new span context encodes once and every further use reads the cache. */
+  @Benchmark
+  public void primitiveEncodedOnce(final BenchmarkState state, final Blackhole blackhole) {
+    final String hex = Ids.idToHex(0, state.id);
+    blackhole.consume(hex);
+    blackhole.consume(hex);
+  }
+}
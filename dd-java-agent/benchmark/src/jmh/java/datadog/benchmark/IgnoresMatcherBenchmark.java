@@ -0,0 +1,107 @@
+package datadog.benchmark;
+
+import static datadog.trace.agent.tooling.bytebuddy.matcher.GlobalIgnoresMatcher.globalIgnoresMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Time per class load spent deciding whether to ignore the class, for the trie compiled from all
+ * ignore and exclude rules and for the {@code startsWith} chains it replaced, plus the time to
+ * build the trie at agent start. Class names are a mix of JDK, library and application classes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IgnoresMatcherBenchmark {
+  private static final String[] CLASS_NAMES = {
+    "java.lang.String",
+    "java.util.concurrent.ThreadPoolExecutor",
+    "java.util.logging.Logger",
+    "sun.reflect.GeneratedMethodAccessor12",
+    "jdk.internal.reflect.DelegatingClassLoader",
+    "com.sun.proxy.$Proxy27",
+    "org.springframework.web.servlet.DispatcherServlet",
+    "org.springframework.beans.factory.support.DefaultListableBeanFactory",
+    "org.springframework.boot.autoconfigure.BackgroundPreinitializer$1",
+    "org.springframework.web.util.UriComponentsBuilder",
+    "org.apache.catalina.core.StandardContext",
+    "org.apache.tomcat.util.net.NioEndpoint$Poller",
+    "org.hibernate.internal.SessionImpl",
+    "org.hibernate.persister.entity.AbstractEntityPersister",
+    "com.fasterxml.jackson.databind.ObjectMapper",
+    "com.google.common.collect.ImmutableList",
+    "com.google.common.util.concurrent.AbstractFuture",
+    "ch.qos.logback.classic.Logger",
+    "io.netty.channel.nio.NioEventLoop",
+    "kotlin.collections.CollectionsKt",
+    "com.example.orders.OrderController",
+    "com.example.orders.OrderRepository$$EnhancerBySpringCGLIB$$4f2a",
+    "com.example.orders.internal.PricingService",
+    "com.mchange.v2.c3p0.impl.NewProxyConnection"
+  };
+
+  @State(Scope.Benchmark)
+  public static class IgnoresState {
+    @Param({"0", "10", "100"})
+    public int excludeCount;
+
+    public List<String> excludedClasses;
+    public TypeDescription[] types;
+    public ElementMatcher<TypeDescription> matcher;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      excludedClasses = excludes(excludeCount);
+      types = new TypeDescription[CLASS_NAMES.length];
+      for (int i = 0; i < CLASS_NAMES.length; i++) {
+        types[i] = new TypeDescription.Latent(CLASS_NAMES[i], 0, null);
+      }
+      matcher = globalIgnoresMatcher(false, excludedClasses);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(24)
+  public void trie(final IgnoresState state, final Blackhole blackhole) {
+    for (final TypeDescription type : state.types) {
+      blackhole.consume(state.matcher.matches(type));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(24)
+  public void startsWithChains(final IgnoresState state, final Blackhole blackhole) {
+    for (final TypeDescription type : state.types) {
+      blackhole.consume(
+          LegacyIgnoresMatcher.ignores(type.getActualName(), false, state.excludedClasses));
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public ElementMatcher<TypeDescription> buildTrie(final IgnoresState state) {
+    return globalIgnoresMatcher(false, state.excludedClasses);
+  }
+
+  private static List<String> excludes(final int count) {
+    final List<String> excludes = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      excludes.add(i % 2 == 0 ? "com.example.excluded" + i + ".*" : "com.example.Excluded" + i);
+    }
+    return excludes;
+  }
+}
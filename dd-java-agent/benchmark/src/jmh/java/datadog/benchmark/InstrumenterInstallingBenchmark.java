@@ -0,0 +1,74 @@
+package datadog.benchmark;
+
+import datadog.trace.agent.tooling.AgentInstaller;
+import java.lang.instrument.Instrumentation;
+import java.util.concurrent.TimeUnit;
+import net.bytebuddy.agent.ByteBuddyAgent;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.agent.builder.ResettableClassFileTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to load and install the instrumenters on the benchmark class path, in a fresh JVM every
+ * time since instrumenter classes are only loaded once.
+ *
+ * <p>The class path carries every instrumentation the agent ships, so the default run installs as
+ * many instrumenters as the agent does and {@link TenIntegrations} those of ten integrations.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class InstrumenterInstallingBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class BenchmarkState {
+    private final Instrumentation inst = ByteBuddyAgent.install();
+    private ResettableClassFileTransformer transformer;
+
+    @TearDown
+    public void reset() {
+      if (transformer != null) {
+        transformer.reset(inst, AgentBuilder.RedefinitionStrategy.RETRANSFORMATION);
+      }
+    }
+  }
+
+  @Benchmark
+  public ResettableClassFileTransformer installInstrumenters(final BenchmarkState state) {
+    state.transformer = AgentInstaller.installBytebuddyAgent(state.inst, false);
+    return state.transformer;
+  }
+
+  @Fork(jvmArgsAppend = "-Ddd.integrations.enabled=false")
+  public static class NoIntegrations extends InstrumenterInstallingBenchmark {}
+
+  @Fork(
+      jvmArgsAppend = {
+        "-Ddd.integrations.enabled=false",
+        "-Ddd.integration.jdbc.enabled=true",
+        "-Ddd.integration.httpurlconnection.enabled=true",
+        "-Ddd.integration.httpclient.enabled=true",
+        "-Ddd.integration.okhttp.enabled=true",
+        "-Ddd.integration.jedis.enabled=true",
+        "-Ddd.integration.jms.enabled=true",
+        "-Ddd.integration.kafka.enabled=true",
+        "-Ddd.integration.grpc.enabled=true",
+        "-Ddd.integration.servlet.enabled=true",
+        "-Ddd.integration.spring-web.enabled=true"
+      })
+  public static class TenIntegrations extends InstrumenterInstallingBenchmark {}
+
+  @Fork(jvmArgsAppend = "-Ddd.trace.instrumenters.loading.threads=1")
+  public static class LoadingSequentially extends InstrumenterInstallingBenchmark {}
+}
@@ -0,0 +1,416 @@
+package datadog.benchmark;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The ignore rules as they were before being compiled into a trie: chains of {@code startsWith}
+ * checks, and one check per configured exclude. Only kept as a baseline for {@link
+ * IgnoresMatcherBenchmark}.
+ */
+final class LegacyIgnoresMatcher {
+  private static final Pattern COM_MCHANGE_PROXY =
+      Pattern.compile("com\\.mchange\\.v2\\.c3p0\\..*Proxy");
+
+  private LegacyIgnoresMatcher() {}
+
+  static boolean ignores(
+      final String name,
+      final boolean skipAdditionalLibraryMatcher,
+      final List<String> excludedClasses) {
+    return globalIgnores(name, skipAdditionalLibraryMatcher) || excluded(name, excludedClasses);
+  }
+
+  private static boolean excluded(final String name, final List<String> excludedClasses) {
+    for (final String excludedClass : excludedClasses) {
+      if (excludedClass.endsWith("*")
+          ? name.startsWith(excludedClass.substring(0, excludedClass.length() - 1))
+          : name.equals(excludedClass)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean globalIgnores(
+      final String name, final boolean skipAdditionalLibraryMatcher) {
+
+    if (name.startsWith("datadog.opentracing.")
+        || name.startsWith("datadog.slf4j.")
+        || name.startsWith("net.bytebuddy.")
+        || name.startsWith("jdk.")
+        || name.startsWith("org.aspectj.")
+        || name.startsWith("com.intellij.rt.debugger.")
+        || name.startsWith("com.p6spy.")
+        || name.startsWith("com.newrelic.")
+        || name.startsWith("com.dynatrace.")
+        || name.startsWith("com.jloadtrace.")
+        || name.startsWith("com.appdynamics.")
+        || name.startsWith("com.singularity.")
+        || name.startsWith("com.jinspired.")
+        || name.startsWith("org.jinspired.")) {
+      return true;
+    }
+
+    // groovy
+    if (name.startsWith("org.groovy.") || name.startsWith("org.apache.groovy.")) {
+      return true;
+    }
+    if (name.startsWith("org.codehaus.groovy.")) {
+      // We seem to instrument some classes in runtime
+      if (name.startsWith("org.codehaus.groovy.runtime.")) {
+        return false;
+      }
+      return true;
+    }
+
+    if (name.startsWith("datadog.trace.")) {
+      // FIXME: We should remove this once
+      // https://github.com/raphw/byte-buddy/issues/558 is fixed
+      if (name.equals("datadog.trace.bootstrap.instrumentation.java.concurrent.RunnableWrapper")
+          || name.equals(
+              "datadog.trace.bootstrap.instrumentation.java.concurrent.CallableWrapper")) {
+        return false;
+      }
+      return true;
+    }
+
+    if (name.startsWith("java.")) {
+      if (name.equals("java.net.URL") || name.equals("java.net.HttpURLConnection")) {
+        return false;
+      }
+      if (name.startsWith("java.rmi.") || name.startsWith("java.util.concurrent.")) {
+        return false;
+      }
+      // Concurrent instrumentation modifies the structure of
+      // Cleaner class incompatibly with java9+ modules.
+      // Working around until a long-term fix for modules can be
+      // put in place.
+      if (name.startsWith("java.util.logging.")
+          && !name.equals("java.util.logging.LogManager$Cleaner")) {
+        return false;
+      }
+
+      return true;
+    }
+
+    if (name.startsWith("com.sun.")) {
+      if (name.startsWith("com.sun.messaging.") || name.startsWith("com.sun.jersey.api.client")) {
+        return false;
+      }
+
+      return true;
+    }
+
+    if (name.startsWith("sun.")) {
+      if (name.startsWith("sun.net.www.protocol.")
+          || name.startsWith("sun.rmi.server")
+          || name.startsWith("sun.rmi.transport")
+          || name.equals("sun.net.www.http.HttpClient")) {
+        return false;
+      }
+
+      return true;
+    }
+
+    if (name.startsWith("org.apache.log4j.")) {
+      if (name.equals("org.apache.log4j.MDC")) {
+        return false;
+      }
+
+      return true;
+    }
+
+    if (name.startsWith("org.slf4j.")) {
+      if (name.equals("org.slf4j.MDC")) {
+        return false;
+      }
+
+      return true;
+    }
+
+    if (name.contains("$JaxbAccessor")
+        || name.contains("CGLIB$$")
+        || name.contains("javassist")
+        || name.contains(".asm.")
+        || name.contains("$__sisu")
+        || name.startsWith("org.springframework.core.$Proxy")) {
+      return true;
+    }
+
+    if (COM_MCHANGE_PROXY.matcher(name).matches()) {
+      return true;
+    }
+
+    if (!skipAdditionalLibraryMatcher && additionalLibraryIgnores(name)) {
+      return true;
+    }
+
+    return false;
+  }
+
+  private static boolean additionalLibraryIgnores(final String name) {
+
+    if (name.startsWith("com.beust.jcommander.")
+        || name.startsWith("com.fasterxml.classmate.")
+        || name.startsWith("com.github.mustachejava.")
+        || name.startsWith("com.jayway.jsonpath.")
+        || name.startsWith("com.lightbend.lagom.")
+        || name.startsWith("javax.el.")
+        || name.startsWith("net.sf.cglib.")
+        || name.startsWith("org.apache.lucene.")
+        || name.startsWith("org.apache.tartarus.")
+        || name.startsWith("org.json.simple.")
+        || name.startsWith("org.yaml.snakeyaml.")) {
+      return true;
+    }
+
+    if (name.startsWith("org.springframework.")) {
+      if (name.startsWith("org.springframework.aop.")
+          || name.startsWith("org.springframework.cache.")
+          || name.startsWith("org.springframework.dao.")
+          || name.startsWith("org.springframework.ejb.")
+          || name.startsWith("org.springframework.expression.")
+          || name.startsWith("org.springframework.format.")
+          || name.startsWith("org.springframework.jca.")
+          || name.startsWith("org.springframework.jdbc.")
+          || name.startsWith("org.springframework.jmx.")
+          || name.startsWith("org.springframework.jndi.")
+          || name.startsWith("org.springframework.lang.")
+          || name.startsWith("org.springframework.messaging.")
+          || name.startsWith("org.springframework.objenesis.")
+          || name.startsWith("org.springframework.orm.")
+          || name.startsWith("org.springframework.remoting.")
+          || name.startsWith("org.springframework.scripting.")
+          || name.startsWith("org.springframework.stereotype.")
+          || name.startsWith("org.springframework.transaction.")
+          || name.startsWith("org.springframework.ui.")
+          || name.startsWith("org.springframework.validation.")) {
+        return true;
+      }
+
+      if (name.startsWith("org.springframework.data.")) {
+        if (name.equals("org.springframework.data.repository.core.support.RepositoryFactorySupport")
+            || name.startsWith(
+                "org.springframework.data.convert.ClassGeneratingEntityInstantiator$")
+            || name.equals(
+                "org.springframework.data.jpa.repository.config.InspectionClassLoader")) {
+          return false;
+        }
+        return true;
+      }
+
+      if (name.startsWith("org.springframework.amqp.")) {
+        if (name.startsWith("org.springframework.amqp.rabbit.connection.")) {
+          return false;
+        }
+        return true;
+      }
+
+      if (name.startsWith("org.springframework.beans.")) {
+        if (name.equals("org.springframework.beans.factory.support.DisposableBeanAdapter")
+            || name.startsWith(
+                "org.springframework.beans.factory.groovy.GroovyBeanDefinitionReader$")) {
+          return false;
+        }
+        return true;
+      }
+
+      if (name.startsWith("org.springframework.boot.")) {
+        // More runnables to deal with
+        if (name.startsWith("org.springframework.boot.autoconfigure.BackgroundPreinitializer$")
+            || name.startsWith("org.springframework.boot.autoconfigure.condition.OnClassCondition$")
+            || name.startsWith("org.springframework.boot.web.embedded.netty.NettyWebServer$")
+            || name.startsWith(
+                "org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainer$")
+            || name.equals(
+                "org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedWebappClassLoader")) {
+          return false;
+        }
+        return true;
+      }
+
+      if (name.startsWith("org.springframework.cglib.")) {
+        // This class contains nested Callable instance that we'd happily not touch, but
+        // unfortunately our field injection code is not flexible enough to realize that, so instead
+        // we instrument this Callable to make tests happy.
+        if (name.startsWith("org.springframework.cglib.core.internal.LoadingCache$")) {
+          return false;
+        }
+        return true;
+      }
+
+      if (name.startsWith("org.springframework.context.")) {
+        // More runnables to deal with
+        if (name.startsWith("org.springframework.context.support.AbstractApplicationContext$")
+            || name.equals("org.springframework.context.support.ContextTypeMatchClassLoader")) {
+          return false;
+        }
+        return true;
+      }
+
+      if (name.startsWith("org.springframework.core.")) {
+        if (name.startsWith("org.springframework.core.task.")
+            || name.equals("org.springframework.core.DecoratingClassLoader")
+            || name.equals("org.springframework.core.OverridingClassLoader")) {
+          return false;
+        }
+        return true;
+      }
+
+      if (name.startsWith("org.springframework.instrument.")) {
+        if (name.equals("org.springframework.instrument.classloading.SimpleThrowawayClassLoader")
+            || name.equals("org.springframework.instrument.classloading.ShadowingClassLoader")) {
+          return false;
+        }
+        return true;
+      }
+
+      if (name.startsWith("org.springframework.http.")) {
+        // There are some Mono implementation that get instrumented
+        if (name.startsWith("org.springframework.http.server.reactive.")) {
+          return false;
+        }
+        return true;
+      }
+
+      if (name.startsWith("org.springframework.jms.")) {
+        if (name.startsWith("org.springframework.jms.listener.")) {
+          return false;
+        }
+        return true;
+      }
+
+      if (name.startsWith("org.springframework.util.")) {
+        if (name.startsWith("org.springframework.util.concurrent.")) {
+          return false;
+        }
+        return true;
+      }
+
+      if (name.startsWith("org.springframework.web.")) {
+        if (name.startsWith("org.springframework.web.servlet.")
+            || name.startsWith("org.springframework.web.client.")
+            || name.startsWith("org.springframework.web.reactive.")
+            || name.startsWith("org.springframework.web.context.request.async.")) {
+          return false;
+        }
+        return true;
+      }
+
+      return false;
+    }
+
+    // xml-apis, xerces, xalan
+    if (name.startsWith("javax.xml.")
+        || name.startsWith("org.apache.bcel.")
+        || name.startsWith("org.apache.html.")
+        || name.startsWith("org.apache.regexp.")
+        || name.startsWith("org.apache.wml.")
+        || name.startsWith("org.apache.xalan.")
+        || name.startsWith("org.apache.xerces.")
+        || name.startsWith("org.apache.xml.")
+        || name.startsWith("org.apache.xpath.")
+        || name.startsWith("org.xml.")) {
+      return true;
+    }
+
+    if (name.startsWith("ch.qos.logback.")) {
+      // We instrument this Runnable
+      if (name.equals("ch.qos.logback.core.AsyncAppenderBase$Worker")) {
+        return false;
+      }
+
+      return true;
+    }
+
+    if (name.startsWith("com.codahale.metrics.")) {
+      // We instrument servlets
+      if (name.startsWith("com.codahale.metrics.servlets.")) {
+        return false;
+      }
+      return true;
+    }
+
+    if (name.startsWith("com.couchbase.client.deps.")) {
+      // Couchbase library includes some packaged dependencies, unfortunately some of them are
+      // instrumented by java-concurrent instrumentation
+      if (name.startsWith("com.couchbase.client.deps.io.netty.")
+          || name.startsWith("com.couchbase.client.deps.org.LatencyUtils.")
+          || name.startsWith("com.couchbase.client.deps.com.lmax.disruptor.")) {
+        return false;
+      }
+      return true;
+    }
+
+    if (name.startsWith("com.google.cloud.")
+        || name.startsWith("com.google.instrumentation.")
+        || name.startsWith("com.google.j2objc.")
+        || name.startsWith("com.google.gson.")
+        || name.startsWith("com.google.logging.")
+        || name.startsWith("com.google.longrunning.")
+        || name.startsWith("com.google.protobuf.")
+        || name.startsWith("com.google.rpc.")
+        || name.startsWith("com.google.thirdparty.")
+        || name.startsWith("com.google.type.")) {
+      return true;
+    }
+    if (name.startsWith("com.google.common.")) {
+      if (name.startsWith("com.google.common.util.concurrent.")
+          || name.equals("com.google.common.base.internal.Finalizer")) {
+        return false;
+      }
+      return true;
+    }
+    if (name.startsWith("com.google.inject.")) {
+      // We instrument Runnable there
+      if (name.startsWith("com.google.inject.internal.AbstractBindingProcessor$")
+          || name.startsWith("com.google.inject.internal.BytecodeGen$")
+          || name.startsWith("com.google.inject.internal.cglib.core.internal.$LoadingCache$")) {
+        return false;
+      }
+      return true;
+    }
+    if (name.startsWith("com.google.api.")) {
+      if (name.startsWith("com.google.api.client.http.HttpRequest")) {
+        return false;
+      }
+      return true;
+    }
+
+    if (name.startsWith("org.h2.")) {
+      if (name.equals("org.h2.Driver")
+          || name.startsWith("org.h2.jdbc.")
+          || name.startsWith("org.h2.jdbcx.")
+          // Some runnables that get instrumented
+          || name.equals("org.h2.util.Task")
+          || name.equals("org.h2.store.FileLock")
+          || name.equals("org.h2.engine.DatabaseCloser")
+          || name.equals("org.h2.engine.OnExitDatabaseCloser")) {
+        return false;
+      }
+      return true;
+    }
+
+    if (name.startsWith("com.carrotsearch.hppc.")) {
+      if (name.startsWith("com.carrotsearch.hppc.HashOrderMixing$")) {
+        return false;
+      }
+      return true;
+    }
+
+    if (name.startsWith("com.fasterxml.jackson.")) {
+      if (name.equals("com.fasterxml.jackson.module.afterburner.util.MyClassLoader")) {
+        return false;
+      }
+      return true;
+    }
+
+    // kotlin, note we do not ignore kotlinx because we instrument coroutins code
+    if (name.startsWith("kotlin.")) {
+      return true;
+    }
+
+    return false;
+  }
+}
@@ -0,0 +1,73 @@
+package datadog.benchmark;
+
+import datadog.trace.instrumentation.jdbc.normalizer.SqlNormalizer;
+import datadog.trace.instrumentation.jdbc.normalizer.SqlObfuscator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the JavaCC generated SQL normalizer with the hand-written lexer that replaced it, on
+ * statements of increasing size. Run with {@code -prof gc} to compare allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SqlNormalizerBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class BenchmarkState {
+    @Param({"point", "join", "insert"})
+    public String statement;
+
+    public String sql;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      sql = build(statement);
+    }
+
+    private static String build(final String statement) {
+      switch (statement) {
+        case "point":
+          return "SELECT * FROM users WHERE id = 12345";
+        case "join":
+          return "SELECT u.id, u.name, o.total FROM users u JOIN orders o ON o.user_id = u.id "
+              + "WHERE u.email = 'jane@example.com' AND o.created > '2020-01-01' "
+              + "AND o.total >= 100.50 ORDER BY o.created DESC LIMIT 20";
+        default:
+          final StringBuilder sql =
+              new StringBuilder("INSERT INTO events (id, kind, payload, created) VALUES ");
+          for (int i = 0; i < 50; i++) {
+            if (i > 0) {
+              sql.append(", ");
+            }
+            sql.append('(')
+                .append(i)
+                .append(", 'click', '{\"x\": ")
+                .append(i * 7)
+                .append("}', 0x1f")
+                .append(i)
+                .append(')');
+          }
+          return sql.toString();
+      }
+    }
+  }
+
+  @Benchmark
+  public String javacc(final BenchmarkState state) throws Exception {
+    return SqlNormalizer.normalize(state.sql);
+  }
+
+  @Benchmark
+  public String handWritten(final BenchmarkState state) {
+    return SqlObfuscator.normalize(state.sql);
+  }
+}
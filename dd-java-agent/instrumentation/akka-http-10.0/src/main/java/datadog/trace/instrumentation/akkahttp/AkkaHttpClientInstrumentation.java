@@ -40,6 +40,11 @@ public final class AkkaHttpClientInstrumentation extends Instrumenter.Default {
     return named("akka.http.scaladsl.HttpExt");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"akka.http.scaladsl.HttpExt"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -39,6 +39,11 @@ public class CamelContextInstrumentation extends Instrumenter.Default {
     return not(isAbstract()).and(implementsInterface(named("org.apache.camel.CamelContext")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.apache.camel.CamelContext"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -50,6 +50,11 @@ public class ApacheHttpAsyncClientInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("org.apache.http.nio.client.HttpAsyncClient"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.apache.http.nio.client.HttpAsyncClient"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
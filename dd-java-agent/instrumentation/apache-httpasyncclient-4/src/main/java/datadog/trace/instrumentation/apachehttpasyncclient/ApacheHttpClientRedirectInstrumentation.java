@@ -41,6 +41,11 @@ public class ApacheHttpClientRedirectInstrumentation extends Instrumenter.Defaul
     return implementsInterface(named("org.apache.http.client.RedirectStrategy"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.apache.http.client.RedirectStrategy"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
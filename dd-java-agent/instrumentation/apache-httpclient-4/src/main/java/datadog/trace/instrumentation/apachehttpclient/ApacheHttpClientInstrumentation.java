@@ -53,6 +53,11 @@ public class ApacheHttpClientInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("org.apache.http.client.HttpClient"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.apache.http.client.HttpClient"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -34,6 +34,11 @@ public final class AWSClientInstrumentation extends Instrumenter.Default {
         .and(declaresField(named("requestHandler2s")));
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"com.amazonaws.AmazonWebServiceClient"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -37,6 +37,11 @@ public class AWSHttpClientInstrumentation extends Instrumenter.Default {
     return named("com.amazonaws.http.AmazonHttpClient");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"com.amazonaws.http.AmazonHttpClient"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -80,6 +85,11 @@ public class AWSHttpClientInstrumentation extends Instrumenter.Default {
       return named("com.amazonaws.http.AmazonHttpClient$RequestExecutor");
     }
 
+    @Override
+    public String[] knownMatchingTypes() {
+      return new String[] {"com.amazonaws.http.AmazonHttpClient$RequestExecutor"};
+    }
+
     @Override
     public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
       return singletonMap(
@@ -38,6 +38,11 @@ public final class RequestInstrumentation extends Instrumenter.Default {
         .and(extendsClass(named("com.amazonaws.AmazonWebServiceRequest")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"com.amazonaws.AmazonWebServiceRequest"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -35,6 +35,11 @@ public final class AwsClientInstrumentation extends AbstractAwsClientInstrumenta
                 named("software.amazon.awssdk.core.client.builder.SdkClientBuilder")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"software.amazon.awssdk.core.client.builder.SdkClientBuilder"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
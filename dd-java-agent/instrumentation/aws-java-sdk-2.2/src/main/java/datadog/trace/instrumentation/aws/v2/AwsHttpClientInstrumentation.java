@@ -45,6 +45,14 @@ public final class AwsHttpClientInstrumentation extends AbstractAwsClientInstrum
                             "software.amazon.awssdk.core.internal.http.pipeline.stages.MakeAsyncHttpRequestStage"))));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {
+      "software.amazon.awssdk.core.internal.http.pipeline.stages.MakeHttpRequestStage",
+      "software.amazon.awssdk.core.internal.http.pipeline.stages.MakeAsyncHttpRequestStage",
+    };
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return Collections.singletonMap(
@@ -47,6 +47,11 @@ public final class ClassloadingInstrumentation extends Instrumenter.Default {
         .and(extendsClass(named("java.lang.ClassLoader")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"java.lang.ClassLoader"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {Constants.class.getName()};
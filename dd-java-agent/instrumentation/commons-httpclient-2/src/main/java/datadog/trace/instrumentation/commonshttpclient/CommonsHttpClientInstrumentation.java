@@ -44,6 +44,11 @@ public class CommonsHttpClientInstrumentation extends Instrumenter.Default {
     return extendsClass(named("org.apache.commons.httpclient.HttpClient"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.apache.commons.httpclient.HttpClient"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
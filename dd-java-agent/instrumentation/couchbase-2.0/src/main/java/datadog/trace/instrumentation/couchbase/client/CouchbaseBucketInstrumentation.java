@@ -32,6 +32,14 @@ public class CouchbaseBucketInstrumentation extends Instrumenter.Default {
         .or(named("com.couchbase.client.java.CouchbaseAsyncBucket"));
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {
+      "com.couchbase.client.java.bucket.DefaultAsyncBucketManager",
+      "com.couchbase.client.java.CouchbaseAsyncBucket",
+    };
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -32,6 +32,14 @@ public class CouchbaseClusterInstrumentation extends Instrumenter.Default {
         .or(named("com.couchbase.client.java.CouchbaseAsyncCluster"));
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {
+      "com.couchbase.client.java.cluster.DefaultAsyncClusterManager",
+      "com.couchbase.client.java.CouchbaseAsyncCluster",
+    };
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -34,6 +34,11 @@ public class CouchbaseCoreInstrumentation extends Instrumenter.Default {
     return named("com.couchbase.client.core.CouchbaseCore");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"com.couchbase.client.core.CouchbaseCore"};
+  }
+
   @Override
   public Map<String, String> contextStore() {
     return Collections.singletonMap(
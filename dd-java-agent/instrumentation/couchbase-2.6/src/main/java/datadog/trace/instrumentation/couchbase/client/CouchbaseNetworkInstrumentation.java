@@ -44,6 +44,11 @@ public class CouchbaseNetworkInstrumentation extends Instrumenter.Default {
             extendsClass(named("com.couchbase.client.core.endpoint.AbstractGenericHandler")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"com.couchbase.client.core.endpoint.AbstractGenericHandler"};
+  }
+
   @Override
   public Map<String, String> contextStore() {
     return Collections.singletonMap(
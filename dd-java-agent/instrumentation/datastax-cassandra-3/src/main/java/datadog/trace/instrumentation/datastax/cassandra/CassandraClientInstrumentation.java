@@ -29,6 +29,11 @@ public class CassandraClientInstrumentation extends Instrumenter.Default {
     return named("com.datastax.driver.core.Cluster$Manager");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"com.datastax.driver.core.Cluster$Manager"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -42,6 +42,11 @@ public final class DropwizardViewInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("io.dropwizard.views.ViewRenderer"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"io.dropwizard.views.ViewRenderer"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
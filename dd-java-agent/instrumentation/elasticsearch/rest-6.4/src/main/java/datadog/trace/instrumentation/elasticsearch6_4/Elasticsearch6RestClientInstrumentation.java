@@ -41,6 +41,11 @@ public class Elasticsearch6RestClientInstrumentation extends Instrumenter.Defaul
     return named("org.elasticsearch.client.RestClient");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.elasticsearch.client.RestClient"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
@@ -37,6 +37,11 @@ public class Elasticsearch53TransportClientInstrumentation extends Instrumenter.
     return named("org.elasticsearch.client.support.AbstractClient");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.elasticsearch.client.support.AbstractClient"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -40,6 +40,11 @@ public class Elasticsearch6TransportClientInstrumentation extends Instrumenter.D
     return named("org.elasticsearch.client.support.AbstractClient");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.elasticsearch.client.support.AbstractClient"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -59,6 +59,11 @@ public class FinatraInstrumentation extends Instrumenter.Default {
             extendsClass(named("com.twitter.finatra.http.internal.routing.Route")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"com.twitter.finatra.http.internal.routing.Route"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
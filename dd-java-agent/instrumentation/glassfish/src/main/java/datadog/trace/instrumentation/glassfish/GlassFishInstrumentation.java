@@ -41,6 +41,11 @@ public final class GlassFishInstrumentation extends Instrumenter.Default {
     return named("com.sun.enterprise.v3.server.APIClassLoaderServiceImpl$APIClassLoader");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"com.sun.enterprise.v3.server.APIClassLoaderServiceImpl$APIClassLoader"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
@@ -41,6 +41,11 @@ public class GoogleHttpClientInstrumentation extends Instrumenter.Default {
     return named("com.google.api.client.http.HttpRequest");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"com.google.api.client.http.HttpRequest"};
+  }
+
   @Override
   public Map<String, String> contextStore() {
     return Collections.singletonMap(
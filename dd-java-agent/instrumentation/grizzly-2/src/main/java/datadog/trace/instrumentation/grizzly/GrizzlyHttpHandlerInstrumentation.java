@@ -47,6 +47,11 @@ public class GrizzlyHttpHandlerInstrumentation extends Instrumenter.Default {
     return named("org.glassfish.grizzly.http.server.HttpHandler");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.glassfish.grizzly.http.server.HttpHandler"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
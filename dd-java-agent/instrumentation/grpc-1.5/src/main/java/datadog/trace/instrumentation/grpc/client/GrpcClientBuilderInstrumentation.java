@@ -26,6 +26,11 @@ public class GrpcClientBuilderInstrumentation extends Instrumenter.Default {
     return named("io.grpc.internal.AbstractManagedChannelImplBuilder");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"io.grpc.internal.AbstractManagedChannelImplBuilder"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -26,6 +26,11 @@ public class GrpcServerBuilderInstrumentation extends Instrumenter.Default {
     return named("io.grpc.internal.AbstractServerImplBuilder");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"io.grpc.internal.AbstractServerImplBuilder"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -30,6 +30,13 @@ public class InProcessServerStreamInstrumentation extends Instrumenter.Default {
     return named("io.grpc.inprocess.InProcessTransport$InProcessStream$InProcessServerStream");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {
+      "io.grpc.inprocess.InProcessTransport$InProcessStream$InProcessServerStream",
+    };
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(isPublic(), getClass().getName() + "$DisableAsyncPropagationAdvice");
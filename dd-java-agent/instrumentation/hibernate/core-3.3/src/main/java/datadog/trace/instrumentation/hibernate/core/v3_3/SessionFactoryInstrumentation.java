@@ -42,6 +42,11 @@ public class SessionFactoryInstrumentation extends AbstractHibernateInstrumentat
     return implementsInterface(named("org.hibernate.SessionFactory"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.hibernate.SessionFactory"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
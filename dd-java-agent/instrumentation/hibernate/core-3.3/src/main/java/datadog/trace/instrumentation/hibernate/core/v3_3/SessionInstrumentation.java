@@ -51,6 +51,11 @@ public class SessionInstrumentation extends AbstractHibernateInstrumentation {
         named("org.hibernate.Session").or(named("org.hibernate.StatelessSession")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.hibernate.Session", "org.hibernate.StatelessSession"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     final Map<ElementMatcher<? super MethodDescription>, String> transformers = new HashMap<>();
@@ -32,6 +32,11 @@ public class CriteriaInstrumentation extends AbstractHibernateInstrumentation {
     return implementsInterface(named("org.hibernate.Criteria"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.hibernate.Criteria"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
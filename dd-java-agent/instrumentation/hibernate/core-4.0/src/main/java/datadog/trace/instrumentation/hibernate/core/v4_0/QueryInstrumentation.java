@@ -35,6 +35,11 @@ public class QueryInstrumentation extends AbstractHibernateInstrumentation {
     return implementsInterface(named("org.hibernate.Query"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.hibernate.Query"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
@@ -48,6 +48,11 @@ public class SessionInstrumentation extends AbstractHibernateInstrumentation {
     return implementsInterface(named("org.hibernate.SharedSessionContract"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.hibernate.SharedSessionContract"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     final Map<ElementMatcher<? super MethodDescription>, String> transformers = new HashMap<>();
@@ -32,6 +32,11 @@ public class TransactionInstrumentation extends AbstractHibernateInstrumentation
     return implementsInterface(named("org.hibernate.Transaction"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.hibernate.Transaction"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
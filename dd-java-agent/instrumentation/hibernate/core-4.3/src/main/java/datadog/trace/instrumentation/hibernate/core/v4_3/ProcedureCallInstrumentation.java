@@ -51,6 +51,11 @@ public class ProcedureCallInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("org.hibernate.procedure.ProcedureCall"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.hibernate.procedure.ProcedureCall"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
@@ -58,6 +58,11 @@ public class SessionInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("org.hibernate.SharedSessionContract"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.hibernate.SharedSessionContract"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     final Map<ElementMatcher<? super MethodDescription>, String> transformers = new HashMap<>();
@@ -47,6 +47,11 @@ public class HttpUrlConnectionInstrumentation extends Instrumenter.Default {
         .and(extendsClass(named("java.net.HttpURLConnection")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"java.net.HttpURLConnection"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
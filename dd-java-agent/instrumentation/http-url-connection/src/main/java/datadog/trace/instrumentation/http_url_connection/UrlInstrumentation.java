@@ -39,6 +39,11 @@ public class UrlInstrumentation extends Instrumenter.Default {
     return is(URL.class);
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {URL.class.getName()};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
@@ -41,6 +41,14 @@ public class HystrixInstrumentation extends Instrumenter.Default {
             .or(named("com.netflix.hystrix.HystrixObservableCommand")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {
+      "com.netflix.hystrix.HystrixCommand",
+      "com.netflix.hystrix.HystrixObservableCommand",
+    };
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -28,6 +28,13 @@ public class HystrixThreadPoolInstrumentation extends Instrumenter.Default {
         "com.netflix.hystrix.strategy.concurrency.HystrixContextScheduler$ThreadPoolWorker");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {
+      "com.netflix.hystrix.strategy.concurrency.HystrixContextScheduler$ThreadPoolWorker",
+    };
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
@@ -134,4 +134,9 @@ public abstract class AbstractExecutorInstrumentation extends Instrumenter.Defau
     }
     return matcher.and(hasExecutorInterfaceMatcher); // Apply expensive matcher last.
   }
+
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {Executor.class.getName()};
+  }
 }
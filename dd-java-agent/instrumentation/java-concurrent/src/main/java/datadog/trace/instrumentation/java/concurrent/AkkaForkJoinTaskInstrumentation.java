@@ -54,6 +54,11 @@ public final class AkkaForkJoinTaskInstrumentation extends Instrumenter.Default
     return extendsClass(named(TASK_CLASS_NAME));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {TASK_CLASS_NAME};
+  }
+
   @Override
   public Map<String, String> contextStore() {
     final Map<String, String> map = new HashMap<>();
@@ -8,80 +8,46 @@ import static java.util.Collections.singletonMap;
 import static net.bytebuddy.matcher.ElementMatchers.named;
 
 import com.google.auto.service.AutoService;
-import com.google.common.collect.ImmutableMap;
 import datadog.trace.agent.tooling.Instrumenter;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.context.TraceScope;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
-import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.asm.Advice;
 import net.bytebuddy.description.method.MethodDescription;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.matcher.ElementMatcher;
-import net.bytebuddy.matcher.ElementMatchers;
 
 /**
  * Sometimes classes do lazy initialization for scheduling of tasks. If this is done during a trace
- * it can cause the trace to never be reported. Add matchers below to disable async propagation
- * during this period.
+ * it can cause the trace to never be reported. Async propagation is disabled while these classes
+ * schedule tasks.
  */
 @Slf4j
 @AutoService(Instrumenter.class)
-public final class AsyncPropagatingDisableInstrumentation implements Instrumenter {
+public final class AsyncPropagatingDisableInstrumentation extends Instrumenter.Default {
 
-  private static final Map<
-          ElementMatcher<? super TypeDescription>, ElementMatcher<? super MethodDescription>>
-      CLASS_AND_METHODS =
-          new ImmutableMap.Builder<
-                  ElementMatcher<? super TypeDescription>,
-                  ElementMatcher<? super MethodDescription>>()
-              .put(extendsClass(named("rx.Scheduler$Worker")), named("schedulePeriodically"))
-              .build();
+  private static final String RX_WORKER = "rx.Scheduler$Worker";
 
-  @Override
-  public AgentBuilder instrument(AgentBuilder agentBuilder) {
-
-    for (final Map.Entry<
-            ElementMatcher<? super TypeDescription>, ElementMatcher<? super MethodDescription>>
-        entry : CLASS_AND_METHODS.entrySet()) {
-      agentBuilder =
-          new DisableAsyncInstrumentation(entry.getKey(), entry.getValue())
-              .instrument(agentBuilder);
-    }
-    return agentBuilder;
+  public AsyncPropagatingDisableInstrumentation() {
+    super(AbstractExecutorInstrumentation.EXEC_NAME);
   }
 
-  // Not Using AutoService to hook up this instrumentation
-  public static class DisableAsyncInstrumentation extends Default {
-
-    private final ElementMatcher<? super TypeDescription> typeMatcher;
-    private final ElementMatcher<? super MethodDescription> methodMatcher;
-
-    /** No-arg constructor only used by muzzle and tests. */
-    public DisableAsyncInstrumentation() {
-      this(ElementMatchers.<TypeDescription>none(), ElementMatchers.<MethodDescription>none());
-    }
-
-    public DisableAsyncInstrumentation(
-        final ElementMatcher<? super TypeDescription> typeMatcher,
-        final ElementMatcher<? super MethodDescription> methodMatcher) {
-      super(AbstractExecutorInstrumentation.EXEC_NAME);
-      this.typeMatcher = typeMatcher;
-      this.methodMatcher = methodMatcher;
-    }
+  @Override
+  public ElementMatcher<TypeDescription> typeMatcher() {
+    return extendsClass(named(RX_WORKER));
+  }
 
-    @Override
-    public ElementMatcher<? super TypeDescription> typeMatcher() {
-      return typeMatcher;
-    }
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {RX_WORKER};
+  }
 
-    @Override
-    public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
-      return singletonMap(
-          methodMatcher,
-          AsyncPropagatingDisableInstrumentation.class.getName() + "$DisableAsyncAdvice");
-    }
+  @Override
+  public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
+    return singletonMap(
+        named("schedulePeriodically"),
+        AsyncPropagatingDisableInstrumentation.class.getName() + "$DisableAsyncAdvice");
   }
 
   public static class DisableAsyncAdvice {
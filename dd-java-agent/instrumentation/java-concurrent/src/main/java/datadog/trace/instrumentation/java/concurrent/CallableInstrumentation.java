@@ -36,6 +36,11 @@ public final class CallableInstrumentation extends Instrumenter.Default {
     return implementsInterface(named(Callable.class.getName()));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {Callable.class.getName()};
+  }
+
   @Override
   public Map<String, String> contextStore() {
     final Map<String, String> map = new HashMap<>();
@@ -90,6 +90,11 @@ public final class FutureInstrumentation extends Instrumenter.Default {
     }.and(hasFutureInterfaceMatcher); // Apply expensive matcher last.
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {Future.class.getName()};
+  }
+
   @Override
   public Map<String, String> contextStore() {
     final Map<String, String> map = new HashMap<>();
@@ -44,6 +44,11 @@ public final class JavaForkJoinTaskInstrumentation extends Instrumenter.Default
     return extendsClass(named(ForkJoinTask.class.getName()));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {ForkJoinTask.class.getName()};
+  }
+
   @Override
   public Map<String, String> contextStore() {
     final Map<String, String> map = new HashMap<>();
@@ -35,6 +35,11 @@ public final class RunnableInstrumentation extends Instrumenter.Default {
     return implementsInterface(named(Runnable.class.getName()));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {Runnable.class.getName()};
+  }
+
   @Override
   public Map<String, String> contextStore() {
     final Map<String, String> map = new HashMap<>();
@@ -37,6 +37,11 @@ public class ThreadPoolExecutorInstrumentation extends Instrumenter.Default {
     return named("java.util.concurrent.ThreadPoolExecutor");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"java.util.concurrent.ThreadPoolExecutor"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
@@ -39,6 +39,11 @@ public abstract class AbstractRequestContextInstrumentation extends Instrumenter
     return implementsInterface(named("javax.ws.rs.container.ContainerRequestContext"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.ws.rs.container.ContainerRequestContext"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -40,6 +40,11 @@ public class ContainerRequestFilterInstrumentation extends Instrumenter.Default
     return implementsInterface(named("javax.ws.rs.container.ContainerRequestFilter"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.ws.rs.container.ContainerRequestFilter"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
@@ -45,6 +45,11 @@ public final class JaxRsAsyncResponseInstrumentation extends Instrumenter.Defaul
     return implementsInterface(named("javax.ws.rs.container.AsyncResponse"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.ws.rs.container.AsyncResponse"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -46,6 +46,11 @@ public final class JaxRsClientV1Instrumentation extends Instrumenter.Default {
     return implementsInterface(named("com.sun.jersey.api.client.ClientHandler"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"com.sun.jersey.api.client.ClientHandler"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
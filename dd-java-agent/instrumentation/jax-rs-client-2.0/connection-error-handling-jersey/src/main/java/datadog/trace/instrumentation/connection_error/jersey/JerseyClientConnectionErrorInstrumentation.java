@@ -40,6 +40,11 @@ public final class JerseyClientConnectionErrorInstrumentation extends Instrument
     return named("org.glassfish.jersey.client.JerseyInvocation");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.glassfish.jersey.client.JerseyInvocation"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
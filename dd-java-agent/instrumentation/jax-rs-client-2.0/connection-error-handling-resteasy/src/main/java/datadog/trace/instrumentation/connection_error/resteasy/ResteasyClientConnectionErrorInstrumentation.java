@@ -40,6 +40,11 @@ public final class ResteasyClientConnectionErrorInstrumentation extends Instrume
     return named("org.jboss.resteasy.client.jaxrs.internal.ClientInvocation");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.jboss.resteasy.client.jaxrs.internal.ClientInvocation"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -35,6 +35,11 @@ public final class JaxRsClientInstrumentation extends Instrumenter.Default {
     return extendsClass(named("javax.ws.rs.client.ClientBuilder"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.ws.rs.client.ClientBuilder"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
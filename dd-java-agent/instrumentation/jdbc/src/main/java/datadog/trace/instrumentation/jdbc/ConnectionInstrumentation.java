@@ -30,17 +30,18 @@ public final class ConnectionInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("java.sql.Connection"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"java.sql.Connection"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
       packageName + ".JDBCMaps",
-      packageName + ".normalizer.Token",
-      packageName + ".normalizer.ParseException",
-      packageName + ".normalizer.SimpleCharStream",
-      packageName + ".normalizer.SqlNormalizerConstants",
-      packageName + ".normalizer.TokenMgrError",
-      packageName + ".normalizer.SqlNormalizerTokenManager",
-      packageName + ".normalizer.SqlNormalizer",
+      packageName + ".normalizer.SqlObfuscator",
+      packageName + ".SqlNormalizationCache",
+      packageName + ".SqlNormalizationCache$Entry",
       packageName + ".JDBCUtils",
     };
   }
@@ -43,6 +43,11 @@ public final class DataSourceInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("javax.sql.DataSource"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.sql.DataSource"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(named("getConnection"), GetConnectionAdvice.class.getName());
@@ -31,6 +31,11 @@ public final class DriverInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("java.sql.Driver"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"java.sql.Driver"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
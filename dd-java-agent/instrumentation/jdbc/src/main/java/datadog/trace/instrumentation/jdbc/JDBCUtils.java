@@ -2,12 +2,16 @@
 package datadog.trace.instrumentation.jdbc;
 
 import datadog.trace.bootstrap.ExceptionLogger;
-import datadog.trace.instrumentation.jdbc.normalizer.SqlNormalizer;
+import datadog.trace.instrumentation.jdbc.normalizer.SqlObfuscator;
 import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.Statement;
 
 public abstract class JDBCUtils {
+  // Statements are mostly built from a bounded set of strings, keep about 1MB of them normalized.
+  private static final SqlNormalizationCache NORMALIZED_SQL =
+      new SqlNormalizationCache(1024, 512 * 1024);
+
   private static Field c3poField = null;
   /**
    * @param statement
@@ -59,11 +63,20 @@ public abstract class JDBCUtils {
   /** @return null if the sql can't be normalized properly (should be quite rare) */
   public static String normalizeSql(String sql) {
     try {
-      return SqlNormalizer.normalize(sql);
+      String normalized = NORMALIZED_SQL.get(sql);
+      if (normalized == null) {
+        normalized = SqlObfuscator.normalize(sql);
+        NORMALIZED_SQL.put(sql, normalized);
+      }
+      return normalized;
     } catch (Exception e) {
-      // Given how permissive the grammar is, this should be quite rare.
+      // Given how permissive the lexer is, this should be quite rare.
       ExceptionLogger.LOGGER.debug("Could not normalizeSql", e);
       return null;
     }
   }
+
+  public static SqlNormalizationCache getNormalizedSqlCache() {
+    return NORMALIZED_SQL;
+  }
 }
@@ -39,18 +39,19 @@ public final class PreparedStatementInstrumentation extends Instrumenter.Default
     return implementsInterface(named("java.sql.PreparedStatement"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"java.sql.PreparedStatement"};
+  }
+
   @Override
   public String[] helperClassNames() {
-    final List<String> helpers = new ArrayList<>(10);
-    helpers.add(packageName + ".normalizer.Token");
-    helpers.add(packageName + ".normalizer.ParseException");
-    helpers.add(packageName + ".normalizer.SimpleCharStream");
-    helpers.add(packageName + ".normalizer.SqlNormalizerConstants");
-    helpers.add(packageName + ".normalizer.TokenMgrError");
-    helpers.add(packageName + ".normalizer.SqlNormalizerTokenManager");
-    helpers.add(packageName + ".normalizer.SqlNormalizer");
+    final List<String> helpers = new ArrayList<>(6);
+    helpers.add(packageName + ".normalizer.SqlObfuscator");
 
     helpers.add(packageName + ".JDBCMaps");
+    helpers.add(packageName + ".SqlNormalizationCache");
+    helpers.add(packageName + ".SqlNormalizationCache$Entry");
     helpers.add(packageName + ".JDBCUtils");
     helpers.add(packageName + ".JDBCDecorator");
     return helpers.toArray(new String[0]);
@@ -0,0 +1,166 @@
+package datadog.trace.instrumentation.jdbc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free cache from raw to normalized SQL, so that statements executed over and over
+ * are only parsed once.
+ *
+ * <p>The cache is weighted by the number of chars it holds rather than by its number of entries,
+ * because statement sizes range from a few bytes to {@link
+ * datadog.trace.instrumentation.jdbc.normalizer.SqlObfuscator#LIMIT}. Entries are evicted with
+ * CLOCK (second chance): a hit marks an entry as referenced, and a sweeping hand clears marks until
+ * it finds an unreferenced entry to evict.
+ *
+ * <p>Lookups first compare the hash code cached by the SQL string and its length, so mismatches
+ * rarely need a full comparison.
+ */
+public class SqlNormalizationCache {
+  /** Number of slots a statement may occupy, bounding the work done by a lookup. */
+  private static final int WINDOW = 4;
+
+  private final AtomicReferenceArray<Entry> entries;
+  private final int mask;
+  private final long maxWeight;
+  private final long maxEntryWeight;
+
+  private final AtomicInteger hand = new AtomicInteger();
+  private final AtomicLong weight = new AtomicLong();
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  /**
+   * @param capacity maximum number of statements, rounded up to a power of two
+   * @param maxWeight maximum number of chars of raw and normalized SQL held
+   */
+  public SqlNormalizationCache(final int capacity, final long maxWeight) {
+    int size = WINDOW;
+    while (size < capacity) {
+      size <<= 1;
+    }
+    entries = new AtomicReferenceArray<>(size);
+    mask = size - 1;
+    this.maxWeight = maxWeight;
+    // Don't let a few huge statements flush everything else.
+    maxEntryWeight = maxWeight / 8;
+  }
+
+  /** @return the normalized SQL, or null if not cached */
+  public String get(final String sql) {
+    final int hash = sql.hashCode();
+    for (int i = 0; i < WINDOW; i++) {
+      final Entry entry = entries.get((hash + i) & mask);
+      if (entry != null && entry.matches(sql, hash)) {
+        if (!entry.referenced) {
+          entry.referenced = true;
+        }
+        hitCount.incrementAndGet();
+        return entry.normalized;
+      }
+    }
+    missCount.incrementAndGet();
+    return null;
+  }
+
+  public void put(final String sql, final String normalized) {
+    final Entry added = new Entry(sql, normalized);
+    if (added.weight > maxEntryWeight) {
+      return;
+    }
+
+    final int hash = added.hash;
+    boolean stored = false;
+    for (int i = 0; i < WINDOW && !stored; i++) {
+      final int index = (hash + i) & mask;
+      final Entry entry = entries.get(index);
+      if (entry == null) {
+        stored = entries.compareAndSet(index, null, added);
+      } else if (entry.matches(sql, hash)) {
+        // Cached concurrently.
+        return;
+      }
+    }
+    // The window is full: replace an entry that wasn't used since the last sweep.
+    for (int i = 0; i < 2 * WINDOW && !stored; i++) {
+      final int index = (hash + (i & (WINDOW - 1))) & mask;
+      final Entry entry = entries.get(index);
+      if (entry != null && entry.referenced) {
+        entry.referenced = false;
+      } else if (entries.compareAndSet(index, entry, added)) {
+        stored = true;
+        if (entry != null) {
+          evicted(entry);
+        }
+      }
+    }
+    if (!stored) {
+      return;
+    }
+
+    if (weight.addAndGet(added.weight) > maxWeight) {
+      evictUntilUnderWeight();
+    }
+  }
+
+  private void evictUntilUnderWeight() {
+    // Two full turns of the hand clear every mark, so bound the sweep to that.
+    for (int turns = 0; turns < 2 * entries.length() && weight.get() > maxWeight; turns++) {
+      final int index = hand.getAndIncrement() & mask;
+      final Entry entry = entries.get(index);
+      if (entry == null) {
+        continue;
+      }
+      if (entry.referenced) {
+        entry.referenced = false;
+      } else if (entries.compareAndSet(index, entry, null)) {
+        evicted(entry);
+      }
+    }
+  }
+
+  private void evicted(final Entry entry) {
+    weight.addAndGet(-entry.weight);
+    evictionCount.incrementAndGet();
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /** @return the number of chars held */
+  public long getWeight() {
+    return weight.get();
+  }
+
+  static final class Entry {
+    final String sql;
+    final String normalized;
+    final int hash;
+    final int weight;
+    volatile boolean referenced;
+
+    Entry(final String sql, final String normalized) {
+      this.sql = sql;
+      this.normalized = normalized;
+      hash = sql.hashCode();
+      weight = sql.length() + normalized.length();
+    }
+
+    boolean matches(final String other, final int otherHash) {
+      return sql == other
+          || (hash == otherHash && sql.length() == other.length() && sql.equals(other));
+    }
+  }
+}
@@ -0,0 +1,312 @@
+package datadog.trace.instrumentation.jdbc.normalizer;
+
+/**
+ * Replaces the literals of a SQL statement with {@code ?} and collapses its whitespace, in a single
+ * scan over its chars that allocates nothing but the input copy and the result.
+ *
+ * <p>Like the JavaCC generated {@link SqlNormalizer}, numbers, hex numbers and single or double
+ * quoted strings become {@code ?}, runs of whitespace become a single space and everything else,
+ * identifiers included, is copied. The output is only the same as the one of {@link SqlNormalizer}
+ * for statements without comments, dollar quotes or backticks, which are handled differently:
+ *
+ * <ul>
+ *   <li>Postgres dollar quoted strings ({@code $$...$$} or {@code $tag$...$tag$}) become {@code ?}
+ *   <li>MySQL backtick quoted identifiers are copied as is, so that digits in them aren't replaced
+ *   <li>quotes in block comments and in line comments don't start strings, so that an apostrophe
+ *       in a comment can't swallow the rest of the statement
+ * </ul>
+ *
+ * <p>Like MySQL, a line comment needs a whitespace after its {@code --}, otherwise {@code --1} is
+ * a number.
+ */
+public final class SqlObfuscator {
+  public static final int LIMIT = 32 * 1024;
+
+  /** Pairs of first and last chars of the ranges of letters, as the grammar lists them. */
+  private static final String LETTER_RANGES =
+      "\u0041\u005a\u0061\u007a\u00aa\u00aa\u00b5\u00b5\u00ba\u00ba\u00c0\u00d6"
+          + "\u00d8\u00f6\u00f8\u02c1\u02c6\u02d1\u02e0\u02e4\u02ec\u02ec\u02ee\u02ee"
+          + "\u0370\u0374\u0376\u0377\u037a\u037d\u0386\u0386\u0388\u038a\u038c\u038c"
+          + "\u038e\u03a1\u03a3\u03f5\u03f7\u0481\u048a\u0527\u0531\u0556\u0559\u0559"
+          + "\u0561\u0587\u05d0\u05ea\u05f0\u05f2\u0620\u064a\u066e\u066f\u0671\u06d3"
+          + "\u06d5\u06d5\u06e5\u06e6\u06ee\u06ef\u06fa\u06fc\u06ff\u06ff\u0710\u0710"
+          + "\u0712\u072f\u074d\u07a5\u07b1\u07b1\u07ca\u07ea\u07f4\u07f5\u07fa\u07fa"
+          + "\u0800\u0815\u081a\u081a\u0824\u0824\u0828\u0828\u0840\u0858\u08a0\u08a0"
+          + "\u08a2\u08ac\u0904\u0939\u093d\u093d\u0950\u0950\u0958\u0961\u0971\u0977"
+          + "\u0979\u097f\u0985\u098c\u098f\u0990\u0993\u09a8\u09aa\u09b0\u09b2\u09b2"
+          + "\u09b6\u09b9\u09bd\u09bd\u09ce\u09ce\u09dc\u09dd\u09df\u09e1\u09f0\u09f1"
+          + "\u0a05\u0a0a\u0a0f\u0a10\u0a13\u0a28\u0a2a\u0a30\u0a32\u0a33\u0a35\u0a36"
+          + "\u0a38\u0a39\u0a59\u0a5c\u0a5e\u0a5e\u0a72\u0a74\u0a85\u0a8d\u0a8f\u0a91"
+          + "\u0a93\u0aa8\u0aaa\u0ab0\u0ab2\u0ab3\u0ab5\u0ab9\u0abd\u0abd\u0ad0\u0ad0"
+          + "\u0ae0\u0ae1\u0b05\u0b0c\u0b0f\u0b10\u0b13\u0b28\u0b2a\u0b30\u0b32\u0b33"
+          + "\u0b35\u0b39\u0b3d\u0b3d\u0b5c\u0b5d\u0b5f\u0b61\u0b71\u0b71\u0b83\u0b83"
+          + "\u0b85\u0b8a\u0b8e\u0b90\u0b92\u0b95\u0b99\u0b9a\u0b9c\u0b9c\u0b9e\u0b9f"
+          + "\u0ba3\u0ba4\u0ba8\u0baa\u0bae\u0bb9\u0bd0\u0bd0\u0c05\u0c0c\u0c0e\u0c10"
+          + "\u0c12\u0c28\u0c2a\u0c33\u0c35\u0c39\u0c3d\u0c3d\u0c58\u0c59\u0c60\u0c61"
+          + "\u0c85\u0c8c\u0c8e\u0c90\u0c92\u0ca8\u0caa\u0cb3\u0cb5\u0cb9\u0cbd\u0cbd"
+          + "\u0cde\u0cde\u0ce0\u0ce1\u0cf1\u0cf2\u0d05\u0d0c\u0d0e\u0d10\u0d12\u0d3a"
+          + "\u0d3d\u0d3d\u0d4e\u0d4e\u0d60\u0d61\u0d7a\u0d7f\u0d85\u0d96\u0d9a\u0db1"
+          + "\u0db3\u0dbb\u0dbd\u0dbd\u0dc0\u0dc6\u0e01\u0e30\u0e32\u0e33\u0e40\u0e46"
+          + "\u0e81\u0e82\u0e84\u0e84\u0e87\u0e88\u0e8a\u0e8a\u0e8d\u0e8d\u0e94\u0e97"
+          + "\u0e99\u0e9f\u0ea1\u0ea3\u0ea5\u0ea5\u0ea7\u0ea7\u0eaa\u0eab\u0ead\u0eb0"
+          + "\u0eb2\u0eb3\u0ebd\u0ebd\u0ec0\u0ec4\u0ec6\u0ec6\u0edc\u0edf\u0f00\u0f00"
+          + "\u0f40\u0f47\u0f49\u0f6c\u0f88\u0f8c\u1000\u102a\u103f\u103f\u1050\u1055"
+          + "\u105a\u105d\u1061\u1061\u1065\u1066\u106e\u1070\u1075\u1081\u108e\u108e"
+          + "\u10a0\u10c5\u10c7\u10c7\u10cd\u10cd\u10d0\u10fa\u10fc\u1248\u124a\u124d"
+          + "\u1250\u1256\u1258\u1258\u125a\u125d\u1260\u1288\u128a\u128d\u1290\u12b0"
+          + "\u12b2\u12b5\u12b8\u12be\u12c0\u12c0\u12c2\u12c5\u12c8\u12d6\u12d8\u1310"
+          + "\u1312\u1315\u1318\u135a\u1380\u138f\u13a0\u13f4\u1401\u166c\u166f\u167f"
+          + "\u1681\u169a\u16a0\u16ea\u1700\u170c\u170e\u1711\u1720\u1731\u1740\u1751"
+          + "\u1760\u176c\u176e\u1770\u1780\u17b3\u17d7\u17d7\u17dc\u17dc\u1820\u1877"
+          + "\u1880\u18a8\u18aa\u18aa\u18b0\u18f5\u1900\u191c\u1950\u196d\u1970\u1974"
+          + "\u1980\u19ab\u19c1\u19c7\u1a00\u1a16\u1a20\u1a54\u1aa7\u1aa7\u1b05\u1b33"
+          + "\u1b45\u1b4b\u1b83\u1ba0\u1bae\u1baf\u1bba\u1be5\u1c00\u1c23\u1c4d\u1c4f"
+          + "\u1c5a\u1c7d\u1ce9\u1cec\u1cee\u1cf1\u1cf5\u1cf6\u1d00\u1dbf\u1e00\u1f15"
+          + "\u1f18\u1f1d\u1f20\u1f45\u1f48\u1f4d\u1f50\u1f57\u1f59\u1f59\u1f5b\u1f5b"
+          + "\u1f5d\u1f5d\u1f5f\u1f7d\u1f80\u1fb4\u1fb6\u1fbc\u1fbe\u1fbe\u1fc2\u1fc4"
+          + "\u1fc6\u1fcc\u1fd0\u1fd3\u1fd6\u1fdb\u1fe0\u1fec\u1ff2\u1ff4\u1ff6\u1ffc"
+          + "\u2071\u2071\u207f\u207f\u2090\u209c\u2102\u2102\u2107\u2107\u210a\u2113"
+          + "\u2115\u2115\u2119\u211d\u2124\u2124\u2126\u2126\u2128\u2128\u212a\u212d"
+          + "\u212f\u2139\u213c\u213f\u2145\u2149\u214e\u214e\u2183\u2184\u2c00\u2c2e"
+          + "\u2c30\u2c5e\u2c60\u2ce4\u2ceb\u2cee\u2cf2\u2cf3\u2d00\u2d25\u2d27\u2d27"
+          + "\u2d2d\u2d2d\u2d30\u2d67\u2d6f\u2d6f\u2d80\u2d96\u2da0\u2da6\u2da8\u2dae"
+          + "\u2db0\u2db6\u2db8\u2dbe\u2dc0\u2dc6\u2dc8\u2dce\u2dd0\u2dd6\u2dd8\u2dde"
+          + "\u2e2f\u2e2f\u3005\u3006\u3031\u3035\u303b\u303c\u3041\u3096\u309d\u309f"
+          + "\u30a1\u30fa\u30fc\u30ff\u3105\u312d\u3131\u318e\u31a0\u31ba\u31f0\u31ff"
+          + "\u3400\u4db5\u4e00\u9fcc\ua000\ua48c\ua4d0\ua4fd\ua500\ua60c\ua610\ua61f"
+          + "\ua62a\ua62b\ua640\ua66e\ua67f\ua697\ua6a0\ua6e5\ua717\ua71f\ua722\ua788"
+          + "\ua78b\ua78e\ua790\ua793\ua7a0\ua7aa\ua7f8\ua801\ua803\ua805\ua807\ua80a"
+          + "\ua80c\ua822\ua840\ua873\ua882\ua8b3\ua8f2\ua8f7\ua8fb\ua8fb\ua90a\ua925"
+          + "\ua930\ua946\ua960\ua97c\ua984\ua9b2\ua9cf\ua9cf\uaa00\uaa28\uaa40\uaa42"
+          + "\uaa44\uaa4b\uaa60\uaa76\uaa7a\uaa7a\uaa80\uaaaf\uaab1\uaab1\uaab5\uaab6"
+          + "\uaab9\uaabd\uaac0\uaac0\uaac2\uaac2\uaadb\uaadd\uaae0\uaaea\uaaf2\uaaf4"
+          + "\uab01\uab06\uab09\uab0e\uab11\uab16\uab20\uab26\uab28\uab2e\uabc0\uabe2"
+          + "\uac00\ud7a3\ud7b0\ud7c6\ud7cb\ud7fb\uf900\ufa6d\ufa70\ufad9\ufb00\ufb06"
+          + "\ufb13\ufb17\ufb1d\ufb1d\ufb1f\ufb28\ufb2a\ufb36\ufb38\ufb3c\ufb3e\ufb3e"
+          + "\ufb40\ufb41\ufb43\ufb44\ufb46\ufbb1\ufbd3\ufd3d\ufd50\ufd8f\ufd92\ufdc7"
+          + "\ufdf0\ufdfb\ufe70\ufe74\ufe76\ufefc\uff21\uff3a\uff41\uff5a\uff66\uffbe"
+          + "\uffc2\uffc7\uffca\uffcf\uffd2\uffd7\uffda\uffdc";
+
+  /** One bit per char, set for letters. */
+  private static final long[] LETTERS = new long[(Character.MAX_VALUE + 1) >>> 6];
+
+  static {
+    for (int i = 0; i < LETTER_RANGES.length(); i += 2) {
+      for (int c = LETTER_RANGES.charAt(i); c <= LETTER_RANGES.charAt(i + 1); c++) {
+        LETTERS[c >>> 6] |= 1L << c;
+      }
+    }
+  }
+
+  private SqlObfuscator() {}
+
+  public static String normalize(final String sql) {
+    final int length = sql.length();
+    final char[] in = sql.toCharArray();
+    final char[] out = new char[Math.min(length, LIMIT)];
+    int written = 0;
+    boolean changed = false;
+    // Quotes don't start strings before this index.
+    int commentEnd = 0;
+
+    int i = 0;
+    while (i < length && written < out.length) {
+      final char c = in[i];
+      int end;
+      if (isIdentifierStart(c)) {
+        end = i + 1;
+        while (end < length && isIdentifierPart(in[end])) {
+          end++;
+        }
+        final int copied = Math.min(end - i, out.length - written);
+        System.arraycopy(in, i, out, written, copied);
+        written += copied;
+        i = end;
+        continue;
+      }
+
+      if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+        end = i + 1;
+        while (end < length && isWhitespace(in[end])) {
+          end++;
+        }
+        changed |= c != ' ' || end - i > 1;
+        out[written++] = ' ';
+        i = end;
+        continue;
+      }
+
+      end = literalEnd(in, i, i >= commentEnd);
+      if (end > i) {
+        out[written++] = '?';
+        changed = true;
+        i = end;
+        continue;
+      }
+
+      if (i >= commentEnd) {
+        if (c == '`') {
+          end = quotedEnd(in, i, '`');
+          if (end > i) {
+            final int copied = Math.min(end - i, out.length - written);
+            System.arraycopy(in, i, out, written, copied);
+            written += copied;
+            i = end;
+            continue;
+          }
+        } else if (c == '-' && i + 2 < length && in[i + 1] == '-' && isWhitespace(in[i + 2])) {
+          commentEnd = lineEnd(in, i + 2);
+        } else if (c == '/' && i + 1 < length && in[i + 1] == '*') {
+          commentEnd = blockCommentEnd(in, i + 2);
+        }
+      }
+
+      // Anything else, comment delimiters included, is copied one char at a time.
+      out[written++] = c;
+      i++;
+    }
+
+    return changed || written < length ? new String(out, 0, written) : sql;
+  }
+
+  /** @return the end of the number or string starting at {@code start}, or {@code start} */
+  private static int literalEnd(final char[] in, final int start, final boolean quotes) {
+    final char c = in[start];
+    if (c == '0'
+        && start + 2 < in.length
+        && (in[start + 1] == 'x' || in[start + 1] == 'X')
+        && isHexDigit(in[start + 2])) {
+      int end = start + 3;
+      while (end < in.length && isHexDigit(in[end])) {
+        end++;
+      }
+      return end;
+    }
+    if (isDigit(c) || c == '+' || c == '-' || c == '.') {
+      return numberEnd(in, start);
+    }
+    if (!quotes) {
+      return start;
+    }
+    if (c == '\'' || c == '"') {
+      return quotedEnd(in, start, c);
+    }
+    if (c == '$') {
+      return dollarQuotedEnd(in, start);
+    }
+    return start;
+  }
+
+  /** Numbers are loosely matched: signs, dots and exponents anywhere, as long as a digit is. */
+  private static int numberEnd(final char[] in, final int start) {
+    int end = start;
+    while (end < in.length && (in[end] == '+' || in[end] == '-' || in[end] == '.')) {
+      end++;
+    }
+    if (end == in.length || !isDigit(in[end])) {
+      return start;
+    }
+    end++;
+    while (end < in.length) {
+      final char c = in[end];
+      if (!isDigit(c) && c != 'e' && c != 'E' && c != '.' && c != '+' && c != '-') {
+        break;
+      }
+      end++;
+    }
+    return end;
+  }
+
+  /**
+   * Quotes are escaped by doubling them. The longest match wins, so an unterminated escape ends the
+   * string before it.
+   *
+   * @return the end of the quoted string starting at {@code start}, or {@code start} if it isn't
+   *     terminated
+   */
+  private static int quotedEnd(final char[] in, final int start, final char quote) {
+    int end = start;
+    int i = start + 1;
+    while (i < in.length) {
+      if (in[i] != quote) {
+        i++;
+        continue;
+      }
+      end = i + 1;
+      if (i + 1 < in.length && in[i + 1] == quote) {
+        i += 2;
+      } else {
+        break;
+      }
+    }
+    return end;
+  }
+
+  /** @return the end of the dollar quoted string starting at {@code start}, or {@code start} */
+  private static int dollarQuotedEnd(final char[] in, final int start) {
+    int tagEnd = start + 1;
+    if (tagEnd < in.length && isIdentifierStart(in[tagEnd])) {
+      do {
+        tagEnd++;
+      } while (tagEnd < in.length && isIdentifierPart(in[tagEnd]));
+    }
+    if (tagEnd == in.length || in[tagEnd] != '$') {
+      // Not a tag, e.g. a positional parameter like $1.
+      return start;
+    }
+    final int tagLength = tagEnd + 1 - start;
+    for (int i = tagEnd + 1; i + tagLength <= in.length; i++) {
+      if (in[i] == '$' && regionMatches(in, i, start, tagLength)) {
+        return i + tagLength;
+      }
+    }
+    return start;
+  }
+
+  private static boolean regionMatches(
+      final char[] in, final int offset, final int other, final int length) {
+    for (int i = 0; i < length; i++) {
+      if (in[offset + i] != in[other + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int lineEnd(final char[] in, final int start) {
+    int end = start;
+    while (end < in.length && in[end] != '\n' && in[end] != '\r') {
+      end++;
+    }
+    return end;
+  }
+
+  private static int blockCommentEnd(final char[] in, final int start) {
+    for (int i = start; i + 1 < in.length; i++) {
+      if (in[i] == '*' && in[i + 1] == '/') {
+        return i + 2;
+      }
+    }
+    return in.length;
+  }
+
+  private static boolean isWhitespace(final char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+  }
+
+  private static boolean isDigit(final char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isHexDigit(final char c) {
+    return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  private static boolean isIdentifierStart(final char c) {
+    return c == '_' || (LETTERS[c >>> 6] & (1L << c)) != 0;
+  }
+
+  private static boolean isIdentifierPart(final char c) {
+    return isIdentifierStart(c) || isDigit(c);
+  }
+}
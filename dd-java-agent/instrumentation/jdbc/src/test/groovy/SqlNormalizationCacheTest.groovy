@@ -0,0 +1,69 @@
+import datadog.trace.instrumentation.jdbc.JDBCUtils
+import datadog.trace.instrumentation.jdbc.SqlNormalizationCache
+import datadog.trace.util.test.DDSpecification
+
+class SqlNormalizationCacheTest extends DDSpecification {
+
+  def "normalized sql is cached"() {
+    setup:
+    def cache = new SqlNormalizationCache(16, 1024)
+    def sql = "SELECT * FROM TABLE WHERE FIELD = 1234"
+
+    expect:
+    cache.get(sql) == null
+
+    when:
+    cache.put(sql, "SELECT * FROM TABLE WHERE FIELD = ?")
+
+    then:
+    cache.get(sql) == "SELECT * FROM TABLE WHERE FIELD = ?"
+    cache.get(new String(sql)) == "SELECT * FROM TABLE WHERE FIELD = ?"
+    cache.hitCount == 2
+    cache.missCount == 1
+    cache.weight == sql.length() + "SELECT * FROM TABLE WHERE FIELD = ?".length()
+  }
+
+  def "weight is bounded"() {
+    setup:
+    def cache = new SqlNormalizationCache(1024, 1000)
+
+    when:
+    (1..500).each {
+      cache.put("SELECT " + it, "SELECT ?")
+    }
+
+    then:
+    cache.weight <= 1000
+    cache.evictionCount > 0
+    (1..500).count { cache.get("SELECT " + it) != null } * "SELECT ?".length() * 2 <= 1000
+  }
+
+  def "huge statements are not cached"() {
+    setup:
+    def cache = new SqlNormalizationCache(16, 1000)
+    def sql = "SELECT " + ("A" * 200)
+
+    when:
+    cache.put(sql, sql)
+
+    then:
+    cache.get(sql) == null
+    cache.weight == 0
+  }
+
+  def "repeated statements are normalized from the cache"() {
+    setup:
+    def cache = JDBCUtils.normalizedSqlCache
+    def sql = "SELECT * FROM TABLE WHERE ID = " + UUID.randomUUID().mostSignificantBits
+    def hits = cache.hitCount
+
+    when:
+    def first = JDBCUtils.normalizeSql(sql)
+    def second = JDBCUtils.normalizeSql(sql)
+
+    then:
+    first == "SELECT * FROM TABLE WHERE ID = ?"
+    second.is(first)
+    cache.hitCount == hits + 1
+  }
+}
@@ -1,8 +1,11 @@
 import datadog.trace.instrumentation.jdbc.JDBCUtils
 import datadog.trace.instrumentation.jdbc.normalizer.SqlNormalizer
+import datadog.trace.instrumentation.jdbc.normalizer.SqlObfuscator
 import datadog.trace.util.test.DDSpecification
 import spock.lang.Timeout
 
+import java.util.regex.Pattern
+
 @Timeout(20)
 class SqlNormalizerTest extends DDSpecification {
 
@@ -95,7 +98,7 @@ class SqlNormalizerTest extends DDSpecification {
     for (int i = 0; i < 10000; i++) {
       s += String.valueOf(i)
     }
-    assert s.substring(0, SqlNormalizer.LIMIT) == JDBCUtils.normalizeSql(s)
+    assert s.substring(0, SqlObfuscator.LIMIT) == JDBCUtils.normalizeSql(s)
   }
 
   def "test 32k truncation"() {
@@ -106,7 +109,7 @@ class SqlNormalizerTest extends DDSpecification {
     }
     String normalized = JDBCUtils.normalizeSql(s.toString())
     System.out.println(normalized.length())
-    assert normalized.length() <= SqlNormalizer.LIMIT
+    assert normalized.length() <= SqlObfuscator.LIMIT
     assert !normalized.contains("1234")
   }
 
@@ -122,4 +125,58 @@ class SqlNormalizerTest extends DDSpecification {
     }
   }
 
+  def "dialect specific quoting #originalSql"() {
+    expect:
+    JDBCUtils.normalizeSql(originalSql) == normalizedSql
+
+    where:
+    originalSql                                  | normalizedSql
+    // Postgres dollar quotes, positional parameters aren't
+    "SELECT \$\$it's 5\$\$ FROM T WHERE A = \$1" | "SELECT ? FROM T WHERE A = \$?"
+    "SELECT \$tag\$a \$\$ b\$tag\$"              | "SELECT ?"
+    "SELECT \$tag\$unterminated"                 | "SELECT \$tag\$unterminated"
+    // MySQL backticks
+    "SELECT `col2`, `a``b3` FROM `2020_data`"    | "SELECT `col2`, `a``b3` FROM `2020_data`"
+    // Comments
+    "SELECT A -- don't\nFROM T WHERE B = 'c'"    | "SELECT A -- don't FROM T WHERE B = ?"
+    "SELECT /* it's 7 */ A FROM T WHERE B = 'c'" | "SELECT /* it's ? */ A FROM T WHERE B = ?"
+  }
+
+  def "quotes in comments don't start strings #originalSql"() {
+    expect:
+    SqlObfuscator.normalize(originalSql) == normalizedSql
+    // The generated normalizer lets the quote swallow the rest of the statement.
+    SqlNormalizer.normalize(originalSql) != normalizedSql
+
+    where:
+    originalSql                                 | normalizedSql
+    "-- ',e1?'>xE'>+ax;'1"                      | "-- ',e1?'>xE'>+ax;'?"
+    "SELECT A -- it's\nFROM T WHERE B = 'c'"    | "SELECT A -- it's FROM T WHERE B = ?"
+    "SELECT A /* it's */ FROM T WHERE B = 'c'"  | "SELECT A /* it's */ FROM T WHERE B = ?"
+    "SELECT A /* \"x */ FROM T WHERE B = \"c\"" | "SELECT A /* \"x */ FROM T WHERE B = ?"
+  }
+
+  def "same output as the generated normalizer outside of comments"() {
+    setup:
+    Random r = new Random(0)
+    // No '/', so no block comment can start.
+    String alphabet = "aAeEx0x19+-. \t\n\r'\"_*#,;()=<>\u0913\u0194"
+    Pattern lineComment = ~/--\s/
+    int compared = 0
+    for (int i = 0; i < 100000; i++) {
+      StringBuilder sb = new StringBuilder()
+      for (int c = r.nextInt(30); c > 0; c--) {
+        sb.append(alphabet.charAt(r.nextInt(alphabet.length())))
+      }
+      String s = sb.toString()
+      if (lineComment.matcher(s).find()) {
+        continue
+      }
+      assert SqlObfuscator.normalize(s) == SqlNormalizer.normalize(s)
+      compared++
+    }
+
+    expect:
+    compared > 99000
+  }
 }
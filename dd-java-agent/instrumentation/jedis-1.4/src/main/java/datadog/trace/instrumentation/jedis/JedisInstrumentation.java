@@ -44,6 +44,11 @@ public final class JedisInstrumentation extends Instrumenter.Default {
     return named("redis.clients.jedis.Protocol");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"redis.clients.jedis.Protocol"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
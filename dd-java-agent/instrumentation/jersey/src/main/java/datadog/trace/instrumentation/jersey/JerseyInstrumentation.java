@@ -28,6 +28,11 @@ public final class JerseyInstrumentation extends Instrumenter.Default {
     return named("org.glassfish.jersey.server.ResourceConfig");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.glassfish.jersey.server.ResourceConfig"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -37,6 +37,11 @@ public final class HandlerInstrumentation extends Instrumenter.Default {
         .and(not(named("org.mortbay.jetty.handler.HandlerWrapper")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.mortbay.jetty.Handler"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
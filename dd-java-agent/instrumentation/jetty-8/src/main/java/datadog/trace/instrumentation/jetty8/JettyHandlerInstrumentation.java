@@ -40,6 +40,11 @@ public final class JettyHandlerInstrumentation extends Instrumenter.Default {
         .and(implementsInterface(named("org.eclipse.jetty.server.Handler")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.eclipse.jetty.server.Handler"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
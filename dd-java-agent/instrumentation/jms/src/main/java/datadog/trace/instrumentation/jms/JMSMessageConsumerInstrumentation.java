@@ -45,6 +45,11 @@ public final class JMSMessageConsumerInstrumentation extends Instrumenter.Defaul
     return implementsInterface(named("javax.jms.MessageConsumer"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.jms.MessageConsumer"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
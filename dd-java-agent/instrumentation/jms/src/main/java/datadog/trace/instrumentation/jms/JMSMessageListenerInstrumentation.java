@@ -43,6 +43,11 @@ public final class JMSMessageListenerInstrumentation extends Instrumenter.Defaul
     return implementsInterface(named("javax.jms.MessageListener"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.jms.MessageListener"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
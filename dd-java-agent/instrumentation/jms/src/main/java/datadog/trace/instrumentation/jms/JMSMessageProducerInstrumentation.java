@@ -45,6 +45,11 @@ public final class JMSMessageProducerInstrumentation extends Instrumenter.Defaul
     return implementsInterface(named("javax.jms.MessageProducer"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.jms.MessageProducer"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
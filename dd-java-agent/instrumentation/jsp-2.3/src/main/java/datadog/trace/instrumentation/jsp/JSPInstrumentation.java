@@ -39,6 +39,11 @@ public final class JSPInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("javax.servlet.jsp.HttpJspPage"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.servlet.jsp.HttpJspPage"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
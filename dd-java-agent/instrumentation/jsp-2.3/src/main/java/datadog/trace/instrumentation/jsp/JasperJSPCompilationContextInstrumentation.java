@@ -31,6 +31,11 @@ public final class JasperJSPCompilationContextInstrumentation extends Instrument
     return named("org.apache.jasper.JspCompilationContext");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.apache.jasper.JspCompilationContext"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -32,6 +32,11 @@ public final class KafkaConsumerInstrumentation extends Instrumenter.Default {
     return named("org.apache.kafka.clients.consumer.ConsumerRecords");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.apache.kafka.clients.consumer.ConsumerRecords"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -40,6 +40,11 @@ public final class KafkaProducerInstrumentation extends Instrumenter.Default {
     return named("org.apache.kafka.clients.producer.KafkaProducer");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.apache.kafka.clients.producer.KafkaProducer"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
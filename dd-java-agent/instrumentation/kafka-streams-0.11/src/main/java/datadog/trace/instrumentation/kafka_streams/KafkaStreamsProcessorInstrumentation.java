@@ -49,6 +49,11 @@ public class KafkaStreamsProcessorInstrumentation {
       return named("org.apache.kafka.streams.processor.internals.PartitionGroup");
     }
 
+    @Override
+    public String[] knownMatchingTypes() {
+      return new String[] {"org.apache.kafka.streams.processor.internals.PartitionGroup"};
+    }
+
     @Override
     public String[] helperClassNames() {
       return new String[] {
@@ -102,6 +107,11 @@ public class KafkaStreamsProcessorInstrumentation {
       return named("org.apache.kafka.streams.processor.internals.StreamTask");
     }
 
+    @Override
+    public String[] knownMatchingTypes() {
+      return new String[] {"org.apache.kafka.streams.processor.internals.StreamTask"};
+    }
+
     @Override
     public String[] helperClassNames() {
       return new String[] {
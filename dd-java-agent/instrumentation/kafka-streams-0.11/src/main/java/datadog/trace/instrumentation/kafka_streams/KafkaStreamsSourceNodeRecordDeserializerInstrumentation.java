@@ -30,6 +30,13 @@ public class KafkaStreamsSourceNodeRecordDeserializerInstrumentation extends Ins
     return named("org.apache.kafka.streams.processor.internals.SourceNodeRecordDeserializer");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {
+      "org.apache.kafka.streams.processor.internals.SourceNodeRecordDeserializer",
+    };
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
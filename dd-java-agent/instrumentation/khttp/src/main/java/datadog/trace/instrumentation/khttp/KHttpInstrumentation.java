@@ -29,6 +29,11 @@ public class KHttpInstrumentation extends Instrumenter.Default {
     return safeHasSuperType(named("khttp.KHttp"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"khttp.KHttp"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
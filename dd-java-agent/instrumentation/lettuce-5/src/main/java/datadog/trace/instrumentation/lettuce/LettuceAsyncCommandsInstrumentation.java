@@ -24,6 +24,11 @@ public class LettuceAsyncCommandsInstrumentation extends Instrumenter.Default {
     return named("io.lettuce.core.AbstractRedisAsyncCommands");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"io.lettuce.core.AbstractRedisAsyncCommands"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
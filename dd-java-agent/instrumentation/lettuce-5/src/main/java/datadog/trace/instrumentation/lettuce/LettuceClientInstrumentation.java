@@ -28,6 +28,11 @@ public final class LettuceClientInstrumentation extends Instrumenter.Default {
     return named("io.lettuce.core.RedisClient");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"io.lettuce.core.RedisClient"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
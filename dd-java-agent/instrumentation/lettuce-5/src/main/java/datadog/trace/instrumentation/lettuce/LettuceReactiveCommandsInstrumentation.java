@@ -27,6 +27,11 @@ public class LettuceReactiveCommandsInstrumentation extends Instrumenter.Default
     return named("io.lettuce.core.AbstractRedisReactiveCommands");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"io.lettuce.core.AbstractRedisReactiveCommands"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -34,6 +34,11 @@ public class Log4j1MDCInstrumentation extends Instrumenter.Default {
     return named("org.apache.log4j.MDC");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.apache.log4j.MDC"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
@@ -34,6 +34,11 @@ public class ThreadContextInstrumentation extends Instrumenter.Default {
     return named("org.apache.logging.log4j.ThreadContext");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.apache.logging.log4j.ThreadContext"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
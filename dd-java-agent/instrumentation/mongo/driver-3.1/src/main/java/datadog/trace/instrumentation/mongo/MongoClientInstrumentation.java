@@ -45,6 +45,11 @@ public final class MongoClientInstrumentation extends Instrumenter.Default {
         .and(declaresField(named("commandListeners")));
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"com.mongodb.MongoClientOptions$Builder"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -45,6 +45,11 @@ public final class MongoAsyncClientInstrumentation extends Instrumenter.Default
         .and(declaresField(named("commandListeners")));
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"com.mongodb.async.client.MongoClientSettings$Builder"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
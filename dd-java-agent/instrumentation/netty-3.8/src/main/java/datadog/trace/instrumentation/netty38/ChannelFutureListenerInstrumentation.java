@@ -47,6 +47,11 @@ public class ChannelFutureListenerInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("org.jboss.netty.channel.ChannelFutureListener"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.jboss.netty.channel.ChannelFutureListener"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
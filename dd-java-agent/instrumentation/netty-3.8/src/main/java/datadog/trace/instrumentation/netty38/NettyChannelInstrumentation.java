@@ -40,6 +40,11 @@ public class NettyChannelInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("org.jboss.netty.channel.Channel"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.jboss.netty.channel.Channel"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -56,6 +56,11 @@ public class NettyChannelPipelineInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("org.jboss.netty.channel.ChannelPipeline"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.jboss.netty.channel.ChannelPipeline"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
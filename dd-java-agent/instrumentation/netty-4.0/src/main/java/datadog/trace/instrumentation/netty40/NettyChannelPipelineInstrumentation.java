@@ -57,6 +57,11 @@ public class NettyChannelPipelineInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("io.netty.channel.ChannelPipeline"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"io.netty.channel.ChannelPipeline"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -44,6 +44,11 @@ public class ChannelFutureListenerInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("io.netty.channel.ChannelFutureListener"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"io.netty.channel.ChannelFutureListener"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -27,6 +27,11 @@ public class OkHttp3Instrumentation extends Instrumenter.Default {
     return named("okhttp3.OkHttpClient");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"okhttp3.OkHttpClient"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
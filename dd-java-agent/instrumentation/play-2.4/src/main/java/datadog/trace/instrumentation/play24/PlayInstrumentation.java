@@ -32,6 +32,11 @@ public final class PlayInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("play.api.mvc.Action"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"play.api.mvc.Action"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -37,6 +37,11 @@ public abstract class BasePlayWSClientInstrumentation extends Instrumenter.Defau
                 .and(not(named("play.api.libs.ws.ahc.cache.CachingAsyncHttpClient"))));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"play.shaded.ahc.org.asynchttpclient.AsyncHttpClient"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
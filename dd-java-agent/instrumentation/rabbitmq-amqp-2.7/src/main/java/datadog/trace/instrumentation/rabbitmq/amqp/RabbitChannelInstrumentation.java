@@ -65,6 +65,11 @@ public class RabbitChannelInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("com.rabbitmq.client.Channel"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"com.rabbitmq.client.Channel"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -36,6 +36,11 @@ public class RabbitCommandInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("com.rabbitmq.client.Command"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"com.rabbitmq.client.Command"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
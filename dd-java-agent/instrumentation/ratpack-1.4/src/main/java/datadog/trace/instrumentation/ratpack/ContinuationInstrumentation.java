@@ -37,6 +37,11 @@ public final class ContinuationInstrumentation extends Instrumenter.Default {
         .<TypeDescription>and(implementsInterface(named("ratpack.exec.internal.Continuation")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"ratpack.exec.internal.Continuation"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -30,6 +30,11 @@ public final class DefaultExecutionInstrumentation extends Instrumenter.Default
     return named("ratpack.exec.internal.DefaultExecution");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"ratpack.exec.internal.DefaultExecution"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -33,6 +33,11 @@ public class ServerErrorHandlerInstrumentation extends Instrumenter.Default {
     return not(isAbstract()).and(implementsInterface(named("ratpack.error.ServerErrorHandler")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"ratpack.error.ServerErrorHandler"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
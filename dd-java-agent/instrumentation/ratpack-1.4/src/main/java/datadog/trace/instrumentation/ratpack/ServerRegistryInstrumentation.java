@@ -24,6 +24,11 @@ public class ServerRegistryInstrumentation extends Instrumenter.Default {
     return named("ratpack.server.internal.ServerRegistry");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"ratpack.server.internal.ServerRegistry"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
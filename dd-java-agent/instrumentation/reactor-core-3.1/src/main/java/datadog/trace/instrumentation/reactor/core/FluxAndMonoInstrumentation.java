@@ -39,6 +39,11 @@ public final class FluxAndMonoInstrumentation extends Instrumenter.Default {
                 named("reactor.core.publisher.Mono").or(named("reactor.core.publisher.Flux"))));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"reactor.core.publisher.Mono", "reactor.core.publisher.Flux"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -34,6 +34,11 @@ public final class RmiClientInstrumentation extends Instrumenter.Default {
     return extendsClass(named("sun.rmi.server.UnicastRef"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"sun.rmi.server.UnicastRef"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {packageName + ".RmiClientDecorator"};
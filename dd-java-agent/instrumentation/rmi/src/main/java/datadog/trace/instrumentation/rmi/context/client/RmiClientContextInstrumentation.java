@@ -54,6 +54,11 @@ public class RmiClientContextInstrumentation extends Instrumenter.Default {
     return extendsClass(named("sun.rmi.transport.StreamRemoteCall"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"sun.rmi.transport.StreamRemoteCall"};
+  }
+
   @Override
   public Map<String, String> contextStore() {
     // caching if a connection can support enhanced format
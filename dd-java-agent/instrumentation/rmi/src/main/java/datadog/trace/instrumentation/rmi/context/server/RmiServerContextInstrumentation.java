@@ -29,6 +29,11 @@ public class RmiServerContextInstrumentation extends Instrumenter.Default {
     return extendsClass(named("sun.rmi.transport.ObjectTable"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"sun.rmi.transport.ObjectTable"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -41,6 +41,11 @@ public final class RmiServerInstrumentation extends Instrumenter.Default {
     return extendsClass(named("java.rmi.server.RemoteServer"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"java.rmi.server.RemoteServer"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
@@ -34,6 +34,11 @@ public final class Servlet2Instrumentation extends Instrumenter.Default {
         named("javax.servlet.FilterChain").or(named("javax.servlet.http.HttpServlet")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.servlet.FilterChain", "javax.servlet.http.HttpServlet"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -41,6 +41,11 @@ public final class AsyncContextInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("javax.servlet.AsyncContext"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.servlet.AsyncContext"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {packageName + ".HttpServletRequestInjectAdapter"};
@@ -46,6 +46,11 @@ public final class RequestDispatcherInstrumentation extends Instrumenter.Default
     return implementsInterface(named("javax.servlet.RequestDispatcher"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.servlet.RequestDispatcher"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
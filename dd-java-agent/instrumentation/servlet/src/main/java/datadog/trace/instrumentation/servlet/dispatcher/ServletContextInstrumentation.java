@@ -35,6 +35,11 @@ public final class ServletContextInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("javax.servlet.ServletContext"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.servlet.ServletContext"};
+  }
+
   @Override
   public Map<String, String> contextStore() {
     return singletonMap("javax.servlet.RequestDispatcher", String.class.getName());
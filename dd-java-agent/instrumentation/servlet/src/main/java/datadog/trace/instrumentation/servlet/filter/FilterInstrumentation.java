@@ -46,6 +46,11 @@ public final class FilterInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("javax.servlet.Filter"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.servlet.Filter"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -47,6 +47,11 @@ public final class HttpServletInstrumentation extends Instrumenter.Default {
     return extendsClass(named("javax.servlet.http.HttpServlet"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.servlet.http.HttpServlet"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
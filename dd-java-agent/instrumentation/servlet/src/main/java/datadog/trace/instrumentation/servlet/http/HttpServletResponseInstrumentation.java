@@ -42,6 +42,11 @@ public final class HttpServletResponseInstrumentation extends Instrumenter.Defau
     return implementsInterface(named("javax.servlet.http.HttpServletResponse"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"javax.servlet.http.HttpServletResponse"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
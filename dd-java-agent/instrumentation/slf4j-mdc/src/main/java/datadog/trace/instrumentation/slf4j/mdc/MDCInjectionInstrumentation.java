@@ -40,6 +40,11 @@ public class MDCInjectionInstrumentation extends Instrumenter.Default {
     return named(mdcClassName);
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {mdcClassName};
+  }
+
   @Override
   public void postMatch(
       final TypeDescription typeDescription,
@@ -37,6 +37,11 @@ public class RoutesInstrumentation extends Instrumenter.Default {
     return named("spark.route.Routes");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"spark.route.Routes"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
@@ -39,6 +39,13 @@ public final class SpringRepositoryInstrumentation extends Instrumenter.Default
     return named("org.springframework.data.repository.core.support.RepositoryFactorySupport");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {
+      "org.springframework.data.repository.core.support.RepositoryFactorySupport",
+    };
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -30,6 +30,11 @@ public final class SpringSchedulingInstrumentation extends Instrumenter.Default
     return named("org.springframework.scheduling.config.Task");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.springframework.scheduling.config.Task"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -31,6 +31,11 @@ public class RestTemplateInstrumentation extends Instrumenter.Default {
     return named("org.springframework.web.client.RestTemplate");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.springframework.web.client.RestTemplate"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -34,6 +34,11 @@ public class DefaultWebClientInstrumentation extends Instrumenter.Default {
         named("org.springframework.web.reactive.function.client.ExchangeFunction"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.springframework.web.reactive.function.client.ExchangeFunction"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
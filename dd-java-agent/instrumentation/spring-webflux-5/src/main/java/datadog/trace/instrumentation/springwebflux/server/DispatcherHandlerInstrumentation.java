@@ -22,6 +22,11 @@ public final class DispatcherHandlerInstrumentation extends AbstractWebfluxInstr
     return named("org.springframework.web.reactive.DispatcherHandler");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.springframework.web.reactive.DispatcherHandler"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
@@ -33,6 +33,11 @@ public final class HandlerAdapterInstrumentation extends AbstractWebfluxInstrume
         .and(implementsInterface(named("org.springframework.web.reactive.HandlerAdapter")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.springframework.web.reactive.HandlerAdapter"};
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
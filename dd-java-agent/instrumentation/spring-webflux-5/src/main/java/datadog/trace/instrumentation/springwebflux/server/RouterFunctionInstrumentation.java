@@ -41,6 +41,13 @@ public final class RouterFunctionInstrumentation extends AbstractWebfluxInstrume
                     "org.springframework.web.reactive.function.server.RouterFunctions$DefaultRouterFunction")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {
+      "org.springframework.web.reactive.function.server.RouterFunctions$DefaultRouterFunction",
+    };
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
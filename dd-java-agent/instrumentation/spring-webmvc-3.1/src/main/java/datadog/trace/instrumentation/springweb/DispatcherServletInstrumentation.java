@@ -36,6 +36,11 @@ public final class DispatcherServletInstrumentation extends Instrumenter.Default
     return named("org.springframework.web.servlet.DispatcherServlet");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"org.springframework.web.servlet.DispatcherServlet"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
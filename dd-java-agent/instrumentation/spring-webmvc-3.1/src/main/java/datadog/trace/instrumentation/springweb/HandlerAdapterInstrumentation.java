@@ -45,6 +45,11 @@ public final class HandlerAdapterInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("org.springframework.web.servlet.HandlerAdapter"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.springframework.web.servlet.HandlerAdapter"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
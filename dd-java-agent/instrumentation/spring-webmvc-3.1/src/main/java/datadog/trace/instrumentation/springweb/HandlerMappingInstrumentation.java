@@ -42,6 +42,11 @@ public final class HandlerMappingInstrumentation extends Instrumenter.Default {
     return implementsInterface(named("org.springframework.web.servlet.HandlerMapping"));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"org.springframework.web.servlet.HandlerMapping"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -34,6 +34,11 @@ public final class MemcachedClientInstrumentation extends Instrumenter.Default {
     return named(MEMCACHED_PACKAGE + ".MemcachedClient");
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {MEMCACHED_PACKAGE + ".MemcachedClient"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -85,6 +85,11 @@ public class TraceConfigInstrumentation implements Instrumenter {
       return safeHasSuperType(named(className));
     }
 
+    @Override
+    public String[] knownMatchingSuperTypes() {
+      return new String[] {className};
+    }
+
     @Override
     public String[] helperClassNames() {
       return new String[] {
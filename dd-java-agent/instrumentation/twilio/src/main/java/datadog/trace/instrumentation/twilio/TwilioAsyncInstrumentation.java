@@ -52,6 +52,17 @@ public class TwilioAsyncInstrumentation extends Instrumenter.Default {
             .or(named("com.twilio.base.Updater")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {
+      "com.twilio.base.Creator",
+      "com.twilio.base.Deleter",
+      "com.twilio.base.Fetcher",
+      "com.twilio.base.Reader",
+      "com.twilio.base.Updater",
+    };
+  }
+
   /** Return the helper classes which will be available for use in instrumentation. */
   @Override
   public String[] helperClassNames() {
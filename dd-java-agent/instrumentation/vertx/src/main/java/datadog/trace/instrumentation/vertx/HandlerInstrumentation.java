@@ -28,6 +28,11 @@ public final class HandlerInstrumentation extends Instrumenter.Default {
     return not(isInterface()).and(safeHasSuperType(named("io.vertx.core.Handler")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"io.vertx.core.Handler"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -28,6 +28,11 @@ public final class RouteInstrumentation extends Instrumenter.Default {
     return not(isInterface()).and(safeHasSuperType(named("io.vertx.ext.web.Route")));
   }
 
+  @Override
+  public String[] knownMatchingSuperTypes() {
+    return new String[] {"io.vertx.ext.web.Route"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
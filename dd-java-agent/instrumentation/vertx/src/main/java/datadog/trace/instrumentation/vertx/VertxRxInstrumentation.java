@@ -29,6 +29,11 @@ public class VertxRxInstrumentation extends Instrumenter.Default {
     return not(isInterface()).and(named("io.vertx.reactivex.impl.AsyncResultSingle"));
   }
 
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {"io.vertx.reactivex.impl.AsyncResultSingle"};
+  }
+
   @Override
   public String[] helperClassNames() {
     return new String[] {
@@ -64,6 +64,9 @@ public class Config {
   public static final String TRACE_ENABLED = "tracing.enabled";
   public static final String INTEGRATIONS_ENABLED = "integrations.enabled";
   public static final String WRITER_TYPE = "writer.type";
+  public static final String WRITER_OVERFLOW_FILE = "writer.overflow.file";
+  public static final String WRITER_OVERFLOW_FILE_SIZE_MB = "writer.overflow.file.size.mb";
+  public static final String WRITER_SERIALIZATION_THREADS = "writer.serialization.threads";
   public static final String API_TYPE = "api.type";
   public static final String USE_B3_PROPAGATION = "b3.propagation";
   public static final String AGENT_HOST = "agent.host";
@@ -91,10 +94,21 @@ public class Config {
   public static final String TRACE_EXECUTORS = "trace.executors";
   public static final String TRACE_METHODS = "trace.methods";
   public static final String TRACE_CLASSES_EXCLUDE = "trace.classes.exclude";
+  public static final String TRACE_CLASSES_DECISION_CACHE_FILE =
+      "trace.classes.decision.cache.file";
+  public static final String TRACE_AGENT_CLASSES_DIR = "trace.agent.classes.dir";
+  public static final String TRACE_UNSAFE_HELPER_INJECTION = "trace.unsafe.helper.injection";
+  public static final String TRACE_INSTRUMENTERS_LOADING_THREADS =
+      "trace.instrumenters.loading.threads";
   public static final String TRACE_SAMPLING_SERVICE_RULES = "trace.sampling.service.rules";
   public static final String TRACE_SAMPLING_OPERATION_RULES = "trace.sampling.operation.rules";
   public static final String TRACE_SAMPLE_RATE = "trace.sample.rate";
   public static final String TRACE_RATE_LIMIT = "trace.rate.limit";
+  public static final String TRACE_TAIL_SAMPLING_ENABLED = "trace.tail.sampling.enabled";
+  public static final String TRACE_TAIL_SAMPLING_RATE = "trace.tail.sampling.rate";
+  public static final String TRACE_TAIL_SAMPLING_LATENCY_PERCENTILE =
+      "trace.tail.sampling.latency.percentile";
+  public static final String DROP_UNSAMPLED_TRACES = "trace.drop.unsampled";
   public static final String TRACE_REPORT_HOSTNAME = "trace.report-hostname";
   public static final String HEADER_TAGS = "trace.header.tags";
   public static final String HTTP_SERVER_ERROR_STATUSES = "http.server.error.statuses";
@@ -117,6 +131,9 @@ public class Config {
       "instrumentation.redis.capture-command-arguments";
 
   public static final String ZIPKIN_GZIP_CONTENT_ENCODING = "zipkin.gzip.content.encoding";
+  public static final String ZIPKIN_HTTP_TIMEOUT_MILLIS = "zipkin.http.timeout.millis";
+  public static final String ZIPKIN_HTTP_MAX_IDLE_CONNECTIONS = "zipkin.http.max.idle.connections";
+  public static final String ZIPKIN_HTTP2_CLEARTEXT = "zipkin.http2.cleartext";
 
   public static final String JMX_FETCH_ENABLED = "jmxfetch.enabled";
   public static final String JMX_FETCH_CONFIG_DIR = "jmxfetch.config.dir";
@@ -176,6 +193,11 @@ public class Config {
   public static final String MAX_CONTINUATION_DEPTH = "max.continuation.depth";
   public static final Integer DEFAULT_MAX_CONTINUATION_DEPTH = 100;
 
+  public static final String LOCK_FREE_SPAN_TRACKING = "lock.free.span.tracking";
+  public static final boolean DEFAULT_LOCK_FREE_SPAN_TRACKING = false;
+  public static final String LOCK_FREE_STALE_TRACE_TIMEOUT = "lock.free.stale.trace.timeout";
+  public static final int DEFAULT_LOCK_FREE_STALE_TRACE_TIMEOUT = 600; // seconds, 0 disables
+
   public static final String SERVER_TIMING_CONTEXT = "server.timing.context";
   public static final boolean DEFAULT_SERVER_TIMING_CONTEXT = false;
 
@@ -194,6 +216,8 @@ public class Config {
   public static final String ZIPKIN_V2_API_TYPE = "ZipkinV2";
   public static final String LOGGING_WRITER_TYPE = "LoggingWriter";
   private static final String DEFAULT_AGENT_WRITER_TYPE = DD_AGENT_WRITER_TYPE;
+  public static final int DEFAULT_WRITER_OVERFLOW_FILE_SIZE_MB = 256;
+  public static final int DEFAULT_WRITER_SERIALIZATION_THREADS = 1;
   public static final String DEFAULT_API_TYPE = ZIPKIN_V2_API_TYPE;
 
   public static final String DEFAULT_AGENT_ENDPOINT = "http://localhost:9080/v1/trace";
@@ -214,6 +238,9 @@ public class Config {
   private static final boolean DEFAULT_DB_CLIENT_HOST_SPLIT_BY_INSTANCE = false;
   private static final String DEFAULT_SPLIT_BY_TAGS = "";
   private static final int DEFAULT_SCOPE_DEPTH_LIMIT = 100;
+  private static final boolean DEFAULT_UNSAFE_HELPER_INJECTION = false;
+  private static final int DEFAULT_INSTRUMENTERS_LOADING_THREADS =
+      Math.min(4, Runtime.getRuntime().availableProcessors());
   public static final int DEFAULT_PARTIAL_FLUSH_MIN_SPANS = 1000;
   private static final String DEFAULT_PROPAGATION_STYLE_EXTRACT = PropagationStyle.B3.name();
   private static final String DEFAULT_PROPAGATION_STYLE_INJECT = PropagationStyle.B3.name();
@@ -248,6 +275,10 @@ public class Config {
   public static final boolean DEFAULT_TRACE_ANALYTICS_ENABLED = false;
   public static final float DEFAULT_ANALYTICS_SAMPLE_RATE = 1.0f;
   public static final double DEFAULT_TRACE_RATE_LIMIT = 100;
+  public static final boolean DEFAULT_TRACE_TAIL_SAMPLING_ENABLED = false;
+  public static final double DEFAULT_TRACE_TAIL_SAMPLING_RATE = 0.1;
+  public static final double DEFAULT_TRACE_TAIL_SAMPLING_LATENCY_PERCENTILE = 99;
+  public static final boolean DEFAULT_DROP_UNSAMPLED_TRACES = false;
 
   public enum PropagationStyle {
     DATADOG,
@@ -259,6 +290,9 @@ public class Config {
   public static final int DEFAULT_RECORDED_VALUE_MAX_LENGTH = 12288;
 
   public static final boolean DEFAULT_ZIPKIN_GZIP_CONTENT_ENCODING = true;
+  public static final int DEFAULT_ZIPKIN_HTTP_TIMEOUT_MILLIS = 30 * 1000;
+  public static final int DEFAULT_ZIPKIN_HTTP_MAX_IDLE_CONNECTIONS = 2;
+  public static final boolean DEFAULT_ZIPKIN_HTTP2_CLEARTEXT = false;
 
   /** A tag intended for internal use only, hence not added to the public api DDTags class. */
   private static final String INTERNAL_HOST_NAME = "_dd.hostname";
@@ -297,6 +331,9 @@ public class Config {
   @Getter private final boolean traceEnabled;
   @Getter private final boolean integrationsEnabled;
   @Getter private final String writerType;
+  @Getter private final String writerOverflowFile;
+  @Getter private final int writerOverflowFileSizeMb;
+  @Getter private final int writerSerializationThreads;
   @Getter private final String apiType;
   @Getter private final boolean useB3Propagation;
   private final String agentHost;
@@ -313,6 +350,12 @@ public class Config {
   private final Map<String, String> spanTags;
   private final Map<String, String> jmxTags;
   @Getter private final List<String> excludedClasses;
+  @Getter private final String classesDecisionCacheFile;
+  /** Where to extract the internal agent jars to, or null to read them from the agent jar */
+  @Getter private final String agentClassesDir;
+  /** Whether to define helpers in the bootstrap class loader from memory, through Unsafe */
+  @Getter private final boolean unsafeHelperInjection;
+  @Getter private final Integer instrumentersLoadingThreads;
   @Getter private final Map<String, String> headerTags;
   @Getter private final Set<Integer> httpServerErrorStatuses;
   @Getter private final Set<Integer> httpClientErrorStatuses;
@@ -331,6 +374,9 @@ public class Config {
   @Getter private final boolean redisCaptureCommandArguments;
 
   @Getter private final boolean zipkinGZIPContentEncoding;
+  @Getter private final int zipkinHttpTimeoutMillis;
+  @Getter private final int zipkinHttpMaxIdleConnections;
+  @Getter private final boolean zipkinHttp2Cleartext;
 
   @Getter private final boolean jmxFetchEnabled;
   @Getter private final String jmxFetchConfigDir;
@@ -365,6 +411,8 @@ public class Config {
 
   @Getter private final Integer maxSpansPerTrace;
   @Getter private final Integer maxContinuationDepth;
+  @Getter private final boolean lockFreeSpanTracking;
+  @Getter private final int lockFreeStaleTraceTimeout;
 
   // Feature for RUM that emits the trace context to the browser in a Server-Timing header
   // on the *response* (most other propagation relies on the client to propagate on
@@ -374,6 +422,10 @@ public class Config {
   @Getter private final Map<String, String> traceSamplingOperationRules;
   @Getter private final Double traceSampleRate;
   @Getter private final Double traceRateLimit;
+  @Getter private final boolean traceTailSamplingEnabled;
+  @Getter private final Double traceTailSamplingRate;
+  @Getter private final Double traceTailSamplingLatencyPercentile;
+  @Getter private final boolean dropUnsampledTraces;
 
   @Getter private final boolean profilingEnabled;
   @Deprecated private final String profilingUrl;
@@ -424,6 +476,13 @@ public class Config {
     integrationsEnabled =
         getBooleanSettingFromEnvironment(INTEGRATIONS_ENABLED, DEFAULT_INTEGRATIONS_ENABLED);
     writerType = getSettingFromEnvironment(WRITER_TYPE, DEFAULT_AGENT_WRITER_TYPE);
+    writerOverflowFile = getSettingFromEnvironment(WRITER_OVERFLOW_FILE, null);
+    writerOverflowFileSizeMb =
+        getIntegerSettingFromEnvironment(
+            WRITER_OVERFLOW_FILE_SIZE_MB, DEFAULT_WRITER_OVERFLOW_FILE_SIZE_MB);
+    writerSerializationThreads =
+        getIntegerSettingFromEnvironment(
+            WRITER_SERIALIZATION_THREADS, DEFAULT_WRITER_SERIALIZATION_THREADS);
     apiType = getSettingFromEnvironment(API_TYPE, DEFAULT_API_TYPE);
     useB3Propagation = getBooleanSettingFromEnvironment(USE_B3_PROPAGATION, true);
     agentHost = getSettingFromEnvironment(AGENT_HOST, null);
@@ -447,6 +506,14 @@ public class Config {
     jmxTags = getMapSettingFromEnvironment(JMX_TAGS, null);
 
     excludedClasses = getListSettingFromEnvironment(TRACE_CLASSES_EXCLUDE, null);
+    classesDecisionCacheFile = getSettingFromEnvironment(TRACE_CLASSES_DECISION_CACHE_FILE, null);
+    agentClassesDir = trimToNull(getSettingFromEnvironment(TRACE_AGENT_CLASSES_DIR, null));
+    unsafeHelperInjection =
+        getBooleanSettingFromEnvironment(
+            TRACE_UNSAFE_HELPER_INJECTION, DEFAULT_UNSAFE_HELPER_INJECTION);
+    instrumentersLoadingThreads =
+        getIntegerSettingFromEnvironment(
+            TRACE_INSTRUMENTERS_LOADING_THREADS, DEFAULT_INSTRUMENTERS_LOADING_THREADS);
     headerTags = getMapSettingFromEnvironment(HEADER_TAGS, null);
 
     httpServerErrorStatuses =
@@ -505,6 +572,14 @@ public class Config {
     zipkinGZIPContentEncoding =
         getBooleanSettingFromEnvironment(
             ZIPKIN_GZIP_CONTENT_ENCODING, DEFAULT_ZIPKIN_GZIP_CONTENT_ENCODING);
+    zipkinHttpTimeoutMillis =
+        getIntegerSettingFromEnvironment(
+            ZIPKIN_HTTP_TIMEOUT_MILLIS, DEFAULT_ZIPKIN_HTTP_TIMEOUT_MILLIS);
+    zipkinHttpMaxIdleConnections =
+        getIntegerSettingFromEnvironment(
+            ZIPKIN_HTTP_MAX_IDLE_CONNECTIONS, DEFAULT_ZIPKIN_HTTP_MAX_IDLE_CONNECTIONS);
+    zipkinHttp2Cleartext =
+        getBooleanSettingFromEnvironment(ZIPKIN_HTTP2_CLEARTEXT, DEFAULT_ZIPKIN_HTTP2_CLEARTEXT);
 
     jmxFetchEnabled =
         getBooleanSettingFromEnvironment(JMX_FETCH_ENABLED, DEFAULT_JMX_FETCH_ENABLED);
@@ -554,6 +629,11 @@ public class Config {
         getIntegerSettingFromEnvironment(MAX_SPANS_PER_TRACE, DEFAULT_MAX_SPANS_PER_TRACE);
     maxContinuationDepth =
         getIntegerSettingFromEnvironment(MAX_CONTINUATION_DEPTH, DEFAULT_MAX_CONTINUATION_DEPTH);
+    lockFreeSpanTracking =
+        getBooleanSettingFromEnvironment(LOCK_FREE_SPAN_TRACKING, DEFAULT_LOCK_FREE_SPAN_TRACKING);
+    lockFreeStaleTraceTimeout =
+        getIntegerSettingFromEnvironment(
+            LOCK_FREE_STALE_TRACE_TIMEOUT, DEFAULT_LOCK_FREE_STALE_TRACE_TIMEOUT);
     emitServerTimingContext =
         getBooleanSettingFromEnvironment(SERVER_TIMING_CONTEXT, DEFAULT_SERVER_TIMING_CONTEXT);
 
@@ -562,6 +642,16 @@ public class Config {
         getMapSettingFromEnvironment(TRACE_SAMPLING_OPERATION_RULES, null);
     traceSampleRate = getDoubleSettingFromEnvironment(TRACE_SAMPLE_RATE, null);
     traceRateLimit = getDoubleSettingFromEnvironment(TRACE_RATE_LIMIT, DEFAULT_TRACE_RATE_LIMIT);
+    traceTailSamplingEnabled =
+        getBooleanSettingFromEnvironment(
+            TRACE_TAIL_SAMPLING_ENABLED, DEFAULT_TRACE_TAIL_SAMPLING_ENABLED);
+    traceTailSamplingRate =
+        getDoubleSettingFromEnvironment(TRACE_TAIL_SAMPLING_RATE, DEFAULT_TRACE_TAIL_SAMPLING_RATE);
+    traceTailSamplingLatencyPercentile =
+        getDoubleSettingFromEnvironment(
+            TRACE_TAIL_SAMPLING_LATENCY_PERCENTILE, DEFAULT_TRACE_TAIL_SAMPLING_LATENCY_PERCENTILE);
+    dropUnsampledTraces =
+        getBooleanSettingFromEnvironment(DROP_UNSAMPLED_TRACES, DEFAULT_DROP_UNSAMPLED_TRACES);
 
     profilingEnabled =
         getBooleanSettingFromEnvironment(PROFILING_ENABLED, DEFAULT_PROFILING_ENABLED);
@@ -640,6 +730,13 @@ public class Config {
     integrationsEnabled =
         getPropertyBooleanValue(properties, INTEGRATIONS_ENABLED, parent.integrationsEnabled);
     writerType = properties.getProperty(WRITER_TYPE, parent.writerType);
+    writerOverflowFile = properties.getProperty(WRITER_OVERFLOW_FILE, parent.writerOverflowFile);
+    writerOverflowFileSizeMb =
+        getPropertyIntegerValue(
+            properties, WRITER_OVERFLOW_FILE_SIZE_MB, parent.writerOverflowFileSizeMb);
+    writerSerializationThreads =
+        getPropertyIntegerValue(
+            properties, WRITER_SERIALIZATION_THREADS, parent.writerSerializationThreads);
     apiType = properties.getProperty(API_TYPE, parent.apiType);
     useB3Propagation =
         getPropertyBooleanValue(properties, USE_B3_PROPAGATION, parent.useB3Propagation);
@@ -666,6 +763,16 @@ public class Config {
     jmxTags = getPropertyMapValue(properties, JMX_TAGS, parent.jmxTags);
     excludedClasses =
         getPropertyListValue(properties, TRACE_CLASSES_EXCLUDE, parent.excludedClasses);
+    classesDecisionCacheFile =
+        properties.getProperty(TRACE_CLASSES_DECISION_CACHE_FILE, parent.classesDecisionCacheFile);
+    agentClassesDir =
+        trimToNull(properties.getProperty(TRACE_AGENT_CLASSES_DIR, parent.agentClassesDir));
+    unsafeHelperInjection =
+        getPropertyBooleanValue(
+            properties, TRACE_UNSAFE_HELPER_INJECTION, parent.unsafeHelperInjection);
+    instrumentersLoadingThreads =
+        getPropertyIntegerValue(
+            properties, TRACE_INSTRUMENTERS_LOADING_THREADS, parent.instrumentersLoadingThreads);
     headerTags = getPropertyMapValue(properties, HEADER_TAGS, parent.headerTags);
 
     httpServerErrorStatuses =
@@ -732,6 +839,14 @@ public class Config {
     zipkinGZIPContentEncoding =
         getPropertyBooleanValue(
             properties, ZIPKIN_GZIP_CONTENT_ENCODING, parent.zipkinGZIPContentEncoding);
+    zipkinHttpTimeoutMillis =
+        getPropertyIntegerValue(
+            properties, ZIPKIN_HTTP_TIMEOUT_MILLIS, parent.zipkinHttpTimeoutMillis);
+    zipkinHttpMaxIdleConnections =
+        getPropertyIntegerValue(
+            properties, ZIPKIN_HTTP_MAX_IDLE_CONNECTIONS, parent.zipkinHttpMaxIdleConnections);
+    zipkinHttp2Cleartext =
+        getPropertyBooleanValue(properties, ZIPKIN_HTTP2_CLEARTEXT, parent.zipkinHttp2Cleartext);
 
     jmxFetchEnabled =
         getPropertyBooleanValue(properties, JMX_FETCH_ENABLED, parent.jmxFetchEnabled);
@@ -785,6 +900,11 @@ public class Config {
         getPropertyIntegerValue(properties, MAX_SPANS_PER_TRACE, DEFAULT_MAX_SPANS_PER_TRACE);
     maxContinuationDepth =
         getPropertyIntegerValue(properties, MAX_CONTINUATION_DEPTH, DEFAULT_MAX_CONTINUATION_DEPTH);
+    lockFreeSpanTracking =
+        getPropertyBooleanValue(properties, LOCK_FREE_SPAN_TRACKING, parent.lockFreeSpanTracking);
+    lockFreeStaleTraceTimeout =
+        getPropertyIntegerValue(
+            properties, LOCK_FREE_STALE_TRACE_TIMEOUT, parent.lockFreeStaleTraceTimeout);
     emitServerTimingContext =
         getPropertyBooleanValue(properties, SERVER_TIMING_CONTEXT, DEFAULT_SERVER_TIMING_CONTEXT);
     traceSamplingServiceRules =
@@ -795,6 +915,18 @@ public class Config {
             properties, TRACE_SAMPLING_OPERATION_RULES, parent.traceSamplingOperationRules);
     traceSampleRate = getPropertyDoubleValue(properties, TRACE_SAMPLE_RATE, parent.traceSampleRate);
     traceRateLimit = getPropertyDoubleValue(properties, TRACE_RATE_LIMIT, parent.traceRateLimit);
+    traceTailSamplingEnabled =
+        getPropertyBooleanValue(
+            properties, TRACE_TAIL_SAMPLING_ENABLED, parent.traceTailSamplingEnabled);
+    traceTailSamplingRate =
+        getPropertyDoubleValue(properties, TRACE_TAIL_SAMPLING_RATE, parent.traceTailSamplingRate);
+    traceTailSamplingLatencyPercentile =
+        getPropertyDoubleValue(
+            properties,
+            TRACE_TAIL_SAMPLING_LATENCY_PERCENTILE,
+            parent.traceTailSamplingLatencyPercentile);
+    dropUnsampledTraces =
+        getPropertyBooleanValue(properties, DROP_UNSAMPLED_TRACES, parent.dropUnsampledTraces);
 
     profilingEnabled =
         getPropertyBooleanValue(properties, PROFILING_ENABLED, parent.profilingEnabled);
@@ -1438,6 +1570,10 @@ public class Config {
     return Collections.unmodifiableList(Arrays.asList(tokens));
   }
 
+  private static String trimToNull(final String str) {
+    return str == null || str.trim().isEmpty() ? null : str.trim();
+  }
+
   private static URL parseURL(final String str, final String settingName) {
     try {
       return new URL(str);
@@ -65,6 +65,131 @@ public class Ids {
     return s;
   }
 
+  /**
+   * Hex encodes an id held as two unsigned 64 bit halves. Ids with a zero upper half are encoded
+   * as 16 characters, otherwise as 32 characters.
+   */
+  public static char[] idToHexChars(final long idHigh, final long idLow) {
+    if (idHigh == 0) {
+      final char[] answer = new char[16];
+      writeHexChars(idLow, answer, 0);
+      return answer;
+    }
+    final char[] answer = new char[32];
+    writeHexChars(idHigh, answer, 0);
+    writeHexChars(idLow, answer, 16);
+    return answer;
+  }
+
+  /** String form of {@link #idToHexChars(long, long)}. */
+  public static String idToHex(final long idHigh, final long idLow) {
+    return new String(idToHexChars(idHigh, idLow));
+  }
+
+  /** Writes the 16 character, zero padded hex form of the unsigned value at the given offset. */
+  public static void writeHexChars(final long value, final char[] destination, final int offset) {
+    for (int i = 0; i < 16; i++) {
+      destination[offset + 15 - i] = HexChars[(int) (value >>> (i * 4)) & 0x0F];
+    }
+  }
+
+  /** Decimal representation of an id held as two unsigned 64 bit halves. */
+  public static String toDecimalString(final long idHigh, final long idLow) {
+    if (idHigh != 0) {
+      return toUnsignedBigInteger(idHigh, idLow).toString();
+    }
+    if (idLow >= 0) {
+      return Long.toString(idLow);
+    }
+    // Long.toUnsignedString is not available on Java 7.
+    final long quotient = (idLow >>> 1) / 5;
+    final long remainder = idLow - quotient * 10;
+    return Long.toString(quotient) + remainder;
+  }
+
+  /** Materializes an id held as two unsigned 64 bit halves as a (non-negative) BigInteger. */
+  public static BigInteger toUnsignedBigInteger(final long idHigh, final long idLow) {
+    if (idHigh == 0 && idLow >= 0) {
+      return BigInteger.valueOf(idLow);
+    }
+    final byte[] magnitude = new byte[16];
+    for (int i = 0; i < 8; i++) {
+      magnitude[7 - i] = (byte) (idHigh >>> (i * 8));
+      magnitude[15 - i] = (byte) (idLow >>> (i * 8));
+    }
+    return new BigInteger(1, magnitude);
+  }
+
+  /** Upper 64 bits of an unsigned id of up to 128 bits. */
+  public static long idHigh(final BigInteger id) {
+    checkUnsigned128(id);
+    return id.shiftRight(64).longValue();
+  }
+
+  /** Lower 64 bits of an unsigned id of up to 128 bits. */
+  public static long idLow(final BigInteger id) {
+    checkUnsigned128(id);
+    return id.longValue();
+  }
+
+  private static void checkUnsigned128(final BigInteger id) {
+    if (id.signum() < 0 || id.bitLength() > 128) {
+      throw new IllegalArgumentException(
+          "ID out of range, must be between 0 and 2^128-1, got: " + id);
+    }
+  }
+
+  /**
+   * Parses an unsigned 64 bit value from a range of the given string without allocating.
+   *
+   * @throws NumberFormatException if the range is empty, contains a character that isn't a digit
+   *     in the given radix or the value doesn't fit into 64 bits
+   */
+  public static long parseUnsignedLong(
+      final String value, final int beginIndex, final int endIndex, final int radix)
+      throws NumberFormatException {
+    if (beginIndex >= endIndex) {
+      throw new NumberFormatException("Empty ID: \"" + value + "\"");
+    }
+    final long limit = maxUnsignedQuotient(radix);
+    long result = 0;
+    for (int i = beginIndex; i < endIndex; i++) {
+      final int digit = Character.digit(value.charAt(i), radix);
+      if (digit < 0) {
+        throw new NumberFormatException("Invalid ID: \"" + value + "\"");
+      }
+      if (compareUnsigned(result, limit) > 0) {
+        throw new NumberFormatException("ID out of range, must be below 2^64, got: " + value);
+      }
+      final long shifted = result * radix;
+      result = shifted + digit;
+      if (compareUnsigned(result, shifted) < 0) {
+        throw new NumberFormatException("ID out of range, must be below 2^64, got: " + value);
+      }
+    }
+    return result;
+  }
+
+  public static long parseUnsignedLong(final String value, final int radix)
+      throws NumberFormatException {
+    return parseUnsignedLong(value, 0, value.length(), radix);
+  }
+
+  /** (2^64 - 1) / radix, computed without Long.divideUnsigned which is not available on Java 7. */
+  private static long maxUnsignedQuotient(final int radix) {
+    long quotient = ((-1L >>> 1) / radix) << 1;
+    if (compareUnsigned(-1L - quotient * radix, radix) >= 0) {
+      quotient++;
+    }
+    return quotient;
+  }
+
+  private static int compareUnsigned(final long x, final long y) {
+    final long a = x + Long.MIN_VALUE;
+    final long b = y + Long.MIN_VALUE;
+    return a < b ? -1 : (a == b ? 0 : 1);
+  }
+
   public static String idToHex(final String id) {
     return new String(idToHexChars(id));
   }
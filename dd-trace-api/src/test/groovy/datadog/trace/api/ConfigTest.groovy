@@ -72,6 +72,7 @@ import static datadog.trace.api.Config.SITE
 import static datadog.trace.api.Config.SPAN_TAGS
 import static datadog.trace.api.Config.SPLIT_BY_TAGS
 import static datadog.trace.api.Config.TAGS
+import static datadog.trace.api.Config.TRACE_AGENT_CLASSES_DIR
 import static datadog.trace.api.Config.TRACE_AGENT_PORT
 import static datadog.trace.api.Config.TRACE_ENABLED
 import static datadog.trace.api.Config.TRACE_RATE_LIMIT
@@ -86,6 +87,7 @@ import static datadog.trace.api.Config.DEFAULT_RECORDED_VALUE_MAX_LENGTH
 import static datadog.trace.api.Config.TRACE_SAMPLE_RATE
 import static datadog.trace.api.Config.TRACE_SAMPLING_OPERATION_RULES
 import static datadog.trace.api.Config.TRACE_SAMPLING_SERVICE_RULES
+import static datadog.trace.api.Config.TRACE_UNSAFE_HELPER_INJECTION
 import static datadog.trace.api.Config.WRITER_TYPE
 
 class ConfigTest extends DDSpecification {
@@ -1293,6 +1295,37 @@ class ConfigTest extends DDSpecification {
     config.mergedProfilingTags == [a: "1", f: "6", (HOST_TAG): config.getHostName(), (SERVICE_TAG): config.serviceName, (LANGUAGE_TAG_KEY): LANGUAGE_TAG_VALUE]
   }
 
+  def "agent classes dir #value with #prefix prefix"() {
+    setup:
+    System.setProperty(prefix + TRACE_AGENT_CLASSES_DIR, value)
+
+    when:
+    def config = new Config()
+
+    then:
+    config.agentClassesDir == expected
+    !config.unsafeHelperInjection
+
+    where:
+    prefix          | value          | expected
+    PREFIX          | ""             | null
+    SIGNALFX_PREFIX | "  "           | null
+    PREFIX          | " /tmp/agent " | "/tmp/agent"
+    SIGNALFX_PREFIX | "/tmp/agent"   | "/tmp/agent"
+  }
+
+  def "unsafe helper injection is enabled separately"() {
+    setup:
+    System.setProperty(SIGNALFX_PREFIX + TRACE_UNSAFE_HELPER_INJECTION, "true")
+
+    when:
+    def config = new Config()
+
+    then:
+    config.unsafeHelperInjection
+    config.agentClassesDir == null
+  }
+
   def "toString works when passwords are empty"() {
     when:
     def config = new Config()
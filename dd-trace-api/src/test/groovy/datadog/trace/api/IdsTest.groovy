@@ -38,4 +38,68 @@ class IdsTest extends DDSpecification {
     "00000000000000010000000000000000" | "18446744073709551616"
     "ffffffffffffffffffffffffffffffff" | "340282366920938463463374607431768211455"
   }
+
+  def "primitive id conversions for #id"() {
+    when:
+    def high = Ids.idHigh(id)
+    def low = Ids.idLow(id)
+
+    then:
+    Ids.toUnsignedBigInteger(high, low) == id
+    Ids.toDecimalString(high, low) == id.toString()
+    new String(Ids.idToHexChars(high, low)) == new String(Ids.idToHexChars(id))
+
+    where:
+    id << [
+      0G,
+      1G,
+      BigInteger.valueOf(Long.MAX_VALUE),
+      BigInteger.valueOf(Long.MAX_VALUE) + 1G,
+      2G.pow(64) - 1G,
+      2G.pow(64),
+      2G.pow(128) - 1G
+    ]
+  }
+
+  def "ids out of 128 bit range are rejected"() {
+    when:
+    Ids.idLow(id)
+
+    then:
+    thrown(IllegalArgumentException)
+
+    where:
+    id << [-1G, 2G.pow(128)]
+  }
+
+  def "parseUnsignedLong #value radix #radix"() {
+    expect:
+    Ids.parseUnsignedLong(value, radix) == expected
+
+    where:
+    value                  | radix | expected
+    "0"                    | 10    | 0L
+    "1"                    | 10    | 1L
+    "9223372036854775807"  | 10    | Long.MAX_VALUE
+    "18446744073709551615" | 10    | -1L
+    "ffffffffffffffff"     | 16    | -1L
+    "000ffffffffffffffff"  | 16    | -1L
+    "463ac35c9f6413ad"     | 16    | 5060571933882717101L
+  }
+
+  def "parseUnsignedLong rejects #value"() {
+    when:
+    Ids.parseUnsignedLong(value, radix)
+
+    then:
+    thrown(NumberFormatException)
+
+    where:
+    value                  | radix
+    ""                     | 10
+    "-1"                   | 10
+    "abc"                  | 10
+    "18446744073709551616" | 10
+    "10000000000000000"    | 16
+  }
 }
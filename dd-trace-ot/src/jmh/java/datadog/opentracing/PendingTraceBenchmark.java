@@ -0,0 +1,83 @@
+package datadog.opentracing;
+
+import datadog.trace.api.Config;
+import datadog.trace.common.writer.Writer;
+import io.opentracing.Span;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Cost of building, finishing and writing a whole trace with the default, weak reference based,
+ * span tracking and with lock free span tracking. Run with {@code -prof gc} to compare allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PendingTraceBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class TracerState {
+    @Param({"1", "10", "100", "1000"})
+    public int spansPerTrace;
+
+    @Param({"false", "true"})
+    public boolean lockFree;
+
+    public DDTracer tracer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      final Properties properties = new Properties();
+      properties.setProperty(Config.LOCK_FREE_SPAN_TRACKING, String.valueOf(lockFree));
+      tracer =
+          DDTracer.builder()
+              .config(Config.get(properties))
+              .writer(new CountingWriter())
+              .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      tracer.close();
+    }
+  }
+
+  @Benchmark
+  public Span buildTrace(final TracerState state) {
+    final Span root = state.tracer.buildSpan("root").start();
+    for (int i = 1; i < state.spansPerTrace; i++) {
+      state.tracer.buildSpan("child").asChildOf(root).start().finish();
+    }
+    root.finish();
+    return root;
+  }
+
+  /** Drops the traces, keeping a count so that writing them isn't optimized away. */
+  private static class CountingWriter implements Writer {
+    private volatile long spanCount;
+
+    @Override
+    public void write(final List<DDSpan> trace) {
+      spanCount += trace.size();
+    }
+
+    @Override
+    public void start() {}
+
+    @Override
+    public void close() {}
+
+    @Override
+    public void incrementTraceCount() {}
+  }
+}
@@ -0,0 +1,93 @@
+package datadog.opentracing;
+
+import io.opentracing.tag.Tags;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Memory and time per span spent on tags, for the span tag store and for the concurrent hash map it
+ * replaced. Run with {@code -prof gc}: {@code gc.alloc.rate.norm} is the number of bytes allocated
+ * per span.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SpanTagsBenchmark {
+  private static final String[] WELL_KNOWN_KEYS = {
+    Tags.COMPONENT.getKey(),
+    Tags.SPAN_KIND.getKey(),
+    Tags.HTTP_URL.getKey(),
+    Tags.HTTP_METHOD.getKey(),
+    Tags.HTTP_STATUS.getKey(),
+    Tags.PEER_HOSTNAME.getKey(),
+    Tags.PEER_PORT.getKey(),
+    "thread.name",
+    "thread.id"
+  };
+
+  @State(Scope.Benchmark)
+  public static class TagsState {
+    @Param({"5", "15", "25"})
+    public int tagCount;
+
+    public String[] keys;
+    public Object[] values;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      keys = new String[tagCount];
+      values = new Object[tagCount];
+      for (int i = 0; i < tagCount; i++) {
+        keys[i] = i < WELL_KNOWN_KEYS.length ? WELL_KNOWN_KEYS[i] : "custom.tag." + i;
+        values[i] = "value" + i;
+      }
+    }
+  }
+
+  @Benchmark
+  public Map<String, Object> tagMap(final TagsState state) {
+    final TagMap tags = new TagMap();
+    for (int i = 0; i < state.tagCount; i++) {
+      tags.set(state.keys[i], state.values[i]);
+    }
+    return tags;
+  }
+
+  @Benchmark
+  public Map<String, Object> concurrentHashMap(final TagsState state) {
+    final Map<String, Object> tags = new ConcurrentHashMap<>();
+    for (int i = 0; i < state.tagCount; i++) {
+      tags.put(state.keys[i], state.values[i]);
+    }
+    return tags;
+  }
+
+  @Benchmark
+  public int tagMapIteration(final TagsState state) {
+    final Map<String, Object> tags = tagMap(state);
+    int length = 0;
+    for (final Map.Entry<String, Object> entry : tags.entrySet()) {
+      length += entry.getKey().length();
+    }
+    return length;
+  }
+
+  @Benchmark
+  public int concurrentHashMapIteration(final TagsState state) {
+    final Map<String, Object> tags = concurrentHashMap(state);
+    int length = 0;
+    for (final Map.Entry<String, Object> entry : tags.entrySet()) {
+      length += entry.getKey().length();
+    }
+    return length;
+  }
+}
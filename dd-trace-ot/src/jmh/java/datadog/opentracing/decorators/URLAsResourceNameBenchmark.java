@@ -4,21 +4,56 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import datadog.opentracing.DDSpanContext;
 import datadog.opentracing.SpanFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Time per URL spent naming the resource, for the regex replacement the normalizer replaced, the
+ * normalizer alone and the decorator with its path cache. The corpus mixes static routes, routes
+ * with ids, versioned APIs and full URLs with query strings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
 public class URLAsResourceNameBenchmark {
   static {
     ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
   }
 
+  private static final String[] URLS = {
+    "/",
+    "/health",
+    "/api/v1/users",
+    "/api/v1/users/12345",
+    "/api/v2/users/12345/orders/98765",
+    "/api/v2/orders/3f2504e0-4f89-11d3-9a0c-0305e82c3301/items",
+    "/static/js/main.8c1f2a.chunk.js",
+    "/users/jane.doe@example.com/profile",
+    "/search?q=shoes&page=2",
+    "http://localhost:8080/api/v1/users/12345?expand=orders#top",
+    "https://shop.example.com/catalog/category/outdoor/products",
+    "https://shop.example.com:443/catalog/product/sku-00042/reviews?sort=recent"
+  };
+
   @State(Scope.Benchmark)
   public static class BenchmarkState {
-    private final AbstractDecorator base = new URLAsResourceName();
+    private final URLAsResourceName base = new URLAsResourceName();
 
     private final DDSpanContext ctx = SpanFactory.newSpanOf(0).context();
+
+    private final String[] rawPaths = new String[URLS.length];
+
+    {
+      for (int i = 0; i < URLS.length; i++) {
+        rawPaths[i] = base.rawPathFromUrlString(URLS[i]);
+      }
+    }
   }
 
   @Benchmark
@@ -31,4 +66,34 @@ public class URLAsResourceNameBenchmark {
     return state.base.shouldSetTag(
         state.ctx, null, "http://localhost:8080/somepath/123/?query=123#fragment");
   }
+
+  @Benchmark
+  public int regexCorpus(final BenchmarkState state) {
+    int length = 0;
+    for (final String path : state.rawPaths) {
+      final Matcher matcher = URLAsResourceName.PATH_MIXED_ALPHANUMERICS_AND_EMAILS.matcher(path);
+      length += matcher.replaceAll("?").length();
+    }
+    return length;
+  }
+
+  @Benchmark
+  public int normalizerCorpus(final BenchmarkState state) {
+    int length = 0;
+    for (final String path : state.rawPaths) {
+      length += state.base.normalizePath(path).length();
+    }
+    return length;
+  }
+
+  @Benchmark
+  public int decoratorCorpus(final BenchmarkState state) {
+    int count = 0;
+    for (final String url : URLS) {
+      if (state.base.shouldSetTag(state.ctx, null, url)) {
+        count++;
+      }
+    }
+    return count;
+  }
 }
@@ -0,0 +1,88 @@
+package datadog.trace.common.sampling;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Time per sampled root span spent in the rate limiter, for Guava's synchronized limiter the sampler
+ * used to have and for the lock-free token bucket, from 1 to 64 threads sharing one limiter. The
+ * limit is the default one, so once the first permits are gone nearly every request is refused, as
+ * under a burst of traffic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RateLimiterBenchmark {
+  private static final double RATE_LIMIT = 100;
+
+  @State(Scope.Benchmark)
+  public static class GuavaState {
+    public final RateLimiter rateLimiter = RateLimiter.create(RATE_LIMIT);
+  }
+
+  @State(Scope.Benchmark)
+  public static class TokenBucketState {
+    public final TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(RATE_LIMIT);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean guava01(final GuavaState state) {
+    return state.rateLimiter.tryAcquire();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public boolean guava04(final GuavaState state) {
+    return state.rateLimiter.tryAcquire();
+  }
+
+  @Benchmark
+  @Threads(16)
+  public boolean guava16(final GuavaState state) {
+    return state.rateLimiter.tryAcquire();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public boolean guava64(final GuavaState state) {
+    return state.rateLimiter.tryAcquire();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean tokenBucket01(final TokenBucketState state) {
+    return state.rateLimiter.tryAcquire();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public boolean tokenBucket04(final TokenBucketState state) {
+    return state.rateLimiter.tryAcquire();
+  }
+
+  @Benchmark
+  @Threads(16)
+  public boolean tokenBucket16(final TokenBucketState state) {
+    return state.rateLimiter.tryAcquire();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public boolean tokenBucket64(final TokenBucketState state) {
+    return state.rateLimiter.tryAcquire();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public double tokenBucketWithEffectiveRate64(final TokenBucketState state) {
+    state.rateLimiter.tryAcquire();
+    return state.rateLimiter.getEffectiveRate();
+  }
+}
@@ -0,0 +1,92 @@
+package datadog.trace.common.sampling;
+
+import datadog.opentracing.DDSpan;
+import datadog.opentracing.DDTracer;
+import datadog.trace.common.sampling.SamplingRule.OperationSamplingRule;
+import datadog.trace.common.sampling.SamplingRule.ServiceSamplingRule;
+import datadog.trace.common.writer.ListWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Time to find the sampling rule of a root span, scanning the rules in order as the sampler used to
+ * and with the index. Rules alternate between service names, dotted operation names and a few
+ * regular expressions; the span matches one of the last rules.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SamplingRuleIndexBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class RulesState {
+    @Param({"10", "100", "1000"})
+    public int ruleCount;
+
+    public List<SamplingRule> rules;
+    public SamplingRuleIndex index;
+    public DDTracer tracer;
+    public DDSpan span;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      final RateSampler sampler = new DeterministicSampler(0.5);
+      rules = new ArrayList<>(ruleCount);
+      for (int i = 0; i < ruleCount; i++) {
+        switch (i % 10) {
+          case 0:
+            rules.add(new ServiceSamplingRule("service-" + i + "-.*", sampler));
+            break;
+          case 1:
+          case 2:
+          case 3:
+          case 4:
+            rules.add(new ServiceSamplingRule("service-" + i, sampler));
+            break;
+          default:
+            rules.add(new OperationSamplingRule("operation." + i, sampler));
+            break;
+        }
+      }
+      index = new SamplingRuleIndex(rules);
+
+      tracer = DDTracer.builder().writer(new ListWriter()).build();
+      span =
+          (DDSpan)
+              tracer
+                  .buildSpan("operation." + (ruleCount - 1))
+                  .withServiceName("unmatched")
+                  .start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      tracer.close();
+    }
+  }
+
+  @Benchmark
+  public SamplingRule linearScan(final RulesState state) {
+    for (final SamplingRule rule : state.rules) {
+      if (rule.matches(state.span)) {
+        return rule;
+      }
+    }
+    return null;
+  }
+
+  @Benchmark
+  public SamplingRule index(final RulesState state) {
+    return state.index.firstMatch(state.span);
+  }
+}
@@ -0,0 +1,110 @@
+package datadog.trace.common.writer;
+
+import datadog.opentracing.DDSpan;
+import datadog.opentracing.DDTracer;
+import io.opentracing.Span;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Throughput of the DDAgentWriter serialization stage depending on the number of serialization
+ * threads. Each invocation writes a burst of traces and flushes, which returns once every trace has
+ * been serialized and handed to a sender that discards it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TraceSerializationBenchmark {
+  private static final int TRACES_PER_FLUSH = 1000;
+  private static final int SPANS_PER_TRACE = 10;
+
+  @State(Scope.Benchmark)
+  public static class WriterState {
+    @Param({"1", "2", "4", "8"})
+    public int serializationThreads;
+
+    public List<DDSpan> trace;
+    public DDAgentWriter writer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      final ListWriter traceCollector = new ListWriter();
+      final DDTracer tracer = DDTracer.builder().writer(traceCollector).build();
+      final Span root = tracer.buildSpan("root").withTag("http.url", "/some/path").start();
+      for (int i = 1; i < SPANS_PER_TRACE; i++) {
+        tracer
+            .buildSpan("child")
+            .asChildOf(root)
+            .withTag("db.statement", "SELECT * FROM table WHERE id = ?")
+            .start()
+            .finish();
+      }
+      root.finish();
+      trace = traceCollector.firstTrace();
+
+      writer =
+          DDAgentWriter.builder()
+              .agentApi(new DiscardingApi(new ZipkinV2Api("localhost", 9080, "/v1/trace", false)))
+              .traceBufferSize(TRACES_PER_FLUSH * 2)
+              .flushFrequencySeconds(-1)
+              .serializationThreads(serializationThreads)
+              .build();
+      writer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      writer.close();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TRACES_PER_FLUSH)
+  public boolean serializeTraces(final WriterState state) {
+    for (int i = 0; i < TRACES_PER_FLUSH; i++) {
+      state.writer.write(state.trace);
+    }
+    return state.writer.flush();
+  }
+
+  /** Serializes with a real api but never touches the network. */
+  private static class DiscardingApi implements Api {
+    private final Api delegate;
+
+    private DiscardingApi(final Api delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void addResponseListener(final ResponseListener listener) {}
+
+    @Override
+    public Response sendTraces(final List<List<DDSpan>> traces) {
+      return Response.success(200);
+    }
+
+    @Override
+    public SerializedBuffer serializeTrace(final List<DDSpan> trace) throws IOException {
+      return delegate.serializeTrace(trace);
+    }
+
+    @Override
+    public Response sendSerializedTraces(
+        final int representativeCount,
+        final Integer sizeInBytes,
+        final List<SerializedBuffer> traces) {
+      return Response.success(200);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package datadog.trace.common.writer;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import datadog.opentracing.DDSpan;
+import datadog.opentracing.DDTracer;
+import io.opentracing.Span;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Flushes per second sent by ZipkinV2Api to a local collector that reads each request and answers
+ * 202 without a body. Traces are serialized once up front, so this measures the HTTP path only:
+ * connection reuse, the request body and, when enabled, gzip. Each operation is one request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ZipkinFlushBenchmark {
+  private static final int SPANS_PER_TRACE = 10;
+
+  @State(Scope.Benchmark)
+  public static class CollectorState {
+    @Param({"1", "100"})
+    public int tracesPerFlush;
+
+    public HttpServer collector;
+    public ExecutorService collectorThreads;
+    public ZipkinV2Api api;
+    public List<Api.SerializedBuffer> traces;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      collectorThreads = Executors.newFixedThreadPool(4);
+      collector = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+      collector.createContext("/api/v2/spans", new DiscardingHandler());
+      collector.setExecutor(collectorThreads);
+      collector.start();
+
+      api = new ZipkinV2Api("localhost", collector.getAddress().getPort(), "/api/v2/spans", false);
+
+      final ListWriter traceCollector = new ListWriter();
+      final DDTracer tracer = DDTracer.builder().writer(traceCollector).build();
+      final Span root = tracer.buildSpan("root").withTag("http.url", "/some/path").start();
+      for (int i = 1; i < SPANS_PER_TRACE; i++) {
+        tracer
+            .buildSpan("child")
+            .asChildOf(root)
+            .withTag("db.statement", "SELECT * FROM table WHERE id = ?")
+            .start()
+            .finish();
+      }
+      root.finish();
+      final List<DDSpan> trace = traceCollector.firstTrace();
+
+      // Buffers are not released by sends, so the same ones are replayed on every flush.
+      traces = new ArrayList<>(tracesPerFlush);
+      for (int i = 0; i < tracesPerFlush; i++) {
+        traces.add(api.serializeTrace(trace));
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      for (final Api.SerializedBuffer trace : traces) {
+        trace.release();
+      }
+      collector.stop(0);
+      collectorThreads.shutdown();
+    }
+  }
+
+  @Benchmark
+  public boolean flush(final CollectorState state) {
+    final Api.Response response =
+        state.api.sendSerializedTraces(state.tracesPerFlush, null, state.traces);
+    if (!response.success()) {
+      throw new IllegalStateException("Flush failed with status " + response.status());
+    }
+    return true;
+  }
+
+  private static class DiscardingHandler implements HttpHandler {
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+      final byte[] buffer = new byte[8192];
+      try (final InputStream body = exchange.getRequestBody()) {
+        while (body.read(buffer) >= 0) {}
+      }
+      exchange.sendResponseHeaders(202, -1);
+      exchange.close();
+    }
+  }
+}
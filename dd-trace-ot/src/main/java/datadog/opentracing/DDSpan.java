@@ -56,6 +56,9 @@ public class DDSpan implements Span, MutableSpan {
   /** Implementation detail. Stores the weak reference to this span. Used by TraceCollection. */
   volatile WeakReference<DDSpan> ref;
 
+  /** Implementation detail. Registration state of this span. Used by LockFreePendingTrace. */
+  volatile int trackingState;
+
   /**
    * Spans should be constructed using the builder, not by calling the constructor directly.
    *
@@ -133,7 +136,7 @@ public class DDSpan implements Span, MutableSpan {
    * @return true if root, false otherwise
    */
   public final boolean isRootSpan() {
-    return BigInteger.ZERO.equals(context.getParentId());
+    return context.isRootContext();
   }
 
   @Override
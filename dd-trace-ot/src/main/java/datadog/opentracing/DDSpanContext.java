@@ -3,15 +3,16 @@ package datadog.opentracing;
 
 import datadog.opentracing.decorators.AbstractDecorator;
 import datadog.trace.api.DDTags;
+import datadog.trace.api.Ids;
 import datadog.trace.api.sampling.PrioritySampling;
 import java.math.BigInteger;
 import java.util.AbstractMap;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
 
@@ -42,15 +43,34 @@ public class DDSpanContext implements io.opentracing.SpanContext {
   private final Map<String, String> baggageItems;
 
   // Not Shared with other span contexts
-  private final BigInteger traceId;
-  private final BigInteger spanId;
-  private final BigInteger parentId;
+  /**
+   * Ids are kept as unsigned 64 bit halves to avoid allocating per span. The high halves are only
+   * non-zero for 128 bit ids propagated by B3.
+   */
+  private final long traceIdHigh;
+  private final long traceIdLow;
+  private final long spanIdHigh;
+  private final long spanIdLow;
+  private final long parentIdHigh;
+  private final long parentIdLow;
+
+  /**
+   * Hex encodings of the ids, computed on first use and shared by Zipkin serialization and B3
+   * injection. Strings are immutable so the benign race on these fields is safe.
+   */
+  private String traceIdHex;
+  private String spanIdHex;
+  private String parentIdHex;
 
   /** Tags are associated to the current span, they will not propagate to the children span */
-  private final Map<String, Object> tags = new ConcurrentHashMap<>();
+  private final TagMap tags = new TagMap();
 
-  /** Logs are associated to the current span, they will not propagate to the children span */
-  private final List<AbstractMap.SimpleEntry<Long, Map<String, ?>>> logs = new ArrayList<>();
+  /**
+   * Logs are associated to the current span, they will not propagate to the children span. Created
+   * on the first log as most spans have none.
+   */
+  private final AtomicReference<List<AbstractMap.SimpleEntry<Long, Map<String, ?>>>> logs =
+      new AtomicReference<>();
 
   /** The service name is required, otherwise the span are dropped by the agent */
   private volatile String serviceName;
@@ -96,18 +116,58 @@ public class DDSpanContext implements io.opentracing.SpanContext {
       final PendingTrace trace,
       final DDTracer tracer,
       final Map<String, String> serviceNameMappings) {
+    this(
+        Ids.idHigh(traceId),
+        Ids.idLow(traceId),
+        Ids.idHigh(spanId),
+        Ids.idLow(spanId),
+        Ids.idHigh(parentId),
+        Ids.idLow(parentId),
+        serviceName,
+        operationName,
+        resourceName,
+        samplingPriority,
+        origin,
+        baggageItems,
+        errorFlag,
+        spanType,
+        tags,
+        trace,
+        tracer,
+        serviceNameMappings);
+  }
+
+  public DDSpanContext(
+      final long traceIdHigh,
+      final long traceIdLow,
+      final long spanIdHigh,
+      final long spanIdLow,
+      final long parentIdHigh,
+      final long parentIdLow,
+      final String serviceName,
+      final String operationName,
+      final String resourceName,
+      final int samplingPriority,
+      final String origin,
+      final Map<String, String> baggageItems,
+      final boolean errorFlag,
+      final String spanType,
+      final Map<String, Object> tags,
+      final PendingTrace trace,
+      final DDTracer tracer,
+      final Map<String, String> serviceNameMappings) {
 
     assert tracer != null;
     assert trace != null;
     this.tracer = tracer;
     this.trace = trace;
 
-    assert traceId != null;
-    assert spanId != null;
-    assert parentId != null;
-    this.traceId = traceId;
-    this.spanId = spanId;
-    this.parentId = parentId;
+    this.traceIdHigh = traceIdHigh;
+    this.traceIdLow = traceIdLow;
+    this.spanIdHigh = spanIdHigh;
+    this.spanIdLow = spanIdLow;
+    this.parentIdHigh = parentIdHigh;
+    this.parentIdLow = parentIdLow;
 
     if (baggageItems == null) {
       this.baggageItems = new ConcurrentHashMap<>(0);
@@ -116,7 +176,7 @@ public class DDSpanContext implements io.opentracing.SpanContext {
     }
 
     if (tags != null) {
-      this.tags.putAll(tags);
+      this.tags.setAll(tags);
     }
 
     this.serviceNameMappings = serviceNameMappings;
@@ -132,32 +192,94 @@ public class DDSpanContext implements io.opentracing.SpanContext {
     }
 
     if (origin != null) {
-      this.tags.put(ORIGIN_KEY, origin);
+      this.tags.set(ORIGIN_KEY, origin);
     }
-    this.tags.put(DDTags.THREAD_NAME, threadName);
-    this.tags.put(DDTags.THREAD_ID, threadId);
+    this.tags.set(DDTags.THREAD_NAME, threadName);
+    this.tags.set(DDTags.THREAD_ID, threadId);
   }
 
+  /** Materializes the trace id on each call, prefer the primitive accessors. */
   public BigInteger getTraceId() {
-    return traceId;
+    return Ids.toUnsignedBigInteger(traceIdHigh, traceIdLow);
+  }
+
+  public long getTraceIdHigh() {
+    return traceIdHigh;
+  }
+
+  public long getTraceIdLow() {
+    return traceIdLow;
+  }
+
+  /** @return the 16 (or 32 for 128 bit ids) character lower case hex form of the trace id */
+  public String getTraceIdHex() {
+    String hex = traceIdHex;
+    if (hex == null) {
+      hex = Ids.idToHex(traceIdHigh, traceIdLow);
+      traceIdHex = hex;
+    }
+    return hex;
   }
 
   @Override
   public String toTraceId() {
-    return traceId.toString();
+    return Ids.toDecimalString(traceIdHigh, traceIdLow);
   }
 
+  /** Materializes the parent id on each call, prefer the primitive accessors. */
   public BigInteger getParentId() {
-    return parentId;
+    return Ids.toUnsignedBigInteger(parentIdHigh, parentIdLow);
   }
 
+  public long getParentIdHigh() {
+    return parentIdHigh;
+  }
+
+  public long getParentIdLow() {
+    return parentIdLow;
+  }
+
+  /** @return the 16 (or 32 for 128 bit ids) character lower case hex form of the parent id */
+  public String getParentIdHex() {
+    String hex = parentIdHex;
+    if (hex == null) {
+      hex = Ids.idToHex(parentIdHigh, parentIdLow);
+      parentIdHex = hex;
+    }
+    return hex;
+  }
+
+  /** @return true if this context has no parent, i.e. its parent id is zero */
+  public boolean isRootContext() {
+    return parentIdHigh == 0 && parentIdLow == 0;
+  }
+
+  /** Materializes the span id on each call, prefer the primitive accessors. */
   public BigInteger getSpanId() {
-    return spanId;
+    return Ids.toUnsignedBigInteger(spanIdHigh, spanIdLow);
+  }
+
+  public long getSpanIdHigh() {
+    return spanIdHigh;
+  }
+
+  public long getSpanIdLow() {
+    return spanIdLow;
+  }
+
+  /** @return the 16 (or 32 for 128 bit ids) character lower case hex form of the span id */
+  public String getSpanIdHex() {
+    String hex = spanIdHex;
+    if (hex == null) {
+      hex = Ids.idToHex(spanIdHigh, spanIdLow);
+      spanIdHex = hex;
+    }
+    return hex;
   }
 
   @Override
   public String toSpanId() {
-    return spanId.toString();
+    return Ids.toDecimalString(spanIdHigh, spanIdLow);
   }
 
   public String getServiceName() {
@@ -332,36 +454,50 @@ public class DDSpanContext implements io.opentracing.SpanContext {
    * @param tag the tag-name
    * @param value the value of the tag. tags with null values are ignored.
    */
-  public synchronized void setTag(final String tag, final Object value) {
+  public void setTag(final String tag, final Object value) {
     if (value == null || (value instanceof String && ((String) value).isEmpty())) {
-      tags.remove(tag);
+      tags.set(tag, null);
       return;
     }
 
-    boolean addTag = true;
+    if (decorate(tag, value)) {
+      tags.set(tag, value);
+    }
+  }
 
-    // Call decorators
-    final List<AbstractDecorator> decorators = tracer.getSpanContextDecorators(tag);
-    if (decorators != null) {
-      for (final AbstractDecorator decorator : decorators) {
-        try {
-          addTag &= decorator.shouldSetTag(this, tag, value);
-        } catch (final Throwable ex) {
-          log.debug(
-              "Could not decorate the span decorator={}: {}",
-              decorator.getClass().getSimpleName(),
-              ex.getMessage());
-        }
-      }
+  /**
+   * Calls the decorators matching a tag.
+   *
+   * @return whether the tag should still be set
+   */
+  boolean decorate(final String tag, final Object value) {
+    final AbstractDecorator[] decorators = tracer.decoratorsFor(tag);
+    if (decorators == null) {
+      return true;
     }
 
-    if (addTag) {
-      tags.put(tag, value);
+    boolean addTag = true;
+    for (final AbstractDecorator decorator : decorators) {
+      try {
+        addTag &= decorator.shouldSetTag(this, tag, value);
+      } catch (final Throwable ex) {
+        log.debug(
+            "Could not decorate the span decorator={}: {}",
+            decorator.getClass().getSimpleName(),
+            ex.getMessage());
+      }
     }
+    return addTag;
   }
 
-  public synchronized Map<String, Object> getTags() {
-    return Collections.unmodifiableMap(tags);
+  /** @return the value of a single tag, or null if it isn't set */
+  public Object getTag(final String tag) {
+    return tags.get(tag);
+  }
+
+  /** @return a live, read-only view of the tags */
+  public Map<String, Object> getTags() {
+    return tags;
   }
 
   /**
@@ -370,14 +506,22 @@ public class DDSpanContext implements io.opentracing.SpanContext {
    * @param timestamp the timestamp of the event.
    * @param map the event map for the tag.
    */
-  public synchronized void log(final long timestamp, final Map<String, ?> map) {
+  public void log(final long timestamp, final Map<String, ?> map) {
     // explicit generic type seems to be required
     AbstractMap.SimpleEntry<Long, Map<String, ?>> logged =
         new AbstractMap.SimpleEntry<Long, Map<String, ?>>(timestamp, map);
-    logs.add(logged);
+    if (logs.get() == null) {
+      logs.compareAndSet(
+          null, new CopyOnWriteArrayList<AbstractMap.SimpleEntry<Long, Map<String, ?>>>());
+    }
+    logs.get().add(logged);
   }
 
-  public synchronized List<AbstractMap.SimpleEntry<Long, Map<String, ?>>> getLogs() {
+  public List<AbstractMap.SimpleEntry<Long, Map<String, ?>>> getLogs() {
+    final List<AbstractMap.SimpleEntry<Long, Map<String, ?>>> logs = this.logs.get();
+    if (logs == null) {
+      return Collections.emptyList();
+    }
     return Collections.unmodifiableList(logs);
   }
 
@@ -386,11 +530,11 @@ public class DDSpanContext implements io.opentracing.SpanContext {
     final StringBuilder s =
         new StringBuilder()
             .append("DDSpan [ t_id=")
-            .append(traceId)
+            .append(toTraceId())
             .append(", s_id=")
-            .append(spanId)
+            .append(toSpanId())
             .append(", p_id=")
-            .append(parentId)
+            .append(Ids.toDecimalString(parentIdHigh, parentIdLow))
             .append("] trace=")
             .append(getServiceName())
             .append("/")
@@ -404,7 +548,7 @@ public class DDSpanContext implements io.opentracing.SpanContext {
     }
 
     s.append(" tags=").append(new TreeMap<>(tags));
-    s.append(" logs=").append(new ArrayList<>(logs));
+    s.append(" logs=").append(getLogs());
     return s.toString();
   }
 }
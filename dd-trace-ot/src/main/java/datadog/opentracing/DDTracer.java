@@ -17,6 +17,7 @@ import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.common.sampling.AllSampler;
 import datadog.trace.common.sampling.PrioritySampler;
 import datadog.trace.common.sampling.Sampler;
+import datadog.trace.common.sampling.TailSampler;
 import datadog.trace.common.writer.Api;
 import datadog.trace.common.writer.DDAgentWriter;
 import datadog.trace.common.writer.Writer;
@@ -35,6 +36,7 @@ import java.io.Closeable;
 import java.lang.ref.WeakReference;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -46,9 +48,9 @@ import java.util.Properties;
 import java.util.ServiceConfigurationError;
 import java.util.ServiceLoader;
 import java.util.SortedSet;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -69,6 +71,10 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
   final Writer writer;
   /** Sampler defines the sampling policy in order to reduce the number of traces for instance */
   final Sampler sampler;
+  /** Decides on complete traces kept by the sampler, null unless tail sampling is enabled */
+  private final TailSampler tailSampler;
+  /** Don't write traces with a drop sampling priority, they are only counted */
+  private final boolean dropUnsampledTraces;
   /** Scope manager is in charge of managing the scopes from which spans are created */
   final ScopeManager scopeManager;
 
@@ -88,9 +94,11 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
    */
   private final Thread shutdownCallback;
 
-  /** Span context decorators */
-  private final Map<String, List<AbstractDecorator>> spanContextDecorators =
-      new ConcurrentHashMap<>();
+  /**
+   * Span context decorators indexed by the tag they match, in the order they were added. The index
+   * is rebuilt on each addition so that dispatching a tag is a single lookup without locking.
+   */
+  private volatile Map<String, AbstractDecorator[]> spanContextDecorators = Collections.emptyMap();
 
   private final SortedSet<TraceInterceptor> interceptors =
       new ConcurrentSkipListSet<>(
@@ -106,6 +114,12 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
 
   @Getter private final int maxSpansPerTrace;
 
+  /** Track pending spans with counters instead of weak references, see LockFreePendingTrace */
+  @Getter private final boolean lockFreeSpanTracking;
+
+  /** Time without a finished span after which LockFreePendingTrace drops a trace, 0 for never */
+  @Getter private final long lockFreeStaleTraceNanos;
+
   public static class DDTracerBuilder {
 
     public DDTracerBuilder() {
@@ -322,6 +336,17 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
     this.serviceNameMappings = serviceNameMappings;
     this.partialFlushMinSpans = partialFlushMinSpans;
     this.maxSpansPerTrace = maxSpansPerTrace;
+    lockFreeSpanTracking = config.isLockFreeSpanTracking();
+    lockFreeStaleTraceNanos =
+        TimeUnit.SECONDS.toNanos(Math.max(0, config.getLockFreeStaleTraceTimeout()));
+    if (config.isTraceTailSamplingEnabled()) {
+      tailSampler =
+          new TailSampler(
+              config.getTraceTailSamplingRate(), config.getTraceTailSamplingLatencyPercentile());
+    } else {
+      tailSampler = null;
+    }
+    dropUnsampledTraces = config.isDropUnsampledTraces();
 
     this.writer.start();
 
@@ -370,6 +395,12 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
    * @return the list of span context decorators
    */
   public List<AbstractDecorator> getSpanContextDecorators(final String tag) {
+    final AbstractDecorator[] decorators = spanContextDecorators.get(tag);
+    return decorators == null ? null : Collections.unmodifiableList(Arrays.asList(decorators));
+  }
+
+  /** @return the decorators matching a tag, or null if there are none */
+  AbstractDecorator[] decoratorsFor(final String tag) {
     return spanContextDecorators.get(tag);
   }
 
@@ -378,15 +409,19 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
    *
    * @param decorator The decorator in the list
    */
-  public void addDecorator(final AbstractDecorator decorator) {
-
-    List<AbstractDecorator> list = spanContextDecorators.get(decorator.getMatchingTag());
-    if (list == null) {
-      list = new ArrayList<>();
+  public synchronized void addDecorator(final AbstractDecorator decorator) {
+    final Map<String, AbstractDecorator[]> index = new HashMap<>(spanContextDecorators);
+    final AbstractDecorator[] existing = index.get(decorator.getMatchingTag());
+    final AbstractDecorator[] decorators;
+    if (existing == null) {
+      decorators = new AbstractDecorator[1];
+    } else {
+      decorators = Arrays.copyOf(existing, existing.length + 1);
     }
-    list.add(decorator);
+    decorators[decorators.length - 1] = decorator;
+    index.put(decorator.getMatchingTag(), decorators);
 
-    spanContextDecorators.put(decorator.getMatchingTag(), list);
+    spanContextDecorators = index;
     log.debug(
         "Decorator added: '{}' -> {}", decorator.getMatchingTag(), decorator.getClass().getName());
   }
@@ -462,6 +497,7 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
   /**
    * We use the sampler to know if the trace has to be reported/written. The sampler is called on
    * the first span (root span) of the trace. If the trace is marked as a sample, we report it.
+   * With tail sampling enabled, the tail sampler then decides on the complete trace.
    *
    * @param trace a list of the spans related to the same trace
    */
@@ -489,9 +525,14 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
     if (!writtenTrace.isEmpty()) {
       final DDSpan rootSpan = (DDSpan) writtenTrace.get(0).getLocalRootSpan();
       setSamplingPriorityIfNecessary(rootSpan);
+      if (dropUnsampledTraces && isDropped(rootSpan)) {
+        // Counted above, so that sampled traces can still be weighted back.
+        return;
+      }
 
       final DDSpan spanToSample = rootSpan == null ? writtenTrace.get(0) : rootSpan;
-      if (sampler.sample(spanToSample)) {
+      if (sampler.sample(spanToSample)
+          && (tailSampler == null || tailSampler.keep(writtenTrace, spanToSample))) {
         writer.write(writtenTrace);
       }
     }
@@ -516,11 +557,21 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
     writer.incrementTraceCount();
   }
 
+  /** @return whether the sampling priority of the root span drops the trace */
+  private static boolean isDropped(final DDSpan rootSpan) {
+    if (rootSpan == null) {
+      return false;
+    }
+    final int samplingPriority = rootSpan.context().getSamplingPriority();
+    return samplingPriority == PrioritySampling.SAMPLER_DROP
+        || samplingPriority == PrioritySampling.USER_DROP;
+  }
+
   @Override
   public String getTraceId() {
     final Span activeSpan = activeSpan();
     if (activeSpan instanceof DDSpan) {
-      return ((DDSpan) activeSpan).getTraceId().toString();
+      return ((DDSpan) activeSpan).context().toTraceId();
     }
     return "0";
   }
@@ -529,7 +580,7 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
   public String getSpanId() {
     final Span activeSpan = activeSpan();
     if (activeSpan instanceof DDSpan) {
-      return ((DDSpan) activeSpan).getSpanId().toString();
+      return ((DDSpan) activeSpan).context().toSpanId();
     }
     return "0";
   }
@@ -750,13 +801,14 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
       return this;
     }
 
-    private BigInteger generateNewId() {
+    private long generateNewId() {
       // It is **extremely** unlikely to generate the value "0" but we still need to handle that
       // case
-      BigInteger value;
+      long value;
       do {
-        value = new StringCachingBigInteger(63, ThreadLocalRandom.current());
-      } while (value.signum() == 0);
+        // Keep ids within 63 bits, as they were when generated as BigIntegers
+        value = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+      } while (value == 0);
 
       return value;
     }
@@ -768,9 +820,11 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
      * @return the context
      */
     private DDSpanContext buildSpanContext() {
-      final BigInteger traceId;
-      final BigInteger spanId = generateNewId();
-      final BigInteger parentSpanId;
+      final long traceIdHigh;
+      final long traceIdLow;
+      final long spanId = generateNewId();
+      final long parentSpanIdHigh;
+      final long parentSpanIdLow;
       final Map<String, String> baggage;
       final PendingTrace parentTrace;
       final int samplingPriority;
@@ -791,8 +845,10 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
       // root span, parentContext will be null at this point.
       if (parentContext instanceof DDSpanContext) {
         final DDSpanContext ddsc = (DDSpanContext) parentContext;
-        traceId = ddsc.getTraceId();
-        parentSpanId = ddsc.getSpanId();
+        traceIdHigh = ddsc.getTraceIdHigh();
+        traceIdLow = ddsc.getTraceIdLow();
+        parentSpanIdHigh = ddsc.getSpanIdHigh();
+        parentSpanIdLow = ddsc.getSpanIdLow();
         baggage = ddsc.getBaggageItems();
         parentTrace = ddsc.getTrace();
         samplingPriority = PrioritySampling.UNSET;
@@ -805,14 +861,18 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
         if (parentContext instanceof ExtractedContext) {
           // Propagate external trace
           final ExtractedContext extractedContext = (ExtractedContext) parentContext;
-          traceId = extractedContext.getTraceId();
-          parentSpanId = extractedContext.getSpanId();
+          traceIdHigh = extractedContext.getTraceIdHigh();
+          traceIdLow = extractedContext.getTraceIdLow();
+          parentSpanIdHigh = extractedContext.getSpanIdHigh();
+          parentSpanIdLow = extractedContext.getSpanIdLow();
           samplingPriority = extractedContext.getSamplingPriority();
           baggage = extractedContext.getBaggage();
         } else {
           // Start a new trace
-          traceId = generateNewId();
-          parentSpanId = BigInteger.ZERO;
+          traceIdHigh = 0;
+          traceIdLow = generateNewId();
+          parentSpanIdHigh = 0;
+          parentSpanIdLow = 0;
           samplingPriority = PrioritySampling.UNSET;
           baggage = null;
         }
@@ -827,7 +887,7 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
 
         tags.putAll(localRootSpanTags);
 
-        parentTrace = new PendingTrace(DDTracer.this, traceId);
+        parentTrace = PendingTrace.create(DDTracer.this, traceIdHigh, traceIdLow);
       }
 
       if (serviceName == null) {
@@ -839,9 +899,12 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
       // some attributes are inherited from the parent
       context =
           new DDSpanContext(
-              traceId,
+              traceIdHigh,
+              traceIdLow,
+              0,
               spanId,
-              parentSpanId,
+              parentSpanIdHigh,
+              parentSpanIdLow,
               serviceName,
               operationName,
               resourceName,
@@ -862,24 +925,7 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
           continue;
         }
 
-        boolean addTag = true;
-
-        // Call decorators
-        final List<AbstractDecorator> decorators = getSpanContextDecorators(tag.getKey());
-        if (decorators != null) {
-          for (final AbstractDecorator decorator : decorators) {
-            try {
-              addTag &= decorator.shouldSetTag(context, tag.getKey(), tag.getValue());
-            } catch (final Throwable ex) {
-              log.debug(
-                  "Could not decorate the span decorator={}: {}",
-                  decorator.getClass().getSimpleName(),
-                  ex.getMessage());
-            }
-          }
-        }
-
-        if (!addTag) {
+        if (!context.decorate(tag.getKey(), tag.getValue())) {
           context.setTag(tag.getKey(), null);
         }
       }
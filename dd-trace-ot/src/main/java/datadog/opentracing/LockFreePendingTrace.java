@@ -0,0 +1,225 @@
+package datadog.opentracing;
+
+import datadog.trace.common.util.Clock;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link PendingTrace} that tracks its spans without allocating or locking per span.
+ *
+ * <p>Registration is a CAS on {@link DDSpan#trackingState} plus the shared reference counter, and
+ * finished spans are appended to a chain of lock-free arrays instead of the deque. Continuations
+ * are still tracked with weak references.
+ *
+ * <p>Without a weak reference per span, leaks are detected per trace by the span cleaner: a trace
+ * is dropped once its root span has been garbage collected without finishing. A child that is
+ * garbage collected without finishing can't be seen, so a trace is also dropped once no span has
+ * finished in it for {@link DDTracer#getLockFreeStaleTraceNanos()}. Otherwise a trace whose root
+ * span finished but some child never does would stay pending forever.
+ *
+ * <p>Finished spans are not kept in the inherited deque, so the collection views are overridden to
+ * read them from the chunks. They are read-only snapshots.
+ */
+@Slf4j
+class LockFreePendingTrace extends PendingTrace {
+  private static final int INITIAL_CHUNK_SIZE = 8;
+  private static final int MAX_CHUNK_SIZE = 1024;
+
+  private static final int UNREGISTERED = 0;
+  private static final int REGISTERED = 1;
+  private static final int EXPIRED = 2;
+
+  private static final AtomicIntegerFieldUpdater<DDSpan> TRACKING_STATE =
+      AtomicIntegerFieldUpdater.newUpdater(DDSpan.class, "trackingState");
+  private static final AtomicReferenceFieldUpdater<LockFreePendingTrace, SpanChunk> HEAD =
+      AtomicReferenceFieldUpdater.newUpdater(LockFreePendingTrace.class, SpanChunk.class, "head");
+
+  /** Most recent chunk of finished spans, linking to the older (full) ones. */
+  private volatile SpanChunk head = new SpanChunk(INITIAL_CHUNK_SIZE, null);
+
+  // Only accessed by clean(), which is synchronized.
+  private int lastFinishedCount = 0;
+  private long lastActivityNanoTicks;
+
+  LockFreePendingTrace(final DDTracer tracer, final long traceIdHigh, final long traceIdLow) {
+    super(tracer, traceIdHigh, traceIdLow);
+    lastActivityNanoTicks = startNanoTicks;
+  }
+
+  @Override
+  public void registerSpan(final DDSpan span) {
+    if (span.context() == null) {
+      log.error("Failed to register span ({}) due to null span context", span);
+      return;
+    }
+    if (!isSameTrace(span.context())) {
+      log.debug("{} - span registered for wrong trace ({})", span, traceId());
+      return;
+    }
+    rootSpan.compareAndSet(null, new WeakReference<>(span));
+    if (TRACKING_STATE.compareAndSet(span, UNREGISTERED, REGISTERED)) {
+      final int count = pendingReferenceCount.incrementAndGet();
+      if (log.isDebugEnabled()) {
+        log.debug("traceId: {} -- registered span {}. count = {}", traceId(), span, count);
+      }
+    } else {
+      log.debug("span {} already registered in trace {}", span, traceId());
+    }
+  }
+
+  @Override
+  void expireSpan(final DDSpan span) {
+    if (span.context() == null) {
+      log.error("Failed to expire span ({}) due to null span context", span);
+      return;
+    }
+    if (!isSameTrace(span.context())) {
+      log.debug("{} - span expired for wrong trace ({})", span, traceId());
+      return;
+    }
+    if (TRACKING_STATE.compareAndSet(span, REGISTERED, EXPIRED)) {
+      expireReference();
+    } else {
+      log.debug("span {} not registered in trace {}", span, traceId());
+    }
+  }
+
+  @Override
+  void appendSpan(final DDSpan span) {
+    while (true) {
+      final SpanChunk chunk = head;
+      final int index = chunk.reserved.getAndIncrement();
+      if (index < chunk.spans.length()) {
+        chunk.spans.set(index, span);
+        completedSpanCount.incrementAndGet();
+        return;
+      }
+      // Full, or detached by a partial flush: retry on a new head.
+      final int capacity = Math.min(MAX_CHUNK_SIZE, chunk.spans.length() * 2);
+      HEAD.compareAndSet(this, chunk, new SpanChunk(capacity, chunk));
+    }
+  }
+
+  @Override
+  List<DDSpan> finishedSpans() {
+    final List<DDSpan> spans = new ArrayList<>(size());
+    collect(head, spans, false);
+    return spans;
+  }
+
+  @Override
+  List<DDSpan> removeFinishedChildren(final DDSpan rootSpan) {
+    final SpanChunk detached = HEAD.getAndSet(this, new SpanChunk(INITIAL_CHUNK_SIZE, null));
+    final List<DDSpan> partialTrace = new ArrayList<>(size());
+    collect(detached, partialTrace, true);
+    completedSpanCount.addAndGet(-partialTrace.size());
+
+    if (partialTrace.remove(rootSpan)) {
+      appendSpan(rootSpan);
+    }
+    return partialTrace;
+  }
+
+  /**
+   * Adds the spans of the chain starting at {@code chunk}, most recently finished first.
+   *
+   * @param detach whether the chunk was detached from the trace, and must be closed to new appends
+   */
+  private static void collect(
+      final SpanChunk chunk, final List<DDSpan> spans, final boolean detach) {
+    final int capacity = chunk.spans.length();
+    // Reserving every remaining slot sends concurrent appends to the new head.
+    final int reserved = detach ? chunk.reserved.getAndSet(capacity) : chunk.reserved.get();
+    int count = Math.min(reserved, capacity);
+    for (SpanChunk current = chunk; current != null; current = current.previous) {
+      for (int i = count - 1; i >= 0; i--) {
+        DDSpan span;
+        // A slot stays null only while a concurrent append is between reserving and setting it.
+        while ((span = current.spans.get(i)) == null) {
+          Thread.yield();
+        }
+        spans.add(span);
+      }
+      if (current.previous != null) {
+        count = current.previous.spans.length();
+      }
+    }
+  }
+
+  @Override
+  public synchronized boolean clean() {
+    final boolean collected = super.clean();
+    if (isWritten.get()) {
+      return collected;
+    }
+
+    final long now = Clock.currentNanoTicks();
+    final int finishedCount = completedSpanCount.get() + partiallyWrittenSpanCount.get();
+    if (finishedCount != lastFinishedCount) {
+      lastFinishedCount = finishedCount;
+      lastActivityNanoTicks = now;
+    }
+
+    final boolean rootCollected = rootSpan.get() != null && getRootSpan() == null;
+    final long staleTraceNanos = tracer.getLockFreeStaleTraceNanos();
+    final boolean stale = staleTraceNanos > 0 && now - lastActivityNanoTicks > staleTraceNanos;
+    if ((rootCollected || stale) && isWritten.compareAndSet(false, true)) {
+      removePendingTrace();
+      // preserve throughput count.
+      // Don't report the trace because the data comes from buggy uses of the api and is suspect.
+      tracer.incrementTraceCount();
+      log.debug(
+          "trace {} : {}. Trace will not report.",
+          traceId(),
+          rootCollected ? "unfinished root span garbage collected" : "no span finished recently");
+      return true;
+    }
+    return collected;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public Iterator<DDSpan> iterator() {
+    return Collections.unmodifiableList(finishedSpans()).iterator();
+  }
+
+  @Override
+  public boolean contains(final Object o) {
+    return finishedSpans().contains(o);
+  }
+
+  @Override
+  public Object[] toArray() {
+    return finishedSpans().toArray();
+  }
+
+  @Override
+  public <T> T[] toArray(final T[] a) {
+    return finishedSpans().toArray(a);
+  }
+
+  private static class SpanChunk {
+    private final AtomicReferenceArray<DDSpan> spans;
+    /** Number of slots handed out, may exceed the capacity once the chunk is full. */
+    private final AtomicInteger reserved = new AtomicInteger(0);
+
+    private final SpanChunk previous;
+
+    private SpanChunk(final int capacity, final SpanChunk previous) {
+      spans = new AtomicReferenceArray<>(capacity);
+      this.previous = previous;
+    }
+  }
+}
@@ -2,6 +2,7 @@ package datadog.opentracing;
 
 import datadog.common.exec.CommonTaskExecutor;
 import datadog.opentracing.scopemanager.ContinuableScope;
+import datadog.trace.api.Ids;
 import datadog.trace.common.util.Clock;
 import java.io.Closeable;
 import java.lang.ref.Reference;
@@ -9,6 +10,7 @@ import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -25,24 +27,25 @@ import lombok.extern.slf4j.Slf4j;
 public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
   private static final AtomicReference<SpanCleaner> SPAN_CLEANER = new AtomicReference<>();
 
-  private final DDTracer tracer;
-  private final BigInteger traceId;
+  final DDTracer tracer;
+  private final long traceIdHigh;
+  private final long traceIdLow;
 
   // TODO: consider moving these time fields into DDTracer to ensure that traces have precise
   // relative time
   /** Trace start time in nano seconds measured up to a millisecond accuracy */
   private final long startTimeNano;
   /** Nano second ticks value at trace start */
-  private final long startNanoTicks;
+  final long startNanoTicks;
 
   private final ReferenceQueue referenceQueue = new ReferenceQueue();
   private final Set<WeakReference<?>> weakReferences =
       Collections.newSetFromMap(new ConcurrentHashMap<WeakReference<?>, Boolean>());
 
-  private final AtomicInteger pendingReferenceCount = new AtomicInteger(0);
+  final AtomicInteger pendingReferenceCount = new AtomicInteger(0);
 
   // We must maintain a separate count because ConcurrentLinkedDeque.size() is a linear operation.
-  private final AtomicInteger completedSpanCount = new AtomicInteger(0);
+  final AtomicInteger completedSpanCount = new AtomicInteger(0);
   /**
    * During a trace there are cases where the root span must be accessed (e.g. priority sampling and
    * trace-search tags).
@@ -53,16 +56,27 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
    * <p>The root span will be available in non-buggy cases because it has either finished and
    * strongly ref'd in this queue or is unfinished and ref'd in a ContinuableScope.
    */
-  private final AtomicReference<WeakReference<DDSpan>> rootSpan = new AtomicReference<>();
+  final AtomicReference<WeakReference<DDSpan>> rootSpan = new AtomicReference<>();
 
-  private final AtomicInteger partiallyWrittenSpanCount = new AtomicInteger(0);
+  final AtomicInteger partiallyWrittenSpanCount = new AtomicInteger(0);
 
   /** Ensure a trace is never written multiple times */
-  private final AtomicBoolean isWritten = new AtomicBoolean(false);
+  final AtomicBoolean isWritten = new AtomicBoolean(false);
+
+  static PendingTrace create(final DDTracer tracer, final long traceIdHigh, final long traceIdLow) {
+    return tracer.isLockFreeSpanTracking()
+        ? new LockFreePendingTrace(tracer, traceIdHigh, traceIdLow)
+        : new PendingTrace(tracer, traceIdHigh, traceIdLow);
+  }
 
   PendingTrace(final DDTracer tracer, final BigInteger traceId) {
+    this(tracer, Ids.idHigh(traceId), Ids.idLow(traceId));
+  }
+
+  PendingTrace(final DDTracer tracer, final long traceIdHigh, final long traceIdLow) {
     this.tracer = tracer;
-    this.traceId = traceId;
+    this.traceIdHigh = traceIdHigh;
+    this.traceIdLow = traceIdLow;
 
     startTimeNano = Clock.currentNanoTime();
     startNanoTicks = Clock.currentNanoTicks();
@@ -84,15 +98,21 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
     return startTimeNano + Math.max(0, Clock.currentNanoTicks() - startNanoTicks);
   }
 
+  boolean isSameTrace(final DDSpanContext context) {
+    return context.getTraceIdLow() == traceIdLow && context.getTraceIdHigh() == traceIdHigh;
+  }
+
+  String traceId() {
+    return Ids.toDecimalString(traceIdHigh, traceIdLow);
+  }
+
   public void registerSpan(final DDSpan span) {
-    if (traceId == null || span.context() == null) {
-      log.error(
-          "Failed to register span ({}) due to null PendingTrace traceId or null span context",
-          span);
+    if (span.context() == null) {
+      log.error("Failed to register span ({}) due to null span context", span);
       return;
     }
-    if (!traceId.equals(span.context().getTraceId())) {
-      log.debug("{} - span registered for wrong trace ({})", span, traceId);
+    if (!isSameTrace(span.context())) {
+      log.debug("{} - span registered for wrong trace ({})", span, traceId());
       return;
     }
     rootSpan.compareAndSet(null, new WeakReference<>(span));
@@ -101,26 +121,27 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
         span.ref = new WeakReference<DDSpan>(span, referenceQueue);
         weakReferences.add(span.ref);
         final int count = pendingReferenceCount.incrementAndGet();
-        log.debug("traceId: {} -- registered span {}. count = {}", traceId, span, count);
+        if (log.isDebugEnabled()) {
+          log.debug("traceId: {} -- registered span {}. count = {}", traceId(), span, count);
+        }
       } else {
-        log.debug("span {} already registered in trace {}", span, traceId);
+        log.debug("span {} already registered in trace {}", span, traceId());
       }
     }
   }
 
-  private void expireSpan(final DDSpan span) {
-    if (traceId == null || span.context() == null) {
-      log.error(
-          "Failed to expire span ({}) due to null PendingTrace traceId or null span context", span);
+  void expireSpan(final DDSpan span) {
+    if (span.context() == null) {
+      log.error("Failed to expire span ({}) due to null span context", span);
       return;
     }
-    if (!traceId.equals(span.context().getTraceId())) {
-      log.debug("{} - span expired for wrong trace ({})", span, traceId);
+    if (!isSameTrace(span.context())) {
+      log.debug("{} - span expired for wrong trace ({})", span, traceId());
       return;
     }
     synchronized (span) {
       if (null == span.ref) {
-        log.debug("span {} not registered in trace {}", span, traceId);
+        log.debug("span {} not registered in trace {}", span, traceId());
       } else {
         weakReferences.remove(span.ref);
         span.ref.clear();
@@ -135,24 +156,48 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
       log.debug("{} - added to trace, but not complete.", span);
       return;
     }
-    if (traceId == null || span.context() == null) {
-      log.error(
-          "Failed to add span ({}) due to null PendingTrace traceId or null span context", span);
+    if (span.context() == null) {
+      log.error("Failed to add span ({}) due to null span context", span);
       return;
     }
-    if (!traceId.equals(span.getTraceId())) {
+    if (!isSameTrace(span.context())) {
       log.debug("{} - added to a mismatched trace.", span);
       return;
     }
 
     if (!isWritten.get()) {
-      addFirst(span);
+      appendSpan(span);
     } else {
       log.debug("{} - finished after trace reported.", span);
     }
     expireSpan(span);
   }
 
+  /** Stores a finished span until the trace is written. */
+  void appendSpan(final DDSpan span) {
+    addFirst(span);
+  }
+
+  /** @return the finished spans, most recently finished first */
+  Collection<DDSpan> finishedSpans() {
+    return this;
+  }
+
+  /** Removes and returns every finished span except the root span. */
+  List<DDSpan> removeFinishedChildren(final DDSpan rootSpan) {
+    final List<DDSpan> partialTrace = new ArrayList(size());
+    final Iterator<DDSpan> it = iterator();
+    while (it.hasNext()) {
+      final DDSpan span = it.next();
+      if (span != rootSpan) {
+        partialTrace.add(span);
+        completedSpanCount.decrementAndGet();
+        it.remove();
+      }
+    }
+    return partialTrace;
+  }
+
   public DDSpan getRootSpan() {
     final WeakReference<DDSpan> rootRef = rootSpan.get();
     return rootRef == null ? null : rootRef.get();
@@ -169,10 +214,15 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
             new WeakReference<ContinuableScope.Continuation>(continuation, referenceQueue);
         weakReferences.add(continuation.ref);
         final int count = pendingReferenceCount.incrementAndGet();
-        log.debug(
-            "traceId: {} -- registered continuation {}. count = {}", traceId, continuation, count);
+        if (log.isDebugEnabled()) {
+          log.debug(
+              "traceId: {} -- registered continuation {}. count = {}",
+              traceId(),
+              continuation,
+              count);
+        }
       } else {
-        log.debug("continuation {} already registered in trace {}", continuation, traceId);
+        log.debug("continuation {} already registered in trace {}", continuation, traceId());
       }
     }
   }
@@ -180,7 +230,7 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
   public void cancelContinuation(final ContinuableScope.Continuation continuation) {
     synchronized (continuation) {
       if (continuation.ref == null) {
-        log.debug("continuation {} not registered in trace {}", continuation, traceId);
+        log.debug("continuation {} not registered in trace {}", continuation, traceId());
       } else {
         weakReferences.remove(continuation.ref);
         continuation.ref.clear();
@@ -190,7 +240,7 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
     }
   }
 
-  private void expireReference() {
+  void expireReference() {
     final int count = pendingReferenceCount.decrementAndGet();
     if (count == 0) {
       write();
@@ -198,28 +248,18 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
       if (tracer.getPartialFlushMinSpans() > 0 && size() > tracer.getPartialFlushMinSpans()) {
         synchronized (this) {
           if (size() > tracer.getPartialFlushMinSpans()) {
-            final DDSpan rootSpan = getRootSpan();
-            final List<DDSpan> partialTrace = new ArrayList(size());
-            final Iterator<DDSpan> it = iterator();
-            while (it.hasNext()) {
-              final DDSpan span = it.next();
-              if (span != rootSpan) {
-                partialTrace.add(span);
-                completedSpanCount.decrementAndGet();
-                it.remove();
-              }
-            }
+            final List<DDSpan> partialTrace = removeFinishedChildren(getRootSpan());
             // mark that we've "written" this partial trace to the span count
             partiallyWrittenSpanCount.addAndGet(partialTrace.size());
             // but only write it if we actually have room under the cap
             if (tracer.getMaxSpansPerTrace() <= 0
                 || partiallyWrittenSpanCount.get() < tracer.getMaxSpansPerTrace()) {
-              log.debug("Writing partial trace {} of size {}", traceId, partialTrace.size());
+              log.debug("Writing partial trace {} of size {}", traceId(), partialTrace.size());
               tracer.write(partialTrace);
             } else {
               log.error(
                   "Dropping partial trace {} of size {} exceeding max of {}",
-                  traceId,
+                  traceId(),
                   partiallyWrittenSpanCount.get(),
                   tracer.getMaxSpansPerTrace());
             }
@@ -227,7 +267,9 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
         }
       }
     }
-    log.debug("traceId: {} -- Expired reference. count = {}", traceId, count);
+    if (log.isDebugEnabled()) {
+      log.debug("traceId: {} -- Expired reference. count = {}", traceId(), count);
+    }
   }
 
   private synchronized void write() {
@@ -241,9 +283,9 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
             tracer.getMaxSpansPerTrace());
         return;
       }
-      if (!isEmpty()) {
+      if (size() > 0) {
         log.debug("Writing {} spans to {}.", size(), tracer.writer);
-        tracer.write(this);
+        tracer.write(finishedSpans());
       }
     }
   }
@@ -266,7 +308,7 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
       // TODO attempt to flatten and report if top level spans are finished. (for accurate metrics)
       log.debug(
           "trace {} : {} unfinished spans garbage collected. Trace will not report.",
-          traceId,
+          traceId(),
           count);
     }
     return count > 0;
@@ -283,14 +325,14 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
     return completedSpanCount.get();
   }
 
-  private void addPendingTrace() {
+  void addPendingTrace() {
     final SpanCleaner cleaner = SPAN_CLEANER.get();
     if (cleaner != null) {
       cleaner.pendingTraces.add(this);
     }
   }
 
-  private void removePendingTrace() {
+  void removePendingTrace() {
     final SpanCleaner cleaner = SPAN_CLEANER.get();
     if (cleaner != null) {
       cleaner.pendingTraces.remove(this);
@@ -0,0 +1,402 @@
+package datadog.opentracing;
+
+import datadog.trace.api.DDTags;
+import io.opentracing.tag.Tags;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Compact tag storage of a span, exposed as a read-only map so that it can be handed to decorators
+ * and serializers without copying or wrapping.
+ *
+ * <p>Well-known tags have a dedicated slot. Other tags live in a small open-addressed table that is
+ * only allocated when needed. Writes never lock: slots are claimed and updated with CAS, which is
+ * uncontended when a single thread tags the span. Only growing the table takes this map's monitor,
+ * and concurrent writers that run into it wait for the new table.
+ *
+ * <p>Like {@link java.util.concurrent.ConcurrentHashMap}, iteration is weakly consistent and null
+ * keys or values are not supported.
+ */
+final class TagMap extends AbstractMap<String, Object> {
+  private static final String[] KNOWN_KEYS = {
+    Tags.COMPONENT.getKey(),
+    Tags.SPAN_KIND.getKey(),
+    Tags.HTTP_URL.getKey(),
+    Tags.HTTP_METHOD.getKey(),
+    Tags.HTTP_STATUS.getKey(),
+    Tags.DB_TYPE.getKey(),
+    Tags.DB_INSTANCE.getKey(),
+    Tags.DB_STATEMENT.getKey(),
+    Tags.DB_USER.getKey(),
+    Tags.PEER_HOSTNAME.getKey(),
+    Tags.PEER_HOST_IPV4.getKey(),
+    Tags.PEER_HOST_IPV6.getKey(),
+    Tags.PEER_PORT.getKey(),
+    Tags.PEER_SERVICE.getKey(),
+    Tags.ERROR.getKey(),
+    DDTags.THREAD_NAME,
+    DDTags.THREAD_ID,
+    DDSpanContext.ORIGIN_KEY
+  };
+
+  /** Open-addressed index from well-known key to slot, sized for a load factor below 1/2. */
+  private static final String[] KNOWN_INDEX_KEYS = new String[64];
+
+  private static final int[] KNOWN_INDEX_SLOTS = new int[64];
+
+  static {
+    for (int slot = 0; slot < KNOWN_KEYS.length; slot++) {
+      int i = KNOWN_KEYS[slot].hashCode() & (KNOWN_INDEX_KEYS.length - 1);
+      while (KNOWN_INDEX_KEYS[i] != null) {
+        i = (i + 1) & (KNOWN_INDEX_KEYS.length - 1);
+      }
+      KNOWN_INDEX_KEYS[i] = KNOWN_KEYS[slot];
+      KNOWN_INDEX_SLOTS[i] = slot;
+    }
+  }
+
+  /** Marks the key or value slots of a table that has been copied to a bigger one. */
+  private static final Object MOVED = new Object();
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  private static final AtomicReferenceFieldUpdater<TagMap, Table> TABLE =
+      AtomicReferenceFieldUpdater.newUpdater(TagMap.class, Table.class, "table");
+
+  private final AtomicReferenceArray<Object> known =
+      new AtomicReferenceArray<>(KNOWN_KEYS.length);
+
+  /** Other tags, null until the first one is set. */
+  private volatile Table table;
+
+  private EntrySet entrySet;
+
+  /**
+   * Sets or, with a null value, removes a tag.
+   *
+   * @return the previous value
+   */
+  Object set(final String key, final Object value) {
+    final int slot = knownSlot(key);
+    if (slot >= 0) {
+      return known.getAndSet(slot, value);
+    }
+    return value == null ? removeOther(key) : setOther(key, value);
+  }
+
+  void setAll(final Map<String, ?> tags) {
+    for (final Map.Entry<String, ?> entry : tags.entrySet()) {
+      set(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private Object setOther(final String key, final Object value) {
+    while (true) {
+      Table current = table;
+      if (current == null) {
+        TABLE.compareAndSet(this, null, new Table(INITIAL_CAPACITY));
+        continue;
+      }
+
+      final int index = current.claim(key);
+      if (index < 0) {
+        grow(current);
+        continue;
+      }
+
+      final Object previous = current.setValue(index, value);
+      if (previous != MOVED) {
+        return previous;
+      }
+      awaitGrowth();
+    }
+  }
+
+  private Object removeOther(final String key) {
+    while (true) {
+      final Table current = table;
+      if (current == null) {
+        return null;
+      }
+      final int index = current.find(key);
+      if (index == Table.MISSING) {
+        return null;
+      }
+      if (index != Table.RETRY) {
+        final Object previous = current.setValue(index, null);
+        if (previous != MOVED) {
+          return previous;
+        }
+      }
+      awaitGrowth();
+    }
+  }
+
+  @Override
+  public Object get(final Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    final int slot = knownSlot((String) key);
+    if (slot >= 0) {
+      return known.get(slot);
+    }
+    while (true) {
+      final Table current = table;
+      if (current == null) {
+        return null;
+      }
+      final int index = current.find(key);
+      if (index == Table.MISSING) {
+        return null;
+      }
+      if (index != Table.RETRY) {
+        final Object value = current.slots.get(index + 1);
+        if (value != MOVED) {
+          return value;
+        }
+      }
+      awaitGrowth();
+    }
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (int slot = 0; slot < known.length(); slot++) {
+      if (known.get(slot) != null) {
+        size++;
+      }
+    }
+    final Table current = table;
+    if (current != null) {
+      for (int index = 0; index < current.slots.length(); index += 2) {
+        final Object value = current.slots.get(index + 1);
+        if (value != null && value != MOVED) {
+          size++;
+        } else if (value == MOVED) {
+          // Resized concurrently, count again on the new table.
+          awaitGrowth();
+          return size();
+        }
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new EntrySet();
+    }
+    return entrySet;
+  }
+
+  private void grow(final Table full) {
+    synchronized (this) {
+      if (table != full) {
+        return;
+      }
+      final Table grown = new Table(full.capacity() * 2);
+      for (int index = 0; index < full.slots.length(); index += 2) {
+        // Close every slot to writers before copying what it holds.
+        Object key;
+        do {
+          key = full.slots.get(index);
+        } while (key == null && !full.slots.compareAndSet(index, null, MOVED));
+        if (key == null) {
+          continue;
+        }
+        final Object value = full.slots.getAndSet(index + 1, MOVED);
+        if (value != null) {
+          grown.slots.set(grown.claim((String) key) + 1, value);
+        }
+      }
+      table = grown;
+    }
+  }
+
+  private void awaitGrowth() {
+    // The monitor is held for the whole copy.
+    synchronized (this) {
+    }
+  }
+
+  private static int knownSlot(final String key) {
+    int i = key.hashCode() & (KNOWN_INDEX_KEYS.length - 1);
+    String candidate;
+    while ((candidate = KNOWN_INDEX_KEYS[i]) != null) {
+      if (candidate == key || candidate.equals(key)) {
+        return KNOWN_INDEX_SLOTS[i];
+      }
+      i = (i + 1) & (KNOWN_INDEX_KEYS.length - 1);
+    }
+    return -1;
+  }
+
+  /**
+   * Keys and values interleaved in a single array. Key slots go from null to a key or {@link
+   * #MOVED} exactly once, value slots hold null for absent tags.
+   */
+  private static final class Table {
+    static final int MISSING = -1;
+    static final int RETRY = -2;
+
+    private static final AtomicIntegerFieldUpdater<Table> CLAIMED =
+        AtomicIntegerFieldUpdater.newUpdater(Table.class, "claimed");
+
+    final AtomicReferenceArray<Object> slots;
+    private volatile int claimed;
+
+    Table(final int capacity) {
+      slots = new AtomicReferenceArray<>(capacity * 2);
+    }
+
+    int capacity() {
+      return slots.length() / 2;
+    }
+
+    /** @return the index of the key slot, {@link #MISSING} or {@link #RETRY} if moved */
+    int find(final Object key) {
+      final int mask = capacity() - 1;
+      int i = key.hashCode() & mask;
+      for (int probes = 0; probes <= mask; probes++) {
+        final Object candidate = slots.get(i * 2);
+        if (candidate == null) {
+          return MISSING;
+        }
+        if (candidate == MOVED) {
+          return RETRY;
+        }
+        if (candidate.equals(key)) {
+          return i * 2;
+        }
+        i = (i + 1) & mask;
+      }
+      return MISSING;
+    }
+
+    /**
+     * @return the index of the key slot, claiming a free one if needed, or -1 if the table must
+     *     grow
+     */
+    int claim(final String key) {
+      final int mask = capacity() - 1;
+      int i = key.hashCode() & mask;
+      for (int probes = 0; probes <= mask; probes++) {
+        final int index = i * 2;
+        Object candidate = slots.get(index);
+        if (candidate == null) {
+          // Keep the load factor at or below 3/4 so that probe sequences stay short.
+          if (claimed >= capacity() - (capacity() >> 2)) {
+            return -1;
+          }
+          if (slots.compareAndSet(index, null, key)) {
+            CLAIMED.incrementAndGet(this);
+            return index;
+          }
+          candidate = slots.get(index);
+        }
+        if (candidate == MOVED) {
+          return -1;
+        }
+        if (candidate.equals(key)) {
+          return index;
+        }
+        i = (i + 1) & mask;
+      }
+      return -1;
+    }
+
+    /** @return the previous value, or {@link #MOVED} if the table has been copied */
+    Object setValue(final int index, final Object value) {
+      while (true) {
+        final Object previous = slots.get(index + 1);
+        if (previous == MOVED || slots.compareAndSet(index + 1, previous, value)) {
+          return previous;
+        }
+      }
+    }
+  }
+
+  private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+    @Override
+    public Iterator<Map.Entry<String, Object>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return TagMap.this.size();
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+    private final Table other = table;
+    private int knownSlot = 0;
+    private int otherIndex = 0;
+    private Map.Entry<String, Object> next = advance();
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Map.Entry<String, Object> next() {
+      final Map.Entry<String, Object> current = next;
+      if (current == null) {
+        throw new NoSuchElementException();
+      }
+      next = advance();
+      return current;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private Map.Entry<String, Object> advance() {
+      while (knownSlot < KNOWN_KEYS.length) {
+        final int slot = knownSlot++;
+        final Object value = known.get(slot);
+        if (value != null) {
+          return new SimpleImmutableEntry<>(KNOWN_KEYS[slot], value);
+        }
+      }
+      if (other == null) {
+        return null;
+      }
+      while (otherIndex < other.slots.length()) {
+        final int index = otherIndex;
+        otherIndex += 2;
+        final Object key = other.slots.get(index);
+        if (key == null || key == MOVED) {
+          continue;
+        }
+        Object value = other.slots.get(index + 1);
+        if (value == MOVED) {
+          // Copied to a bigger table since the iteration started.
+          value = get(key);
+        }
+        if (value != null) {
+          return new SimpleImmutableEntry<>((String) key, value);
+        }
+      }
+      return null;
+    }
+  }
+}
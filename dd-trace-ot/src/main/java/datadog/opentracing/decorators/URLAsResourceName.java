@@ -3,16 +3,22 @@ package datadog.opentracing.decorators;
 
 import datadog.opentracing.DDSpanContext;
 import datadog.trace.api.DDTags;
+import datadog.trace.common.util.BoundedCache;
 import io.opentracing.tag.Tags;
-import java.util.Map;
 import java.util.regex.Pattern;
 
 public class URLAsResourceName extends AbstractDecorator {
 
   // Matches any path segments with numbers in them. (exception for versioning: "/v1/")
+  // normalizePath implements the same replacement without a regex.
   public static final Pattern PATH_MIXED_ALPHANUMERICS_AND_EMAILS =
       Pattern.compile("(?<=/)(?![vV]\\d{1,2}/)(?:[^\\/\\d\\?]*[\\d@]+[^\\/\\?]*)");
 
+  // Services serve a bounded set of routes, so the normalized paths are cached by raw path.
+  private static final int PATH_CACHE_SIZE = 1024;
+
+  private final BoundedCache<String, String> pathCache = new BoundedCache<>(PATH_CACHE_SIZE);
+
   public URLAsResourceName() {
     super();
     setMatchingTag(Tags.HTTP_URL.getKey());
@@ -21,29 +27,47 @@ public class URLAsResourceName extends AbstractDecorator {
 
   @Override
   public boolean shouldSetTag(final DDSpanContext context, final String tag, final Object value) {
-    Map<String, Object> tags = context.getTags();
-    final String component = String.valueOf(tags.get(Tags.COMPONENT.getKey()));
+    final Object component = context.getTag(Tags.COMPONENT.getKey());
 
-    if (component != null && (component.equals("khttp") || component.equals("vertx"))) {
+    if ("khttp".equals(component) || "vertx".equals(component)) {
       return true;
     }
 
-    final String statusCode = String.valueOf(tags.get(Tags.HTTP_STATUS.getKey()));
+    final Object statusCode = context.getTag(Tags.HTTP_STATUS.getKey());
     // do nothing if the status code is already set and equals to 404.
     // TODO: it assumes that Status404Decorator is active. If it's not, it will lead to unexpected
     // behaviors
-    if (value == null || statusCode != null && statusCode.equals("404")) {
+    if (value == null || isNotFound(statusCode)) {
       return true;
     }
 
     final String rawPath = rawPathFromUrlString(String.valueOf(value).trim());
-    final String normalizedPath = normalizePath(rawPath);
+    String normalizedPath = pathCache.get(rawPath);
+    if (normalizedPath == null) {
+      normalizedPath = normalizePath(rawPath);
+      pathCache.put(rawPath, normalizedPath);
+    }
 
     context.setResourceName(normalizedPath);
     return true;
   }
 
-  private String rawPathFromUrlString(final String url) {
+  public long getPathCacheHitCount() {
+    return pathCache.getHitCount();
+  }
+
+  public long getPathCacheMissCount() {
+    return pathCache.getMissCount();
+  }
+
+  private static boolean isNotFound(final Object statusCode) {
+    if (statusCode instanceof Number) {
+      return ((Number) statusCode).intValue() == 404;
+    }
+    return statusCode != null && statusCode.toString().equals("404");
+  }
+
+  String rawPathFromUrlString(final String url) {
     // Get the path without host:port
     // url may already be just the path.
 
@@ -85,18 +109,74 @@ public class URLAsResourceName extends AbstractDecorator {
     }
   }
 
-  // Method to normalise the url string
-  private String normalizePath(final String path) {
+  // Method to normalise the url string: replaces every path segment holding a digit or an '@' with
+  // '?', like PATH_MIXED_ALPHANUMERICS_AND_EMAILS, in a single pass that only allocates when a
+  // segment is replaced.
+  String normalizePath(final String path) {
     if (path.isEmpty() || path.equals("/")) {
       return "/";
     }
 
-    return PATH_MIXED_ALPHANUMERICS_AND_EMAILS.matcher(path).replaceAll("?");
+    final int length = path.length();
+    StringBuilder normalized = null;
+    // Start of the input not copied to normalized yet.
+    int copied = 0;
+    int i = 0;
+    while (i < length) {
+      if (path.charAt(i) != '/') {
+        i++;
+        continue;
+      }
+      final int start = ++i;
+      boolean replace = false;
+      while (i < length) {
+        final char c = path.charAt(i);
+        if (c == '/' || c == '?') {
+          break;
+        }
+        if ((c >= '0' && c <= '9') || c == '@') {
+          replace = true;
+        }
+        i++;
+      }
+      if (replace && !isVersion(path, start, i)) {
+        if (normalized == null) {
+          normalized = new StringBuilder(length);
+        }
+        normalized.append(path, copied, start).append('?');
+        copied = i;
+      }
+      // Whatever follows a '?' up to the next '/' isn't a segment and is left as is.
+    }
+
+    if (normalized == null) {
+      return path;
+    }
+    return normalized.append(path, copied, length).toString();
+  }
+
+  /** Versions like "v1" are kept, as long as another segment follows. */
+  private static boolean isVersion(final String path, final int start, final int end) {
+    final int digits = end - start - 1;
+    if (digits < 1 || digits > 2 || end >= path.length() || path.charAt(end) != '/') {
+      return false;
+    }
+    final char v = path.charAt(start);
+    if (v != 'v' && v != 'V') {
+      return false;
+    }
+    for (int i = start + 1; i < end; i++) {
+      final char c = path.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
   }
 
   private String addMethodIfAvailable(final DDSpanContext context, String path) {
     // if the verb (GET, POST ...) is present, add it
-    final String verb = (String) context.getTags().get(Tags.HTTP_METHOD.getKey());
+    final String verb = (String) context.getTag(Tags.HTTP_METHOD.getKey());
     if (verb != null && !verb.isEmpty()) {
       path = verb + " " + path;
     }
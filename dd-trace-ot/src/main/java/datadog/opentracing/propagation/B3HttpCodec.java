@@ -41,39 +41,33 @@ class B3HttpCodec {
 
     @Override
     public void inject(final DDSpanContext context, final TextMapInject carrier) {
-      try {
-        carrier.put(TRACE_ID_KEY, String.valueOf(Ids.idToHexChars(context.getTraceId())));
-        carrier.put(SPAN_ID_KEY, String.valueOf(Ids.idToHexChars(context.getSpanId())));
-
-        if (context.getParentId() != null) {
-          carrier.put(PARENT_SPAN_ID_KEY, String.valueOf(Ids.idToHexChars(context.getParentId())));
-        }
-
-        if (context.lockSamplingPriority()) {
-          int ps = context.getSamplingPriority();
-          switch (ps) {
-            case PrioritySampling.USER_KEEP:
-              // Set the debug flag if the user has manually marked the span to keep
-              carrier.put(FLAGS_KEY, "1");
-              // We don't need to set sampled in this case since it is implied
-              break;
-            case PrioritySampling.SAMPLER_KEEP:
-              carrier.put(SAMPLING_PRIORITY_KEY, "1");
-              break;
-            case PrioritySampling.SAMPLER_DROP:
-            case PrioritySampling.USER_DROP:
-              carrier.put(SAMPLING_PRIORITY_KEY, "0");
-          }
+      carrier.put(TRACE_ID_KEY, context.getTraceIdHex());
+      carrier.put(SPAN_ID_KEY, context.getSpanIdHex());
+      carrier.put(PARENT_SPAN_ID_KEY, context.getParentIdHex());
+
+      if (context.lockSamplingPriority()) {
+        int ps = context.getSamplingPriority();
+        switch (ps) {
+          case PrioritySampling.USER_KEEP:
+            // Set the debug flag if the user has manually marked the span to keep
+            carrier.put(FLAGS_KEY, "1");
+            // We don't need to set sampled in this case since it is implied
+            break;
+          case PrioritySampling.SAMPLER_KEEP:
+            carrier.put(SAMPLING_PRIORITY_KEY, "1");
+            break;
+          case PrioritySampling.SAMPLER_DROP:
+          case PrioritySampling.USER_DROP:
+            carrier.put(SAMPLING_PRIORITY_KEY, "0");
         }
+      }
 
-        for (final Map.Entry<String, String> entry : context.baggageItems()) {
-          carrier.put(OT_BAGGAGE_PREFIX + entry.getKey(), HttpCodec.encode(entry.getValue()));
-        }
+      for (final Map.Entry<String, String> entry : context.baggageItems()) {
+        carrier.put(OT_BAGGAGE_PREFIX + entry.getKey(), HttpCodec.encode(entry.getValue()));
+      }
 
-        log.debug("{} - B3 parent context injected", context.getTraceId());
-      } catch (final NumberFormatException e) {
-        log.debug(
-            "Cannot parse context id(s): {} {}", context.getTraceId(), context.getSpanId(), e);
+      if (log.isDebugEnabled()) {
+        log.debug("{} - B3 parent context injected", context.toTraceId());
       }
     }
   }
@@ -97,8 +91,10 @@ class B3HttpCodec {
     public SpanContext extract(final TextMapExtract carrier) {
       try {
         Map<String, String> tags = Collections.emptyMap();
-        BigInteger traceId = BigInteger.ZERO;
-        BigInteger spanId = BigInteger.ZERO;
+        long traceIdHigh = 0;
+        long traceIdLow = 0;
+        long spanIdHigh = 0;
+        long spanIdLow = 0;
         int samplingPriority = PrioritySampling.UNSET;
 
         for (final Map.Entry<String, String> entry : carrier) {
@@ -115,9 +111,11 @@ class B3HttpCodec {
               log.debug("Header {} exceeded max length of 32: {}", TRACE_ID_KEY, value);
               continue;
             }
-            traceId = validateUInt128BitsID(value, HEX_RADIX);
+            traceIdHigh = parseHexIdHigh(value);
+            traceIdLow = parseHexIdLow(value);
           } else if (SPAN_ID_KEY.equalsIgnoreCase(key)) {
-            spanId = validateUInt128BitsID(value, HEX_RADIX);
+            spanIdHigh = parseHexIdHigh(value);
+            spanIdLow = parseHexIdLow(value);
           } else if (SAMPLING_PRIORITY_KEY.equalsIgnoreCase(key)) {
             samplingPriority = convertSamplingPriority(value);
           }
@@ -130,18 +128,22 @@ class B3HttpCodec {
           }
         }
 
-        if (!BigInteger.ZERO.equals(traceId)) {
+        if (traceIdHigh != 0 || traceIdLow != 0) {
           final ExtractedContext context =
               new ExtractedContext(
-                  traceId,
-                  spanId,
+                  traceIdHigh,
+                  traceIdLow,
+                  spanIdHigh,
+                  spanIdLow,
                   samplingPriority,
                   null,
                   Collections.<String, String>emptyMap(),
                   tags);
           context.lockSamplingPriority();
 
-          log.debug("{} - Parent context extracted", context.getTraceId());
+          if (log.isDebugEnabled()) {
+            log.debug("{} - Parent context extracted", context.getTraceId());
+          }
           return context;
         } else if (!tags.isEmpty()) {
           log.debug("Tags context extracted");
@@ -154,14 +156,33 @@ class B3HttpCodec {
       return null;
     }
 
-    static BigInteger validateUInt128BitsID(final String value, final int radix)
-        throws IllegalArgumentException {
-      final BigInteger parsedValue = new BigInteger(value, radix);
-      if (parsedValue.compareTo(BigInteger.ZERO) == -1 || parsedValue.compareTo(UINT128_MAX) == 1) {
+    /** Upper 64 bits of a hex encoded ID of up to 128 bits. */
+    static long parseHexIdHigh(final String value) throws IllegalArgumentException {
+      final int lowStart = lowHalfStart(value);
+      return lowStart == 0 ? 0 : Ids.parseUnsignedLong(value, 0, lowStart, HEX_RADIX);
+    }
+
+    /** Lower 64 bits of a hex encoded ID of up to 128 bits. */
+    static long parseHexIdLow(final String value) throws IllegalArgumentException {
+      return Ids.parseUnsignedLong(value, lowHalfStart(value), value.length(), HEX_RADIX);
+    }
+
+    /**
+     * Index of the first hex digit belonging to the lower 64 bits of the ID
+     *
+     * @throws IllegalArgumentException if the ID has more than 128 significant bits
+     */
+    private static int lowHalfStart(final String value) throws IllegalArgumentException {
+      final int length = value.length();
+      int firstSignificant = 0;
+      while (firstSignificant < length - 1 && value.charAt(firstSignificant) == '0') {
+        firstSignificant++;
+      }
+      if (length - firstSignificant > 32) {
         throw new IllegalArgumentException(
             "ID out of range, must be between 0 and 2^128-1, got: " + value);
       }
-      return parsedValue;
+      return Math.max(firstSignificant, length - 16);
     }
 
     private int convertSamplingPriority(final String samplingPriority) {
@@ -8,7 +8,6 @@ import datadog.trace.api.sampling.PrioritySampling;
 import io.opentracing.SpanContext;
 import io.opentracing.propagation.TextMapExtract;
 import io.opentracing.propagation.TextMapInject;
-import java.math.BigInteger;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -32,8 +31,8 @@ class DatadogHttpCodec {
 
     @Override
     public void inject(final DDSpanContext context, final TextMapInject carrier) {
-      carrier.put(TRACE_ID_KEY, context.getTraceId().toString());
-      carrier.put(SPAN_ID_KEY, context.getSpanId().toString());
+      carrier.put(TRACE_ID_KEY, context.toTraceId());
+      carrier.put(SPAN_ID_KEY, context.toSpanId());
       if (context.lockSamplingPriority()) {
         carrier.put(SAMPLING_PRIORITY_KEY, String.valueOf(context.getSamplingPriority()));
       }
@@ -45,7 +44,9 @@ class DatadogHttpCodec {
       for (final Map.Entry<String, String> entry : context.baggageItems()) {
         carrier.put(OT_BAGGAGE_PREFIX + entry.getKey(), HttpCodec.encode(entry.getValue()));
       }
-      log.debug("{} - Datadog parent context injected", context.getTraceId());
+      if (log.isDebugEnabled()) {
+        log.debug("{} - Datadog parent context injected", context.toTraceId());
+      }
     }
   }
 
@@ -64,8 +65,8 @@ class DatadogHttpCodec {
       try {
         Map<String, String> baggage = Collections.emptyMap();
         Map<String, String> tags = Collections.emptyMap();
-        BigInteger traceId = BigInteger.ZERO;
-        BigInteger spanId = BigInteger.ZERO;
+        long traceId = 0;
+        long spanId = 0;
         int samplingPriority = PrioritySampling.UNSET;
         String origin = null;
 
@@ -100,12 +101,14 @@ class DatadogHttpCodec {
           }
         }
 
-        if (!BigInteger.ZERO.equals(traceId)) {
+        if (traceId != 0) {
           final ExtractedContext context =
-              new ExtractedContext(traceId, spanId, samplingPriority, origin, baggage, tags);
+              new ExtractedContext(0, traceId, 0, spanId, samplingPriority, origin, baggage, tags);
           context.lockSamplingPriority();
 
-          log.debug("{} - Parent context extracted", context.getTraceId());
+          if (log.isDebugEnabled()) {
+            log.debug("{} - Parent context extracted", context.getTraceId());
+          }
           return context;
         } else if (origin != null || !tags.isEmpty()) {
           log.debug("Tags context extracted");
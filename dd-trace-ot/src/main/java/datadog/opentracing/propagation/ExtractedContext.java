@@ -1,5 +1,6 @@
 package datadog.opentracing.propagation;
 
+import datadog.trace.api.Ids;
 import java.math.BigInteger;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -8,8 +9,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * Propagated data resulting from calling tracer.extract with header data from an incoming request.
  */
 public class ExtractedContext extends TagContext {
-  private final BigInteger traceId;
-  private final BigInteger spanId;
+  private final long traceIdHigh;
+  private final long traceIdLow;
+  private final long spanIdHigh;
+  private final long spanIdLow;
   private final int samplingPriority;
   private final Map<String, String> baggage;
   private final AtomicBoolean samplingPriorityLocked = new AtomicBoolean(false);
@@ -21,9 +24,31 @@ public class ExtractedContext extends TagContext {
       final String origin,
       final Map<String, String> baggage,
       final Map<String, String> tags) {
+    this(
+        Ids.idHigh(traceId),
+        Ids.idLow(traceId),
+        Ids.idHigh(spanId),
+        Ids.idLow(spanId),
+        samplingPriority,
+        origin,
+        baggage,
+        tags);
+  }
+
+  public ExtractedContext(
+      final long traceIdHigh,
+      final long traceIdLow,
+      final long spanIdHigh,
+      final long spanIdLow,
+      final int samplingPriority,
+      final String origin,
+      final Map<String, String> baggage,
+      final Map<String, String> tags) {
     super(origin, tags);
-    this.traceId = traceId;
-    this.spanId = spanId;
+    this.traceIdHigh = traceIdHigh;
+    this.traceIdLow = traceIdLow;
+    this.spanIdHigh = spanIdHigh;
+    this.spanIdLow = spanIdLow;
     this.samplingPriority = samplingPriority;
     this.baggage = baggage;
   }
@@ -38,11 +63,27 @@ public class ExtractedContext extends TagContext {
   }
 
   public BigInteger getTraceId() {
-    return traceId;
+    return Ids.toUnsignedBigInteger(traceIdHigh, traceIdLow);
+  }
+
+  public long getTraceIdHigh() {
+    return traceIdHigh;
+  }
+
+  public long getTraceIdLow() {
+    return traceIdLow;
   }
 
   public BigInteger getSpanId() {
-    return spanId;
+    return Ids.toUnsignedBigInteger(spanIdHigh, spanIdLow);
+  }
+
+  public long getSpanIdHigh() {
+    return spanIdHigh;
+  }
+
+  public long getSpanIdLow() {
+    return spanIdLow;
   }
 
   public int getSamplingPriority() {
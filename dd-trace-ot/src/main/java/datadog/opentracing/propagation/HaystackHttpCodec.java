@@ -3,11 +3,11 @@ package datadog.opentracing.propagation;
 import static datadog.opentracing.propagation.HttpCodec.validateUInt64BitsID;
 
 import datadog.opentracing.DDSpanContext;
+import datadog.trace.api.Ids;
 import datadog.trace.api.sampling.PrioritySampling;
 import io.opentracing.SpanContext;
 import io.opentracing.propagation.TextMapExtract;
 import io.opentracing.propagation.TextMapInject;
-import java.math.BigInteger;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -34,14 +34,17 @@ public class HaystackHttpCodec {
 
     @Override
     public void inject(final DDSpanContext context, final TextMapInject carrier) {
-      carrier.put(TRACE_ID_KEY, context.getTraceId().toString());
-      carrier.put(SPAN_ID_KEY, context.getSpanId().toString());
-      carrier.put(PARENT_ID_KEY, context.getParentId().toString());
+      carrier.put(TRACE_ID_KEY, context.toTraceId());
+      carrier.put(SPAN_ID_KEY, context.toSpanId());
+      carrier.put(
+          PARENT_ID_KEY, Ids.toDecimalString(context.getParentIdHigh(), context.getParentIdLow()));
 
       for (final Map.Entry<String, String> entry : context.baggageItems()) {
         carrier.put(OT_BAGGAGE_PREFIX + entry.getKey(), HttpCodec.encode(entry.getValue()));
       }
-      log.debug("{} - Haystack parent context injected", context.getTraceId());
+      if (log.isDebugEnabled()) {
+        log.debug("{} - Haystack parent context injected", context.toTraceId());
+      }
     }
   }
 
@@ -61,8 +64,8 @@ public class HaystackHttpCodec {
       try {
         Map<String, String> baggage = Collections.emptyMap();
         Map<String, String> tags = Collections.emptyMap();
-        BigInteger traceId = BigInteger.ZERO;
-        BigInteger spanId = BigInteger.ZERO;
+        long traceId = 0;
+        long spanId = 0;
         final int samplingPriority = PrioritySampling.SAMPLER_KEEP;
         final String origin = null; // Always null
 
@@ -93,12 +96,14 @@ public class HaystackHttpCodec {
           }
         }
 
-        if (!BigInteger.ZERO.equals(traceId)) {
+        if (traceId != 0) {
           final ExtractedContext context =
-              new ExtractedContext(traceId, spanId, samplingPriority, origin, baggage, tags);
+              new ExtractedContext(0, traceId, 0, spanId, samplingPriority, origin, baggage, tags);
           context.lockSamplingPriority();
 
-          log.debug("{} - Parent context extracted", context.getTraceId());
+          if (log.isDebugEnabled()) {
+            log.debug("{} - Parent context extracted", context.getTraceId());
+          }
           return context;
         } else if (origin != null || !tags.isEmpty()) {
           log.debug("Tags context extracted");
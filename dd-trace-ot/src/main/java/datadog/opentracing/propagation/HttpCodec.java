@@ -2,13 +2,12 @@
 package datadog.opentracing.propagation;
 
 import datadog.opentracing.DDSpanContext;
-import datadog.opentracing.DDTracer;
 import datadog.trace.api.Config;
+import datadog.trace.api.Ids;
 import io.opentracing.SpanContext;
 import io.opentracing.propagation.TextMapExtract;
 import io.opentracing.propagation.TextMapInject;
 import java.io.UnsupportedEncodingException;
-import java.math.BigInteger;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.util.ArrayList;
@@ -114,20 +113,18 @@ public class HttpCodec {
    *
    * @param value the String that contains the ID
    * @param radix radix to use to parse the ID
-   * @return the parsed ID
+   * @return the parsed ID, as an unsigned long
    * @throws IllegalArgumentException if value cannot be converted to integer or doesn't conform to
    *     required boundaries
    */
-  static BigInteger validateUInt64BitsID(final String value, final int radix)
+  static long validateUInt64BitsID(final String value, final int radix)
       throws IllegalArgumentException {
-    final BigInteger parsedValue = new BigInteger(value, radix);
-    if (parsedValue.compareTo(DDTracer.TRACE_ID_MIN) < 0
-        || parsedValue.compareTo(DDTracer.TRACE_ID_MAX) > 0) {
+    try {
+      return Ids.parseUnsignedLong(value, radix);
+    } catch (final NumberFormatException e) {
       throw new IllegalArgumentException(
-          "ID out of range, must be between 0 and 2^64-1, got: " + value);
+          "ID out of range, must be between 0 and 2^64-1, got: " + value, e);
     }
-
-    return parsedValue;
   }
 
   /** URL encode value */
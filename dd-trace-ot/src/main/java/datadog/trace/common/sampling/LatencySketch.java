@@ -0,0 +1,103 @@
+package datadog.trace.common.sampling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate, fixed size histogram of durations, from which a quantile is estimated.
+ *
+ * <p>Durations are counted in log-linear buckets: each power of two is split into {@value
+ * #SUB_BUCKETS} buckets, so the estimated quantile is at most 25% above the exact one. The quantile
+ * is only recomputed every {@value #UPDATE_INTERVAL} durations, and counts are halved once they add
+ * up to {@value #DECAY_COUNT} so that the quantile follows changes in latency.
+ *
+ * <p>Counts are updated without locking, so a few durations may be lost when recording races with
+ * decay. That is fine for an estimate.
+ */
+final class LatencySketch {
+  private static final int SUB_BUCKETS = 4;
+  private static final int SUB_BUCKET_BITS = 2;
+
+  /** Durations under 2^10 ns (about a microsecond) all go to the first bucket. */
+  private static final int MIN_EXPONENT = 10;
+
+  private static final int MAX_EXPONENT = 62;
+  private static final int BUCKETS = (MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_BUCKETS;
+
+  private static final int UPDATE_INTERVAL = 64;
+  private static final long DECAY_COUNT = 1 << 14;
+
+  /** Durations recorded before the quantile is estimated at all. */
+  static final long MIN_COUNT = 100;
+
+  private final double quantile;
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+
+  private volatile long quantileNanos = Long.MAX_VALUE;
+
+  /** @param quantile between 0 and 1 */
+  LatencySketch(final double quantile) {
+    this.quantile = quantile;
+  }
+
+  void record(final long durationNanos) {
+    counts.incrementAndGet(bucket(durationNanos));
+    final long recorded = count.incrementAndGet();
+    if (recorded >= MIN_COUNT && recorded % UPDATE_INTERVAL == 0) {
+      update(recorded);
+    }
+  }
+
+  /**
+   * @return a duration the quantile of recorded durations is under, or {@link Long#MAX_VALUE} until
+   *     enough durations were recorded
+   */
+  long getQuantileNanos() {
+    return quantileNanos;
+  }
+
+  private void update(final long recorded) {
+    final long rank = (long) Math.ceil(quantile * recorded);
+    long seen = 0;
+    int bucket = 0;
+    while (bucket < BUCKETS - 1) {
+      seen += counts.get(bucket);
+      if (seen >= rank) {
+        break;
+      }
+      bucket++;
+    }
+    quantileNanos = upperBound(bucket);
+
+    if (recorded >= DECAY_COUNT) {
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        final long halved = counts.get(i) >> 1;
+        counts.set(i, halved);
+        total += halved;
+      }
+      count.set(total);
+    }
+  }
+
+  static int bucket(final long durationNanos) {
+    if (durationNanos < 1L << MIN_EXPONENT) {
+      return 0;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(durationNanos);
+    final int subBucket =
+        (int) (durationNanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return Math.min(BUCKETS - 1, (exponent - MIN_EXPONENT) * SUB_BUCKETS + subBucket);
+  }
+
+  /** @return the smallest duration above the bucket */
+  static long upperBound(final int bucket) {
+    if (bucket == BUCKETS - 1) {
+      return Long.MAX_VALUE;
+    }
+    final int exponent = bucket / SUB_BUCKETS + MIN_EXPONENT;
+    final long subBucket = bucket % SUB_BUCKETS + 1;
+    return (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+  }
+}
@@ -1,12 +1,10 @@
 // Modified by SignalFx
 package datadog.trace.common.sampling;
 
-import static java.util.Collections.singletonMap;
-import static java.util.Collections.unmodifiableMap;
-
 import datadog.opentracing.DDSpan;
 import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.common.writer.Api.ResponseListener;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
@@ -23,10 +21,15 @@ public class RateByServiceSampler implements Sampler, PrioritySampler, ResponseL
   /** Key for setting the default/baseline rate */
   private static final String DEFAULT_KEY = "service:,env:";
 
+  private static final String SERVICE_PREFIX = "service:";
+  private static final String ENV_SEPARATOR = ",env:";
+
   private static final double DEFAULT_RATE = 1.0;
 
-  private volatile Map<String, RateSampler> serviceRates =
-      unmodifiableMap(singletonMap(DEFAULT_KEY, createRateSampler(DEFAULT_RATE)));
+  private volatile ServiceRates serviceRates =
+      new ServiceRates(
+          Collections.<String, Map<String, RateSampler>>emptyMap(),
+          createRateSampler(DEFAULT_RATE));
 
   @Override
   public boolean sample(final DDSpan span) {
@@ -38,15 +41,7 @@ public class RateByServiceSampler implements Sampler, PrioritySampler, ResponseL
   /** If span is a root span, set the span context samplingPriority to keep or drop */
   @Override
   public void setSamplingPriority(final DDSpan span) {
-    final String serviceName = span.getServiceName();
-    final String env = getSpanEnv(span);
-    final String key = "service:" + serviceName + ",env:" + env;
-
-    final Map<String, RateSampler> rates = serviceRates;
-    RateSampler sampler = serviceRates.get(key);
-    if (sampler == null) {
-      sampler = rates.get(DEFAULT_KEY);
-    }
+    final RateSampler sampler = getSampler(span.getServiceName(), getSpanEnv(span));
 
     final boolean priorityWasSet;
 
@@ -63,8 +58,13 @@ public class RateByServiceSampler implements Sampler, PrioritySampler, ResponseL
     }
   }
 
+  RateSampler getSampler(final String serviceName, final String env) {
+    return serviceRates.get(serviceName, env);
+  }
+
   private static String getSpanEnv(final DDSpan span) {
-    return null == span.getTags().get("env") ? "" : String.valueOf(span.getTags().get("env"));
+    final Object env = span.context().getTag("env");
+    return null == env ? "" : String.valueOf(env);
   }
 
   @Override
@@ -73,17 +73,37 @@ public class RateByServiceSampler implements Sampler, PrioritySampler, ResponseL
     final Map<String, Number> newServiceRates = responseJson.get("rate_by_service");
     if (null != newServiceRates) {
       log.debug("Update service sampler rates: {} -> {}", endpoint, responseJson);
-      final Map<String, RateSampler> updatedServiceRates = new HashMap<>();
+      final Map<String, Map<String, RateSampler>> updatedServiceRates = new HashMap<>();
+      RateSampler defaultSampler = null;
       for (final Map.Entry<String, Number> entry : newServiceRates.entrySet()) {
-        if (entry.getValue() != null) {
-          updatedServiceRates.put(
-              entry.getKey(), createRateSampler(entry.getValue().doubleValue()));
+        final String key = entry.getKey();
+        if (entry.getValue() == null) {
+          continue;
+        }
+        final RateSampler sampler = createRateSampler(entry.getValue().doubleValue());
+        if (DEFAULT_KEY.equals(key)) {
+          defaultSampler = sampler;
+          continue;
+        }
+        final int envIndex = key.lastIndexOf(ENV_SEPARATOR);
+        if (!key.startsWith(SERVICE_PREFIX) || envIndex < SERVICE_PREFIX.length()) {
+          log.debug("Ignoring rate for unexpected key: {}", key);
+          continue;
+        }
+        // Interned so that lookups with literal or configured names mostly match by identity.
+        final String service = key.substring(SERVICE_PREFIX.length(), envIndex).intern();
+        final String env = key.substring(envIndex + ENV_SEPARATOR.length()).intern();
+        Map<String, RateSampler> ratesByEnv = updatedServiceRates.get(service);
+        if (ratesByEnv == null) {
+          ratesByEnv = new HashMap<>();
+          updatedServiceRates.put(service, ratesByEnv);
         }
+        ratesByEnv.put(env, sampler);
       }
-      if (!updatedServiceRates.containsKey(DEFAULT_KEY)) {
-        updatedServiceRates.put(DEFAULT_KEY, createRateSampler(DEFAULT_RATE));
+      if (defaultSampler == null) {
+        defaultSampler = createRateSampler(DEFAULT_RATE);
       }
-      serviceRates = unmodifiableMap(updatedServiceRates);
+      serviceRates = new ServiceRates(updatedServiceRates, defaultSampler);
     }
   }
 
@@ -100,4 +120,28 @@ public class RateByServiceSampler implements Sampler, PrioritySampler, ResponseL
 
     return new DeterministicSampler(sanitizedRate);
   }
+
+  /** Rate samplers by service then env, never modified once published. */
+  private static final class ServiceRates {
+    private final Map<String, Map<String, RateSampler>> ratesByService;
+    private final RateSampler defaultSampler;
+
+    ServiceRates(
+        final Map<String, Map<String, RateSampler>> ratesByService,
+        final RateSampler defaultSampler) {
+      this.ratesByService = ratesByService;
+      this.defaultSampler = defaultSampler;
+    }
+
+    RateSampler get(final String serviceName, final String env) {
+      final Map<String, RateSampler> ratesByEnv = ratesByService.get(serviceName);
+      if (ratesByEnv != null) {
+        final RateSampler sampler = ratesByEnv.get(env);
+        if (sampler != null) {
+          return sampler;
+        }
+      }
+      return defaultSampler;
+    }
+  }
 }
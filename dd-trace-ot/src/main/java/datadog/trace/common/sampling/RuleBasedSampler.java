@@ -1,6 +1,5 @@
 package datadog.trace.common.sampling;
 
-import com.google.common.util.concurrent.RateLimiter;
 import datadog.opentracing.DDSpan;
 import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.common.sampling.SamplingRule.AlwaysMatchesSamplingRule;
@@ -14,10 +13,9 @@ import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class RuleBasedSampler implements Sampler, PrioritySampler {
-  private final List<SamplingRule> samplingRules;
+  private final SamplingRuleIndex samplingRules;
   private final PrioritySampler fallbackSampler;
-  private final RateLimiter rateLimiter;
-  private final double rateLimit;
+  private final TokenBucketRateLimiter rateLimiter;
 
   public static final String SAMPLING_RULE_RATE = "_dd.rule_psr";
   public static final String SAMPLING_LIMIT_RATE = "_dd.limit_psr";
@@ -26,10 +24,9 @@ public class RuleBasedSampler implements Sampler, PrioritySampler {
       final List<SamplingRule> samplingRules,
       final double rateLimit,
       final PrioritySampler fallbackSampler) {
-    this.samplingRules = samplingRules;
+    this.samplingRules = new SamplingRuleIndex(samplingRules);
     this.fallbackSampler = fallbackSampler;
-    rateLimiter = RateLimiter.create(rateLimit);
-    this.rateLimit = rateLimit;
+    rateLimiter = new TokenBucketRateLimiter(rateLimit);
   }
 
   public static RuleBasedSampler build(
@@ -82,18 +79,12 @@ public class RuleBasedSampler implements Sampler, PrioritySampler {
 
   @Override
   public void setSamplingPriority(final DDSpan span) {
-    SamplingRule matchedRule = null;
-
-    for (final SamplingRule samplingRule : samplingRules) {
-      if (samplingRule.matches(span)) {
-        matchedRule = samplingRule;
-        break;
-      }
-    }
+    final SamplingRule matchedRule = samplingRules.firstMatch(span);
 
     if (matchedRule == null) {
       fallbackSampler.setSamplingPriority(span);
     } else {
+      matchedRule.countMatch();
       final boolean priorityWasSet;
       boolean usedRateLimiter = false;
 
@@ -114,7 +105,7 @@ public class RuleBasedSampler implements Sampler, PrioritySampler {
         span.context().setMetric(SAMPLING_RULE_RATE, matchedRule.getSampler().getSampleRate());
 
         if (usedRateLimiter) {
-          span.context().setMetric(SAMPLING_LIMIT_RATE, rateLimit);
+          span.context().setMetric(SAMPLING_LIMIT_RATE, rateLimiter.getEffectiveRate());
         }
       }
     }
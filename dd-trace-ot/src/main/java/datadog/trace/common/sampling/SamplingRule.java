@@ -1,10 +1,12 @@
 package datadog.trace.common.sampling;
 
 import datadog.opentracing.DDSpan;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 public abstract class SamplingRule {
   private final RateSampler sampler;
+  private final AtomicLong matchCount = new AtomicLong();
 
   public SamplingRule(final RateSampler sampler) {
     this.sampler = sampler;
@@ -20,6 +22,15 @@ public abstract class SamplingRule {
     return sampler;
   }
 
+  /** @return the number of root spans this rule was the first to match */
+  public long getMatchCount() {
+    return matchCount.get();
+  }
+
+  void countMatch() {
+    matchCount.incrementAndGet();
+  }
+
   public static class AlwaysMatchesSamplingRule extends SamplingRule {
 
     public AlwaysMatchesSamplingRule(final RateSampler sampler) {
@@ -46,6 +57,10 @@ public abstract class SamplingRule {
       return relevantString != null && pattern.matcher(relevantString).matches();
     }
 
+    Pattern getPattern() {
+      return pattern;
+    }
+
     protected abstract String getRelevantString(DDSpan span);
   }
 
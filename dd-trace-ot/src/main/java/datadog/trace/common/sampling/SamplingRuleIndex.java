@@ -0,0 +1,223 @@
+package datadog.trace.common.sampling;
+
+import datadog.opentracing.DDSpan;
+import datadog.trace.common.sampling.SamplingRule.OperationSamplingRule;
+import datadog.trace.common.sampling.SamplingRule.PatternMatchSamplingRule;
+import datadog.trace.common.sampling.SamplingRule.ServiceSamplingRule;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the first sampling rule matching a span without running every rule.
+ *
+ * <p>Service and operation rules are mostly plain names: those are looked up in hash maps. Names
+ * where the only regex construct is {@code .} are bucketed by length and compared char by char.
+ * Only the remaining rules run their regex, and only while they come before the best indexed match,
+ * so that the first matching rule still wins.
+ */
+final class SamplingRuleIndex {
+  private final SamplingRule[] rules;
+  private final NameIndex services;
+  private final NameIndex operations;
+
+  /** Indices of the rules that aren't indexed, in order. */
+  private final int[] otherRules;
+
+  SamplingRuleIndex(final List<SamplingRule> samplingRules) {
+    rules = samplingRules.toArray(new SamplingRule[0]);
+    final NameIndex.Builder services = new NameIndex.Builder();
+    final NameIndex.Builder operations = new NameIndex.Builder();
+    final List<Integer> others = new ArrayList<>();
+    for (int index = 0; index < rules.length; index++) {
+      final SamplingRule rule = rules[index];
+      // Exact classes only, subclasses may match differently.
+      if (rule.getClass() == ServiceSamplingRule.class
+          && services.add(index, ((PatternMatchSamplingRule) rule).getPattern())) {
+        continue;
+      }
+      if (rule.getClass() == OperationSamplingRule.class
+          && operations.add(index, ((PatternMatchSamplingRule) rule).getPattern())) {
+        continue;
+      }
+      others.add(index);
+    }
+    this.services = services.build();
+    this.operations = operations.build();
+    otherRules = new int[others.size()];
+    for (int i = 0; i < otherRules.length; i++) {
+      otherRules[i] = others.get(i);
+    }
+  }
+
+  /** @return the first rule matching the span, or null */
+  SamplingRule firstMatch(final DDSpan span) {
+    int first = rules.length;
+    first = services.firstMatch(span.getServiceName(), first);
+    first = operations.firstMatch(span.getOperationName(), first);
+    for (final int index : otherRules) {
+      if (index >= first) {
+        break;
+      }
+      if (rules[index].matches(span)) {
+        first = index;
+        break;
+      }
+    }
+    return first < rules.length ? rules[first] : null;
+  }
+
+  private static final class NameIndex {
+    private static final DotLiteral[] NONE = new DotLiteral[0];
+
+    /** Index of the first rule for each plain name. */
+    private final Map<String, Integer> plainNames;
+
+    /** Rules with dots by name length, in order. */
+    private final DotLiteral[][] dotLiteralsByLength;
+
+    /** All rules with dots, in order. */
+    private final DotLiteral[] dotLiterals;
+
+    private NameIndex(
+        final Map<String, Integer> plainNames,
+        final DotLiteral[][] dotLiteralsByLength,
+        final DotLiteral[] dotLiterals) {
+      this.plainNames = plainNames;
+      this.dotLiteralsByLength = dotLiteralsByLength;
+      this.dotLiterals = dotLiterals;
+    }
+
+    /** @return the index of the first rule before {@code before} matching the name, or before */
+    int firstMatch(final String name, int before) {
+      if (name == null) {
+        return before;
+      }
+      final Integer plain = plainNames.get(name);
+      if (plain != null && plain < before) {
+        before = plain;
+      }
+      if (dotLiterals.length == 0) {
+        return before;
+      }
+
+      final DotLiteral[] candidates;
+      final boolean oneCharPerDot = oneCharPerDot(name);
+      if (!oneCharPerDot) {
+        candidates = dotLiterals;
+      } else if (name.length() < dotLiteralsByLength.length) {
+        candidates = dotLiteralsByLength[name.length()];
+      } else {
+        candidates = NONE;
+      }
+      for (final DotLiteral candidate : candidates) {
+        if (candidate.index >= before) {
+          break;
+        }
+        if (oneCharPerDot ? candidate.matchesChars(name) : candidate.matchesRegex(name)) {
+          return candidate.index;
+        }
+      }
+      return before;
+    }
+
+    /**
+     * A dot matches any code point but line terminators. Without surrogates or line terminators in
+     * the name, it matches exactly one char of it.
+     */
+    private static boolean oneCharPerDot(final String name) {
+      for (int i = 0; i < name.length(); i++) {
+        final char c = name.charAt(i);
+        if (Character.isSurrogate(c) || isLineTerminator(c)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static boolean isLineTerminator(final char c) {
+      return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static final class Builder {
+      private final Map<String, Integer> plainNames = new HashMap<>();
+      private final List<DotLiteral> dotLiterals = new ArrayList<>();
+
+      /** @return whether the rule could be indexed */
+      boolean add(final int index, final Pattern pattern) {
+        final String regex = pattern.pattern();
+        if (pattern.flags() != 0 || !isLiteral(regex)) {
+          return false;
+        }
+        if (regex.indexOf('.') < 0) {
+          if (!plainNames.containsKey(regex)) {
+            plainNames.put(regex, index);
+          }
+        } else {
+          dotLiterals.add(new DotLiteral(index, pattern));
+        }
+        return true;
+      }
+
+      NameIndex build() {
+        int maxLength = -1;
+        for (final DotLiteral dotLiteral : dotLiterals) {
+          maxLength = Math.max(maxLength, dotLiteral.literal.length());
+        }
+        final DotLiteral[][] byLength = new DotLiteral[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++) {
+          final List<DotLiteral> sameLength = new ArrayList<>();
+          for (final DotLiteral dotLiteral : dotLiterals) {
+            if (dotLiteral.literal.length() == length) {
+              sameLength.add(dotLiteral);
+            }
+          }
+          byLength[length] = sameLength.toArray(NONE);
+        }
+        return new NameIndex(plainNames, byLength, dotLiterals.toArray(NONE));
+      }
+
+      /** @return whether the regex has no construct but dots */
+      private static boolean isLiteral(final String regex) {
+        for (int i = 0; i < regex.length(); i++) {
+          if ("\\[](){}*+?^$|".indexOf(regex.charAt(i)) >= 0) {
+            return false;
+          }
+        }
+        return true;
+      }
+    }
+  }
+
+  private static final class DotLiteral {
+    final int index;
+    final String literal;
+    private final Pattern pattern;
+
+    DotLiteral(final int index, final Pattern pattern) {
+      this.index = index;
+      this.pattern = pattern;
+      literal = pattern.pattern();
+    }
+
+    /** Only valid when each dot matches a single char of the name. */
+    boolean matchesChars(final String name) {
+      if (name.length() != literal.length()) {
+        return false;
+      }
+      for (int i = 0; i < literal.length(); i++) {
+        final char c = literal.charAt(i);
+        if (c != '.' && c != name.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    boolean matchesRegex(final String name) {
+      return pattern.matcher(name).matches();
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package datadog.trace.common.sampling;
+
+import datadog.opentracing.DDSpan;
+import datadog.opentracing.DDTracer;
+import datadog.trace.api.sampling.PrioritySampling;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decides whether to write a trace once it is complete, when its errors and latency are known.
+ *
+ * <p>Traces with an error, traces kept by the user and traces whose root span is slower than the
+ * configured percentile of its operation are always kept. The rest is sampled deterministically
+ * at the configured rate, and {@link #TAIL_SAMPLING_RATE} is set on the root span so that the
+ * kept traces can be weighted back.
+ *
+ * <p>Traces reaching the tail sampler were already kept by the head sampler, which hashes the trace
+ * id with {@link DeterministicSampler}. Hashing it the same way would tie both decisions, for
+ * instance keeping every trace when the tail rate is above the head rate, so the trace id is salted
+ * and mixed to make the tail decision independent.
+ *
+ * <p>Latency percentiles are estimated with a small sketch per root operation. The number of
+ * operations tracked is bounded, further operations share one sketch.
+ */
+@Slf4j
+public class TailSampler {
+  public static final String TAIL_SAMPLING_RATE = "_dd.tail_psr";
+
+  static final int MAX_OPERATIONS = 128;
+
+  private static final long SALT = 0x9e3779b97f4a7c15L;
+
+  private final double sampleRate;
+  /** Unsigned, offset by {@link Long#MIN_VALUE} so that it can be compared as a signed long. */
+  private final long cutoff;
+
+  private final double latencyQuantile;
+  private final ConcurrentMap<String, LatencySketch> sketches = new ConcurrentHashMap<>();
+  private final LatencySketch otherOperations;
+
+  /**
+   * @param sampleRate rate at which traces without errors or high latency are kept
+   * @param latencyPercentile percentile of root span durations above which traces are kept
+   */
+  public TailSampler(final double sampleRate, final double latencyPercentile) {
+    this.sampleRate = sampleRate;
+    cutoff =
+        new BigDecimal(sampleRate)
+                .multiply(new BigDecimal(DDTracer.TRACE_ID_MAX))
+                .toBigInteger()
+                .longValue()
+            + Long.MIN_VALUE;
+    latencyQuantile = latencyPercentile / 100;
+    otherOperations = new LatencySketch(latencyQuantile);
+    log.debug(
+        "Tail sampling at rate {}, keeping traces above the {} latency percentile",
+        sampleRate,
+        latencyPercentile);
+  }
+
+  /**
+   * @param trace the spans about to be written
+   * @param rootSpan the local root span of the trace
+   * @return whether to write the trace
+   */
+  public boolean keep(final Collection<DDSpan> trace, final DDSpan rootSpan) {
+    final long durationNanos = rootSpan.getDurationNano();
+    if (durationNanos == 0) {
+      // A partial flush: the other chunks of the trace may have been written already.
+      return true;
+    }
+    // Slow traces are only known by recording every root span.
+    final boolean slow = isSlow(rootSpan.getOperationName(), durationNanos);
+
+    final Integer priority = rootSpan.getSamplingPriority();
+    if (slow
+        || (priority != null && priority == PrioritySampling.USER_KEEP)
+        || hasError(trace)) {
+      return true;
+    }
+    if (sampled(rootSpan.context().getTraceIdLow())) {
+      rootSpan.context().setMetric(TAIL_SAMPLING_RATE, sampleRate);
+      return true;
+    }
+    return false;
+  }
+
+  private boolean sampled(final long traceIdLow) {
+    if (sampleRate >= 1) {
+      return true;
+    } else if (sampleRate <= 0) {
+      return false;
+    }
+    return mix(traceIdLow ^ SALT) + Long.MIN_VALUE < cutoff;
+  }
+
+  /** The 64 bit finalizer of MurmurHash3: every bit of the result depends on every bit of h. */
+  private static long mix(final long value) {
+    long h = value;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private boolean isSlow(final String operationName, final long durationNanos) {
+    final LatencySketch sketch = sketch(operationName);
+    final boolean slow = durationNanos > sketch.getQuantileNanos();
+    sketch.record(durationNanos);
+    return slow;
+  }
+
+  private LatencySketch sketch(final String operationName) {
+    if (operationName == null) {
+      return otherOperations;
+    }
+    LatencySketch sketch = sketches.get(operationName);
+    if (sketch == null) {
+      if (sketches.size() >= MAX_OPERATIONS) {
+        return otherOperations;
+      }
+      final LatencySketch added = new LatencySketch(latencyQuantile);
+      sketch = sketches.putIfAbsent(operationName, added);
+      if (sketch == null) {
+        sketch = added;
+      }
+    }
+    return sketch;
+  }
+
+  private static boolean hasError(final Collection<DDSpan> trace) {
+    for (final DDSpan span : trace) {
+      if (span.context().getErrorFlag()) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,136 @@
+package datadog.trace.common.sampling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free token bucket with the semantics of Guava's bursty {@code RateLimiter}: permits are
+ * handed out at a steady rate, up to a second's worth of unused permits is stored, and the bucket
+ * starts empty.
+ *
+ * <p>The bucket is a single {@link AtomicLong} holding the time at which it will be full again (the
+ * theoretical arrival time of the generic cell rate algorithm). Acquiring a permit moves it one
+ * interval forward with a compare-and-set; once the bucket is empty, requests are refused with a
+ * plain read, so a rate limited burst doesn't write to shared memory.
+ *
+ * <p>The effective rate is the fraction of requests allowed over the current and the previous one
+ * second windows. Requests are counted on striped counters so that counting doesn't
+ * bring back the contention the bucket avoids.
+ */
+final class TokenBucketRateLimiter {
+  private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /** Number of counter stripes, a power of two. */
+  private static final int STRIPES = 16;
+
+  /** Longs between two counters, keeping each one on its own cache line. */
+  private static final int PADDING = 8;
+
+  private final long intervalNanos;
+  private final long toleranceNanos;
+  private final AtomicLong theoreticalArrivalNanos;
+
+  /** Requested then allowed counts, for each stripe. */
+  private final AtomicLongArray counts = new AtomicLongArray(2 * STRIPES * PADDING);
+
+  private final AtomicReference<Window> window;
+
+  /** @param permitsPerSecond the rate limit, must be positive */
+  TokenBucketRateLimiter(final double permitsPerSecond) {
+    if (!(permitsPerSecond > 0.0)) {
+      throw new IllegalArgumentException("rate must be positive");
+    }
+    // Bounded so that the arrival time can't overflow for tiny rates.
+    intervalNanos =
+        Math.max(1, Math.min((long) (WINDOW_NANOS / permitsPerSecond), Long.MAX_VALUE >> 2));
+    toleranceNanos = WINDOW_NANOS;
+    final long now = System.nanoTime();
+    // Start empty: only the first permit is available right away.
+    theoreticalArrivalNanos = new AtomicLong(now + toleranceNanos);
+    window = new AtomicReference<>(new Window(now, 0, 0, 0, 0));
+  }
+
+  boolean tryAcquire() {
+    final long now = System.nanoTime();
+    final boolean allowed = acquire(now);
+    count(allowed);
+    final Window current = window.get();
+    if (now - current.startNanos >= WINDOW_NANOS) {
+      roll(current, now);
+    }
+    return allowed;
+  }
+
+  private boolean acquire(final long now) {
+    while (true) {
+      final long arrival = theoreticalArrivalNanos.get();
+      if (arrival - now > toleranceNanos) {
+        return false;
+      }
+      final long next = Math.max(arrival, now) + intervalNanos;
+      if (theoreticalArrivalNanos.compareAndSet(arrival, next)) {
+        return true;
+      }
+    }
+  }
+
+  private void count(final boolean allowed) {
+    final int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+    counts.incrementAndGet(2 * stripe * PADDING);
+    if (allowed) {
+      counts.incrementAndGet((2 * stripe + 1) * PADDING);
+    }
+  }
+
+  private void roll(final Window current, final long now) {
+    final Window next =
+        new Window(now, sum(0), sum(PADDING), current.requested, current.allowed);
+    // Losing the race means another thread has rolled the window already.
+    window.compareAndSet(current, next);
+  }
+
+  /** @return the fraction of requests allowed recently, between 0 and 1 */
+  double getEffectiveRate() {
+    final Window current = window.get();
+    final long requested = sum(0) - current.previousRequested;
+    final long allowed = sum(PADDING) - current.previousAllowed;
+    return requested == 0 ? 1.0 : Math.min(1.0, (double) allowed / requested);
+  }
+
+  private long sum(final int offset) {
+    long sum = 0;
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      sum += counts.get(2 * stripe * PADDING + offset);
+    }
+    return sum;
+  }
+
+  private static final class Window {
+    final long startNanos;
+
+    /** Counts when the window started. */
+    final long requested;
+
+    final long allowed;
+
+    /** Counts when the previous window started. */
+    final long previousRequested;
+
+    final long previousAllowed;
+
+    Window(
+        final long startNanos,
+        final long requested,
+        final long allowed,
+        final long previousRequested,
+        final long previousAllowed) {
+      this.startNanos = startNanos;
+      this.requested = requested;
+      this.allowed = allowed;
+      this.previousRequested = previousRequested;
+      this.previousAllowed = previousAllowed;
+    }
+  }
+}
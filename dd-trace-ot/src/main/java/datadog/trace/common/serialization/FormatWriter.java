@@ -1,6 +1,8 @@
 package datadog.trace.common.serialization;
 
 import datadog.opentracing.DDSpan;
+import datadog.opentracing.DDSpanContext;
+import datadog.trace.api.Ids;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.List;
@@ -34,6 +36,15 @@ public abstract class FormatWriter<DEST> {
   public abstract void writeBigInteger(String key, BigInteger value, DEST destination)
       throws IOException;
 
+  /**
+   * Writes an unsigned id held as two 64 bit halves. Implementations should override this to avoid
+   * materializing a BigInteger for ids that fit into a long.
+   */
+  public void writeId(final String key, final long idHigh, final long idLow, final DEST destination)
+      throws IOException {
+    writeBigInteger(key, Ids.toUnsignedBigInteger(idHigh, idLow), destination);
+  }
+
   public void writeNumber(final String key, final Number value, final DEST destination)
       throws IOException {
     if (value instanceof Double) {
@@ -82,14 +93,15 @@ public abstract class FormatWriter<DEST> {
   }
 
   public void writeDDSpan(final DDSpan span, final DEST destination) throws IOException {
+    final DDSpanContext context = span.context();
     // Some of the tests rely on the specific ordering here.
     writeMapHeader(12, destination); // must match count below.
     /* 1  */ writeString("service", span.getServiceName(), destination);
     /* 2  */ writeString("name", span.getOperationName(), destination);
     /* 3  */ writeString("resource", span.getResourceName(), destination);
-    /* 4  */ writeBigInteger("trace_id", span.getTraceId(), destination);
-    /* 5  */ writeBigInteger("span_id", span.getSpanId(), destination);
-    /* 6  */ writeBigInteger("parent_id", span.getParentId(), destination);
+    /* 4  */ writeId("trace_id", context.getTraceIdHigh(), context.getTraceIdLow(), destination);
+    /* 5  */ writeId("span_id", context.getSpanIdHigh(), context.getSpanIdLow(), destination);
+    /* 6  */ writeId("parent_id", context.getParentIdHigh(), context.getParentIdLow(), destination);
     /* 7  */ writeLong("start", span.getStartTime(), destination);
     /* 8  */ writeLong("duration", span.getDurationNano(), destination);
     /* 9  */ writeString("type", span.getType(), destination);
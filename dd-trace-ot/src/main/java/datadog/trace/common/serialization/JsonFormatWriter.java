@@ -103,6 +103,18 @@ public class JsonFormatWriter extends FormatWriter<JsonWriter> {
     destination.value(value);
   }
 
+  @Override
+  public void writeId(
+      final String key, final long idHigh, final long idLow, final JsonWriter destination)
+      throws IOException {
+    if (idHigh == 0 && idLow >= 0) {
+      destination.name(key);
+      destination.value(idLow);
+    } else {
+      super.writeId(key, idHigh, idLow, destination);
+    }
+  }
+
   static class DDSpanAdapter extends JsonAdapter<DDSpan> {
     public static final JsonAdapter.Factory FACTORY =
         new JsonAdapter.Factory() {
@@ -92,4 +92,16 @@ public class MsgpackFormatWriter extends FormatWriter<MessagePacker> {
       destination.packBigInteger(value);
     }
   }
+
+  @Override
+  public void writeId(
+      final String key, final long idHigh, final long idLow, final MessagePacker destination)
+      throws IOException {
+    if (idHigh == 0 && idLow >= 0) {
+      destination.packString(key);
+      destination.packLong(idLow);
+    } else {
+      super.writeId(key, idHigh, idLow, destination);
+    }
+  }
 }
@@ -0,0 +1,108 @@
+package datadog.trace.common.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed size, lock-free cache with CLOCK (second chance) eviction.
+ *
+ * <p>A key can only live in a small window of slots starting at its hash. Lookups mark the entry
+ * they hit as referenced; inserting into a full window clears referenced marks until it finds an
+ * unreferenced entry to replace. Entries are immutable, so readers never see a key paired with
+ * another key's value, and concurrent inserts at worst evict each other.
+ *
+ * <p>Null keys and values are not supported.
+ */
+public final class BoundedCache<K, V> {
+  /** Number of slots a key may occupy, bounding the work done by a lookup. */
+  private static final int WINDOW = 8;
+
+  private final AtomicReferenceArray<Entry<K, V>> entries;
+  private final int mask;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  /** @param capacity maximum number of entries, rounded up to a power of two */
+  public BoundedCache(final int capacity) {
+    int size = WINDOW;
+    while (size < capacity) {
+      size <<= 1;
+    }
+    entries = new AtomicReferenceArray<>(size);
+    mask = size - 1;
+  }
+
+  /** @return the cached value, or null on a miss */
+  public V get(final K key) {
+    final int hash = hash(key);
+    for (int i = 0; i < WINDOW; i++) {
+      final Entry<K, V> entry = entries.get((hash + i) & mask);
+      if (entry != null && entry.hash == hash && entry.key.equals(key)) {
+        if (!entry.referenced) {
+          // Only write when needed, hot entries would otherwise keep bouncing their cache line.
+          entry.referenced = true;
+        }
+        hitCount.incrementAndGet();
+        return entry.value;
+      }
+    }
+    missCount.incrementAndGet();
+    return null;
+  }
+
+  public void put(final K key, final V value) {
+    final int hash = hash(key);
+    final Entry<K, V> added = new Entry<>(hash, key, value);
+    for (int i = 0; i < WINDOW; i++) {
+      final int index = (hash + i) & mask;
+      final Entry<K, V> entry = entries.get(index);
+      if (entry == null) {
+        if (entries.compareAndSet(index, null, added)) {
+          return;
+        }
+      } else if (entry.hash == hash && entry.key.equals(key)) {
+        entries.set(index, added);
+        return;
+      }
+    }
+    // The window is full: sweep it twice at most, giving referenced entries a second chance.
+    for (int i = 0; i < 2 * WINDOW; i++) {
+      final int index = (hash + (i & (WINDOW - 1))) & mask;
+      final Entry<K, V> entry = entries.get(index);
+      if (entry != null && entry.referenced) {
+        entry.referenced = false;
+      } else if (entries.compareAndSet(index, entry, added)) {
+        return;
+      }
+    }
+    entries.set(hash & mask, added);
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  private static int hash(final Object key) {
+    final int h = key.hashCode();
+    // Spread the high bits down, small tables only look at the low ones.
+    return h ^ (h >>> 16);
+  }
+
+  private static final class Entry<K, V> {
+    final int hash;
+    final K key;
+    final V value;
+    volatile boolean referenced;
+
+    Entry(final int hash, final K key, final V value) {
+      this.hash = hash;
+      this.key = key;
+      this.value = value;
+    }
+  }
+}
@@ -2,9 +2,9 @@
 package datadog.trace.common.writer;
 
 import datadog.opentracing.DDSpan;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import okhttp3.Response;
@@ -13,28 +13,97 @@ import okhttp3.Response;
 public interface Api {
   // This structure is to avoid re-copying the serialized Zipkin json buffer to a new byte[] and
   // instead just keep it
-  // in the ByteArrayOutputStream's internal buffer.
+  // in the buffer's backing array.
   public static interface SerializedBuffer {
     public int length();
 
     public void writeTo(OutputStream out, int startingIndex, int length) throws IOException;
 
     public byte[] toByteArray();
+
+    /**
+     * Called once the buffer has been sent (or dropped) so any pooled storage can be reused. The
+     * buffer must not be written out afterwards, though {@link #length()} remains valid.
+     */
+    public void release();
   }
 
-  public static class StreamingSerializedBuffer extends ByteArrayOutputStream
-      implements SerializedBuffer {
-    public StreamingSerializedBuffer(int initialCapacity) {
-      super(initialCapacity);
+  /**
+   * Growable output buffer whose backing arrays are borrowed from {@link SerializedBufferPool} and
+   * handed back on {@link #release()}.
+   */
+  public static class StreamingSerializedBuffer extends OutputStream implements SerializedBuffer {
+    private final SerializedBufferPool pool;
+    private byte[] buf;
+    private int count;
+
+    public StreamingSerializedBuffer(final int initialCapacity) {
+      this(SerializedBufferPool.INSTANCE, initialCapacity);
+    }
+
+    StreamingSerializedBuffer(final SerializedBufferPool pool, final int initialCapacity) {
+      this.pool = pool;
+      buf = pool.borrow(initialCapacity);
+    }
+
+    @Override
+    public void write(final int b) {
+      ensureCapacity(count + 1);
+      buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      ensureCapacity(count + len);
+      System.arraycopy(b, off, buf, count, len);
+      count += len;
+    }
+
+    private void ensureCapacity(final int minCapacity) {
+      checkNotReleased();
+      if (minCapacity > buf.length) {
+        final byte[] grown = pool.borrow(Math.max(minCapacity, buf.length << 1));
+        System.arraycopy(buf, 0, grown, 0, count);
+        pool.release(buf);
+        buf = grown;
+      }
     }
 
+    public int size() {
+      return count;
+    }
+
+    @Override
     public int length() {
-      return size();
+      return count;
     }
 
-    public void writeTo(OutputStream out, int startingIndex, int length) throws IOException {
+    @Override
+    public void writeTo(final OutputStream out, final int startingIndex, final int length)
+        throws IOException {
+      checkNotReleased();
       out.write(buf, startingIndex, length);
     }
+
+    @Override
+    public byte[] toByteArray() {
+      checkNotReleased();
+      return Arrays.copyOf(buf, count);
+    }
+
+    private void checkNotReleased() {
+      if (buf == null) {
+        throw new IllegalStateException("Buffer has already been released");
+      }
+    }
+
+    @Override
+    public void release() {
+      if (buf != null) {
+        pool.release(buf);
+        buf = null;
+      }
+    }
   }
 
   public static class PredeterminedByteArraySerializedBuffer implements SerializedBuffer {
@@ -55,6 +124,8 @@ public interface Api {
     public byte[] toByteArray() {
       return buf;
     }
+
+    public void release() {}
   }
 
   void addResponseListener(final ResponseListener listener);
@@ -2,6 +2,8 @@
 package datadog.trace.common.writer;
 
 import static datadog.trace.api.Config.DEFAULT_AGENT_UNIX_DOMAIN_SOCKET;
+import static datadog.trace.api.Config.DEFAULT_WRITER_OVERFLOW_FILE_SIZE_MB;
+import static datadog.trace.api.Config.DEFAULT_WRITER_SERIALIZATION_THREADS;
 
 import datadog.opentracing.DDSpan;
 import datadog.trace.common.writer.Api.ResponseListener;
@@ -25,7 +27,8 @@ import lombok.extern.slf4j.Slf4j;
  * will cause back pressure on the trace processing (serializing) thread.
  *
  * <p>If the buffer is filled traces are discarded before serializing. Once serialized every effort
- * is made to keep, to avoid wasting the serialization effort.
+ * is made to keep, to avoid wasting the serialization effort: failed sends are retried and, when
+ * an overflow file is configured, spilled to disk during longer outages.
  */
 @Slf4j
 public class DDAgentWriter implements Writer {
@@ -48,6 +51,9 @@ public class DDAgentWriter implements Writer {
     int traceBufferSize = DISRUPTOR_BUFFER_SIZE;
     Monitor monitor = new Monitor.Noop();
     int flushFrequencySeconds = 1;
+    String overflowFile = null;
+    long overflowFileSizeBytes = DEFAULT_WRITER_OVERFLOW_FILE_SIZE_MB * 1024L * 1024L;
+    int serializationThreads = DEFAULT_WRITER_SERIALIZATION_THREADS;
   }
 
   @Deprecated
@@ -75,7 +81,10 @@ public class DDAgentWriter implements Writer {
       final String unixDomainSocket,
       final int traceBufferSize,
       final Monitor monitor,
-      final int flushFrequencySeconds) {
+      final int flushFrequencySeconds,
+      final String overflowFile,
+      final long overflowFileSizeBytes,
+      final int serializationThreads) {
     if (agentApi != null) {
       api = agentApi;
     } else {
@@ -84,9 +93,17 @@ public class DDAgentWriter implements Writer {
     this.monitor = monitor;
 
     batchWritingDisruptor =
-        new BatchWritingDisruptor(traceBufferSize, flushFrequencySeconds, api, monitor, this);
+        new BatchWritingDisruptor(
+            traceBufferSize,
+            flushFrequencySeconds,
+            api,
+            monitor,
+            this,
+            overflowFile,
+            overflowFileSizeBytes);
     traceProcessingDisruptor =
-        new TraceProcessingDisruptor(traceBufferSize, api, batchWritingDisruptor, monitor, this);
+        new TraceProcessingDisruptor(
+            traceBufferSize, api, batchWritingDisruptor, monitor, this, serializationThreads);
   }
 
   public void addResponseListener(final ResponseListener listener) {
@@ -0,0 +1,68 @@
+// Modified by SignalFx
+package datadog.trace.common.writer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pool of heap byte arrays in power of two size classes, used as backing storage for {@link
+ * Api.StreamingSerializedBuffer}.
+ *
+ * <p>Arrays are borrowed on the trace processing thread and returned on the batch writing thread
+ * once the buffer holding them has been flushed, so every size class is a bounded concurrent
+ * queue. Borrowing never blocks: an empty size class allocates and a full size class drops the
+ * returned array for the GC to collect. Requests larger than the largest size class are never
+ * pooled.
+ */
+public final class SerializedBufferPool {
+  public static final SerializedBufferPool INSTANCE = new SerializedBufferPool();
+
+  private static final int MIN_SIZE_SHIFT = 8; // 256 B
+  private static final int MAX_SIZE_SHIFT = 20; // 1 MB
+  // Upper bound on the bytes retained by each size class.
+  private static final int MAX_RETAINED_BYTES_PER_CLASS = 1 << 20;
+
+  private final ArrayBlockingQueue<byte[]>[] sizeClasses;
+
+  @SuppressWarnings("unchecked")
+  SerializedBufferPool() {
+    sizeClasses = new ArrayBlockingQueue[MAX_SIZE_SHIFT - MIN_SIZE_SHIFT + 1];
+    for (int i = 0; i < sizeClasses.length; i++) {
+      final int size = 1 << (MIN_SIZE_SHIFT + i);
+      sizeClasses[i] = new ArrayBlockingQueue<>(Math.max(1, MAX_RETAINED_BYTES_PER_CLASS / size));
+    }
+  }
+
+  /**
+   * @param minCapacity the minimum length of the returned array
+   * @return an array of at least minCapacity bytes, whose contents are undefined
+   */
+  public byte[] borrow(final int minCapacity) {
+    final int sizeClass = sizeClassOf(minCapacity);
+    if (sizeClass < 0) {
+      return new byte[minCapacity];
+    }
+    final byte[] pooled = sizeClasses[sizeClass].poll();
+    return pooled != null ? pooled : new byte[1 << (MIN_SIZE_SHIFT + sizeClass)];
+  }
+
+  /** Hands an array previously obtained from {@link #borrow(int)} back to the pool. */
+  public void release(final byte[] array) {
+    final int sizeClass = sizeClassOf(array.length);
+    // Only exact size class matches are pooled, so oversized arrays are left to the GC.
+    if (sizeClass >= 0 && array.length == 1 << (MIN_SIZE_SHIFT + sizeClass)) {
+      sizeClasses[sizeClass].offer(array);
+    }
+  }
+
+  /** @return the index of the smallest size class holding capacity bytes, -1 when too large */
+  static int sizeClassOf(final int capacity) {
+    if (capacity <= 1 << MIN_SIZE_SHIFT) {
+      return 0;
+    }
+    if (capacity > 1 << MAX_SIZE_SHIFT) {
+      return -1;
+    }
+    // ceil(log2(capacity))
+    return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SIZE_SHIFT;
+  }
+}
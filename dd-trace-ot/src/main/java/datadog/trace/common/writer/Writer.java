@@ -83,7 +83,13 @@ public interface Writer extends Closeable {
       } else {
         throw new IllegalArgumentException("Unknown api type: " + config.getApiType());
       }
-      return agentWriterBuilder.agentApi(api).monitor(createMonitor(config)).build();
+      return agentWriterBuilder
+          .agentApi(api)
+          .monitor(createMonitor(config))
+          .overflowFile(config.getWriterOverflowFile())
+          .overflowFileSizeBytes(config.getWriterOverflowFileSizeMb() * 1024L * 1024L)
+          .serializationThreads(config.getWriterSerializationThreads())
+          .build();
     }
 
     private static DDAgentApi createApi(final Config config) {
@@ -8,29 +8,38 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Strings;
+import datadog.common.exec.CommonTaskExecutor;
 import datadog.opentracing.DDSpan;
+import datadog.opentracing.DDSpanContext;
 import datadog.trace.api.Config;
 import datadog.trace.api.DDSpanTypes;
 import datadog.trace.api.DDTags;
-import datadog.trace.api.Ids;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.math.BigInteger;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.zip.GZIPOutputStream;
 import lombok.extern.slf4j.Slf4j;
-
-/** Zipkin V2 JSON HTTP encoder/sender. Follows a similar pattern to DDApi. */
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * Zipkin V2 JSON HTTP encoder/sender. Follows a similar pattern to DDApi, sending through a
+ * keep-alive OkHttp client so consecutive flushes reuse pooled connections.
+ */
 @Slf4j
 public class ZipkinV2Api implements Api {
 
@@ -39,13 +48,19 @@ public class ZipkinV2Api implements Api {
   private final String traceEndpoint;
   private static final int recordedValueMaxLength = Config.get().getRecordedValueMaxLength();
   private static final boolean gzipContentEncoding = Config.get().isZipkinGZIPContentEncoding();
+  private static final int httpTimeoutMillis = Config.get().getZipkinHttpTimeoutMillis();
+  private static final int httpMaxIdleConnections = Config.get().getZipkinHttpMaxIdleConnections();
+  private static final boolean http2Cleartext = Config.get().isZipkinHttp2Cleartext();
+  private static final int CONNECTION_KEEP_ALIVE_MINUTES = 5;
+  private static final MediaType JSON = MediaType.get("application/json");
 
   // Used to throttle logging when spans can't be sent
   private volatile long nextAllowedLogTime = 0;
   private static final long MILLISECONDS_BETWEEN_ERROR_LOG = TimeUnit.MINUTES.toMillis(3);
 
   private final List<ResponseListener> responseListeners = new ArrayList<>();
-  private URL tracesUrl;
+  private final OkHttpClient httpClient;
+  private HttpUrl tracesUrl;
 
   ZipkinV2Api(final String host, final int port, final String path, final boolean useHTTPS) {
     String portStr = ":" + String.valueOf(port);
@@ -53,11 +68,11 @@ public class ZipkinV2Api implements Api {
       portStr = "";
     }
     traceEndpoint = (useHTTPS ? "https" : "http") + "://" + host + portStr + path;
-    try {
-      tracesUrl = new URL(traceEndpoint);
-    } catch (final MalformedURLException e) {
-      log.error("Invalid URL for Zipkin Collector.", e);
+    tracesUrl = HttpUrl.parse(traceEndpoint);
+    if (tracesUrl == null) {
+      log.error("Invalid URL for Zipkin Collector: {}", traceEndpoint);
     }
+    httpClient = buildHttpClient(useHTTPS);
   }
 
   @Override
@@ -81,20 +96,31 @@ public class ZipkinV2Api implements Api {
       }
     }
 
-    return sendSerializedTraces(serializedTraces.size(), sizeInBytes, serializedTraces);
+    try {
+      return sendSerializedTraces(serializedTraces.size(), sizeInBytes, serializedTraces);
+    } finally {
+      for (final SerializedBuffer serializedTrace : serializedTraces) {
+        serializedTrace.release();
+      }
+    }
   }
 
   @Override
   public SerializedBuffer serializeTrace(final List<DDSpan> trace) throws IOException {
     final StreamingSerializedBuffer stream = new StreamingSerializedBuffer(trace.size() * 128);
-    final JsonGenerator jsonGenerator = JSON_FACTORY.createGenerator(stream, JsonEncoding.UTF8);
+    try {
+      final JsonGenerator jsonGenerator = JSON_FACTORY.createGenerator(stream, JsonEncoding.UTF8);
 
-    jsonGenerator.writeStartArray();
-    for (int i = 0; i < trace.size(); i++) {
-      writeSpan(trace.get(i), jsonGenerator);
+      jsonGenerator.writeStartArray();
+      for (int i = 0; i < trace.size(); i++) {
+        writeSpan(trace.get(i), jsonGenerator);
+      }
+      jsonGenerator.writeEndArray();
+      jsonGenerator.close();
+    } catch (final Throwable e) {
+      stream.release();
+      throw e;
     }
-    jsonGenerator.writeEndArray();
-    jsonGenerator.close();
     return stream;
   }
 
@@ -108,46 +134,18 @@ public class ZipkinV2Api implements Api {
         return Response.failed(new Exception("Invalid Zipkin Collector"));
       }
 
-      final HttpURLConnection httpCon = getHttpURLConnection(tracesUrl);
-
-      try (OutputStream out =
-          gzipContentEncoding
-              ? new GZIPOutputStream(httpCon.getOutputStream())
-              : httpCon.getOutputStream()) {
-
-        int traceCount = 0;
-
-        out.write('[');
-        for (final SerializedBuffer trace : traces) {
-          traceCount++;
-          if (trace.length() == 2) {
-            // empty trace
-            continue;
-          }
-          // don't write nested array brackets
-          trace.writeTo(out, 1, trace.length() - 2);
-
-          // don't write comma for final span
-          if (traceCount != traces.size()) {
-            out.write(',');
-          }
-        }
-        out.write(']');
+      final Request.Builder requestBuilder = new Request.Builder().url(tracesUrl);
+      if (gzipContentEncoding) {
+        requestBuilder.addHeader("Content-Encoding", "gzip");
       }
+      final Request request = requestBuilder.post(createRequestBody(traces)).build();
 
-      final int responseCode = httpCon.getResponseCode();
-
-      final StringBuilder sb = new StringBuilder();
-      try (BufferedReader responseReader =
-          new BufferedReader(
-              new InputStreamReader(httpCon.getInputStream(), StandardCharsets.UTF_8))) {
-
-        String line;
-        while ((line = responseReader.readLine()) != null) {
-          sb.append(line);
-        }
+      final int responseCode;
+      final String responseContent;
+      try (final okhttp3.Response response = httpClient.newCall(request).execute()) {
+        responseCode = response.code();
+        responseContent = response.body().string();
       }
-      String responseContent = sb.toString();
 
       if (responseCode != 200 && responseCode != 202) {
         if (log.isDebugEnabled()) {
@@ -193,25 +191,107 @@ public class ZipkinV2Api implements Api {
     }
   }
 
-  private void writeIdField(
-      final JsonGenerator jsonGenerator, final String key, final BigInteger decimalId)
+  /**
+   * The body may be written more than once when OkHttp retries a request on a stale pooled
+   * connection, so it is replayed from the serialized buffers, which are only released once this
+   * send has returned.
+   */
+  private static RequestBody createRequestBody(final List<SerializedBuffer> traces)
+      throws IOException {
+    if (!gzipContentEncoding) {
+      return new RequestBody() {
+        @Override
+        public MediaType contentType() {
+          return JSON;
+        }
+
+        @Override
+        public long contentLength() {
+          return jsonArrayLength(traces);
+        }
+
+        @Override
+        public void writeTo(final BufferedSink sink) throws IOException {
+          writeJsonArray(traces, sink.outputStream());
+        }
+      };
+    }
+
+    // Compress once up front so the request carries a Content-Length instead of being chunked.
+    final Buffer compressed = new Buffer();
+    try (final BufferedSink gzipSink = Okio.buffer(new GzipSink(compressed))) {
+      writeJsonArray(traces, gzipSink.outputStream());
+    }
+    return new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return JSON;
+      }
+
+      @Override
+      public long contentLength() {
+        return compressed.size();
+      }
+
+      @Override
+      public void writeTo(final BufferedSink sink) throws IOException {
+        // A clone shares the underlying segments rather than copying them.
+        sink.writeAll(compressed.clone());
+      }
+    };
+  }
+
+  /** Joins the serialized traces, each a JSON array of spans, into a single JSON array. */
+  private static void writeJsonArray(final List<SerializedBuffer> traces, final OutputStream out)
+      throws IOException {
+    boolean first = true;
+    out.write('[');
+    for (final SerializedBuffer trace : traces) {
+      if (trace.length() == 2) {
+        // empty trace
+        continue;
+      }
+      if (!first) {
+        out.write(',');
+      }
+      first = false;
+      // don't write nested array brackets
+      trace.writeTo(out, 1, trace.length() - 2);
+    }
+    out.write(']');
+  }
+
+  private static long jsonArrayLength(final List<SerializedBuffer> traces) {
+    long length = 2;
+    int written = 0;
+    for (final SerializedBuffer trace : traces) {
+      if (trace.length() != 2) {
+        length += trace.length() - 2;
+        written++;
+      }
+    }
+    return written == 0 ? length : length + written - 1;
+  }
+
+  private void writeIdField(final JsonGenerator jsonGenerator, final String key, final String hexId)
       throws IOException {
     jsonGenerator.writeFieldName(key);
-    final char[] asHex = Ids.idToHexChars(decimalId);
-    jsonGenerator.writeString(asHex, 0, asHex.length);
+    // Writing a String copies into the generator's buffer without allocating
+    jsonGenerator.writeString(hexId);
   }
 
   private void writeSpan(final DDSpan span, final JsonGenerator jsonGenerator) throws IOException {
     final String spanKind = deriveKind(span);
     final String spanName = getSpanName(span, spanKind);
 
+    final DDSpanContext context = span.context();
+
     jsonGenerator.writeStartObject();
-    writeIdField(jsonGenerator, "id", span.getSpanId());
+    writeIdField(jsonGenerator, "id", context.getSpanIdHex());
     jsonGenerator.writeStringField("name", spanName);
-    writeIdField(jsonGenerator, "traceId", span.getTraceId());
-    final BigInteger parentId = span.getParentId();
-    if (!BigInteger.ZERO.equals(parentId)) {
-      writeIdField(jsonGenerator, "parentId", parentId);
+    writeIdField(jsonGenerator, "traceId", context.getTraceIdHex());
+    if (!context.isRootContext()) {
+      writeIdField(jsonGenerator, "parentId", context.getParentIdHex());
     }
 
     if (!Strings.isNullOrEmpty(spanKind)) {
@@ -306,20 +386,28 @@ public class ZipkinV2Api implements Api {
     return span.getOperationName();
   }
 
-  private static HttpURLConnection getHttpURLConnection(final URL url) throws IOException {
-    final HttpURLConnection httpCon;
-    httpCon = (HttpURLConnection) url.openConnection();
-    httpCon.setReadTimeout(30 * 1000);
-    httpCon.setConnectTimeout(30 * 1000);
-    httpCon.setDoOutput(true);
-    httpCon.setDoInput(true);
-    httpCon.setRequestMethod("POST");
-    httpCon.setRequestProperty("Content-Type", "application/json");
-    if (gzipContentEncoding) {
-      httpCon.setRequestProperty("Content-Encoding", "gzip");
+  private static OkHttpClient buildHttpClient(final boolean useHTTPS) {
+    final OkHttpClient.Builder builder =
+        new OkHttpClient.Builder()
+            .connectTimeout(httpTimeoutMillis, TimeUnit.MILLISECONDS)
+            .writeTimeout(httpTimeoutMillis, TimeUnit.MILLISECONDS)
+            .readTimeout(httpTimeoutMillis, TimeUnit.MILLISECONDS)
+            // Flushes come from a single writer thread, so only a few connections are ever idle.
+            .connectionPool(
+                new ConnectionPool(
+                    httpMaxIdleConnections, CONNECTION_KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+
+            // We don't do async so this shouldn't matter, but just to be safe...
+            .dispatcher(new Dispatcher(CommonTaskExecutor.INSTANCE));
+    if (http2Cleartext) {
+      if (useHTTPS) {
+        // HTTP/2 over TLS is negotiated through ALPN without any configuration.
+        log.debug("Ignoring {} for an https Zipkin endpoint.", Config.ZIPKIN_HTTP2_CLEARTEXT);
+      } else {
+        builder.protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+      }
     }
-
-    return httpCon;
+    return builder.build();
   }
 
   private String truncatedString(String value) {
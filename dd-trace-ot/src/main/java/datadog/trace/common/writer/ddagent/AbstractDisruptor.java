@@ -1,13 +1,12 @@
 package datadog.trace.common.writer.ddagent;
 
 import com.lmax.disruptor.EventHandler;
-import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import datadog.common.exec.DaemonThreadFactory;
 import java.io.Closeable;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -22,15 +21,19 @@ abstract class AbstractDisruptor<T> implements Closeable {
   protected final DisruptorEvent.DataTranslator<T> dataTranslator =
       new DisruptorEvent.DataTranslator<>();
 
-  public AbstractDisruptor(final int disruptorSize, final EventHandler<DisruptorEvent<T>> handler) {
+  @SafeVarargs
+  public AbstractDisruptor(
+      final int disruptorSize,
+      final WaitStrategy waitStrategy,
+      final EventHandler<DisruptorEvent<T>>... handlers) {
     disruptor =
         new Disruptor<>(
             new DisruptorEvent.Factory<T>(),
             Math.max(2, Integer.highestOneBit(disruptorSize - 1) << 1), // Next power of 2
             getThreadFactory(),
             ProducerType.MULTI,
-            new SleepingWaitStrategy(0, TimeUnit.MILLISECONDS.toNanos(5)));
-    disruptor.handleEventsWith(handler);
+            waitStrategy);
+    disruptor.handleEventsWith(handlers);
   }
 
   protected abstract DaemonThreadFactory getThreadFactory();
@@ -0,0 +1,74 @@
+// Modified by SignalFx
+package datadog.trace.common.writer.ddagent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AIMD controller for the batch writer flush policy, fed with the outcome and latency of every
+ * send.
+ *
+ * <p>While sends succeed within the target latency the payload threshold grows additively, so
+ * batches get larger, and the flush interval shrinks back towards its configured value. A slow or
+ * failed send halves the payload threshold and doubles the flush interval, so an overloaded
+ * endpoint receives smaller requests, less often.
+ *
+ * <p>Not thread safe, only used from the batch writing thread.
+ */
+class AdaptiveFlushController {
+  static final long TARGET_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+  static final int MIN_PAYLOAD_BYTES = 500_000;
+  static final int PAYLOAD_INCREMENT_BYTES = 500_000;
+  static final int MAX_INTERVAL_MULTIPLIER = 8;
+
+  private final int maxPayloadBytes;
+  private final long baseIntervalNanos;
+  private final long maxIntervalNanos;
+  private int payloadBytes;
+  private long intervalNanos;
+
+  /**
+   * @param maxPayloadBytes the largest (and initial) payload threshold
+   * @param baseIntervalNanos the configured, shortest (and initial) flush interval, or a non
+   *     positive value to disable timed flushes
+   */
+  AdaptiveFlushController(final int maxPayloadBytes, final long baseIntervalNanos) {
+    this.maxPayloadBytes = maxPayloadBytes;
+    this.baseIntervalNanos = baseIntervalNanos;
+    maxIntervalNanos = baseIntervalNanos * MAX_INTERVAL_MULTIPLIER;
+    payloadBytes = maxPayloadBytes;
+    intervalNanos = baseIntervalNanos;
+  }
+
+  /** @return the buffered size at which a flush is triggered */
+  int payloadBytes() {
+    return payloadBytes;
+  }
+
+  /** @return the time between timed flushes, non positive if timed flushes are disabled */
+  long intervalNanos() {
+    return intervalNanos;
+  }
+
+  /**
+   * Adjusts the policy after a send.
+   *
+   * @return whether the payload threshold or the flush interval changed
+   */
+  boolean onSend(final boolean success, final long latencyNanos) {
+    final int previousPayloadBytes = payloadBytes;
+    final long previousIntervalNanos = intervalNanos;
+
+    if (success && latencyNanos <= TARGET_LATENCY_NANOS) {
+      payloadBytes = Math.min(maxPayloadBytes, payloadBytes + PAYLOAD_INCREMENT_BYTES);
+      // Give back half of the extra interval, so recovery takes a few sends.
+      intervalNanos -= (intervalNanos - baseIntervalNanos + 1) / 2;
+    } else {
+      payloadBytes = Math.max(MIN_PAYLOAD_BYTES, payloadBytes / 2);
+      if (0 < baseIntervalNanos) {
+        intervalNanos = Math.min(maxIntervalNanos, intervalNanos * 2);
+      }
+    }
+
+    return payloadBytes != previousPayloadBytes || intervalNanos != previousIntervalNanos;
+  }
+}
@@ -2,13 +2,17 @@
 package datadog.trace.common.writer.ddagent;
 
 import com.lmax.disruptor.EventHandler;
-import datadog.common.exec.CommonTaskExecutor;
+import com.lmax.disruptor.LifecycleAware;
+import com.lmax.disruptor.TimeoutHandler;
 import datadog.common.exec.DaemonThreadFactory;
 import datadog.trace.common.writer.Api;
 import datadog.trace.common.writer.DDAgentWriter;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 
@@ -16,13 +20,28 @@ import lombok.extern.slf4j.Slf4j;
  * Disruptor that takes serialized traces and batches them into appropriately sized requests.
  *
  * <p>publishing to the buffer will block if the buffer is full.
+ *
+ * <p>Batches that fail to send are kept, already serialized, in a memory bounded retry queue and
+ * resent with exponential backoff. When the queue is full the oldest batches are evicted, or
+ * spilled to a memory-mapped {@link OverflowRingFile} when one is configured and replayed from it
+ * once the retry queue has drained.
+ *
+ * <p>The flush interval and payload threshold adapt to the latency and errors of the endpoint, see
+ * {@link AdaptiveFlushController}.
+ *
+ * <p>Timed flushes and retries don't rely on incoming events: the writer thread parks until the
+ * next deadline using a {@link DeadlineWaitStrategy}, and indefinitely while there is nothing to
+ * send.
  */
 @Slf4j
 public class BatchWritingDisruptor extends AbstractDisruptor<Api.SerializedBuffer> {
-  private static final int FLUSH_PAYLOAD_BYTES = 5_000_000; // 5 MB
+  private static final int MAX_FLUSH_PAYLOAD_BYTES = 5_000_000; // 5 MB
+  private static final long MAX_RETRY_QUEUE_BYTES = 2L * MAX_FLUSH_PAYLOAD_BYTES;
+  private static final int MAX_SEND_ATTEMPTS = 5;
+  private static final long INITIAL_RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final long MAX_RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
 
-  private final DisruptorEvent.HeartbeatTranslator<Api.SerializedBuffer> heartbeatTranslator =
-      new DisruptorEvent.HeartbeatTranslator();
+  private final BatchWritingHandler handler;
 
   public BatchWritingDisruptor(
       final int disruptorSize,
@@ -30,22 +49,36 @@ public class BatchWritingDisruptor extends AbstractDisruptor<Api.SerializedBuffe
       final Api api,
       final Monitor monitor,
       final DDAgentWriter writer) {
-    super(disruptorSize, new BatchWritingHandler(flushFrequencySeconds, api, monitor, writer));
-
-    if (0 < flushFrequencySeconds) {
-      // This provides a steady stream of events to enable flushing with a low throughput.
-      final Runnable heartbeat =
-          new Runnable() {
-            @Override
-            public void run() {
-              // Only add if the buffer is empty.
-              if (running && getCurrentCount() == 0) {
-                disruptor.getRingBuffer().tryPublishEvent(heartbeatTranslator);
-              }
-            }
-          };
-      CommonTaskExecutor.INSTANCE.scheduleAtFixedRate(heartbeat, 100, 100, TimeUnit.MILLISECONDS);
-    }
+    this(disruptorSize, flushFrequencySeconds, api, monitor, writer, null, 0);
+  }
+
+  /**
+   * @param overflowFile path of the ring file that batches evicted from the retry queue are
+   *     spilled to, or null to drop them
+   * @param overflowFileSizeBytes size of the ring file
+   */
+  public BatchWritingDisruptor(
+      final int disruptorSize,
+      final int flushFrequencySeconds,
+      final Api api,
+      final Monitor monitor,
+      final DDAgentWriter writer,
+      final String overflowFile,
+      final long overflowFileSizeBytes) {
+    this(
+        disruptorSize,
+        new BatchWritingHandler(
+            flushFrequencySeconds,
+            api,
+            monitor,
+            writer,
+            OverflowRingFile.openOrNull(
+                overflowFile, overflowFileSizeBytes, api.getClass().getName())));
+  }
+
+  private BatchWritingDisruptor(final int disruptorSize, final BatchWritingHandler handler) {
+    super(disruptorSize, handler.waitStrategy, handler);
+    this.handler = handler;
   }
 
   @Override
@@ -53,6 +86,16 @@ public class BatchWritingDisruptor extends AbstractDisruptor<Api.SerializedBuffe
     return DaemonThreadFactory.TRACE_WRITER;
   }
 
+  @Override
+  public void close() {
+    final boolean started = running;
+    super.close();
+    if (!started) {
+      // Otherwise the writer thread shuts the handler down once it stops.
+      handler.onShutdown();
+    }
+  }
+
   @Override
   public boolean publish(final Api.SerializedBuffer data, final int representativeCount) {
     // blocking call to ensure serialized traces aren't discarded and apply back pressure.
@@ -62,30 +105,45 @@ public class BatchWritingDisruptor extends AbstractDisruptor<Api.SerializedBuffe
 
   // Intentionally not thread safe.
   private static class BatchWritingHandler
-      implements EventHandler<DisruptorEvent<Api.SerializedBuffer>> {
+      implements EventHandler<DisruptorEvent<Api.SerializedBuffer>>,
+          TimeoutHandler,
+          LifecycleAware {
 
-    private final long flushFrequencyNanos;
+    private final DeadlineWaitStrategy waitStrategy = new DeadlineWaitStrategy();
+    private final AdaptiveFlushController flushController;
     private final Api api;
     private final Monitor monitor;
     private final DDAgentWriter writer;
-    private final List<Api.SerializedBuffer> serializedTraces = new ArrayList<>();
+    private final OverflowRingFile overflow;
+    private List<Api.SerializedBuffer> serializedTraces = new ArrayList<>();
     private int representativeCount = 0;
     private int sizeInBytes = 0;
     private long nextScheduledFlush;
 
+    // Batches whose send failed, oldest first, waiting for the backoff to elapse.
+    private final ArrayDeque<PendingBatch> retryQueue = new ArrayDeque<>();
+    private long retryQueueBytes = 0;
+    private int consecutiveFailures = 0;
+    private long nextRetry;
+
     private BatchWritingHandler(
         final int flushFrequencySeconds,
         final Api api,
         final Monitor monitor,
-        final DDAgentWriter writer) {
-      flushFrequencyNanos = TimeUnit.SECONDS.toNanos(flushFrequencySeconds);
+        final DDAgentWriter writer,
+        final OverflowRingFile overflow) {
+      flushController =
+          new AdaptiveFlushController(
+              MAX_FLUSH_PAYLOAD_BYTES, TimeUnit.SECONDS.toNanos(flushFrequencySeconds));
       scheduleNextFlush();
       this.api = api;
       this.monitor = monitor;
       this.writer = writer;
+      this.overflow = overflow;
+      // Replay batches left in the overflow file as soon as the writer starts.
+      updateDeadline();
     }
 
-    // TODO: reduce byte[] garbage by keeping the byte[] on the event and copy before returning.
     @Override
     public void onEvent(
         final DisruptorEvent<Api.SerializedBuffer> event,
@@ -93,6 +151,10 @@ public class BatchWritingDisruptor extends AbstractDisruptor<Api.SerializedBuffe
         final boolean endOfBatch) {
       try {
         if (event.data != null) {
+          if (serializedTraces.isEmpty() && nextScheduledFlush <= System.nanoTime()) {
+            // Idle writers don't flush, start a new interval rather than sending this trace alone.
+            scheduleNextFlush();
+          }
           sizeInBytes += event.data.length();
           serializedTraces.add(event.data);
         }
@@ -100,14 +162,59 @@ public class BatchWritingDisruptor extends AbstractDisruptor<Api.SerializedBuffe
         // Flush events might increase this with no data.
         representativeCount += event.representativeCount;
 
-        if (event.flushLatch != null
-            || FLUSH_PAYLOAD_BYTES <= sizeInBytes
-            || nextScheduledFlush <= System.nanoTime()) {
-          flush(event.flushLatch, FLUSH_PAYLOAD_BYTES <= sizeInBytes);
+        retryIfDue();
+
+        final boolean payloadFull = flushController.payloadBytes() <= sizeInBytes;
+        if (event.flushLatch != null || payloadFull || nextScheduledFlush <= System.nanoTime()) {
+          flush(event.flushLatch, payloadFull);
         }
       } finally {
         event.reset();
+        updateDeadline();
+      }
+    }
+
+    /** Called when the deadline set by {@link #updateDeadline()} passes without new events. */
+    @Override
+    public void onTimeout(final long sequence) {
+      try {
+        retryIfDue();
+
+        if (nextScheduledFlush <= System.nanoTime()) {
+          flush(null, false);
+        }
+      } finally {
+        updateDeadline();
+      }
+    }
+
+    private void retryIfDue() {
+      if (nextRetry <= System.nanoTime()) {
+        if (retryQueue.isEmpty() && hasOverflow()) {
+          // Replay spilled batches (possibly left over by a previous run) one at a time.
+          final PendingBatch replayed = overflow.poll();
+          if (replayed != null) {
+            enqueueRetry(replayed);
+          }
+        }
+        if (!retryQueue.isEmpty()) {
+          retryOldest();
+        }
+      }
+    }
+
+    /** Wakes the writer thread for the earliest pending flush or retry, if any. */
+    private void updateDeadline() {
+      long deadline =
+          serializedTraces.isEmpty() ? DeadlineWaitStrategy.NO_DEADLINE : nextScheduledFlush;
+      if (!retryQueue.isEmpty() || hasOverflow()) {
+        deadline = Math.min(deadline, nextRetry);
       }
+      waitStrategy.setDeadline(deadline);
+    }
+
+    private boolean hasOverflow() {
+      return overflow != null && !overflow.isEmpty();
     }
 
     private void flush(final CountDownLatch flushLatch, final boolean early) {
@@ -118,25 +225,66 @@ public class BatchWritingDisruptor extends AbstractDisruptor<Api.SerializedBuffe
           return;
         }
 
-        // TODO add retry and rate limiting
-        final Api.Response response =
-            api.sendSerializedTraces(representativeCount, sizeInBytes, serializedTraces);
+        final PendingBatch batch =
+            new PendingBatch(serializedTraces, representativeCount, sizeInBytes);
+        serializedTraces = new ArrayList<>();
 
         monitor.onFlush(writer, early);
 
-        if (response.success()) {
-          log.debug("Successfully sent {} traces to the API", serializedTraces.size());
+        if (!retryQueue.isEmpty()) {
+          // The agent is unavailable, keep sending in order once the backoff elapses.
+          enqueueRetry(batch);
+          return;
+        }
 
-          monitor.onSend(writer, representativeCount, sizeInBytes, response);
+        batch.attempts++;
+        final Api.Response response = send(batch);
+        if (!response.success() && isRetryable(response)) {
+          enqueueRetry(batch);
+          scheduleNextRetry();
         } else {
-          log.debug(
-              "Failed to send {} traces (representing {}) of size {} bytes to the API",
-              serializedTraces.size(),
-              representativeCount,
-              sizeInBytes);
+          batch.release();
+        }
+      } finally {
+        sizeInBytes = 0;
+        representativeCount = 0;
+        scheduleNextFlush();
 
-          monitor.onFailedSend(writer, representativeCount, sizeInBytes, response);
+        if (flushLatch != null) {
+          flushLatch.countDown();
         }
+      }
+    }
+
+    private void retryOldest() {
+      final PendingBatch batch = retryQueue.peekFirst();
+      if (batch.attempts > 0) {
+        // Batches queued behind a retry were never sent, their first send is no retry.
+        monitor.onRetry(writer, batch.representativeCount, batch.sizeInBytes, batch.attempts);
+      }
+
+      batch.attempts++;
+      final Api.Response response = send(batch);
+      if (response.success()) {
+        removeOldest().release();
+        consecutiveFailures = 0;
+        // Drain the rest of the queue on the following events.
+        nextRetry = System.nanoTime();
+      } else if (!isRetryable(response) || batch.attempts >= MAX_SEND_ATTEMPTS) {
+        evict(removeOldest());
+        scheduleNextRetry();
+      } else {
+        scheduleNextRetry();
+      }
+    }
+
+    private Api.Response send(final PendingBatch batch) {
+      final long start = System.nanoTime();
+      Api.Response response;
+      try {
+        response =
+            api.sendSerializedTraces(
+                batch.representativeCount, batch.sizeInBytes, batch.serializedTraces);
       } catch (final Throwable e) {
         log.debug("Failed to send traces to the API: {}", e.getMessage());
 
@@ -144,26 +292,118 @@ public class BatchWritingDisruptor extends AbstractDisruptor<Api.SerializedBuffe
         // shouldn't occur.
         // However, just to be safe to start, create a failed Response to handle any
         // spurious Throwable-s.
-        monitor.onFailedSend(
-            writer, representativeCount, sizeInBytes, DDAgentApi.Response.failed(e));
-      } finally {
-        serializedTraces.clear();
-        sizeInBytes = 0;
-        representativeCount = 0;
-        scheduleNextFlush();
+        response = DDAgentApi.Response.failed(e);
+      }
 
-        if (flushLatch != null) {
-          flushLatch.countDown();
+      if (flushController.onSend(response.success(), System.nanoTime() - start)) {
+        monitor.onFlushPolicyChange(
+            writer,
+            TimeUnit.NANOSECONDS.toMillis(flushController.intervalNanos()),
+            flushController.payloadBytes());
+      }
+
+      if (response.success()) {
+        log.debug("Successfully sent {} traces to the API", batch.serializedTraces.size());
+
+        monitor.onSend(writer, batch.representativeCount, batch.sizeInBytes, response);
+      } else {
+        log.debug(
+            "Failed to send {} traces (representing {}) of size {} bytes to the API",
+            batch.serializedTraces.size(),
+            batch.representativeCount,
+            batch.sizeInBytes);
+
+        monitor.onFailedSend(writer, batch.representativeCount, batch.sizeInBytes, response);
+      }
+      return response;
+    }
+
+    /** Communication failures and server side errors are worth retrying, client errors are not. */
+    private static boolean isRetryable(final Api.Response response) {
+      final Integer status = response.status();
+      return status == null || status >= 500 || status == 408 || status == 429;
+    }
+
+    private void enqueueRetry(final PendingBatch batch) {
+      // Oldest batches leave the heap first to bound the memory held by unsent traces.
+      while (!retryQueue.isEmpty() && MAX_RETRY_QUEUE_BYTES < retryQueueBytes + batch.sizeInBytes) {
+        spill(removeOldest());
+      }
+      retryQueue.addLast(batch);
+      retryQueueBytes += batch.sizeInBytes;
+    }
+
+    private PendingBatch removeOldest() {
+      final PendingBatch batch = retryQueue.removeFirst();
+      retryQueueBytes -= batch.sizeInBytes;
+      return batch;
+    }
+
+    /** Moves a batch to the overflow file, or evicts it if there is none. */
+    private void spill(final PendingBatch batch) {
+      if (overflow == null || !overflow.canHold(batch)) {
+        evict(batch);
+        return;
+      }
+      while (!overflow.hasRoomFor(batch)) {
+        log.debug("Trace overflow file is full, dropping its oldest batch");
+        monitor.onEvict(writer, overflow.oldestRepresentativeCount(), overflow.oldestSizeInBytes());
+        overflow.dropOldest();
+      }
+      try {
+        overflow.append(batch);
+        batch.release();
+      } catch (final IOException | RuntimeException e) {
+        log.debug("Failed to write traces to the overflow file: {}", e.getMessage());
+        evict(batch);
+      }
+    }
+
+    @Override
+    public void onStart() {}
+
+    /** Spills the batches still waiting for a retry, so that the next run can send them. */
+    @Override
+    public void onShutdown() {
+      while (!retryQueue.isEmpty()) {
+        spill(removeOldest());
+      }
+      if (overflow != null) {
+        try {
+          overflow.close();
+        } catch (final IOException e) {
+          log.debug("Failed to close the trace overflow file: {}", e.getMessage());
         }
       }
     }
 
+    private void evict(final PendingBatch batch) {
+      log.debug(
+          "Dropping {} traces (representing {}) after {} send attempts",
+          batch.serializedTraces.size(),
+          batch.representativeCount,
+          batch.attempts);
+      monitor.onEvict(writer, batch.representativeCount, batch.sizeInBytes);
+      batch.release();
+    }
+
+    /** Exponential backoff with jitter, so that writers don't retry in lockstep. */
+    private void scheduleNextRetry() {
+      consecutiveFailures++;
+      final long backoff =
+          Math.min(
+              MAX_RETRY_BACKOFF_NANOS,
+              INITIAL_RETRY_BACKOFF_NANOS << Math.min(consecutiveFailures - 1, 30));
+      final long half = backoff >> 1;
+      nextRetry = System.nanoTime() + half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
     private void scheduleNextFlush() {
-      // TODO: adjust this depending on responsiveness of the agent.
-      if (0 < flushFrequencyNanos) {
-        nextScheduledFlush = System.nanoTime() + flushFrequencyNanos;
+      final long flushIntervalNanos = flushController.intervalNanos();
+      if (0 < flushIntervalNanos) {
+        nextScheduledFlush = System.nanoTime() + flushIntervalNanos;
       } else {
-        nextScheduledFlush = Long.MAX_VALUE;
+        nextScheduledFlush = DeadlineWaitStrategy.NO_DEADLINE;
       }
     }
   }
@@ -0,0 +1,90 @@
+// Modified by SignalFx
+package datadog.trace.common.writer.ddagent;
+
+import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.TimeoutException;
+import com.lmax.disruptor.WaitStrategy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Blocking wait strategy whose timeout is a deadline chosen by the consumer, so that an idle
+ * consumer parks indefinitely instead of polling.
+ *
+ * <p>The consumer sets a deadline when it has timed work pending (a scheduled flush or retry).
+ * Once it passes without new events, the processor is woken with a {@link TimeoutException} and
+ * calls the handler's {@link com.lmax.disruptor.TimeoutHandler}. Producers only take the lock
+ * when the consumer is actually parked, as in disruptor's lite blocking strategies.
+ */
+class DeadlineWaitStrategy implements WaitStrategy {
+  static final long NO_DEADLINE = Long.MAX_VALUE;
+
+  private final Lock lock = new ReentrantLock();
+  private final Condition processorNotifyCondition = lock.newCondition();
+  private final AtomicBoolean signalNeeded = new AtomicBoolean(false);
+  private volatile long deadline = NO_DEADLINE;
+
+  /**
+   * @param deadline {@link System#nanoTime()} at which a waiting consumer times out, or {@link
+   *     #NO_DEADLINE} to wait for events only
+   */
+  void setDeadline(final long deadline) {
+    this.deadline = deadline;
+  }
+
+  @Override
+  public long waitFor(
+      final long sequence,
+      final Sequence cursorSequence,
+      final Sequence dependentSequence,
+      final SequenceBarrier barrier)
+      throws AlertException, InterruptedException, TimeoutException {
+    if (cursorSequence.get() < sequence) {
+      lock.lock();
+      try {
+        do {
+          signalNeeded.getAndSet(true);
+          if (cursorSequence.get() >= sequence) {
+            break;
+          }
+          barrier.checkAlert();
+
+          final long deadline = this.deadline;
+          if (deadline == NO_DEADLINE) {
+            processorNotifyCondition.await();
+          } else {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+              throw TimeoutException.INSTANCE;
+            }
+            processorNotifyCondition.awaitNanos(remaining);
+          }
+        } while (cursorSequence.get() < sequence);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    long availableSequence;
+    while ((availableSequence = dependentSequence.get()) < sequence) {
+      barrier.checkAlert();
+    }
+    return availableSequence;
+  }
+
+  @Override
+  public void signalAllWhenBlocking() {
+    if (signalNeeded.getAndSet(false)) {
+      lock.lock();
+      try {
+        processorNotifyCondition.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
@@ -1,20 +1,23 @@
 package datadog.trace.common.writer.ddagent;
 
 import com.lmax.disruptor.EventFactory;
-import com.lmax.disruptor.EventTranslator;
 import com.lmax.disruptor.EventTranslatorTwoArg;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class DisruptorEvent<T> {
   // Memory ordering enforced by disruptor's memory fences, so volatile not required.
   T data = null;
   int representativeCount = 0;
   CountDownLatch flushLatch = null;
+  // Number of handlers that have reached this flush event when several handlers share the buffer.
+  final AtomicInteger flushArrivals = new AtomicInteger();
 
   void reset() {
     data = null;
     representativeCount = 0;
     flushLatch = null;
+    flushArrivals.set(0);
   }
 
   static class Factory<T> implements EventFactory<DisruptorEvent<T>> {
@@ -37,14 +40,6 @@ class DisruptorEvent<T> {
     }
   }
 
-  static class HeartbeatTranslator<T> implements EventTranslator<DisruptorEvent<T>> {
-
-    @Override
-    public void translateTo(final DisruptorEvent<T> event, final long sequence) {
-      return;
-    }
-  }
-
   static class FlushTranslator<T>
       implements EventTranslatorTwoArg<DisruptorEvent<T>, Integer, CountDownLatch> {
 
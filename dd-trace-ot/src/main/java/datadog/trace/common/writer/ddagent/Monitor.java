@@ -19,6 +19,8 @@ import java.util.List;
  *   <li>publishing to disruptor
  *   <li>serializing
  *   <li>sending to agent
+ *   <li>retrying failed sends
+ *   <li>adapting the flush policy
  * </ul>
  */
 public interface Monitor {
@@ -54,6 +56,26 @@ public interface Monitor {
       final int sizeInBytes,
       final Api.Response response);
 
+  /** Invoked before a batch whose send failed is sent again. */
+  void onRetry(
+      final DDAgentWriter agentWriter,
+      final int representativeCount,
+      final int sizeInBytes,
+      final int attempt);
+
+  /** Invoked when a batch that failed to send is dropped from the retry queue. */
+  void onEvict(
+      final DDAgentWriter agentWriter, final int representativeCount, final int sizeInBytes);
+
+  /**
+   * Invoked when the adaptive flush policy changes.
+   *
+   * @param flushIntervalMillis time between timed flushes, non positive if they are disabled
+   * @param flushPayloadBytes buffered size that triggers an early flush
+   */
+  void onFlushPolicyChange(
+      final DDAgentWriter agentWriter, final long flushIntervalMillis, final int flushPayloadBytes);
+
   final class StatsD implements Monitor {
     public static final String PREFIX = "datadog.tracer";
 
@@ -156,6 +178,31 @@ public interface Monitor {
       onSendAttempt(agentWriter, representativeCount, sizeInBytes, response);
     }
 
+    @Override
+    public void onRetry(
+        final DDAgentWriter agentWriter,
+        final int representativeCount,
+        final int sizeInBytes,
+        final int attempt) {
+      statsd.incrementCounter("api.retries");
+    }
+
+    @Override
+    public void onEvict(
+        final DDAgentWriter agentWriter, final int representativeCount, final int sizeInBytes) {
+      statsd.count("queue.evicted", representativeCount);
+      statsd.count("queue.evicted_size", sizeInBytes);
+    }
+
+    @Override
+    public void onFlushPolicyChange(
+        final DDAgentWriter agentWriter,
+        final long flushIntervalMillis,
+        final int flushPayloadBytes) {
+      statsd.recordGaugeValue("flush.interval_ms", flushIntervalMillis);
+      statsd.recordGaugeValue("flush.payload_threshold", flushPayloadBytes);
+    }
+
     private void onSendAttempt(
         final DDAgentWriter agentWriter,
         final int representativeCount,
@@ -231,6 +278,23 @@ public interface Monitor {
         final int sizeInBytes,
         final Api.Response response) {}
 
+    @Override
+    public void onRetry(
+        final DDAgentWriter agentWriter,
+        final int representativeCount,
+        final int sizeInBytes,
+        final int attempt) {}
+
+    @Override
+    public void onEvict(
+        final DDAgentWriter agentWriter, final int representativeCount, final int sizeInBytes) {}
+
+    @Override
+    public void onFlushPolicyChange(
+        final DDAgentWriter agentWriter,
+        final long flushIntervalMillis,
+        final int flushPayloadBytes) {}
+
     @Override
     public String toString() {
       return "NoOp";
@@ -0,0 +1,308 @@
+// Modified by SignalFx
+package datadog.trace.common.writer.ddagent;
+
+import datadog.trace.common.writer.Api;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Memory-mapped ring file holding serialized batches that could not be sent, so that they survive
+ * collector outages (and restarts) without growing the heap.
+ *
+ * <p>The file starts with a fixed header followed by the data region. Records are appended at the
+ * tail and consumed from the head, both being ever increasing logical positions that wrap around
+ * the data region. The header is rewritten after every change so the unsent records are replayed
+ * when the file is opened again, provided it was written in the same payload format.
+ *
+ * <pre>
+ * header: int magic | int version | long data capacity | long head | long tail | int format
+ * record: int record length | int representative count | int size in bytes | int trace count
+ *         | (int trace length | trace bytes)*
+ * </pre>
+ *
+ * <p>Not thread safe, only used from the batch writing thread.
+ */
+@Slf4j
+class OverflowRingFile implements Closeable {
+  private static final int MAGIC = 0x53465846;
+  private static final int VERSION = 2;
+  private static final int HEAD_OFFSET = 16;
+  private static final int TAIL_OFFSET = 24;
+  private static final int FORMAT_OFFSET = 32;
+  static final int HEADER_SIZE = 40;
+  private static final int RECORD_HEADER_SIZE = 16;
+  private static final int TRACE_HEADER_SIZE = 4;
+
+  private final RandomAccessFile file;
+  private final MappedByteBuffer buffer;
+  private final long capacity;
+  private final byte[] intBytes = new byte[4];
+  private long head;
+  private long tail;
+
+  private OverflowRingFile(
+      final RandomAccessFile file, final MappedByteBuffer buffer, final int format) {
+    this.file = file;
+    this.buffer = buffer;
+    capacity = buffer.capacity() - HEADER_SIZE;
+
+    if (buffer.getInt(0) == MAGIC
+        && buffer.getInt(4) == VERSION
+        && buffer.getInt(FORMAT_OFFSET) == format
+        && buffer.getLong(8) == capacity
+        && 0 <= buffer.getLong(HEAD_OFFSET)
+        && buffer.getLong(HEAD_OFFSET) <= buffer.getLong(TAIL_OFFSET)
+        && buffer.getLong(TAIL_OFFSET) - buffer.getLong(HEAD_OFFSET) <= capacity) {
+      head = buffer.getLong(HEAD_OFFSET);
+      tail = buffer.getLong(TAIL_OFFSET);
+    } else {
+      buffer.putInt(0, MAGIC);
+      buffer.putInt(4, VERSION);
+      buffer.putLong(8, capacity);
+      buffer.putInt(FORMAT_OFFSET, format);
+      head = 0;
+      tail = 0;
+      writePositions();
+    }
+  }
+
+  /**
+   * @param path the ring file, created if missing and reused (with any unsent records) otherwise
+   * @param sizeInBytes total size of the file, capped to the 2 GB a single mapping can cover
+   * @param format identifies the serialization of the traces, records written in another one are
+   *     discarded rather than sent to an endpoint that can't read them
+   * @return the opened ring, or null if it couldn't be opened, in which case overflow is disabled
+   */
+  static OverflowRingFile openOrNull(
+      final String path, final long sizeInBytes, final String format) {
+    if (path == null) {
+      return null;
+    }
+    final long size = Math.min(Integer.MAX_VALUE, Math.max(sizeInBytes, HEADER_SIZE + 1024));
+    try {
+      final File parent = new File(path).getAbsoluteFile().getParentFile();
+      if (parent != null) {
+        parent.mkdirs();
+      }
+      final RandomAccessFile file = new RandomAccessFile(path, "rw");
+      try {
+        if (file.length() != size) {
+          // A different size can't be interpreted as the same ring, start over.
+          file.setLength(0);
+          file.setLength(size);
+        }
+        final MappedByteBuffer buffer =
+            file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        final OverflowRingFile ring = new OverflowRingFile(file, buffer, format.hashCode());
+        if (!ring.isEmpty()) {
+          log.debug("Recovered {} bytes of unsent traces from {}", ring.tail - ring.head, path);
+        }
+        return ring;
+      } catch (final IOException | RuntimeException e) {
+        file.close();
+        throw e;
+      }
+    } catch (final IOException | RuntimeException e) {
+      log.warn("Unable to open trace overflow file {}: {}", path, e.getMessage());
+      return null;
+    }
+  }
+
+  boolean isEmpty() {
+    return head == tail;
+  }
+
+  /** @return whether a batch could ever be stored, even after dropping every older record */
+  boolean canHold(final PendingBatch batch) {
+    return recordLength(batch) <= capacity;
+  }
+
+  /** @return whether the batch can be appended without dropping older records */
+  boolean hasRoomFor(final PendingBatch batch) {
+    return recordLength(batch) <= capacity - (tail - head);
+  }
+
+  /** Copies the batch at the tail of the ring, which must have room for it. */
+  void append(final PendingBatch batch) throws IOException {
+    final long length = recordLength(batch);
+    final RegionOutputStream out = new RegionOutputStream(tail);
+    out.writeInt((int) length);
+    out.writeInt(batch.representativeCount);
+    out.writeInt(batch.sizeInBytes);
+    out.writeInt(batch.serializedTraces.size());
+    for (final Api.SerializedBuffer trace : batch.serializedTraces) {
+      out.writeInt(trace.length());
+      trace.writeTo(out, 0, trace.length());
+    }
+    // Only publish the record once fully written.
+    tail += length;
+    writePositions();
+  }
+
+  /** @return the representative count of the oldest record */
+  int oldestRepresentativeCount() {
+    return readInt(head + 4);
+  }
+
+  /** @return the serialized size of the oldest record */
+  int oldestSizeInBytes() {
+    return readInt(head + 8);
+  }
+
+  /** Removes the oldest record, or clears the ring if that record is corrupt. */
+  void dropOldest() {
+    final int length = readInt(head);
+    if (!isValidRecordLength(length)) {
+      discardCorrupt();
+      return;
+    }
+    head += length;
+    writePositions();
+  }
+
+  /**
+   * Removes the oldest record, reading it back onto the heap.
+   *
+   * @return the oldest batch, or null if the ring is empty or corrupt, in which case it is cleared
+   */
+  PendingBatch poll() {
+    if (isEmpty()) {
+      return null;
+    }
+    long position = head;
+    final int length = readInt(position);
+    final int representativeCount = readInt(position + 4);
+    final int sizeInBytes = readInt(position + 8);
+    final int traceCount = readInt(position + 12);
+    final long end = head + length;
+    if (!isValidRecordLength(length) || traceCount < 0) {
+      return discardCorrupt();
+    }
+    position += RECORD_HEADER_SIZE;
+
+    final List<Api.SerializedBuffer> traces = new ArrayList<>(traceCount);
+    for (int i = 0; i < traceCount; i++) {
+      if (end < position + TRACE_HEADER_SIZE) {
+        return discardCorrupt();
+      }
+      final int traceLength = readInt(position);
+      position += TRACE_HEADER_SIZE;
+      if (traceLength < 0 || end < position + traceLength) {
+        return discardCorrupt();
+      }
+      final byte[] trace = new byte[traceLength];
+      read(position, trace, 0, trace.length);
+      position += trace.length;
+      traces.add(new Api.PredeterminedByteArraySerializedBuffer(trace));
+    }
+
+    head = end;
+    writePositions();
+    return new PendingBatch(traces, representativeCount, sizeInBytes);
+  }
+
+  /** @return whether a record of that length starting at the head fits before the tail */
+  private boolean isValidRecordLength(final int length) {
+    return RECORD_HEADER_SIZE <= length && head + length <= tail;
+  }
+
+  private PendingBatch discardCorrupt() {
+    log.debug("Discarding {} bytes of corrupt unsent traces", tail - head);
+    head = tail;
+    writePositions();
+    return null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    buffer.force();
+    file.close();
+  }
+
+  private static long recordLength(final PendingBatch batch) {
+    long length = RECORD_HEADER_SIZE;
+    for (final Api.SerializedBuffer trace : batch.serializedTraces) {
+      length += TRACE_HEADER_SIZE + trace.length();
+    }
+    return length;
+  }
+
+  private void writePositions() {
+    if (head == tail) {
+      // Restart from the beginning of the region to keep positions small.
+      head = 0;
+      tail = 0;
+    }
+    buffer.putLong(HEAD_OFFSET, head);
+    buffer.putLong(TAIL_OFFSET, tail);
+  }
+
+  private int readInt(final long position) {
+    read(position, intBytes, 0, 4);
+    return (intBytes[0] & 0xFF) << 24
+        | (intBytes[1] & 0xFF) << 16
+        | (intBytes[2] & 0xFF) << 8
+        | (intBytes[3] & 0xFF);
+  }
+
+  private void read(final long position, final byte[] dst, int offset, int length) {
+    int index = (int) (position % capacity);
+    while (length > 0) {
+      final int chunk = (int) Math.min(length, capacity - index);
+      region(index).get(dst, offset, chunk);
+      offset += chunk;
+      length -= chunk;
+      index = 0;
+    }
+  }
+
+  private ByteBuffer region(final int index) {
+    final ByteBuffer view = buffer.duplicate();
+    view.position(HEADER_SIZE + index);
+    return view;
+  }
+
+  /** Writes sequentially from a logical position, wrapping around the end of the data region. */
+  private final class RegionOutputStream extends OutputStream {
+    private long position;
+
+    private RegionOutputStream(final long position) {
+      this.position = position;
+    }
+
+    void writeInt(final int value) {
+      intBytes[0] = (byte) (value >>> 24);
+      intBytes[1] = (byte) (value >>> 16);
+      intBytes[2] = (byte) (value >>> 8);
+      intBytes[3] = (byte) value;
+      write(intBytes, 0, 4);
+    }
+
+    @Override
+    public void write(final int b) {
+      buffer.put(HEADER_SIZE + (int) (position % capacity), (byte) b);
+      position++;
+    }
+
+    @Override
+    public void write(final byte[] src, int offset, int length) {
+      while (length > 0) {
+        final int index = (int) (position % capacity);
+        final int chunk = (int) Math.min(length, capacity - index);
+        region(index).put(src, offset, chunk);
+        offset += chunk;
+        length -= chunk;
+        position += chunk;
+      }
+    }
+  }
+}
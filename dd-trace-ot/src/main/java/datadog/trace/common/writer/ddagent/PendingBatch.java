@@ -0,0 +1,28 @@
+// Modified by SignalFx
+package datadog.trace.common.writer.ddagent;
+
+import datadog.trace.common.writer.Api;
+import java.util.List;
+
+/** Serialized traces of a single flush, kept together so they can be resent as they were. */
+final class PendingBatch {
+  final List<Api.SerializedBuffer> serializedTraces;
+  final int representativeCount;
+  final int sizeInBytes;
+  int attempts = 0;
+
+  PendingBatch(
+      final List<Api.SerializedBuffer> serializedTraces,
+      final int representativeCount,
+      final int sizeInBytes) {
+    this.serializedTraces = serializedTraces;
+    this.representativeCount = representativeCount;
+    this.sizeInBytes = sizeInBytes;
+  }
+
+  void release() {
+    for (final Api.SerializedBuffer serializedTrace : serializedTraces) {
+      serializedTrace.release();
+    }
+  }
+}
@@ -16,6 +16,10 @@ import lombok.extern.slf4j.Slf4j;
  *
  * <p>publishing to the buffer will not block the calling thread, but instead will return false if
  * the buffer is full. This is to avoid impacting an application thread.
+ *
+ * <p>Serialization can be spread over several threads. Every handler sees every event but only
+ * serializes the traces whose sequence falls on its stripe, and a flush is only propagated once
+ * all handlers have reached it, meaning every trace published before it has been serialized.
  */
 @Slf4j
 public class TraceProcessingDisruptor extends AbstractDisruptor<List<DDSpan>> {
@@ -26,8 +30,35 @@ public class TraceProcessingDisruptor extends AbstractDisruptor<List<DDSpan>> {
       final BatchWritingDisruptor batchWritingDisruptor,
       final Monitor monitor,
       final DDAgentWriter writer) {
-    // TODO: add config to enable control over serialization overhead.
-    super(disruptorSize, new TraceSerializingHandler(api, batchWritingDisruptor, monitor, writer));
+    this(disruptorSize, api, batchWritingDisruptor, monitor, writer, 1);
+  }
+
+  public TraceProcessingDisruptor(
+      final int disruptorSize,
+      final Api api,
+      final BatchWritingDisruptor batchWritingDisruptor,
+      final Monitor monitor,
+      final DDAgentWriter writer,
+      final int serializationThreads) {
+    super(
+        disruptorSize,
+        new DeadlineWaitStrategy(),
+        createHandlers(
+            Math.max(1, serializationThreads), api, batchWritingDisruptor, monitor, writer));
+  }
+
+  private static TraceSerializingHandler[] createHandlers(
+      final int count,
+      final Api api,
+      final BatchWritingDisruptor batchWritingDisruptor,
+      final Monitor monitor,
+      final DDAgentWriter writer) {
+    final TraceSerializingHandler[] handlers = new TraceSerializingHandler[count];
+    for (int i = 0; i < count; i++) {
+      handlers[i] =
+          new TraceSerializingHandler(api, batchWritingDisruptor, monitor, writer, i, count);
+    }
+    return handlers;
   }
 
   @Override
@@ -40,59 +71,88 @@ public class TraceProcessingDisruptor extends AbstractDisruptor<List<DDSpan>> {
     return disruptor.getRingBuffer().tryPublishEvent(dataTranslator, data, representativeCount);
   }
 
-  // This class is threadsafe if we want to enable more processors.
+  // Several instances run concurrently, one per stripe, so any shared state must be threadsafe.
   public static class TraceSerializingHandler
       implements EventHandler<DisruptorEvent<List<DDSpan>>> {
     private final Api api;
     private final BatchWritingDisruptor batchWritingDisruptor;
     private final Monitor monitor;
     private final DDAgentWriter writer;
+    private final int stripe;
+    private final int stripeCount;
 
     public TraceSerializingHandler(
         final Api api,
         final BatchWritingDisruptor batchWritingDisruptor,
         final Monitor monitor,
         final DDAgentWriter writer) {
+      this(api, batchWritingDisruptor, monitor, writer, 0, 1);
+    }
+
+    TraceSerializingHandler(
+        final Api api,
+        final BatchWritingDisruptor batchWritingDisruptor,
+        final Monitor monitor,
+        final DDAgentWriter writer,
+        final int stripe,
+        final int stripeCount) {
       this.api = api;
       this.batchWritingDisruptor = batchWritingDisruptor;
       this.monitor = monitor;
       this.writer = writer;
+      this.stripe = stripe;
+      this.stripeCount = stripeCount;
     }
 
     @Override
     public void onEvent(
         final DisruptorEvent<List<DDSpan>> event, final long sequence, final boolean endOfBatch) {
-      try {
-        if (event.data != null) {
-          if (1 < event.representativeCount && !event.data.isEmpty()) {
-            // attempt to have agent scale the metrics properly
-            ((DDSpan) event.data.get(0).getLocalRootSpan())
-                .context()
-                .setMetric(DDSpanContext.SAMPLE_RATE_KEY, 1d / event.representativeCount);
-          }
+      if (event.flushLatch != null) {
+        // Only the last handler to reach the flush propagates it (and resets the event).
+        if (event.flushArrivals.incrementAndGet() == stripeCount) {
           try {
-            final Api.SerializedBuffer serializedTrace = api.serializeTrace(event.data);
-            batchWritingDisruptor.publish(serializedTrace, event.representativeCount);
-            monitor.onSerialize(writer, event.data, serializedTrace);
-            event.representativeCount = 0; // reset in case flush is invoked below.
-          } catch (final Throwable e) {
-            log.debug("Error while serializing trace", e);
-            monitor.onFailedSerialize(writer, event.data, e);
+            propagateFlush(event);
+          } finally {
+            event.reset();
           }
         }
-
-        if (event.flushLatch != null) {
-          if (batchWritingDisruptor.running) {
-            // propagate the flush.
-            batchWritingDisruptor.flush(event.representativeCount, event.flushLatch);
-          }
-          if (!batchWritingDisruptor.running) { // check again to protect against race condition.
-            // got shutdown early somehow?
-            event.flushLatch.countDown();
+      } else if (sequence % stripeCount == stripe) {
+        try {
+          if (event.data != null) {
+            serialize(event);
           }
+        } finally {
+          event.reset();
         }
-      } finally {
-        event.reset();
+      }
+    }
+
+    private void serialize(final DisruptorEvent<List<DDSpan>> event) {
+      if (1 < event.representativeCount && !event.data.isEmpty()) {
+        // attempt to have agent scale the metrics properly
+        ((DDSpan) event.data.get(0).getLocalRootSpan())
+            .context()
+            .setMetric(DDSpanContext.SAMPLE_RATE_KEY, 1d / event.representativeCount);
+      }
+      try {
+        final Api.SerializedBuffer serializedTrace = api.serializeTrace(event.data);
+        batchWritingDisruptor.publish(serializedTrace, event.representativeCount);
+        monitor.onSerialize(writer, event.data, serializedTrace);
+        event.representativeCount = 0;
+      } catch (final Throwable e) {
+        log.debug("Error while serializing trace", e);
+        monitor.onFailedSerialize(writer, event.data, e);
+      }
+    }
+
+    private void propagateFlush(final DisruptorEvent<List<DDSpan>> event) {
+      if (batchWritingDisruptor.running) {
+        // propagate the flush.
+        batchWritingDisruptor.flush(event.representativeCount, event.flushLatch);
+      }
+      if (!batchWritingDisruptor.running) { // check again to protect against race condition.
+        // got shutdown early somehow?
+        event.flushLatch.countDown();
       }
     }
   }
@@ -152,8 +152,10 @@ class DDSpanBuilderTest extends DDSpecification {
     final BigInteger expectedParentId = spanId
 
     final DDSpanContext mockedContext = Mock()
-    1 * mockedContext.getTraceId() >> spanId
-    1 * mockedContext.getSpanId() >> spanId
+    1 * mockedContext.getTraceIdHigh() >> 0L
+    1 * mockedContext.getTraceIdLow() >> spanId.longValue()
+    1 * mockedContext.getSpanIdHigh() >> 0L
+    1 * mockedContext.getSpanIdLow() >> spanId.longValue()
     _ * mockedContext.getServiceName() >> "foo"
     1 * mockedContext.getBaggageItems() >> [:]
     1 * mockedContext.getTrace() >> new PendingTrace(tracer, 1G)
@@ -0,0 +1,272 @@
+package datadog.opentracing
+
+import datadog.trace.api.Config
+import datadog.trace.common.writer.ListWriter
+import datadog.trace.util.gc.GCUtils
+import datadog.trace.util.test.DDSpecification
+import spock.lang.Timeout
+
+import java.lang.ref.WeakReference
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import static datadog.trace.api.Config.LOCK_FREE_SPAN_TRACKING
+import static datadog.trace.api.Config.LOCK_FREE_STALE_TRACE_TIMEOUT
+import static datadog.trace.api.Config.PARTIAL_FLUSH_MIN_SPANS
+
+class LockFreePendingTraceTest extends DDSpecification {
+
+  def traceCount = new AtomicInteger()
+  def writer = new ListWriter() {
+    @Override
+    void incrementTraceCount() {
+      LockFreePendingTraceTest.this.traceCount.incrementAndGet()
+    }
+  }
+
+  DDTracer tracer = tracerWith([:])
+
+  def "tracer creates lock free traces when configured"() {
+    setup:
+    def span = tracer.buildSpan("root").start()
+
+    expect:
+    span.context().trace instanceof LockFreePendingTrace
+    span.context().trace.weakReferences.isEmpty()
+  }
+
+  def "child finishes before parent"() {
+    setup:
+    def rootSpan = tracer.buildSpan("root").start()
+    def trace = rootSpan.context().trace
+
+    when:
+    def child = tracer.buildSpan("child").asChildOf(rootSpan).start()
+
+    then:
+    trace.pendingReferenceCount.get() == 2
+
+    when:
+    child.finish()
+
+    then:
+    trace.pendingReferenceCount.get() == 1
+    trace.size() == 1
+    writer == []
+
+    when:
+    rootSpan.finish()
+
+    then:
+    trace.pendingReferenceCount.get() == 0
+    writer == [[rootSpan, child]]
+    traceCount.get() == 1
+  }
+
+  def "spans are kept across chunks"() {
+    setup:
+    def rootSpan = tracer.buildSpan("root").start()
+    def children = (1..spanCount).collect { tracer.buildSpan("child").asChildOf(rootSpan).start() }
+
+    when:
+    children.each { it.finish() }
+    rootSpan.finish()
+
+    then:
+    writer.size() == 1
+    writer[0] == [rootSpan] + children.reverse()
+
+    where:
+    spanCount << [1, 7, 8, 100, 3000]
+  }
+
+  def "spans finished concurrently are all written"() {
+    setup:
+    def rootSpan = tracer.buildSpan("root").start()
+    def children = (1..1000).collect { tracer.buildSpan("child").asChildOf(rootSpan).start() }
+    def start = new CountDownLatch(1)
+
+    when:
+    def threads = children.collate(100).collect { batch ->
+      Thread.start {
+        start.await()
+        batch.each { it.finish() }
+      }
+    }
+    start.countDown()
+    threads*.join()
+    rootSpan.finish()
+
+    then:
+    writer.size() == 1
+    writer[0].size() == 1001
+    writer[0].toSet() == (children + rootSpan).toSet()
+  }
+
+  def "partial flush keeps the root span"() {
+    setup:
+    tracer = tracerWith((PARTIAL_FLUSH_MIN_SPANS): "1")
+    def rootSpan = tracer.buildSpan("root").start()
+    def trace = rootSpan.context().trace
+    def child1 = tracer.buildSpan("child1").asChildOf(rootSpan).start()
+    def child2 = tracer.buildSpan("child2").asChildOf(rootSpan).start()
+
+    when:
+    rootSpan.finish()
+    child1.finish()
+
+    then:
+    trace.pendingReferenceCount.get() == 1
+    trace.size() == 1
+    writer == [[child1]]
+
+    when:
+    child2.finish()
+
+    then:
+    trace.pendingReferenceCount.get() == 0
+    writer == [[child1], [child2, rootSpan]]
+    traceCount.get() == 2
+  }
+
+  @Timeout(value = 60, unit = TimeUnit.SECONDS)
+  def "trace does not report when unfinished root discarded"() {
+    setup:
+    def rootSpan = tracer.buildSpan("root").start()
+    def trace = rootSpan.context().trace
+    def child = tracer.buildSpan("child").asChildOf(rootSpan).start()
+    child.finish()
+
+    when:
+    def rootRef = new WeakReference<>(rootSpan)
+    rootSpan = null
+    GCUtils.awaitGC(rootRef)
+    def cleaned = trace.clean()
+
+    then:
+    cleaned
+    trace.isWritten.get()
+    writer == []
+    traceCount.get() == 1
+    !PendingTrace.SPAN_CLEANER.get().pendingTraces.contains(trace)
+  }
+
+  @Timeout(value = 60, unit = TimeUnit.SECONDS)
+  def "trace does not leak when unfinished child discarded after root finished"() {
+    setup:
+    def rootSpan = tracer.buildSpan("root").start()
+    def trace = rootSpan.context().trace
+    def child = tracer.buildSpan("child").asChildOf(rootSpan).start()
+    rootSpan.finish()
+
+    when:
+    def childRef = new WeakReference<>(child)
+    child = null
+    GCUtils.awaitGC(childRef)
+
+    then:
+    !trace.clean()
+    PendingTrace.SPAN_CLEANER.get().pendingTraces.contains(trace)
+
+    when:
+    trace.lastActivityNanoTicks -=
+      TimeUnit.SECONDS.toNanos(Config.DEFAULT_LOCK_FREE_STALE_TRACE_TIMEOUT) + 1
+    def cleaned = trace.clean()
+
+    then:
+    cleaned
+    trace.isWritten.get()
+    writer == []
+    traceCount.get() == 1
+    !PendingTrace.SPAN_CLEANER.get().pendingTraces.contains(trace)
+  }
+
+  def "trace with no finished span for a long time is not dropped when disabled"() {
+    setup:
+    tracer = tracerWith((LOCK_FREE_STALE_TRACE_TIMEOUT): "0")
+    def rootSpan = tracer.buildSpan("root").start()
+    def trace = rootSpan.context().trace
+    trace.lastActivityNanoTicks -= TimeUnit.DAYS.toNanos(1)
+
+    expect:
+    !trace.clean()
+    !trace.isWritten.get()
+
+    when:
+    rootSpan.finish()
+
+    then:
+    writer.size() == 1
+    traceCount.get() == 0
+  }
+
+  def "trace with no finished span for too long is dropped when configured"() {
+    setup:
+    tracer = tracerWith((LOCK_FREE_STALE_TRACE_TIMEOUT): "600")
+    def rootSpan = tracer.buildSpan("root").start()
+    def trace = rootSpan.context().trace
+    trace.lastActivityNanoTicks -= TimeUnit.SECONDS.toNanos(600) + 1
+
+    when:
+    def cleaned = trace.clean()
+
+    then:
+    cleaned
+    writer == []
+    traceCount.get() == 1
+
+    when:
+    rootSpan.finish()
+
+    then:
+    writer == []
+    traceCount.get() == 1
+  }
+
+  def "active trace is not dropped"() {
+    setup:
+    tracer = tracerWith((LOCK_FREE_STALE_TRACE_TIMEOUT): "600")
+    def rootSpan = tracer.buildSpan("root").start()
+    def trace = rootSpan.context().trace
+
+    when:
+    tracer.buildSpan("child").asChildOf(rootSpan).start().finish()
+    trace.lastActivityNanoTicks -= TimeUnit.SECONDS.toNanos(600) + 1
+
+    then:
+    !trace.clean()
+    !trace.isWritten.get()
+  }
+
+  def "collection views read the finished spans"() {
+    setup:
+    def rootSpan = tracer.buildSpan("root").start()
+    def trace = rootSpan.context().trace
+
+    expect:
+    trace.isEmpty()
+    trace.iterator().toList() == []
+
+    when:
+    def child1 = tracer.buildSpan("child1").asChildOf(rootSpan).start()
+    def child2 = tracer.buildSpan("child2").asChildOf(rootSpan).start()
+    child1.finish()
+    child2.finish()
+
+    then:
+    !trace.isEmpty()
+    trace.size() == 2
+    trace.iterator().toList() == [child2, child1]
+    trace.contains(child1)
+    !trace.contains(rootSpan)
+    trace.toArray() as List == [child2, child1]
+  }
+
+  DDTracer tracerWith(Map<String, String> settings) {
+    def properties = new Properties()
+    properties.setProperty(LOCK_FREE_SPAN_TRACKING, "true")
+    settings.each { key, value -> properties.setProperty(key, value) }
+    return DDTracer.builder().config(Config.get(properties)).writer(writer).build()
+  }
+}
@@ -1,6 +1,7 @@
 package datadog.opentracing
 
 
+import datadog.trace.api.Ids
 import datadog.trace.api.sampling.PrioritySampling
 import datadog.trace.common.writer.ListWriter
 
@@ -51,7 +52,7 @@ class SpanFactory {
 
   static DDSpan newSpanOf(PendingTrace trace) {
     def context = new DDSpanContext(
-      trace.traceId,
+      Ids.toUnsignedBigInteger(trace.traceIdHigh, trace.traceIdLow),
       1G,
       0G,
       "fakeService",
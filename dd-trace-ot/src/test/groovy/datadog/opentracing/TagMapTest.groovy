@@ -0,0 +1,107 @@
+package datadog.opentracing
+
+import datadog.trace.api.DDTags
+import datadog.trace.util.test.DDSpecification
+import io.opentracing.tag.Tags
+
+import java.util.concurrent.CountDownLatch
+
+class TagMapTest extends DDSpecification {
+
+  def "tags are set, replaced and removed"() {
+    setup:
+    def tags = new TagMap()
+
+    when:
+    def previous = tags.set(key, "first")
+
+    then:
+    previous == null
+    tags.get(key) == "first"
+    tags.containsKey(key)
+    tags.size() == 1
+
+    when:
+    previous = tags.set(key, "second")
+
+    then:
+    previous == "first"
+    tags == [(key): "second"]
+
+    when:
+    previous = tags.set(key, null)
+
+    then:
+    previous == "second"
+    tags.get(key) == null
+    !tags.containsKey(key)
+    tags.isEmpty()
+
+    where:
+    key << [Tags.COMPONENT.key, DDTags.THREAD_ID, "custom.tag", new String("http.url")]
+  }
+
+  def "table grows with many custom tags"() {
+    setup:
+    def tags = new TagMap()
+    def expected = [:]
+
+    when:
+    (1..100).each {
+      tags.set("tag" + it, it)
+      expected.put("tag" + it, it)
+    }
+    tags.set(Tags.HTTP_METHOD.key, "GET")
+    expected.put(Tags.HTTP_METHOD.key, "GET")
+    (1..100).step(3) {
+      tags.set("tag" + it, null)
+      expected.remove("tag" + it)
+    }
+
+    then:
+    tags == expected
+    tags.size() == expected.size()
+    tags.entrySet().collectEntries { [(it.key): it.value] } == expected
+  }
+
+  def "map view is read only"() {
+    setup:
+    def tags = new TagMap()
+    tags.set("key", "value")
+
+    when:
+    tags.put("other", "value")
+
+    then:
+    thrown(UnsupportedOperationException)
+
+    when:
+    def iterator = tags.entrySet().iterator()
+    iterator.next()
+    iterator.remove()
+
+    then:
+    thrown(UnsupportedOperationException)
+    tags == [key: "value"]
+  }
+
+  def "concurrent writers don't lose tags"() {
+    setup:
+    def tags = new TagMap()
+    def start = new CountDownLatch(1)
+
+    when:
+    def threads = (1..8).collect { thread ->
+      Thread.start {
+        start.await()
+        (1..200).each { tags.set("thread" + thread + ".tag" + it, it) }
+      }
+    }
+    start.countDown()
+    threads*.join()
+
+    then:
+    tags.size() == 8 * 200
+    (1..8).every { thread -> (1..200).every { tags.get("thread" + thread + ".tag" + it) == it } }
+  }
+}
@@ -54,6 +54,32 @@ class SpanDecoratorTest extends DDSpecification {
     span.getTags().get("newFoo") == "newBar"
   }
 
+  def "decorators of a tag run in the order they were added"() {
+    setup:
+    def calls = []
+    def decorators = ["first", "second"].collect { name ->
+      def decorator = new AbstractDecorator() {
+        boolean shouldSetTag(DDSpanContext context, String tag, Object value) {
+          calls << [name, context.getTag("other")]
+          return true
+        }
+      }
+      decorator.setMatchingTag("decorated")
+      tracer.addDecorator(decorator)
+      return decorator
+    }
+
+    when:
+    span.setTag("other", "value")
+    span.setTag("decorated", "value")
+    tracer.buildSpan("builder").withTag("other", "builder").withTag("decorated", "value").start()
+
+    then:
+    calls == [["first", "value"], ["second", "value"], ["first", "builder"], ["second", "builder"]]
+    tracer.getSpanContextDecorators("decorated") == decorators
+    span.getTags().get("decorated") == "value"
+  }
+
   def "set service name"() {
     setup:
     tracer = DDTracer.builder()
@@ -4,6 +4,7 @@ package datadog.opentracing.decorators
 import datadog.opentracing.DDSpanContext
 import datadog.opentracing.DDTracer
 import datadog.opentracing.PendingTrace
+import datadog.opentracing.SpanFactory
 import datadog.trace.api.sampling.PrioritySampling
 import datadog.trace.common.writer.ListWriter
 import datadog.trace.util.test.DDSpecification
@@ -110,6 +111,21 @@ class URLAsResourceNameTest extends DDSpecification {
     "/a.b/a.b" | _
   }
 
+  def "normalized paths are cached by raw path"() {
+    setup:
+    def context = SpanFactory.newSpanOf(0).context()
+
+    when:
+    decorator.shouldSetTag(context, Tags.HTTP_URL.key, "http://localhost:8080/user/1?q=a")
+    decorator.shouldSetTag(context, Tags.HTTP_URL.key, "/user/1")
+    decorator.shouldSetTag(context, Tags.HTTP_URL.key, "/user/2")
+
+    then:
+    context.resourceName == "/user/?"
+    decorator.pathCacheHitCount == 1
+    decorator.pathCacheMissCount == 2
+  }
+
   def "sets the resource name"() {
     when:
     final DDSpanContext context =
@@ -72,6 +72,19 @@ class DDSpanContextTest extends DDSpecification {
     "tag_with_float" | 0.321
   }
 
+  def "hex ids are encoded once"() {
+    setup:
+    def context = SpanFactory.newSpanOf(0).context
+
+    expect:
+    context.traceIdHex == "0000000000000001"
+    context.spanIdHex == "0000000000000001"
+    context.parentIdHex == "0000000000000000"
+    context.traceIdHex.is(context.traceIdHex)
+    context.spanIdHex.is(context.spanIdHex)
+    context.parentIdHex.is(context.parentIdHex)
+  }
+
   def "metrics use the expected types"() {
     // floats should be converted to doubles.
     setup:
@@ -25,6 +25,7 @@ import spock.lang.Ignore
 import spock.lang.Timeout
 
 import static datadog.trace.api.Config.DEFAULT_SERVICE_NAME
+import static datadog.trace.api.Config.DROP_UNSAMPLED_TRACES
 import static datadog.trace.api.Config.HEADER_TAGS
 import static datadog.trace.api.Config.HEALTH_METRICS_ENABLED
 import static datadog.trace.api.Config.PREFIX
@@ -405,6 +406,38 @@ class DDTracerTest extends DDSpecification {
     child.finish()
     root.finish()
   }
+
+  def "traces with priority #priority are only counted when dropping unsampled traces"() {
+    setup:
+    def traceCount = 0
+    def writer = new ListWriter() {
+      @Override
+      void incrementTraceCount() {
+        traceCount++
+      }
+    }
+    def sampler = new ControllableSampler()
+    sampler.nextSamplingPriority = priority
+    Properties properties = new Properties()
+    properties.setProperty(DROP_UNSAMPLED_TRACES, "true")
+    def tracer = DDTracer.builder().config(Config.get(properties)).writer(writer).sampler(sampler).build()
+
+    when:
+    def root = tracer.buildSpan("operation").start()
+    tracer.buildSpan("child").asChildOf(root).start().finish()
+    root.finish()
+
+    then:
+    traceCount == 1
+    writer.size() == (written ? 1 : 0)
+
+    where:
+    priority                      | written
+    PrioritySampling.SAMPLER_KEEP | true
+    PrioritySampling.USER_KEEP    | true
+    PrioritySampling.SAMPLER_DROP | false
+    PrioritySampling.USER_DROP    | false
+  }
 }
 
 class ControllableSampler implements Sampler, PrioritySampler {
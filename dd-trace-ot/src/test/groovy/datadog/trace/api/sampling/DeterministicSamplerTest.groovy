@@ -1,6 +1,7 @@
 package datadog.trace.api.sampling
 
 import datadog.opentracing.DDSpan
+import datadog.opentracing.DDSpanContext
 import datadog.trace.common.sampling.DeterministicSampler
 import datadog.trace.util.test.DDSpecification
 
@@ -9,8 +10,11 @@ class DeterministicSamplerTest extends DDSpecification {
   def "test known values: #traceId"() {
     given:
     DeterministicSampler sampler = new DeterministicSampler(0.5)
+    DDSpanContext context = Stub(DDSpanContext) {
+      getTraceIdLow() >> traceId.longValue()
+    }
     DDSpan span = Mock(DDSpan) {
-      getTraceId() >> traceId
+      context() >> context
     }
 
     when:
@@ -126,8 +130,11 @@ class DeterministicSamplerTest extends DDSpecification {
   def "test sampling none: #traceId"() {
     given:
     DeterministicSampler sampler = new DeterministicSampler(0)
+    DDSpanContext context = Stub(DDSpanContext) {
+      getTraceIdLow() >> traceId.longValue()
+    }
     DDSpan span = Mock(DDSpan) {
-      getTraceId() >> traceId
+      context() >> context
     }
 
     when:
@@ -245,8 +252,11 @@ class DeterministicSamplerTest extends DDSpecification {
   def "test sampling all: #traceId"() {
     given:
     DeterministicSampler sampler = new DeterministicSampler(1)
+    DDSpanContext context = Stub(DDSpanContext) {
+      getTraceIdLow() >> traceId.longValue()
+    }
     DDSpan span = Mock(DDSpan) {
-      getTraceId() >> traceId
+      context() >> context
     }
 
     when:
@@ -12,8 +12,6 @@ import datadog.trace.common.writer.LoggingWriter
 import datadog.trace.common.writer.ddagent.DDAgentApi
 import datadog.trace.util.test.DDSpecification
 
-import static datadog.trace.common.sampling.RateByServiceSampler.DEFAULT_KEY
-
 class RateByServiceSamplerTest extends DDSpecification {
   static serializer = DDAgentApi.RESPONSE_ADAPTER
 
@@ -23,7 +21,7 @@ class RateByServiceSamplerTest extends DDSpecification {
     String response = '{"rate_by_service": {"service:,env:":' + rate + '}}'
     serviceSampler.onResponse("traces", serializer.fromJson(response))
     expect:
-    serviceSampler.serviceRates[DEFAULT_KEY].sampleRate == expectedRate
+    serviceSampler.getSampler("", "").sampleRate == expectedRate
 
     where:
     rate | expectedRate
@@ -58,6 +56,27 @@ class RateByServiceSamplerTest extends DDSpecification {
     serviceSampler.sample(span2)
   }
 
+  def "rate by service and env"() {
+    setup:
+    RateByServiceSampler serviceSampler = new RateByServiceSampler()
+    String response = '{"rate_by_service": {"service:,env:":0.3, "service:spock,env:":0.4, ' +
+      '"service:spock,env:test":0.5, "service:other,env:test":0.6, "unexpected":0.7}}'
+    serviceSampler.onResponse("traces", serializer.fromJson(response))
+
+    expect:
+    serviceSampler.getSampler(service, env).sampleRate == expectedRate
+
+    where:
+    service | env    | expectedRate
+    "spock" | "test" | 0.5
+    "spock" | ""     | 0.4
+    "spock" | "prod" | 0.3
+    "other" | "test" | 0.6
+    "other" | ""     | 0.3
+    ""      | ""     | 0.3
+    null    | ""     | 0.3
+  }
+
   def "sampling priority set on context"() {
     setup:
     RateByServiceSampler serviceSampler = new RateByServiceSampler()
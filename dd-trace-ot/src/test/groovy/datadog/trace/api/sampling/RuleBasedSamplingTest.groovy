@@ -77,18 +77,18 @@ class RuleBasedSamplingTest extends DDSpecification {
     null              | "xx:1"              | null        | "50"      | null             | null              | 1.0               | SAMPLER_KEEP
 
     // Matching neither with default rate
-    null              | null                | "1"         | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
+    null              | null                | "1"         | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
     null              | null                | "0"         | "50"      | 0                | null              | null              | SAMPLER_DROP
-    "xx:1"            | null                | "1"         | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
-    null              | "xx:1"              | "1"         | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
+    "xx:1"            | null                | "1"         | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
+    null              | "xx:1"              | "1"         | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
     "xx:1"            | null                | "0"         | "50"      | 0                | null              | null              | SAMPLER_DROP
     null              | "xx:1"              | "0"         | "50"      | 0                | null              | null              | SAMPLER_DROP
 
     // Matching service: keep
-    "service:1"       | null                | null        | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
-    "s.*:1"           | null                | null        | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
-    ".*e:1"           | null                | null        | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
-    "[a-z]+:1"        | null                | null        | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
+    "service:1"       | null                | null        | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
+    "s.*:1"           | null                | null        | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
+    ".*e:1"           | null                | null        | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
+    "[a-z]+:1"        | null                | null        | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
 
     // Matching service: drop
     "service:0"       | null                | null        | "50"      | 0                | null              | null              | SAMPLER_DROP
@@ -97,18 +97,18 @@ class RuleBasedSamplingTest extends DDSpecification {
     "[a-z]+:0"        | null                | null        | "50"      | 0                | null              | null              | SAMPLER_DROP
 
     // Matching service overrides default rate
-    "service:1"       | null                | "0"         | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
+    "service:1"       | null                | "0"         | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
     "service:0"       | null                | "1"         | "50"      | 0                | null              | null              | SAMPLER_DROP
 
     // multiple services
-    "xxx:0,service:1" | null                | null        | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
+    "xxx:0,service:1" | null                | null        | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
     "xxx:1,service:0" | null                | null        | "50"      | 0                | null              | null              | SAMPLER_DROP
 
     // Matching operation : keep
-    null              | "operation:1"       | null        | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
-    null              | "o.*:1"             | null        | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
-    null              | ".*n:1"             | null        | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
-    null              | "[a-z]+:1"          | null        | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
+    null              | "operation:1"       | null        | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
+    null              | "o.*:1"             | null        | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
+    null              | ".*n:1"             | null        | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
+    null              | "[a-z]+:1"          | null        | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
 
     // Matching operation: drop
     null              | "operation:0"       | null        | "50"      | 0                | null              | null              | SAMPLER_DROP
@@ -117,19 +117,19 @@ class RuleBasedSamplingTest extends DDSpecification {
     null              | "[a-z]+:0"          | null        | "50"      | 0                | null              | null              | SAMPLER_DROP
 
     // Matching operation overrides default rate
-    null              | "operation:1"       | "0"         | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
+    null              | "operation:1"       | "0"         | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
     null              | "operation:0"       | "1"         | "50"      | 0                | null              | null              | SAMPLER_DROP
 
     // multiple operation combinations
-    null              | "xxx:0,operation:1" | null        | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
+    null              | "xxx:0,operation:1" | null        | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
     null              | "xxx:1,operation:0" | null        | "50"      | 0                | null              | null              | SAMPLER_DROP
 
     // Service and operation name combinations
-    "service:1"       | "operation:0"       | null        | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
-    "service:1"       | "xxx:0"             | null        | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
+    "service:1"       | "operation:0"       | null        | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
+    "service:1"       | "xxx:0"             | null        | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
     "service:0"       | "operation:1"       | null        | "50"      | 0                | null              | null              | SAMPLER_DROP
     "service:0"       | "xxx:1"             | null        | "50"      | 0                | null              | null              | SAMPLER_DROP
-    "xxx:0"           | "operation:1"       | null        | "50"      | 1.0              | 50                | null              | SAMPLER_KEEP
+    "xxx:0"           | "operation:1"       | null        | "50"      | 1.0              | 1.0               | null              | SAMPLER_KEEP
     "xxx:1"           | "operation:0"       | null        | "50"      | 0                | null              | null              | SAMPLER_DROP
 
     // There are no tests for ordering within service or operation rules because the rule order in that case is unspecified
@@ -156,7 +156,8 @@ class RuleBasedSamplingTest extends DDSpecification {
     span1.getSamplingPriority() == SAMPLER_KEEP
 
     span2.getMetrics().get(RuleBasedSampler.SAMPLING_RULE_RATE) == 1.0
-    span2.getMetrics().get(RuleBasedSampler.SAMPLING_LIMIT_RATE) == 1.0
+    // Effective rate: one of the two spans was allowed
+    span2.getMetrics().get(RuleBasedSampler.SAMPLING_LIMIT_RATE) == 0.5
     span2.getMetrics().get(RateByServiceSampler.SAMPLING_AGENT_RATE) == null
     span2.getSamplingPriority() == SAMPLER_DROP
   }
@@ -182,8 +183,23 @@ class RuleBasedSamplingTest extends DDSpecification {
     span1.getSamplingPriority() == SAMPLER_KEEP
 
     span2.getMetrics().get(RuleBasedSampler.SAMPLING_RULE_RATE) == 1.0
-    span2.getMetrics().get(RuleBasedSampler.SAMPLING_LIMIT_RATE) == 1.0
+    // Effective rate: one of the two spans was allowed
+    span2.getMetrics().get(RuleBasedSampler.SAMPLING_LIMIT_RATE) == 0.5
     span2.getMetrics().get(RateByServiceSampler.SAMPLING_AGENT_RATE) == null
     span2.getSamplingPriority() == SAMPLER_DROP
   }
+
+  def "matches are counted per rule"() {
+    setup:
+    def sampler = RuleBasedSampler.build([service: "1", foo: "1"], [operation: "1"], null, 50)
+
+    when:
+    sampler.setSamplingPriority(SpanFactory.newSpanOf("foo", "bar"))
+    sampler.setSamplingPriority(SpanFactory.newSpanOf("foo", "bar"))
+    sampler.setSamplingPriority(SpanFactory.newSpanOf("service", "bar"))
+    sampler.setSamplingPriority(SpanFactory.newSpanOf("other", "bar"))
+
+    then:
+    sampler.samplingRules.rules*.matchCount == [1, 2, 0]
+  }
 }
@@ -0,0 +1,72 @@
+package datadog.trace.api.sampling
+
+import datadog.opentracing.SpanFactory
+import datadog.trace.common.sampling.DeterministicSampler
+import datadog.trace.common.sampling.SamplingRule
+import datadog.trace.common.sampling.SamplingRuleIndex
+import datadog.trace.util.test.DDSpecification
+
+import static datadog.trace.common.sampling.SamplingRule.AlwaysMatchesSamplingRule
+import static datadog.trace.common.sampling.SamplingRule.OperationSamplingRule
+import static datadog.trace.common.sampling.SamplingRule.ServiceSamplingRule
+
+class SamplingRuleIndexTest extends DDSpecification {
+  static sampler = new DeterministicSampler(1)
+
+  def "first matching rule wins for #service #operation"() {
+    setup:
+    List<SamplingRule> rules = [
+      new OperationSamplingRule("servlet.request", sampler),
+      new ServiceSamplingRule("billing", sampler),
+      new ServiceSamplingRule("pay.ents", sampler),
+      new ServiceSamplingRule("users-.*", sampler),
+      new OperationSamplingRule("db.query", sampler),
+      new ServiceSamplingRule("payments", sampler),
+      new ServiceSamplingRule("users-api", sampler),
+      new AlwaysMatchesSamplingRule(sampler)
+    ]
+    def span = SpanFactory.newSpanOf(service, "test")
+    span.setOperationName(operation)
+
+    expect:
+    new SamplingRuleIndex(rules).firstMatch(span) == rules.find { it.matches(span) }
+    rules.indexOf(rules.find { it.matches(span) }) == expectedIndex
+
+    where:
+    service     | operation         | expectedIndex
+    "billing"   | "servlet.request" | 0
+    "billing"   | "servlet-request" | 0
+    "billing"   | "other"           | 1
+    "payments"  | "other"           | 2
+    "pay-ents"  | "other"           | 2
+    "users-db"  | "db.query"        | 3
+    "users-api" | "other"           | 3
+    "orders"    | "dbXquery"        | 4
+    "orders"    | "db\nquery"       | 7
+    "orders"    | "other"           | 7
+  }
+
+  def "same matches as a linear scan"() {
+    setup:
+    Random random = new Random(0)
+    def names = ["a", "b", "a.b", "axb", "a\nb", "ab", "a\uD83D\uDE00b", "abc", "b.c", "bxc"]
+    def patterns = names + ["a..", "a.*", "[ab]+", ".", "..."]
+    def spans = names.collectMany { service ->
+      names.collect { operation ->
+        def span = SpanFactory.newSpanOf(service, "test")
+        span.setOperationName(operation)
+        span
+      }
+    }
+
+    expect:
+    (1..200).every {
+      List<SamplingRule> rules = (0..random.nextInt(20)).collect {
+        def pattern = patterns[random.nextInt(patterns.size())]
+        random.nextBoolean() ? new ServiceSamplingRule(pattern, sampler) : new OperationSamplingRule(pattern, sampler)
+      }
+      def index = new SamplingRuleIndex(rules)
+      spans.every { span -> index.firstMatch(span).is(rules.find { it.matches(span) }) }
+    }
+  }
+}
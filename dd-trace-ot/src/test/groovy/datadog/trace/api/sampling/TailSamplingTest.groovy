@@ -0,0 +1,146 @@
+package datadog.trace.api.sampling
+
+import datadog.opentracing.DDSpan
+import datadog.opentracing.DDSpanContext
+import datadog.opentracing.DDTracer
+import datadog.trace.api.Config
+import datadog.trace.common.sampling.DeterministicSampler
+import datadog.trace.common.sampling.TailSampler
+import datadog.trace.common.writer.ListWriter
+import datadog.trace.util.test.DDSpecification
+
+import java.util.concurrent.TimeUnit
+
+import static datadog.trace.api.Config.TRACE_TAIL_SAMPLING_ENABLED
+import static datadog.trace.api.Config.TRACE_TAIL_SAMPLING_RATE
+
+class TailSamplingTest extends DDSpecification {
+
+  def writer = new ListWriter()
+
+  def "traces are kept when tail sampling is disabled"() {
+    setup:
+    def tracer = tracerWith([(TRACE_TAIL_SAMPLING_RATE): "0"])
+
+    when:
+    tracer.buildSpan("operation").start().finish()
+
+    then:
+    writer.size() == 1
+  }
+
+  def "traces without errors are dropped at rate #rate"() {
+    setup:
+    def tracer = tracerWith([(TRACE_TAIL_SAMPLING_ENABLED): "true", (TRACE_TAIL_SAMPLING_RATE): rate])
+
+    when:
+    tracer.buildSpan("operation").start().finish()
+
+    then:
+    writer.size() == written
+    if (written) {
+      assert writer[0][0].metrics[TailSampler.TAIL_SAMPLING_RATE] == 1.0
+    }
+
+    where:
+    rate | written
+    "0"  | 0
+    "1"  | 1
+  }
+
+  def "traces with errors are kept"() {
+    setup:
+    def tracer = tracerWith([(TRACE_TAIL_SAMPLING_ENABLED): "true", (TRACE_TAIL_SAMPLING_RATE): "0"])
+    def root = tracer.buildSpan("operation").start()
+
+    when:
+    tracer.buildSpan("child").asChildOf(root).start().setError(true).finish()
+    root.finish()
+
+    then:
+    writer.size() == 1
+    writer[0].size() == 2
+    root.metrics[TailSampler.TAIL_SAMPLING_RATE] == null
+  }
+
+  def "traces kept by the user are kept"() {
+    setup:
+    def tracer = tracerWith([(TRACE_TAIL_SAMPLING_ENABLED): "true", (TRACE_TAIL_SAMPLING_RATE): "0"])
+    def root = tracer.buildSpan("operation").start()
+
+    when:
+    root.setSamplingPriority(PrioritySampling.USER_KEEP)
+    root.finish()
+
+    then:
+    writer.size() == 1
+  }
+
+  def "traces slower than the operation percentile are kept"() {
+    setup:
+    def tracer = tracerWith([(TRACE_TAIL_SAMPLING_ENABLED): "true", (TRACE_TAIL_SAMPLING_RATE): "0"])
+    def start = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis())
+
+    when:
+    200.times {
+      finishAfter(tracer, "operation", start, 100 + it % 10)
+    }
+
+    then:
+    writer.isEmpty()
+
+    when:
+    finishAfter(tracer, "operation", start, TimeUnit.SECONDS.toMicros(1))
+    finishAfter(tracer, "operation", start, 100)
+    // Latency percentiles are per operation
+    finishAfter(tracer, "other-operation", start, TimeUnit.SECONDS.toMicros(1))
+
+    then:
+    writer.size() == 1
+    writer[0][0].durationNano == TimeUnit.SECONDS.toNanos(1)
+  }
+
+  def "traces are kept at the product of the head rate #headRate and the tail rate #tailRate"() {
+    setup:
+    def headSampler = new DeterministicSampler(headRate)
+    def tailSampler = new TailSampler(tailRate, 99)
+    def random = new Random(0)
+    int traces = 20000
+    int kept = 0
+
+    when:
+    traces.times {
+      def traceId = random.nextLong()
+      DDSpanContext context = Stub(DDSpanContext) {
+        getTraceIdLow() >> traceId
+      }
+      DDSpan span = Stub(DDSpan) {
+        context() >> context
+        getDurationNano() >> 1000
+        getOperationName() >> "operation"
+      }
+      if (headSampler.sample(span) && tailSampler.keep([span], span)) {
+        kept++
+      }
+    }
+
+    then:
+    (kept / traces - headRate * tailRate).abs() < 0.01
+
+    where:
+    headRate | tailRate
+    0.5      | 0.5
+    0.3      | 0.8
+    0.8      | 0.3
+  }
+
+  def finishAfter(DDTracer tracer, String operation, long startMicros, long durationMicros) {
+    tracer.buildSpan(operation).withStartTimestamp(startMicros).start().finish(startMicros + durationMicros)
+  }
+
+  DDTracer tracerWith(Map<String, String> settings) {
+    def properties = new Properties()
+    settings.each { key, value -> properties.setProperty(key, value) }
+    return DDTracer.builder().config(Config.get(properties)).writer(writer).build()
+  }
+}
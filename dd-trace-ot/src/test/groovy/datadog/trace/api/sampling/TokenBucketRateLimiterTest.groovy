@@ -0,0 +1,73 @@
+package datadog.trace.api.sampling
+
+import datadog.trace.common.sampling.TokenBucketRateLimiter
+import datadog.trace.util.test.DDSpecification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+
+class TokenBucketRateLimiterTest extends DDSpecification {
+
+  def "starts with a single permit"() {
+    setup:
+    def limiter = new TokenBucketRateLimiter(1)
+
+    expect:
+    limiter.tryAcquire()
+    !limiter.tryAcquire()
+    !limiter.tryAcquire()
+  }
+
+  def "effective rate is the fraction of requests allowed"() {
+    setup:
+    def limiter = new TokenBucketRateLimiter(1)
+
+    expect:
+    limiter.getEffectiveRate() == 1.0
+
+    when:
+    4.times { limiter.tryAcquire() }
+
+    then:
+    limiter.getEffectiveRate() == 0.25
+  }
+
+  def "rate #rate is rejected"() {
+    when:
+    new TokenBucketRateLimiter(rate)
+
+    then:
+    thrown IllegalArgumentException
+
+    where:
+    rate << [0, -1, Double.NaN]
+  }
+
+  def "concurrent requests don't exceed the limit"() {
+    setup:
+    def limiter = new TokenBucketRateLimiter(1)
+    def threadCount = 8
+    def start = new CountDownLatch(1)
+    def allowed = new AtomicInteger()
+    def threads = (1..threadCount).collect {
+      Thread.start {
+        start.await()
+        1000.times {
+          if (limiter.tryAcquire()) {
+            allowed.incrementAndGet()
+          }
+        }
+      }
+    }
+
+    when:
+    start.countDown()
+    threads*.join()
+
+    then:
+    // One permit right away, and at most another one per second of running time
+    allowed.get() >= 1
+    allowed.get() <= 3
+    limiter.getEffectiveRate() < 0.01
+  }
+}
@@ -18,6 +18,7 @@ import org.msgpack.core.buffer.ArrayBufferOutput
 import spock.lang.Retry
 import spock.lang.Timeout
 
+import java.util.concurrent.CountDownLatch
 import java.util.concurrent.Phaser
 import java.util.concurrent.Semaphore
 import java.util.concurrent.TimeUnit
@@ -75,6 +76,96 @@ class DDAgentWriterTest extends DDSpecification {
     trace = [newSpanOf(0, "fixed-thread-name")]
   }
 
+  def "failed sends are retried after a backoff"() {
+    setup:
+    def writer = DDAgentWriter.builder().agentApi(api).monitor(monitor).flushFrequencySeconds(-1).build()
+    writer.start()
+
+    when:
+    writer.write(trace)
+    writer.flush()
+
+    then:
+    1 * api.serializeTrace(_) >> { trace -> callRealMethod() }
+    1 * api.sendSerializedTraces(1, _, { it.size() == 1 }) >> Api.Response.failed(status)
+    1 * monitor.onFailedSend(writer, 1, _, _)
+
+    when:
+    // The first backoff is at most one second.
+    Thread.sleep(1100)
+    writer.flush()
+
+    then:
+    retries * monitor.onRetry(writer, 1, _, 1)
+    retries * api.sendSerializedTraces(1, _, { it.size() == 1 }) >> Api.Response.success(200)
+    retries * monitor.onSend(writer, 1, _, _)
+    0 * monitor.onEvict(_, _, _)
+
+    cleanup:
+    writer.close()
+
+    where:
+    status | retries
+    503    | 1
+    429    | 1
+    400    | 0
+
+    trace = [newSpanOf(0, "fixed-thread-name")]
+  }
+
+  def "batches waiting for a retry are dropped on close"() {
+    setup:
+    def writer = DDAgentWriter.builder().agentApi(api).monitor(monitor).flushFrequencySeconds(-1).build()
+    writer.start()
+    def evicted = new CountDownLatch(1)
+
+    when:
+    writer.write(trace)
+    writer.flush()
+
+    then:
+    1 * api.serializeTrace(_) >> { trace -> callRealMethod() }
+    1 * api.sendSerializedTraces(1, _, { it.size() == 1 }) >> Api.Response.failed(503)
+
+    when:
+    writer.close()
+    // The writer thread drains the retry queue once it stops.
+    evicted.await(5, TimeUnit.SECONDS)
+
+    then:
+    1 * monitor.onEvict(writer, 1, _) >> { evicted.countDown() }
+
+    where:
+    trace = [newSpanOf(0, "fixed-thread-name")]
+  }
+
+  def "flush waits for every serialization thread"() {
+    setup:
+    def writer = DDAgentWriter.builder().agentApi(api).flushFrequencySeconds(-1).serializationThreads(threads).build()
+    writer.start()
+    def sent = 0
+
+    when:
+    100.times { writer.write(trace) }
+    writer.flush()
+
+    then:
+    100 * api.serializeTrace(_) >> { trace -> callRealMethod() }
+    1 * api.sendSerializedTraces(100, _, _) >> { count, size, traces ->
+      sent = traces.size()
+      Api.Response.success(200)
+    }
+    sent == 100
+
+    cleanup:
+    writer.close()
+
+    where:
+    threads << [1, 2, 4]
+
+    trace = [newSpanOf(0, "fixed-thread-name")]
+  }
+
   def "test flood of traces"() {
     setup:
     def writer = DDAgentWriter.builder().agentApi(api).traceBufferSize(disruptorSize).flushFrequencySeconds(-1).build()
@@ -170,6 +261,42 @@ class DDAgentWriterTest extends DDSpecification {
     trace = (1..10).collect { span }
   }
 
+  def "idle writer flushes a late trace by time"() {
+    setup:
+    def writer = DDAgentWriter.builder().agentApi(api).monitor(monitor).build()
+    writer.start()
+
+    when:
+    // Nothing to send, the writer thread stays parked past the first interval.
+    Thread.sleep(1500)
+
+    then:
+    0 * _
+
+    when:
+    def start = System.nanoTime()
+    writer.write(trace)
+    phaser.awaitAdvanceInterruptibly(phaser.arriveAndDeregister())
+
+    then:
+    1 * api.serializeTrace(_) >> { trace -> callRealMethod() }
+    1 * api.sendSerializedTraces(1, _, { it.size() == 1 }) >> Api.Response.success(200)
+    1 * monitor.onPublish(_, _)
+    1 * monitor.onSerialize(_, _, _)
+    1 * monitor.onFlush(_, false)
+    1 * monitor.onSend(_, _, _, _) >> {
+      phaser.arrive()
+    }
+    0 * _
+    System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2)
+
+    cleanup:
+    writer.close()
+
+    where:
+    trace = [newSpanOf(0, "fixed-thread-name")]
+  }
+
   def "test default buffer size"() {
     setup:
     def writer = DDAgentWriter.builder().agentApi(api).traceBufferSize(DISRUPTOR_BUFFER_SIZE).flushFrequencySeconds(-1).build()
@@ -213,7 +340,7 @@ class DDAgentWriterTest extends DDSpecification {
     minimalSpan = new DDSpan(0, minimalContext)
     minimalTrace = [minimalSpan]
     traceSize = calculateSize(minimalTrace)
-    maxedPayloadTraceCount = ((int) (BatchWritingDisruptor.FLUSH_PAYLOAD_BYTES / traceSize)) + 1
+    maxedPayloadTraceCount = ((int) (BatchWritingDisruptor.MAX_FLUSH_PAYLOAD_BYTES / traceSize)) + 1
   }
 
   def "check that are no interactions after close"() {
@@ -0,0 +1,72 @@
+package datadog.trace.api.writer
+
+import datadog.trace.common.writer.Api
+import datadog.trace.common.writer.SerializedBufferPool
+import datadog.trace.util.test.DDSpecification
+
+class SerializedBufferPoolTest extends DDSpecification {
+
+  def "borrowed arrays are rounded up to a size class"() {
+    setup:
+    def pool = new SerializedBufferPool()
+
+    expect:
+    pool.borrow(requested).length == expected
+
+    where:
+    requested     | expected
+    0             | 256
+    256           | 256
+    257           | 512
+    1000          | 1024
+    1 << 20       | 1 << 20
+    (1 << 20) + 1 | (1 << 20) + 1
+  }
+
+  def "released arrays are reused"() {
+    setup:
+    def pool = new SerializedBufferPool()
+    def array = pool.borrow(600)
+
+    when:
+    pool.release(array)
+
+    then:
+    pool.borrow(1000).is(array)
+    !pool.borrow(1000).is(array)
+  }
+
+  def "streaming buffer grows across size classes and returns its array"() {
+    setup:
+    def pool = new SerializedBufferPool()
+    def buffer = new Api.StreamingSerializedBuffer(pool, 16)
+    def bytes = (0..<1000).collect { (byte) it } as byte[]
+
+    when:
+    buffer.write(bytes, 0, bytes.length)
+    buffer.write(7)
+
+    then:
+    buffer.length() == 1001
+    buffer.toByteArray() == (bytes + [(byte) 7]) as byte[]
+
+    when:
+    buffer.release()
+
+    then:
+    buffer.length() == 1001
+    pool.borrow(1001).length == 1024
+
+    when:
+    buffer.write(1)
+
+    then:
+    thrown IllegalStateException
+
+    when:
+    buffer.toByteArray()
+
+    then:
+    thrown IllegalStateException
+  }
+}
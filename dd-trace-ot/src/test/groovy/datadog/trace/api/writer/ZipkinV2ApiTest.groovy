@@ -182,6 +182,50 @@ class ZipkinV2ApiTest extends DDSpecification {
     agent.close()
   }
 
+  def "empty traces are skipped"() {
+    setup:
+    def agent = httpServer {
+      handlers {
+        post("v1/trace") {
+          response.send()
+        }
+      }
+    }
+    def client = new ZipkinV2Api("localhost", agent.address.port, "/v1/trace", false)
+
+    expect:
+    client.sendTraces([[], [SpanFactory.newSpanOf(1L)], []]).success()
+    agent.lastRequest.contentLength == agent.lastRequest.body.length
+    convertList(agent.lastRequest.body).size() == 1
+
+    cleanup:
+    agent.close()
+  }
+
+  def "flushes reuse a pooled connection"() {
+    setup:
+    def agent = httpServer {
+      handlers {
+        post("v1/trace") {
+          response.send()
+        }
+      }
+    }
+    def client = new ZipkinV2Api("localhost", agent.address.port, "/v1/trace", false)
+    def traces = [[SpanFactory.newSpanOf(1L)]]
+    def requests = 500
+
+    when:
+    def successes = (1..requests).count { client.sendTraces(traces).success() }
+
+    then:
+    successes == requests
+    client.httpClient.connectionPool().connectionCount() == 1
+
+    cleanup:
+    agent.close()
+  }
+
   static List<TreeMap<String, Object>> convertList(byte[] bytes) {
     def container = GZIP ? new GZIPInputStream(new ByteArrayInputStream(bytes)) : bytes
     return mapper.readValue(container, new TypeReference<List<TreeMap<String, Object>>>() {})
@@ -0,0 +1,48 @@
+package datadog.trace.common.util
+
+import datadog.trace.util.test.DDSpecification
+
+class BoundedCacheTest extends DDSpecification {
+
+  def "values are cached and replaced"() {
+    setup:
+    def cache = new BoundedCache<String, String>(16)
+
+    expect:
+    cache.get("key") == null
+
+    when:
+    cache.put("key", "first")
+
+    then:
+    cache.get("key") == "first"
+
+    when:
+    cache.put("key", "second")
+
+    then:
+    cache.get("key") == "second"
+    cache.hitCount == 2
+    cache.missCount == 1
+  }
+
+  def "size is bounded"() {
+    setup:
+    def cache = new BoundedCache<String, Integer>(capacity)
+
+    when:
+    (1..1000).each {
+      cache.put("key" + it, it)
+      assert cache.get("key" + it) == it
+    }
+
+    then:
+    (1..1000).count { cache.get("key" + it) != null } <= expectedMaxSize
+
+    where:
+    capacity | expectedMaxSize
+    1        | 8
+    16       | 16
+    100      | 128
+  }
+}
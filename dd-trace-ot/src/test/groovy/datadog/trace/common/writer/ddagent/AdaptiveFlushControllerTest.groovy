@@ -0,0 +1,82 @@
+package datadog.trace.common.writer.ddagent
+
+import datadog.trace.util.test.DDSpecification
+
+import java.util.concurrent.TimeUnit
+
+import static datadog.trace.common.writer.ddagent.AdaptiveFlushController.MIN_PAYLOAD_BYTES
+import static datadog.trace.common.writer.ddagent.AdaptiveFlushController.PAYLOAD_INCREMENT_BYTES
+import static datadog.trace.common.writer.ddagent.AdaptiveFlushController.TARGET_LATENCY_NANOS
+
+class AdaptiveFlushControllerTest extends DDSpecification {
+  static final int MAX_PAYLOAD = 5_000_000
+  static final long BASE_INTERVAL = TimeUnit.SECONDS.toNanos(1)
+  static final long FAST = TARGET_LATENCY_NANOS / 10
+  static final long SLOW = TARGET_LATENCY_NANOS * 2
+
+  def "starts from the configured policy"() {
+    setup:
+    def controller = new AdaptiveFlushController(MAX_PAYLOAD, BASE_INTERVAL)
+
+    expect:
+    controller.payloadBytes() == MAX_PAYLOAD
+    controller.intervalNanos() == BASE_INTERVAL
+    !controller.onSend(true, FAST)
+  }
+
+  def "slow or failed sends shrink batches multiplicatively"() {
+    setup:
+    def controller = new AdaptiveFlushController(MAX_PAYLOAD, BASE_INTERVAL)
+
+    when:
+    def changed = controller.onSend(success, latency)
+
+    then:
+    changed
+    controller.payloadBytes() == MAX_PAYLOAD / 2
+    controller.intervalNanos() == BASE_INTERVAL * 2
+
+    where:
+    success | latency
+    true    | SLOW
+    false   | FAST
+  }
+
+  def "policy stays within bounds"() {
+    setup:
+    def controller = new AdaptiveFlushController(MAX_PAYLOAD, BASE_INTERVAL)
+
+    when:
+    20.times { controller.onSend(false, SLOW) }
+
+    then:
+    controller.payloadBytes() == MIN_PAYLOAD_BYTES
+    controller.intervalNanos() == BASE_INTERVAL * AdaptiveFlushController.MAX_INTERVAL_MULTIPLIER
+
+    when:
+    controller.onSend(true, FAST)
+
+    then:
+    controller.payloadBytes() == MIN_PAYLOAD_BYTES + PAYLOAD_INCREMENT_BYTES
+    controller.intervalNanos() < BASE_INTERVAL * AdaptiveFlushController.MAX_INTERVAL_MULTIPLIER
+
+    when:
+    100.times { controller.onSend(true, FAST) }
+
+    then:
+    controller.payloadBytes() == MAX_PAYLOAD
+    controller.intervalNanos() == BASE_INTERVAL
+  }
+
+  def "timed flushes stay disabled"() {
+    setup:
+    def controller = new AdaptiveFlushController(MAX_PAYLOAD, -1)
+
+    when:
+    controller.onSend(false, SLOW)
+    controller.onSend(true, FAST)
+
+    then:
+    controller.intervalNanos() == -1
+  }
+}
@@ -0,0 +1,176 @@
+package datadog.trace.common.writer.ddagent
+
+import datadog.trace.common.writer.Api
+import datadog.trace.util.test.DDSpecification
+
+class OverflowRingFileTest extends DDSpecification {
+  // Smallest ring allowed, 1 KB of data after the header.
+  static final long SIZE = OverflowRingFile.HEADER_SIZE + 1024
+  static final String FORMAT = "msgpack"
+
+  File file
+
+  def setup() {
+    file = File.createTempFile("overflow", ".ring")
+  }
+
+  def cleanup() {
+    file.delete()
+  }
+
+  def "batches are read back in order"() {
+    setup:
+    def ring = OverflowRingFile.openOrNull(file.path, SIZE, FORMAT)
+
+    when:
+    ring.append(batch(3, "a" * 10, "b" * 20))
+    ring.append(batch(1, "c" * 30))
+
+    then:
+    !ring.isEmpty()
+    ring.oldestRepresentativeCount() == 3
+
+    when:
+    def first = ring.poll()
+    def second = ring.poll()
+
+    then:
+    first.representativeCount == 3
+    first.serializedTraces*.toByteArray().collect { new String(it) } == ["a" * 10, "b" * 20]
+    second.representativeCount == 1
+    second.serializedTraces*.toByteArray().collect { new String(it) } == ["c" * 30]
+    ring.isEmpty()
+
+    cleanup:
+    ring.close()
+  }
+
+  def "records wrap around the end of the file"() {
+    setup:
+    def ring = OverflowRingFile.openOrNull(file.path, SIZE, FORMAT)
+    def payload = "x" * 300
+
+    when:
+    // Records take 321 bytes, so only the last 3 fit in 1 KB.
+    10.times { i ->
+      def next = batch(i, payload + i)
+      while (!ring.hasRoomFor(next)) {
+        ring.dropOldest()
+      }
+      ring.append(next)
+    }
+
+    then:
+    ring.oldestRepresentativeCount() == 7
+    new String(ring.poll().serializedTraces[0].toByteArray()) == payload + 7
+    new String(ring.poll().serializedTraces[0].toByteArray()) == payload + 8
+    new String(ring.poll().serializedTraces[0].toByteArray()) == payload + 9
+    ring.isEmpty()
+
+    cleanup:
+    ring.close()
+  }
+
+  def "unsent batches are recovered after reopening"() {
+    setup:
+    def ring = OverflowRingFile.openOrNull(file.path, SIZE, FORMAT)
+    ring.append(batch(5, "recovered"))
+    ring.close()
+
+    when:
+    ring = OverflowRingFile.openOrNull(file.path, SIZE, FORMAT)
+    def recovered = ring.poll()
+
+    then:
+    recovered.representativeCount == 5
+    recovered.sizeInBytes == "recovered".length()
+    new String(recovered.serializedTraces[0].toByteArray()) == "recovered"
+
+    cleanup:
+    ring.close()
+  }
+
+  def "batches written in another format are discarded after reopening"() {
+    setup:
+    def ring = OverflowRingFile.openOrNull(file.path, SIZE, FORMAT)
+    ring.append(batch(5, "msgpack"))
+    ring.close()
+
+    when:
+    ring = OverflowRingFile.openOrNull(file.path, SIZE, "json")
+
+    then:
+    ring.isEmpty()
+    ring.poll() == null
+
+    cleanup:
+    ring.close()
+  }
+
+  def "corrupt records are discarded"() {
+    setup:
+    def ring = OverflowRingFile.openOrNull(file.path, SIZE, FORMAT)
+    ring.append(batch(5, "corrupt"))
+    ring.append(batch(6, "lost"))
+    ring.close()
+    new RandomAccessFile(file, "rw").withCloseable {
+      // Length of the first trace of the first record.
+      it.seek(OverflowRingFile.HEADER_SIZE + 16)
+      it.writeInt(1_000_000)
+    }
+
+    when:
+    ring = OverflowRingFile.openOrNull(file.path, SIZE, FORMAT)
+
+    then:
+    !ring.isEmpty()
+    ring.poll() == null
+    ring.isEmpty()
+
+    cleanup:
+    ring.close()
+  }
+
+  def "dropping a record with a corrupt length clears the ring"() {
+    setup:
+    def ring = OverflowRingFile.openOrNull(file.path, SIZE, FORMAT)
+    ring.append(batch(5, "corrupt"))
+    ring.append(batch(6, "lost"))
+    ring.close()
+    new RandomAccessFile(file, "rw").withCloseable {
+      // Length of the first record.
+      it.seek(OverflowRingFile.HEADER_SIZE)
+      it.writeInt(length)
+    }
+
+    when:
+    ring = OverflowRingFile.openOrNull(file.path, SIZE, FORMAT)
+    ring.dropOldest()
+
+    then:
+    ring.isEmpty()
+    ring.hasRoomFor(batch(1, "fits"))
+
+    cleanup:
+    ring.close()
+
+    where:
+    length << [0, -1, 1_000_000]
+  }
+
+  def "batches larger than the file are rejected"() {
+    setup:
+    def ring = OverflowRingFile.openOrNull(file.path, SIZE, FORMAT)
+
+    expect:
+    !ring.canHold(batch(1, "y" * 2000))
+
+    cleanup:
+    ring.close()
+  }
+
+  static PendingBatch batch(int representativeCount, String... traces) {
+    def buffers = traces.collect { new Api.PredeterminedByteArraySerializedBuffer(it.bytes) }
+    return new PendingBatch(buffers, representativeCount, traces.sum { it.length() } as int)
+  }
+}